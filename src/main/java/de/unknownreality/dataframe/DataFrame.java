@@ -29,6 +29,7 @@ import de.unknownreality.dataframe.common.DataContainer;
 import de.unknownreality.dataframe.filter.FilterPredicate;
 import de.unknownreality.dataframe.group.DataGrouping;
 import de.unknownreality.dataframe.group.GroupUtil;
+import de.unknownreality.dataframe.group.aggr.AggregateSpec;
 import de.unknownreality.dataframe.index.Index;
 import de.unknownreality.dataframe.io.*;
 import de.unknownreality.dataframe.join.JoinColumn;
@@ -46,7 +47,7 @@ import java.util.Comparator;
 /**
  * Created by algru on 12.06.2017.
  */
-public interface DataFrame extends DataContainer<DataFrameHeader, DataRow> {
+public interface DataFrame extends DataContainer<DataFrameHeader, DataRow>, AutoCloseable {
     /**
      * Returns the name of this dataframe
      *
@@ -61,6 +62,22 @@ public interface DataFrame extends DataContainer<DataFrameHeader, DataRow> {
      */
     void setName(String name);
 
+    /**
+     * Sets the {@link Parallelism parallel execution setting} used by operations on this data frame,
+     * e.g. {@link #sort(SortColumn...)} and {@link #groupBy(String...)}.
+     * <tt>null</tt> resets the data frame to {@link Parallelism#getDefault()}.
+     *
+     * @param parallelism parallel execution setting
+     */
+    void setParallelism(Parallelism parallelism);
+
+    /**
+     * Returns the {@link Parallelism parallel execution setting} used by operations on this data frame
+     *
+     * @return parallel execution setting
+     */
+    Parallelism getParallelism();
+
     /**
      * Returns the version of this dataframe.
      * The version is automatically increased on each function that alters the dataframe (sort,...)
@@ -189,6 +206,18 @@ public interface DataFrame extends DataContainer<DataFrameHeader, DataRow> {
     <T, C extends DataFrameColumn<T, C>> DataFrame addColumn(Class<C> type, String name, ColumnAppender<T> appender);
 
 
+    /**
+     * Adds a new {@link ExpressionColumn} to the dataframe.
+     * The values are computed from the other columns when they are read.
+     *
+     * @param name       name of the column
+     * @param type       type of the computed values
+     * @param expression expression computing the values
+     * @param <T>        type of the computed values
+     * @return <tt>self</tt> for method chaining
+     */
+    <T> DataFrame addExpressionColumn(String name, Class<T> type, ColumnExpression<T> expression);
+
     /**
      * Adds a new {@link BooleanColumn} to the dataframe.
      *
@@ -303,6 +332,21 @@ public interface DataFrame extends DataContainer<DataFrameHeader, DataRow> {
      */
     DataFrame append(Object... values);
 
+    /**
+     * Appends rows column-wise. Each argument is an array containing the values of one column.
+     * <p>There must be <b>exactly one array for each column</b> and all arrays must have the same length.</p>
+     * <p>Primitive arrays matching the column type (e.g. <code>double[]</code> for a
+     * {@link de.unknownreality.dataframe.column.DoubleColumn DoubleColumn}) are copied in bulk.
+     * Other arrays must contain values matching the column type,
+     * empty values must be provided as <tt>null</tt> or {@link Values#NA NA}.</p>
+     * <p>The indices are updated once after all columns are appended.</p>
+     * If the wrong number of arrays, a wrong array length or a wrong type is found a {@link DataFrameRuntimeException} is thrown.
+     *
+     * @param columnValues one array of values for each column
+     * @return <tt>self</tt> for method chaining
+     */
+    DataFrame appendColumns(Object... columnValues);
+
     /**
      * Appends a new data row. Only row values matching a dataframe column are appended
      *
@@ -364,6 +408,17 @@ public interface DataFrame extends DataContainer<DataFrameHeader, DataRow> {
      */
     DataFrame sort(SortColumn... columns);
 
+    /**
+     * Sorts the rows in this data frame by one or more {@link SortColumn},
+     * in parallel if the frame has at least {@link Parallelism#getThreshold()} rows.
+     * The result is identical to {@link #sort(SortColumn...)}.
+     *
+     * @param parallelism parallel execution setting used for this sort
+     * @param columns     sort columns
+     * @return <tt>self</tt> for method chaining
+     */
+    DataFrame sort(Parallelism parallelism, SortColumn... columns);
+
     /**
      * Sorts the rows in this data frame using a custom {@link Comparator}
      *
@@ -389,6 +444,28 @@ public interface DataFrame extends DataContainer<DataFrameHeader, DataRow> {
      */
     DataFrame sort(String name, SortColumn.Direction dir);
 
+    /**
+     * Returns a new data frame containing the first <tt>n</tt> rows of this data frame sorted by the sort columns.
+     * The result is equal to the head of the sorted data frame, but the rows are selected using a bounded heap
+     * without sorting all rows. This data frame is not changed.
+     *
+     * @param n       number of rows
+     * @param columns sort columns
+     * @return data frame with the first <tt>n</tt> sorted rows
+     */
+    DataFrame topN(int n, SortColumn... columns);
+
+    /**
+     * Returns a new data frame containing the last <tt>n</tt> rows of this data frame sorted by the sort columns.
+     * The result is equal to the tail of the sorted data frame, but the rows are selected using a bounded heap
+     * without sorting all rows. This data frame is not changed.
+     *
+     * @param n       number of rows
+     * @param columns sort columns
+     * @return data frame with the last <tt>n</tt> sorted rows
+     */
+    DataFrame bottomN(int n, SortColumn... columns);
+
     /**
      * Shuffles all rows
      *
@@ -597,6 +674,7 @@ public interface DataFrame extends DataContainer<DataFrameHeader, DataRow> {
     /**
      * Creates a new data frame from a subset of this data frame.
      * Rows between <tt>from</tt> and <tt>to</tt> are added to the new data frame.
+     * The columns of the subset are created using {@link DataFrameColumn#slice(int, int)}.
      *
      * @param from lowest row index
      * @param to   highest row index
@@ -672,6 +750,16 @@ public interface DataFrame extends DataContainer<DataFrameHeader, DataRow> {
      */
     DataRow getRow(int i);
 
+    /**
+     * Returns a cursor positioned before the first row of this data frame.
+     * The cursor is a single mutable row that is moved over the rows,
+     * it avoids creating a {@link DataRow} object for each row.
+     *
+     * @return row cursor
+     * @see RowCursor
+     */
+    RowCursor cursor();
+
     /**
      * Returns a collection of the column names in this data frame
      *
@@ -782,7 +870,9 @@ public interface DataFrame extends DataContainer<DataFrameHeader, DataRow> {
     ShortColumn getShortColumn(String name);
 
     /**
-     * Groups this data frame using one or more columns
+     * Groups this data frame using one or more columns.
+     * The {@link de.unknownreality.dataframe.group.DataGroup data groups} may be created lazily from the rows of this data frame.
+     * Requesting a group that was not created yet fails if this data frame was changed after grouping.
      *
      * @param column group columns
      * @return {@link DataGrouping data grouping}
@@ -790,6 +880,17 @@ public interface DataFrame extends DataContainer<DataFrameHeader, DataRow> {
      */
     DataGrouping groupBy(String... column);
 
+    /**
+     * Groups this data frame using one or more columns and computes aggregates for all groups.
+     * The aggregates are computed in a single pass over the rows, without creating a data frame for each group.
+     *
+     * @param columns    group columns
+     * @param aggregates aggregates added as columns to the grouping
+     * @return {@link DataGrouping data grouping} containing the group columns and one column per aggregate
+     * @see GroupUtil#groupBy(DataFrame, String[], AggregateSpec...)
+     */
+    DataGrouping groupBy(String[] columns, AggregateSpec... aggregates);
+
     /**
      * Joins this data frame with another data frame using the <tt>LEFT JOIN</tt> method.
      *
@@ -922,9 +1023,21 @@ public interface DataFrame extends DataContainer<DataFrameHeader, DataRow> {
      */
     JoinedDataFrame joinOuter(DataFrame dataFrame, String suffixA, String suffixB, JoinColumn... joinColumns);
 
+    /**
+     * Replaces all columns with their sealed version created by {@link DataFrameColumn#seal()}.
+     * Sealed columns are immutable and compressed, e.g. {@link de.unknownreality.dataframe.column.PackedLongColumn}.
+     * Appending, updating or clearing a data frame that contains a sealed column fails before any column is changed.
+     * Sorting and filtering create new modifiable columns.
+     *
+     * @return <tt>self</tt> for method chaining
+     */
+    DataFrame seal();
+
     /**
      * Returns a copy of this data frame.
      * Header, columns, rows and indices are copied.
+     * The columns are copied using {@link DataFrameColumn#copy()},
+     * columns with primitive value storage share their values with the copy until they are modified.
      *
      * @return copy of data frame
      */
@@ -1806,4 +1919,11 @@ public interface DataFrame extends DataContainer<DataFrameHeader, DataRow> {
      * Clears all columns
      */
     void clear();
+
+    /**
+     * Closes all columns and releases their resources, for example off-heap memory.
+     * The dataframe is empty afterwards.
+     */
+    @Override
+    void close();
 }
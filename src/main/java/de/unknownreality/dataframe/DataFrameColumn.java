@@ -25,6 +25,7 @@
 package de.unknownreality.dataframe;
 
 import de.unknownreality.dataframe.common.Row;
+import de.unknownreality.dataframe.sort.IndexComparator;
 import de.unknownreality.dataframe.transform.ColumnDataFrameTransform;
 import de.unknownreality.dataframe.transform.ColumnTransform;
 import de.unknownreality.dataframe.type.ValueType;
@@ -101,6 +102,7 @@ public abstract class DataFrameColumn<T, C extends DataFrameColumn<T, C>> implem
      * @return <tt>self</tt> for method chaining
      */
     public final C sort(Comparator<T> comparator) {
+        validateModify();
         doSort(comparator);
         notifyDataFrameColumnChanged();
         return getThis();
@@ -120,6 +122,7 @@ public abstract class DataFrameColumn<T, C extends DataFrameColumn<T, C>> implem
      * @return <tt>self</tt> for method chaining
      */
     public final C sort() {
+        validateModify();
         doSort();
         notifyDataFrameColumnChanged();
         return getThis();
@@ -185,6 +188,7 @@ public abstract class DataFrameColumn<T, C extends DataFrameColumn<T, C>> implem
      * @return <tt>self</tt> for method chaining
      */
     public final C set(int index, T value) {
+        validateModify();
         doSet(index, value);
         notifyDataFrameValueChanged(index);
         return getThis();
@@ -223,6 +227,7 @@ public abstract class DataFrameColumn<T, C extends DataFrameColumn<T, C>> implem
      * @return <tt>self</tt> for method chaining
      */
     public final C map(MapFunction<T> mapFunction) {
+        validateModify();
         doMap(mapFunction);
         notifyDataFrameColumnChanged();
         return getThis();
@@ -240,11 +245,59 @@ public abstract class DataFrameColumn<T, C extends DataFrameColumn<T, C>> implem
      * @return <tt>self</tt> for method chaining
      */
     public final C reverse() {
+        validateModify();
         doReverse();
         notifyDataFrameColumnChanged();
         return getThis();
     }
 
+    /**
+     * Returns a comparator for the values at two indices of this column, using the natural ordering of the values.
+     * The comparator must only be used for indices of non-<tt>NA</tt> values.
+     * Columns with primitive values override this method to compare values without boxing.
+     *
+     * @return index comparator
+     */
+    public IndexComparator getIndexComparator() {
+        Comparator<T> comparator = getValueType().getComparator();
+        return (a, b) -> comparator.compare(get(a), get(b));
+    }
+
+    /**
+     * Reorders the values of this column.
+     * The value at position <tt>i</tt> is the previous value at position <tt>order[i]</tt>.
+     * The default implementation reads and sets all values, columns override this method to permute their value storage.
+     *
+     * @param order new order of the values
+     */
+    @SuppressWarnings("unchecked")
+    protected void reorder(int[] order) {
+        Object[] reordered = new Object[order.length];
+        for (int i = 0; i < order.length; i++) {
+            reordered[i] = isNA(order[i]) ? null : get(order[i]);
+        }
+        for (int i = 0; i < order.length; i++) {
+            if (reordered[i] == null) {
+                doSetNA(i);
+            } else {
+                doSet(i, (T) reordered[i]);
+            }
+        }
+    }
+
+    /**
+     * Applies a row order to this column. Used by the data frame to reorder all columns after sorting.
+     * Modifiable columns are reordered in place, immutable columns return a reordered modifiable copy.
+     *
+     * @param order new order of the values
+     * @return reordered column
+     * @see #reorder(int[])
+     */
+    protected C permute(int[] order) {
+        reorder(order);
+        return getThis();
+    }
+
 
     /**
      * Returns the value at a specified index
@@ -268,6 +321,83 @@ public abstract class DataFrameColumn<T, C extends DataFrameColumn<T, C>> implem
      */
     public abstract C copyEmpty();
 
+    /**
+     * Creates a new column containing the values from index <tt>from</tt> (inclusive) to <tt>to</tt> (exclusive).
+     * The returned column is independent of this column.
+     * Columns with primitive value storage share the storage with the slice until one of them is modified.
+     *
+     * @param from first index (inclusive)
+     * @param to   last index (exclusive)
+     * @return new column containing the selected values
+     */
+    public C slice(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new DataFrameRuntimeException(String.format("invalid slice [%d, %d) of column with size %d", from, to, size()));
+        }
+        C slice = copyEmpty();
+        slice.setCapacity(to - from);
+        for (int i = from; i < to; i++) {
+            if (isNA(i)) {
+                slice.doAppendNA();
+            } else {
+                slice.doAppend(get(i));
+            }
+        }
+        return slice;
+    }
+
+    /**
+     * Returns a new column containing the values at the specified indices, in the order of the indices.
+     *
+     * @param indices indices of the selected values
+     * @return new column containing the selected values
+     */
+    public C slice(int[] indices) {
+        C slice = copyEmpty();
+        slice.setCapacity(indices.length);
+        for (int index : indices) {
+            if (isNA(index)) {
+                slice.doAppendNA();
+            } else {
+                slice.doAppend(get(index));
+            }
+        }
+        return slice;
+    }
+
+    /**
+     * Keeps only the values at the specified indices. Used by the data frame to filter all columns.
+     * The indices must be in ascending order.
+     * Modifiable columns are compacted in place, the default implementation returns a new column.
+     *
+     * @param indices ascending indices of the kept values
+     * @return compacted column
+     * @see #slice(int[])
+     */
+    protected C compact(int[] indices) {
+        return slice(indices);
+    }
+
+    /**
+     * Returns an immutable, compressed version of this column.
+     * Columns without a compressed representation return themselves.
+     *
+     * @return sealed column
+     */
+    public C seal() {
+        return getThis();
+    }
+
+    /**
+     * Returns <tt>true</tt> if this column is sealed and can not be modified.
+     *
+     * @return <tt>true</tt> if this column is sealed
+     * @see #seal()
+     */
+    public boolean isSealed() {
+        return false;
+    }
+
     /**
      * Clears this column.
      * All values are removed and the size is doSet to 0
@@ -445,6 +575,31 @@ public abstract class DataFrameColumn<T, C extends DataFrameColumn<T, C>> implem
         return doAppendAll(c);
     }
 
+    /**
+     * Validates a bulk append of <tt>len</tt> values starting at <tt>off</tt> in an array.
+     * Used by the primitive <tt>appendAll</tt> methods of the column implementations.
+     * <p>Calls {@link #validateAppend()} to ensure data frame index consistency</p>
+     *
+     * @param arrayLength length of the source array
+     * @param off         first value in the source array
+     * @param len         number of values
+     * @return <tt>true</tt> if the values can be appended
+     * @throws DataFrameRuntimeException if the range is not within the array
+     */
+    protected final boolean validateAppendAll(int arrayLength, int off, int len) {
+        if (off < 0 || len < 0 || off > arrayLength - len) {
+            throw new DataFrameRuntimeException(
+                    String.format("invalid range [%d, %d) of array with length %d", off, off + len, arrayLength));
+        }
+        try {
+            validateAppend();
+        } catch (DataFrameException e) {
+            log.warn(ERROR_APPENDING, e);
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Used by {@link #appendNA()} to append NA at the end of this column.
      *
@@ -509,6 +664,7 @@ public abstract class DataFrameColumn<T, C extends DataFrameColumn<T, C>> implem
      * @return <tt>self</tt> for method chaining
      */
     public final C setNA(int index) {
+        validateModify();
         doSetNA(index);
         notifyDataFrameValueChanged(index);
         return getThis();
@@ -530,6 +686,18 @@ public abstract class DataFrameColumn<T, C extends DataFrameColumn<T, C>> implem
         }
     }
 
+    /**
+     * Throws a {@link DataFrameRuntimeException} if the parent {@link DefaultDataFrame data frame} is sealed.
+     * Modifying a column of a sealed data frame is not allowed, even if the column itself is not sealed.
+     *
+     * @see DataFrame#seal()
+     */
+    protected void validateModify() {
+        if (dataFrame != null) {
+            dataFrame.checkModifiable();
+        }
+    }
+
     /**
      * Notifies the parent {@link DefaultDataFrame data frame} about a value change at a specified index.
      * This tells the data frame to update the indices if required.
@@ -569,6 +737,15 @@ public abstract class DataFrameColumn<T, C extends DataFrameColumn<T, C>> implem
         this.dataFrameAppend = false;
     }
 
+    /**
+     * Releases resources held by this column, for example off-heap memory.
+     * The default implementation {@link #clear() clears} the column.
+     * A closed column is empty.
+     */
+    public void close() {
+        clear();
+    }
+
     /**
      * Returns the parent {@link DefaultDataFrame data frame}
      *
@@ -25,6 +25,7 @@
 package de.unknownreality.dataframe;
 
 import de.unknownreality.dataframe.column.BasicColumn;
+import de.unknownreality.dataframe.column.DictionaryStringColumn;
 import de.unknownreality.dataframe.column.StringColumn;
 import de.unknownreality.dataframe.common.Row;
 import de.unknownreality.dataframe.common.row.BasicRow;
@@ -95,7 +96,8 @@ public class DataFrameConverter {
      * Converts a parent data container to a data frame.
      * The required column information is provided by a column information object.
      * If no column information is defined, the one specified by the dataIterator is used.
-     * Only rows validated by the filter are appended to the resulting data frame
+     * Only rows validated by the filter are appended to the resulting data frame.
+     * A column information with the column type {@link DictionaryStringColumn} creates a dictionary encoded string column.
      *
      * @param <R>                row type
      * @param dataIterator       parent data container
@@ -43,7 +43,10 @@ public class DataRows extends ArrayList<DataRow>{
 
     public DataFrame toDataFrame(){
         DataFrame df = DataFrame.create();
-        df.set(dataFrame.getHeader().copy());
+        // keep the column implementations (e.g. off-heap or dictionary encoded columns)
+        for (DataFrameColumn<?, ?> column : dataFrame.getColumns()) {
+            df.addColumn(column.copyEmpty());
+        }
         if(isEmpty()){
             return df;
         }
@@ -30,14 +30,18 @@ import de.unknownreality.dataframe.filter.FilterPredicate;
 import de.unknownreality.dataframe.filter.compile.PredicateCompiler;
 import de.unknownreality.dataframe.group.DataGrouping;
 import de.unknownreality.dataframe.group.GroupUtil;
-import de.unknownreality.dataframe.group.impl.TreeGroupUtil;
+import de.unknownreality.dataframe.group.aggr.AggregateSpec;
+import de.unknownreality.dataframe.group.impl.HashGroupUtil;
+import de.unknownreality.dataframe.group.impl.SortedGroupUtil;
 import de.unknownreality.dataframe.index.Index;
 import de.unknownreality.dataframe.index.Indices;
 import de.unknownreality.dataframe.join.JoinColumn;
 import de.unknownreality.dataframe.join.JoinUtil;
 import de.unknownreality.dataframe.join.JoinedDataFrame;
 import de.unknownreality.dataframe.join.impl.DefaultJoinUtil;
-import de.unknownreality.dataframe.sort.RowColumnComparator;
+import de.unknownreality.dataframe.sort.IndexComparator;
+import de.unknownreality.dataframe.sort.IndexSort;
+import de.unknownreality.dataframe.sort.RadixSort;
 import de.unknownreality.dataframe.sort.SortColumn;
 import de.unknownreality.dataframe.transform.DataFrameTransform;
 import de.unknownreality.dataframe.type.DataFrameTypeManager;
@@ -45,6 +49,7 @@ import de.unknownreality.dataframe.type.ValueType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.Array;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -55,15 +60,21 @@ public class DefaultDataFrame implements DataFrame {
     private static final Logger log = LoggerFactory.getLogger(DefaultDataFrame.class);
     public final static int DEFAULT_HEAD_SIZE = 20;
     public final static int DEFAULT_TAIL_SIZE = 20;
+    private final static GroupUtil SORTED_GROUP_UTIL = new SortedGroupUtil();
     private int size;
     private final Map<String, DataFrameColumn<?, ?>> columnsMap = new LinkedHashMap<>();
     private DataFrameColumn<?, ?>[] columns = null;
     private DataFrameHeader header = new DataFrameHeader();
     private final Indices indices = new Indices(this);
     private JoinUtil joinUtil = new DefaultJoinUtil();
-    private GroupUtil groupUtil = new TreeGroupUtil();
+    private GroupUtil groupUtil = new HashGroupUtil();
     private final AtomicInteger version = new AtomicInteger(0);
+    private final AtomicInteger valueVersion = new AtomicInteger(0);
+    private DataFrameColumn<?, ?>[] sortedBy;
+    private int sortedVersion;
+    private int sortedSize;
     private String name;
+    private Parallelism parallelism;
 
     public DefaultDataFrame() {
 
@@ -83,11 +94,32 @@ public class DefaultDataFrame implements DataFrame {
         this.name = name;
     }
 
+    @Override
+    public void setParallelism(Parallelism parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public Parallelism getParallelism() {
+        return parallelism == null ? Parallelism.getDefault() : parallelism;
+    }
+
     @Override
     public int getVersion() {
         return version.get();
     }
 
+    /**
+     * Returns the value version of this dataframe.
+     * Unlike {@link #getVersion()}, the value version is also increased if values of existing rows are changed in place,
+     * for example using {@link DataFrameColumn#set(int, Object)}.
+     *
+     * @return value version
+     */
+    public int getValueVersion() {
+        return valueVersion.get() + version.get();
+    }
+
     @Override
     public DefaultDataFrame setPrimaryKey(String... colNames) {
         DataFrameColumn<?, ?>[] columns = new DataFrameColumn[colNames.length];
@@ -140,14 +172,18 @@ public class DefaultDataFrame implements DataFrame {
 
 
     public DefaultDataFrame replaceColumn(DataFrameColumn<?, ?> existing, DataFrameColumn<?, ?> replacement) {
+        replaceColumn(existing, replacement, true);
+        return this;
+    }
+
+    private void replaceColumn(DataFrameColumn<?, ?> existing, DataFrameColumn<?, ?> replacement, boolean updateIndices) {
         int existingIndex = header.getIndex(existing.getName());
         columns[existingIndex] = replacement;
         header.replace(existing, replacement);
         columnsMap.remove(existing.getName());
         columnsMap.put(replacement.getName(), replacement);
-        indices.replace(existing, replacement);
+        indices.replace(existing, replacement, updateIndices);
         version.incrementAndGet();
-        return this;
     }
 
     @Override
@@ -167,7 +203,8 @@ public class DefaultDataFrame implements DataFrame {
 
     @Override
     public DefaultDataFrame addColumn(DataFrameColumn<?, ?> column) {
-        if (!DataFrameTypeManager.get().isRegistered(column)) {
+        // expression columns are bound to their expression and are never created by the type manager
+        if (!(column instanceof ExpressionColumn) && !DataFrameTypeManager.get().isRegistered(column)) {
             throw new DataFrameRuntimeException(
                     String.format("column type '%s' is not registered with DataFrameTypeManager", column.getClass()));
         }
@@ -207,6 +244,11 @@ public class DefaultDataFrame implements DataFrame {
     }
 
 
+    @Override
+    public <T> DefaultDataFrame addExpressionColumn(String name, Class<T> type, ColumnExpression<T> expression) {
+        return addColumn(new ExpressionColumn<>(name, type, expression));
+    }
+
     public DefaultDataFrame addBooleanColumn(String name) {
         BooleanColumn column = new BooleanColumn(name);
         return addColumn(column);
@@ -330,6 +372,7 @@ public class DefaultDataFrame implements DataFrame {
         if (columns == null) {
             throw new DataFrameRuntimeException("dataframe contains no columns");
         }
+        checkModifiable();
         if (dataFrame.getHeader().size() != columns.length) {
             throw new DataFrameRuntimeException("value for each column required");
         }
@@ -338,7 +381,7 @@ public class DefaultDataFrame implements DataFrame {
         for (int i = 0; i < columns.length; i++) {
             column = columns[i];
             column.startDataFrameAppend();
-            value = dataFrame.getValue(i, rowIndex);
+            value = column instanceof ExpressionColumn ? null : dataFrame.getValue(i, rowIndex);
             if (value == null || Values.NA.equals(value)) {
                 column.appendNA();
             } else {
@@ -359,6 +402,7 @@ public class DefaultDataFrame implements DataFrame {
         if (columns == null) {
             throw new DataFrameRuntimeException("dataframe contains no columns");
         }
+        checkModifiable();
         if (values.length != columns.length) {
             throw new DataFrameRuntimeException("value for each column required");
         }
@@ -390,6 +434,107 @@ public class DefaultDataFrame implements DataFrame {
         return this;
     }
 
+    @Override
+    public DefaultDataFrame appendColumns(Object... columnValues) {
+        if (columns == null) {
+            throw new DataFrameRuntimeException("dataframe contains no columns");
+        }
+        checkModifiable();
+        if (columnValues.length != columns.length) {
+            throw new DataFrameRuntimeException("values for each column required");
+        }
+        int rows = -1;
+        for (int i = 0; i < columns.length; i++) {
+            Object values = columnValues[i];
+            if (values == null || !values.getClass().isArray()) {
+                throw new DataFrameRuntimeException(String.format("values %d are not an array", i));
+            }
+            int length = Array.getLength(values);
+            if (rows == -1) {
+                rows = length;
+            } else if (length != rows) {
+                throw new DataFrameRuntimeException(String.format("values %d have wrong length (%d != %d)", i, length, rows));
+            }
+            if (isBulkAppendable(columns[i], values)) {
+                continue;
+            }
+            for (int j = 0; j < length; j++) {
+                Object value = Array.get(values, j);
+                if (!columns[i].isValueValid(value)) {
+                    throw new DataFrameRuntimeException(
+                            String.format("value %d of column %d has wrong type (%s != %s)", j, i,
+                                    value.getClass().getName(),
+                                    columns[i].getValueType().getType().getName()));
+                }
+            }
+        }
+        for (int i = 0; i < columns.length; i++) {
+            DataFrameColumn<?, ?> column = columns[i];
+            Object values = columnValues[i];
+            column.startDataFrameAppend();
+            if (!bulkAppend(column, values)) {
+                for (int j = 0; j < rows; j++) {
+                    Object value = Array.get(values, j);
+                    if (value == null || value == Values.NA) {
+                        column.appendNA();
+                    } else {
+                        column.appendRaw(value);
+                    }
+                }
+            }
+            column.endDataFrameAppend();
+        }
+        size += rows;
+        indices.updateRows(size - rows, size);
+        return this;
+    }
+
+    /**
+     * Returns <tt>true</tt> if a primitive array can be appended in bulk to a column
+     *
+     * @param column column
+     * @param values array of values
+     * @return <tt>true</tt> if the array type matches the column type
+     */
+    private static boolean isBulkAppendable(DataFrameColumn<?, ?> column, Object values) {
+        return (values instanceof double[] && column instanceof DoubleColumn)
+                || (values instanceof float[] && column instanceof FloatColumn)
+                || (values instanceof int[] && column instanceof IntegerColumn)
+                || (values instanceof long[] && column instanceof LongColumn)
+                || (values instanceof short[] && column instanceof ShortColumn)
+                || (values instanceof byte[] && column instanceof ByteColumn)
+                || (values instanceof boolean[] && column instanceof BooleanColumn);
+    }
+
+    /**
+     * Appends a primitive array in bulk to a column if the array type matches the column type
+     *
+     * @param column column
+     * @param values array of values
+     * @return <tt>true</tt> if the values were appended
+     */
+    private static boolean bulkAppend(DataFrameColumn<?, ?> column, Object values) {
+        if (!isBulkAppendable(column, values)) {
+            return false;
+        }
+        if (values instanceof double[]) {
+            ((DoubleColumn) column).appendAll((double[]) values);
+        } else if (values instanceof float[]) {
+            ((FloatColumn) column).appendAll((float[]) values);
+        } else if (values instanceof int[]) {
+            ((IntegerColumn) column).appendAll((int[]) values);
+        } else if (values instanceof long[]) {
+            ((LongColumn) column).appendAll((long[]) values);
+        } else if (values instanceof short[]) {
+            ((ShortColumn) column).appendAll((short[]) values);
+        } else if (values instanceof byte[]) {
+            ((ByteColumn) column).appendAll((byte[]) values);
+        } else {
+            ((BooleanColumn) column).appendAll((boolean[]) values);
+        }
+        return true;
+    }
+
     /**
      * @param row row containing the new values
      * @return <tt>self</tt> for method chaining
@@ -397,11 +542,12 @@ public class DefaultDataFrame implements DataFrame {
      */
     @Override
     public DefaultDataFrame append(DataRow row) {
+        checkModifiable();
         Object value;
         for (String h : header) {
             DataFrameColumn<?, ?> column = columnsMap.get(h);
             column.startDataFrameAppend();
-            value = row.get(h);
+            value = column instanceof ExpressionColumn ? null : row.get(h);
             if (value == null || value == Values.NA) {
                 column.appendNA();
             } else {
@@ -417,11 +563,12 @@ public class DefaultDataFrame implements DataFrame {
 
     @Override
     public DefaultDataFrame appendMatchingRow(DataRow row) {
+        checkModifiable();
         Object value;
         for (int i = 0; i < row.size(); i++) {
             DataFrameColumn<?, ?> column = columns[i];
             column.startDataFrameAppend();
-            value = row.get(i);
+            value = column instanceof ExpressionColumn ? null : row.get(i);
             if (value == null || value == Values.NA) {
                 column.appendNA();
             } else {
@@ -436,6 +583,7 @@ public class DefaultDataFrame implements DataFrame {
 
     @Override
     public DefaultDataFrame update(DataRow dataRow) {
+        checkModifiable();
         for (String h : header) {
             DataFrameColumn<?, ?> column = getColumn(h);
             Object newValue = dataRow.get(h);
@@ -486,13 +634,25 @@ public class DefaultDataFrame implements DataFrame {
     }
 
     protected DefaultDataFrame set(DataFrame dataFrame, Indices indices) {
+        return set(dataFrame.getColumns(), indices);
+    }
+
+    /**
+     * Replaces all columns of this data frame.
+     * The columns are added without copying, the values of the indices are rebuilt.
+     *
+     * @param columns new columns
+     * @param indices indices copied to this data frame, <tt>null</tt> to remove all indices
+     * @return <tt>self</tt> for method chaining
+     */
+    protected DefaultDataFrame set(Collection<DataFrameColumn<?, ?>> columns, Indices indices) {
         this.version.incrementAndGet();
         this.columnsMap.clear();
         this.columns = null;
 
         this.size = 0;
         this.header = new DataFrameHeader();
-        for (DataFrameColumn<?, ?> column : dataFrame.getColumns()) {
+        for (DataFrameColumn<?, ?> column : columns) {
             try {
                 column.setDataFrame(null);
                 addColumn(column);
@@ -568,9 +728,26 @@ public class DefaultDataFrame implements DataFrame {
 
     @Override
     public DefaultDataFrame sort(SortColumn... columns) {
-        DataRows rows = getRows(0, size);
-        rows.sort(new RowColumnComparator(columns));
-        set(rows, indices);
+        return sort(getParallelism(), columns);
+    }
+
+
+    @Override
+    public DefaultDataFrame sort(Parallelism parallelism, SortColumn... columns) {
+        DataFrameColumn<?, ?>[] keys = getSortKeys(columns);
+        boolean[] descending = getSortDirections(columns);
+        if (RadixSort.isSortable(keys)) {
+            applyOrder(RadixSort.argsort(size, keys, descending, parallelism));
+        } else {
+            applyOrder(IndexSort.argsort(size, createIndexComparator(keys, descending), parallelism));
+        }
+        DataFrameColumn<?, ?>[] sorted = new DataFrameColumn[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            sorted[i] = getColumn(columns[i].getName());
+        }
+        sortedBy = sorted;
+        sortedVersion = version.get();
+        sortedSize = size;
         return this;
     }
 
@@ -578,8 +755,7 @@ public class DefaultDataFrame implements DataFrame {
     @Override
     public DefaultDataFrame sort(Comparator<DataRow> comp) {
         DataRows rows = getRows(0, size);
-        rows.sort(comp);
-        set(rows, indices);
+        applyOrder(IndexSort.argsort(size, (a, b) -> comp.compare(rows.get(a), rows.get(b)), getParallelism()));
         return this;
     }
 
@@ -592,21 +768,167 @@ public class DefaultDataFrame implements DataFrame {
 
     @Override
     public DefaultDataFrame sort(String name, SortColumn.Direction dir) {
-        DataRows rows = getRows(0, size);
-        rows.sort(new RowColumnComparator(new SortColumn[]{new SortColumn(name, dir)}));
-        set(rows, indices);
-        return this;
+        return sort(new SortColumn(name, dir));
     }
 
 
     @Override
     public DefaultDataFrame shuffle() {
-        DataRows rows = getRows(0, size);
-        Collections.shuffle(rows);
-        set(rows, indices);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Random random = new Random();
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+        applyOrder(order);
         return this;
     }
 
+    @Override
+    public DefaultDataFrame topN(int n, SortColumn... columns) {
+        IndexComparator comparator = createIndexComparator(getSortKeys(columns), getSortDirections(columns));
+        return selectRows(IndexSort.select(size, n, comparator));
+    }
+
+
+    @Override
+    public DefaultDataFrame bottomN(int n, SortColumn... columns) {
+        IndexComparator comparator = createIndexComparator(getSortKeys(columns), getSortDirections(columns));
+        // select the first rows of the reversed stable order
+        int[] rows = IndexSort.select(size, n, (a, b) -> {
+            int c = comparator.compare(b, a);
+            return c != 0 ? c : Integer.compare(b, a);
+        });
+        for (int i = 0, j = rows.length - 1; i < j; i++, j--) {
+            int temp = rows[i];
+            rows[i] = rows[j];
+            rows[j] = temp;
+        }
+        return selectRows(rows);
+    }
+
+    /**
+     * Creates a new data frame containing the specified rows, in the order of the row indices.
+     * The columns are created using {@link DataFrameColumn#slice(int[])}.
+     *
+     * @param rows indices of the selected rows
+     * @return new data frame
+     */
+    private DefaultDataFrame selectRows(int[] rows) {
+        List<DataFrameColumn<?, ?>> slices = new ArrayList<>();
+        if (columns != null) {
+            for (DataFrameColumn<?, ?> column : columns) {
+                slices.add(column.slice(rows));
+            }
+        }
+        DefaultDataFrame newFrame = new DefaultDataFrame();
+        newFrame.set(slices, indices);
+        return newFrame;
+    }
+
+    private static boolean[] getSortDirections(SortColumn[] sortColumns) {
+        boolean[] descending = new boolean[sortColumns.length];
+        for (int i = 0; i < sortColumns.length; i++) {
+            descending[i] = sortColumns[i].getDirection() == SortColumn.Direction.Descending;
+        }
+        return descending;
+    }
+
+    /**
+     * Returns the key columns for sort columns.
+     * Expression columns are materialized, so each value is only computed once.
+     *
+     * @param sortColumns sort columns
+     * @return key columns
+     */
+    private DataFrameColumn<?, ?>[] getSortKeys(SortColumn[] sortColumns) {
+        DataFrameColumn<?, ?>[] keys = new DataFrameColumn[sortColumns.length];
+        for (int i = 0; i < sortColumns.length; i++) {
+            DataFrameColumn<?, ?> column = getColumn(sortColumns[i].getName());
+            if (column == null) {
+                throw new DataFrameRuntimeException(
+                        String.format("error sorting data frame: column not found '%s'", sortColumns[i].getName()));
+            }
+            if (column instanceof ExpressionColumn) {
+                column = ((ExpressionColumn<?>) column).materialize();
+            }
+            keys[i] = column;
+        }
+        return keys;
+    }
+
+    /**
+     * Creates a row comparator for sort key columns.
+     * The index comparators of the columns are resolved once, before the rows are sorted.
+     * <tt>NA</tt> values are sorted last, regardless of the sort direction.
+     *
+     * @param keys       sort key columns
+     * @param descending sort direction of each column
+     * @return row comparator
+     */
+    private static IndexComparator createIndexComparator(DataFrameColumn<?, ?>[] keys, boolean[] descending) {
+        int n = keys.length;
+        IndexComparator[] comparators = new IndexComparator[n];
+        for (int i = 0; i < n; i++) {
+            comparators[i] = keys[i].getIndexComparator();
+        }
+        return (a, b) -> {
+            for (int i = 0; i < n; i++) {
+                boolean naA = keys[i].isNA(a);
+                boolean naB = keys[i].isNA(b);
+                if (naA || naB) {
+                    if (naA && naB) {
+                        continue;
+                    }
+                    return naA ? 1 : -1;
+                }
+                int c = comparators[i].compare(a, b);
+                if (c != 0) {
+                    return descending[i] ? -c : c;
+                }
+            }
+            return 0;
+        };
+    }
+
+    /**
+     * Reorders the rows of this data frame by permuting the storage of each column.
+     * The row at position <tt>i</tt> is the previous row at position <tt>order[i]</tt>.
+     * Immutable columns are replaced by reordered modifiable columns. The values of the indices are rebuilt.
+     *
+     * @param order new order of the rows
+     */
+    private void applyOrder(int[] order) {
+        if (columns == null) {
+            return;
+        }
+        DataFrameColumn<?, ?>[] existing = columns.clone();
+        DataFrameColumn<?, ?>[] replacements = new DataFrameColumn[existing.length];
+        for (int i = 0; i < existing.length; i++) {
+            replacements[i] = existing[i].permute(order);
+        }
+        for (int i = 0; i < existing.length; i++) {
+            if (replacements[i] == existing[i]) {
+                continue;
+            }
+            replaceColumn(existing[i], replacements[i], false);
+            try {
+                existing[i].setDataFrame(null);
+                replacements[i].setDataFrame(this);
+            } catch (DataFrameException e) {
+                throw new DataFrameRuntimeException("error sorting column", e);
+            }
+        }
+        version.incrementAndGet();
+        indices.clearValues();
+        indices.updateAllRows();
+    }
+
 
     @Override
     public DefaultDataFrame select(String colName, Object value) {
@@ -639,15 +961,28 @@ public class DefaultDataFrame implements DataFrame {
 
     @Override
     public DefaultDataFrame select(FilterPredicate predicate) {
-        DefaultDataFrame df = new DefaultDataFrame();
-        df.set(getHeader());
-        indices.copyTo(df);
-        for (DataRow row : this) {
-            if (predicate.valid(row)) {
-                df.append(row);
+        return selectRows(findRows(predicate));
+    }
+
+    /**
+     * Evaluates a predicate for all rows and returns the selection vector of the matching rows
+     *
+     * @param predicate filter predicate
+     * @return ascending indices of the matching rows
+     */
+    private int[] findRows(FilterPredicate predicate) {
+        int[] rows = new int[Math.min(size, 1024)];
+        int count = 0;
+        RowCursor cursor = cursor();
+        for (int i = 0; i < size; i++) {
+            if (predicate.valid(cursor.seek(i))) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, Math.min(size, rows.length << 1));
+                }
+                rows[count++] = i;
             }
         }
-        return df;
+        return count == rows.length ? rows : Arrays.copyOf(rows, count);
     }
 
 
@@ -666,10 +1001,46 @@ public class DefaultDataFrame implements DataFrame {
 
     @Override
     public DefaultDataFrame filter(FilterPredicate predicate) {
-        set(select(predicate), getIndices());
+        int[] rows = findRows(predicate);
+        if (rows.length < size) {
+            compactRows(rows);
+        }
         return this;
     }
 
+    /**
+     * Keeps only the selected rows by compacting each column in place.
+     * Immutable columns are replaced by compacted modifiable columns. The values of the indices are rebuilt.
+     *
+     * @param rows ascending indices of the kept rows
+     */
+    private void compactRows(int[] rows) {
+        if (columns == null) {
+            return;
+        }
+        DataFrameColumn<?, ?>[] existing = columns.clone();
+        DataFrameColumn<?, ?>[] replacements = new DataFrameColumn[existing.length];
+        for (int i = 0; i < existing.length; i++) {
+            replacements[i] = existing[i].compact(rows);
+        }
+        size = rows.length;
+        for (int i = 0; i < existing.length; i++) {
+            if (replacements[i] == existing[i]) {
+                continue;
+            }
+            replaceColumn(existing[i], replacements[i], false);
+            try {
+                existing[i].setDataFrame(null);
+                replacements[i].setDataFrame(this);
+            } catch (DataFrameException e) {
+                throw new DataFrameRuntimeException("error filtering column", e);
+            }
+        }
+        version.incrementAndGet();
+        indices.clearValues();
+        indices.updateAllRows();
+    }
+
 
     @Override
     public DataRows selectRows(String colName, Object value) {
@@ -767,8 +1138,14 @@ public class DefaultDataFrame implements DataFrame {
 
     @Override
     public DefaultDataFrame selectSubset(int from, int to) {
+        List<DataFrameColumn<?, ?>> slices = new ArrayList<>();
+        if (columns != null) {
+            for (DataFrameColumn<?, ?> column : columns) {
+                slices.add(column.slice(from, to));
+            }
+        }
         DefaultDataFrame newFrame = new DefaultDataFrame();
-        newFrame.set(getRows(from, to), indices);
+        newFrame.set(slices, indices);
         return newFrame;
     }
 
@@ -838,6 +1215,11 @@ public class DefaultDataFrame implements DataFrame {
         return new DataRow(this, i);
     }
 
+    @Override
+    public RowCursor cursor() {
+        return new RowCursor(this);
+    }
+
 
     @Override
     public Collection<String> getColumnNames() {
@@ -921,7 +1303,53 @@ public class DefaultDataFrame implements DataFrame {
 
     @Override
     public DataGrouping groupBy(String... column) {
-        return groupUtil.groupBy(this, column);
+        return getGroupUtil(column).groupBy(this, column);
+    }
+
+    @Override
+    public DataGrouping groupBy(String[] columns, AggregateSpec... aggregates) {
+        return getGroupUtil(columns).groupBy(this, columns, aggregates);
+    }
+
+    /**
+     * Returns the group util used for the specified grouping columns.
+     * If the default group util is used and the data frame is known to be sorted by the grouping columns,
+     * the rows are grouped using a {@link SortedGroupUtil}.
+     *
+     * @param columns grouping columns
+     * @return group util
+     */
+    private GroupUtil getGroupUtil(String[] columns) {
+        if (groupUtil.getClass() == HashGroupUtil.class && isSortedBy(columns)) {
+            return SORTED_GROUP_UTIL;
+        }
+        return groupUtil;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the rows are known to be sorted by the specified columns.
+     * This is the case if the data frame was sorted using {@link #sort(SortColumn...)},
+     * the specified columns are the first sort columns (in any order) and the data frame was not modified afterwards.
+     * The sort columns are compared by identity, so renamed columns are still recognized.
+     *
+     * @param columns column names
+     * @return <tt>true</tt> if the rows are sorted by the columns
+     */
+    public boolean isSortedBy(String... columns) {
+        DataFrameColumn<?, ?>[] sorted = sortedBy;
+        if (sorted == null || sortedVersion != version.get() || sortedSize != size
+                || columns.length == 0 || columns.length > sorted.length) {
+            return false;
+        }
+        Set<DataFrameColumn<?, ?>> prefix = Collections.newSetFromMap(new IdentityHashMap<>());
+        prefix.addAll(Arrays.asList(sorted).subList(0, columns.length));
+        for (String name : columns) {
+            DataFrameColumn<?, ?> column = getColumn(name);
+            if (column == null || !prefix.remove(column)) {
+                return false;
+            }
+        }
+        return true;
     }
 
 
@@ -1011,11 +1439,54 @@ public class DefaultDataFrame implements DataFrame {
         return joinUtil.outerJoin(this, dataFrame, suffixA, suffixB, joinColumns);
     }
 
+    /**
+     * Throws a {@link DataFrameRuntimeException} if this data frame contains a sealed column.
+     * Called before any column is modified, so a rejected modification leaves all columns unchanged.
+     */
+    void checkModifiable() {
+        if (columns == null) {
+            return;
+        }
+        for (DataFrameColumn<?, ?> column : columns) {
+            if (column.isSealed()) {
+                throw new DataFrameRuntimeException(
+                        String.format("data frame is sealed: column '%s' can not be modified", column.getName()));
+            }
+        }
+    }
+
+    @Override
+    public DefaultDataFrame seal() {
+        if (columns == null) {
+            return this;
+        }
+        for (DataFrameColumn<?, ?> column : columns.clone()) {
+            DataFrameColumn<?, ?> sealed = column.seal();
+            if (sealed == column) {
+                continue;
+            }
+            replaceColumn(column, sealed);
+            try {
+                column.setDataFrame(null);
+                sealed.setDataFrame(this);
+            } catch (DataFrameException e) {
+                throw new DataFrameRuntimeException("error sealing column", e);
+            }
+        }
+        return this;
+    }
+
     @Override
     public DefaultDataFrame copy() {
-        DataRows rows = getRows(0, size);
+        List<DataFrameColumn<?, ?>> copies = new ArrayList<>();
+        if (columns != null) {
+            for (DataFrameColumn<?, ?> column : columns) {
+                copies.add(column.copy());
+            }
+        }
         DefaultDataFrame copy = new DefaultDataFrame();
-        copy.set(rows, indices);
+        copy.set(copies, indices);
+        copy.parallelism = parallelism;
         return copy;
     }
 
@@ -1032,6 +1503,9 @@ public class DefaultDataFrame implements DataFrame {
 
 
     protected void notifyColumnValueChanged(DataFrameColumn<?, ?> column, int index, Object value) {
+        valueVersion.incrementAndGet();
+        sortedBy = null;
+        invalidateExpressionColumns();
         if (indices.isIndexColumn(column)) {
             indices.updateValue(column, getRow(index));
         }
@@ -1039,12 +1513,26 @@ public class DefaultDataFrame implements DataFrame {
 
 
     protected void notifyColumnChanged(DataFrameColumn<?, ?> column) {
+        valueVersion.incrementAndGet();
+        sortedBy = null;
+        invalidateExpressionColumns();
         if (indices.isIndexColumn(column)) {
             indices.updateColumn(column);
         }
     }
 
 
+    /**
+     * Invalidates the cached values of all expression columns
+     */
+    private void invalidateExpressionColumns() {
+        for (DataFrameColumn<?, ?> column : columns) {
+            if (column instanceof ExpressionColumn) {
+                ((ExpressionColumn<?>) column).invalidateCache();
+            }
+        }
+    }
+
     @Override
     public boolean isIndexColumn(DataFrameColumn<?, ?> column) {
         return indices.isIndexColumn(column);
@@ -1208,12 +1696,28 @@ public class DefaultDataFrame implements DataFrame {
 
     @Override
     public void clear() {
+        if (columns == null) {
+            return;
+        }
+        checkModifiable();
         for (DataFrameColumn<?, ?> col : columns) {
             col.clear();
         }
         size = 0;
     }
 
+    @Override
+    public void close() {
+        if (columns != null) {
+            for (DataFrameColumn<?, ?> col : columns) {
+                col.close();
+            }
+        }
+        size = 0;
+        indices.clearValues();
+        version.incrementAndGet();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof DefaultDataFrame)) {
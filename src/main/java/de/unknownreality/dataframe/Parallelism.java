@@ -0,0 +1,168 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Execution setting for operations that can use multiple threads: sorting, grouping and column arithmetic.
+ * <p>
+ * An operation runs in parallel if it processes at least {@link #getThreshold()} rows.
+ * Parallel operations run in the {@link ForkJoinPool} of the setting, by default the common pool.
+ * </p>
+ * <p>
+ * The setting of a data frame is changed using {@link DataFrame#setParallelism(Parallelism)}.
+ * Data frames without a setting use {@link #getDefault()}, which is {@link #SEQUENTIAL} unless it is changed.
+ * </p>
+ * <p>
+ * <code>df.setParallelism(Parallelism.threshold(100000))</code>
+ * </p>
+ */
+public final class Parallelism {
+
+    /**
+     * Operations are never run in parallel
+     */
+    public static final Parallelism SEQUENTIAL = new Parallelism(Integer.MAX_VALUE, null);
+
+    private static volatile Parallelism defaultParallelism = SEQUENTIAL;
+
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    private Parallelism(int threshold, ForkJoinPool pool) {
+        if (threshold < 1) {
+            throw new DataFrameRuntimeException(String.format("invalid parallel threshold: %d", threshold));
+        }
+        this.threshold = threshold;
+        this.pool = pool;
+    }
+
+    /**
+     * Runs operations with at least <tt>threshold</tt> rows in parallel in the common {@link ForkJoinPool}
+     *
+     * @param threshold minimum number of rows
+     * @return parallelism setting
+     */
+    public static Parallelism threshold(int threshold) {
+        return new Parallelism(threshold, null);
+    }
+
+    /**
+     * Runs operations with at least <tt>threshold</tt> rows in parallel in the specified {@link ForkJoinPool}
+     *
+     * @param pool      pool used for parallel operations
+     * @param threshold minimum number of rows
+     * @return parallelism setting
+     */
+    public static Parallelism of(ForkJoinPool pool, int threshold) {
+        return new Parallelism(threshold, Objects.requireNonNull(pool));
+    }
+
+    /**
+     * Returns the setting used by data frames without their own setting
+     *
+     * @return default setting
+     */
+    public static Parallelism getDefault() {
+        return defaultParallelism;
+    }
+
+    /**
+     * Sets the setting used by data frames without their own setting.
+     * Data frames with their own setting are not affected.
+     *
+     * @param parallelism default setting
+     */
+    public static void setDefault(Parallelism parallelism) {
+        defaultParallelism = Objects.requireNonNull(parallelism);
+    }
+
+    /**
+     * Returns the minimum number of rows for running an operation in parallel
+     *
+     * @return minimum number of rows
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns <tt>true</tt> if an operation on the specified number of rows runs in parallel
+     *
+     * @param size number of rows
+     * @return <tt>true</tt> if the operation runs in parallel
+     */
+    public boolean isParallel(int size) {
+        return size >= threshold;
+    }
+
+    /**
+     * Returns the pool used for parallel operations
+     *
+     * @return fork join pool
+     */
+    public ForkJoinPool getPool() {
+        return pool == null ? ForkJoinPool.commonPool() : pool;
+    }
+
+    /**
+     * Returns the number of threads of the pool
+     *
+     * @return number of threads
+     */
+    public int getThreads() {
+        return getPool().getParallelism();
+    }
+
+    /**
+     * Runs a task in the pool of this setting and waits for the result.
+     * Parallel streams started by the task run in the same pool.
+     *
+     * @param task task
+     * @param <T>  type of the result
+     * @return result of the task
+     */
+    public <T> T invoke(ForkJoinTask<T> task) {
+        return getPool().invoke(task);
+    }
+
+    /**
+     * Runs an action in the pool of this setting and waits until it is done.
+     * Parallel streams started by the action run in the same pool.
+     *
+     * @param action action
+     */
+    public void execute(Runnable action) {
+        ForkJoinPool target = getPool();
+        if (target == ForkJoinPool.commonPool() || ForkJoinTask.getPool() == target) {
+            action.run();
+        } else {
+            target.invoke(ForkJoinTask.adapt(action));
+        }
+    }
+}
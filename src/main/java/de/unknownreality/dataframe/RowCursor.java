@@ -0,0 +1,322 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+package de.unknownreality.dataframe;
+
+import de.unknownreality.dataframe.column.BooleanColumn;
+import de.unknownreality.dataframe.column.NumberColumn;
+import de.unknownreality.dataframe.common.row.AbstractHeaderRow;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Mutable row view that is moved over the rows of a data frame.
+ * <p>
+ * In contrast to {@link DataFrame#iterator()}, which creates a new {@link DataRow} for each row,
+ * a cursor is a single object that is positioned using {@link #next()} or {@link #seek(int)}.
+ * The columns are resolved once when the cursor is created, so the typed getters like {@link #getDoubleValue(int)}
+ * read directly from the column without boxing.
+ * </p>
+ * <p>
+ * A cursor must not be stored or used after the data frame changed.
+ * Values returned by the cursor always refer to the current row.
+ * </p>
+ * <p>
+ * A cursor is used by a single thread. Shared objects like filter predicates keep
+ * their per-scan caches in the cursor, see {@link #getState(Object, Supplier)}.
+ * </p>
+ */
+public class RowCursor extends AbstractHeaderRow<String, DataFrameHeader, Object> {
+    private final DataFrame dataFrame;
+    private final int rowVersion;
+    private final DataFrameColumn<?, ?>[] columns;
+    private final NumberColumn<?, ?>[] numberColumns;
+    private final BooleanColumn[] booleanColumns;
+    private final int rowCount;
+    private int row = -1;
+    private Object stateOwner;
+    private Object state;
+    private Map<Object, Object> states;
+
+    public RowCursor(DataFrame dataFrame) {
+        super(dataFrame.getHeader(), -1);
+        this.dataFrame = dataFrame;
+        this.rowVersion = dataFrame.getVersion();
+        this.rowCount = dataFrame.size();
+        this.columns = dataFrame.getColumns().toArray(new DataFrameColumn[0]);
+        this.numberColumns = new NumberColumn[columns.length];
+        this.booleanColumns = new BooleanColumn[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] instanceof NumberColumn) {
+                numberColumns[i] = (NumberColumn<?, ?>) columns[i];
+            } else if (columns[i] instanceof BooleanColumn) {
+                booleanColumns[i] = (BooleanColumn) columns[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the state of an object that evaluates the rows of this cursor, for example a filter predicate.
+     * The state is created using the factory the first time it is requested for the owner.
+     * Keeping the state in the cursor allows the owner to be shared between threads.
+     *
+     * @param owner   owner of the state, compared by identity
+     * @param factory creates the state
+     * @param <S>     state type
+     * @return state of the owner
+     */
+    @SuppressWarnings("unchecked")
+    public <S> S getState(Object owner, Supplier<S> factory) {
+        if (owner != stateOwner) {
+            if (states == null) {
+                states = new IdentityHashMap<>();
+            }
+            Object ownerState = states.get(owner);
+            if (ownerState == null) {
+                ownerState = factory.get();
+                states.put(owner, ownerState);
+            }
+            stateOwner = owner;
+            state = ownerState;
+        }
+        return (S) state;
+    }
+
+    public boolean isVersionValid() {
+        return rowVersion == dataFrame.getVersion();
+    }
+
+    private void checkValidity() {
+        if (!isVersionValid()) {
+            throw new DataFrameRuntimeException("cursor is no longer valid, the dataframe changed since the cursor was created");
+        }
+    }
+
+    /**
+     * Returns <tt>true</tt> if there is a row after the current row
+     *
+     * @return <tt>true</tt> if {@link #next()} moves the cursor to a valid row
+     */
+    public boolean hasNext() {
+        return row + 1 < rowCount;
+    }
+
+    /**
+     * Moves the cursor to the next row.
+     * A new cursor is positioned before the first row.
+     *
+     * @return <tt>true</tt> if the cursor is positioned at a valid row
+     */
+    public boolean next() {
+        checkValidity();
+        if (row < rowCount) {
+            row++;
+        }
+        return row < rowCount;
+    }
+
+    /**
+     * Moves the cursor to a specified row
+     *
+     * @param index row index
+     * @return <tt>self</tt> for method chaining
+     */
+    public RowCursor seek(int index) {
+        checkValidity();
+        if (index < 0 || index >= rowCount) {
+            throw new DataFrameRuntimeException(String.format("row index out of bounds: %d", index));
+        }
+        this.row = index;
+        return this;
+    }
+
+    /**
+     * Returns the index of the current row
+     *
+     * @return current row index
+     */
+    @Override
+    public int getIndex() {
+        return row;
+    }
+
+    /**
+     * Returns the column at a specified index
+     *
+     * @param index column index
+     * @return column
+     */
+    public DataFrameColumn<?, ?> getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * Returns the column with a specified name
+     *
+     * @param headerName column name
+     * @return column
+     */
+    public DataFrameColumn<?, ?> getColumn(String headerName) {
+        return columns[getHeader().getIndex(headerName)];
+    }
+
+    public DataFrame getDataFrame() {
+        return dataFrame;
+    }
+
+    /**
+     * Returns a {@link DataRow} for the current row.
+     * In contrast to the cursor, the returned row does not change if the cursor is moved.
+     *
+     * @return data row at the current position
+     */
+    public DataRow toDataRow() {
+        return dataFrame.getRow(row);
+    }
+
+    @Override
+    public Object get(int index) {
+        Object val = columns[index].get(row);
+        if (val == null) {
+            return Values.NA;
+        }
+        return val;
+    }
+
+    @Override
+    public boolean isNA(int index) {
+        return columns[index].isNA(row);
+    }
+
+    @Override
+    public boolean isNA(String headerName) {
+        return isNA(getHeader().getIndex(headerName));
+    }
+
+    /**
+     * Returns the value in a number column as primitive <tt>double</tt>.
+     * The result for {@link Values#NA NA} values is undefined, use {@link #isNA(int)} first.
+     *
+     * @param index column index
+     * @return double value
+     */
+    public double getDoubleValue(int index) {
+        NumberColumn<?, ?> column = numberColumns[index];
+        if (column == null) {
+            return getDouble(index);
+        }
+        return column.getDouble(row);
+    }
+
+    /**
+     * Returns the value in a number column as primitive <tt>double</tt>.
+     *
+     * @param headerName column name
+     * @return double value
+     * @see #getDoubleValue(int)
+     */
+    public double getDoubleValue(String headerName) {
+        return getDoubleValue(getHeader().getIndex(headerName));
+    }
+
+    /**
+     * Returns the value in a number column as primitive <tt>long</tt>.
+     * The result for {@link Values#NA NA} values is undefined, use {@link #isNA(int)} first.
+     *
+     * @param index column index
+     * @return long value
+     */
+    public long getLongValue(int index) {
+        NumberColumn<?, ?> column = numberColumns[index];
+        if (column == null) {
+            return getLong(index);
+        }
+        return column.getLong(row);
+    }
+
+    /**
+     * Returns the value in a number column as primitive <tt>long</tt>.
+     *
+     * @param headerName column name
+     * @return long value
+     * @see #getLongValue(int)
+     */
+    public long getLongValue(String headerName) {
+        return getLongValue(getHeader().getIndex(headerName));
+    }
+
+    /**
+     * Returns the value in a number column as primitive <tt>int</tt>.
+     * The result for {@link Values#NA NA} values is undefined, use {@link #isNA(int)} first.
+     *
+     * @param index column index
+     * @return int value
+     */
+    public int getIntValue(int index) {
+        return (int) getLongValue(index);
+    }
+
+    /**
+     * Returns the value in a number column as primitive <tt>int</tt>.
+     *
+     * @param headerName column name
+     * @return int value
+     * @see #getIntValue(int)
+     */
+    public int getIntValue(String headerName) {
+        return getIntValue(getHeader().getIndex(headerName));
+    }
+
+    /**
+     * Returns the value in a boolean column as primitive <tt>boolean</tt>.
+     * The result for {@link Values#NA NA} values is undefined, use {@link #isNA(int)} first.
+     *
+     * @param index column index
+     * @return boolean value
+     */
+    public boolean getBooleanValue(int index) {
+        BooleanColumn column = booleanColumns[index];
+        if (column == null) {
+            return getBoolean(index);
+        }
+        return column.getBoolean(row);
+    }
+
+    /**
+     * Returns the value in a boolean column as primitive <tt>boolean</tt>.
+     *
+     * @param headerName column name
+     * @return boolean value
+     * @see #getBooleanValue(int)
+     */
+    public boolean getBooleanValue(String headerName) {
+        return getBooleanValue(getHeader().getIndex(headerName));
+    }
+
+    @Override
+    public int size() {
+        return columns.length;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+/**
+ * Arithmetic kernels used by the {@link NumberColumn} operations.
+ * <p>
+ * The kernels work on blocks of primitive <tt>double</tt> or <tt>long</tt> values in simple counted loops without branches,
+ * which the JIT compiler can vectorize. The result is stored in the first array.
+ * The <tt>long</tt> kernels are used for integral columns, so values above 2<sup>53</sup> keep their precision.
+ * They overflow like Java <tt>long</tt> arithmetic.
+ * Integral division by zero has the same result as the <tt>double</tt> division converted to <tt>long</tt>.
+ * </p>
+ */
+enum ArithmeticKernel {
+    ADD("add") {
+        @Override
+        void apply(double[] values, double[] other, int length) {
+            for (int i = 0; i < length; i++) {
+                values[i] += other[i];
+            }
+        }
+
+        @Override
+        void apply(double[] values, double other, int length) {
+            for (int i = 0; i < length; i++) {
+                values[i] += other;
+            }
+        }
+
+        @Override
+        void apply(long[] values, long[] other, int length) {
+            for (int i = 0; i < length; i++) {
+                values[i] += other[i];
+            }
+        }
+
+        @Override
+        void apply(long[] values, long other, int length) {
+            for (int i = 0; i < length; i++) {
+                values[i] += other;
+            }
+        }
+    },
+    SUBTRACT("subtract") {
+        @Override
+        void apply(double[] values, double[] other, int length) {
+            for (int i = 0; i < length; i++) {
+                values[i] -= other[i];
+            }
+        }
+
+        @Override
+        void apply(double[] values, double other, int length) {
+            for (int i = 0; i < length; i++) {
+                values[i] -= other;
+            }
+        }
+
+        @Override
+        void apply(long[] values, long[] other, int length) {
+            for (int i = 0; i < length; i++) {
+                values[i] -= other[i];
+            }
+        }
+
+        @Override
+        void apply(long[] values, long other, int length) {
+            for (int i = 0; i < length; i++) {
+                values[i] -= other;
+            }
+        }
+    },
+    MULTIPLY("multiply") {
+        @Override
+        void apply(double[] values, double[] other, int length) {
+            for (int i = 0; i < length; i++) {
+                values[i] *= other[i];
+            }
+        }
+
+        @Override
+        void apply(double[] values, double other, int length) {
+            for (int i = 0; i < length; i++) {
+                values[i] *= other;
+            }
+        }
+
+        @Override
+        void apply(long[] values, long[] other, int length) {
+            for (int i = 0; i < length; i++) {
+                values[i] *= other[i];
+            }
+        }
+
+        @Override
+        void apply(long[] values, long other, int length) {
+            for (int i = 0; i < length; i++) {
+                values[i] *= other;
+            }
+        }
+    },
+    DIVIDE("divide") {
+        @Override
+        void apply(double[] values, double[] other, int length) {
+            for (int i = 0; i < length; i++) {
+                values[i] /= other[i];
+            }
+        }
+
+        @Override
+        void apply(double[] values, double other, int length) {
+            for (int i = 0; i < length; i++) {
+                values[i] /= other;
+            }
+        }
+
+        @Override
+        void apply(long[] values, long[] other, int length) {
+            for (int i = 0; i < length; i++) {
+                values[i] = other[i] == 0 ? divideByZero(values[i]) : values[i] / other[i];
+            }
+        }
+
+        @Override
+        void apply(long[] values, long other, int length) {
+            if (other == 0) {
+                for (int i = 0; i < length; i++) {
+                    values[i] = divideByZero(values[i]);
+                }
+                return;
+            }
+            for (int i = 0; i < length; i++) {
+                values[i] /= other;
+            }
+        }
+    };
+
+    private final String operation;
+
+    ArithmeticKernel(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Returns the name of the column operation, used for log messages
+     *
+     * @return name of the operation
+     */
+    String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Applies the operation element-wise: <tt>values[i] = values[i] op other[i]</tt>
+     *
+     * @param values values, replaced by the results
+     * @param other  second operands
+     * @param length number of values
+     */
+    abstract void apply(double[] values, double[] other, int length);
+
+    /**
+     * Applies the operation with a scalar: <tt>values[i] = values[i] op other</tt>
+     *
+     * @param values values, replaced by the results
+     * @param other  second operand
+     * @param length number of values
+     */
+    abstract void apply(double[] values, double other, int length);
+
+    /**
+     * Applies the operation element-wise: <tt>values[i] = values[i] op other[i]</tt>
+     *
+     * @param values values, replaced by the results
+     * @param other  second operands
+     * @param length number of values
+     */
+    abstract void apply(long[] values, long[] other, int length);
+
+    /**
+     * Applies the operation with a scalar: <tt>values[i] = values[i] op other</tt>
+     *
+     * @param values values, replaced by the results
+     * @param other  second operand
+     * @param length number of values
+     */
+    abstract void apply(long[] values, long other, int length);
+
+    /**
+     * Returns the result of an integral division by zero, like the <tt>double</tt> division converted to <tt>long</tt>
+     *
+     * @param value dividend
+     * @return <tt>Long.MAX_VALUE</tt>, <tt>Long.MIN_VALUE</tt> or <tt>0</tt>
+     */
+    private static long divideByZero(long value) {
+        return (long) (value / 0d);
+    }
+}
@@ -65,15 +65,152 @@ public abstract class BasicColumn<T, C extends BasicColumn<T, C>> extends DataFr
         this(name, values, values.length);
     }
 
+    /**
+     * Creates a column without an object value array.
+     * Used by subclasses that provide their own value storage.
+     *
+     * @param name name of the column
+     * @param size initial size of the column
+     */
+    protected BasicColumn(String name, int size) {
+        setName(name);
+        this.size = size;
+    }
+
+    /**
+     * Sets the number of values in this column.
+     * Used by subclasses that modify the value storage directly.
+     *
+     * @param size new size
+     */
+    protected void setSize(int size) {
+        this.size = size;
+    }
+
     @Override
     public C setCapacity(int capacity) {
         if (capacity < size) {
             throw new DataFrameRuntimeException("capacity can not be lower than current size");
         }
+        resize(capacity);
+        return getThis();
+    }
+
+    /**
+     * Returns the number of values that fit into the current value storage
+     *
+     * @return capacity of the value storage
+     */
+    protected int capacity() {
+        return values.length;
+    }
+
+    /**
+     * Resizes the value storage. The capacity is never lower than the current size.
+     *
+     * @param capacity new capacity
+     */
+    protected void resize(int capacity) {
         values = Arrays.copyOf(values, capacity);
+    }
+
+    /**
+     * Grows the value storage if it can not hold at least <tt>minCapacity</tt> values
+     *
+     * @param minCapacity required capacity
+     */
+    protected void ensureCapacity(int minCapacity) {
+        int capacity = capacity();
+        if (minCapacity > capacity) {
+            resize(newCapacity(capacity, minCapacity));
+        }
+    }
+
+    /**
+     * Returns the capacity of the value storage after growing.
+     * The storage grows by {@link #GROW_FACTOR}.
+     *
+     * @param capacity    current capacity
+     * @param minCapacity required capacity
+     * @return new capacity
+     */
+    protected int newCapacity(int capacity, int minCapacity) {
+        return grow(capacity, minCapacity);
+    }
+
+    /**
+     * Grows a capacity by {@link #GROW_FACTOR}, starting with {@link #INIT_SIZE}.
+     *
+     * @param capacity    current capacity
+     * @param minCapacity required capacity
+     * @return grown capacity
+     */
+    protected static int grow(int capacity, int minCapacity) {
+        return Math.max(minCapacity, Math.max(INIT_SIZE, (int) Math.min(Integer.MAX_VALUE, capacity * GROW_FACTOR)));
+    }
+
+    /**
+     * Swaps two values in the value storage
+     *
+     * @param a index of the first value
+     * @param b index of the second value
+     */
+    protected void swap(int a, int b) {
+        T temp = values[a];
+        values[a] = values[b];
+        values[b] = temp;
+    }
+
+    @Override
+    protected void reorder(int[] order) {
+        T[] reordered = Arrays.copyOf(values, values.length);
+        for (int i = 0; i < order.length; i++) {
+            reordered[i] = values[order[i]];
+        }
+        values = reordered;
+    }
+
+    /**
+     * Compacts the value storage in place.
+     * The kept values are swapped to the front, the remaining values are removed using {@link #truncate(int)}.
+     * Swapping is safe because the indices are ascending, a value is never moved before it is read.
+     *
+     * @param indices ascending indices of the kept values
+     * @return <tt>self</tt>
+     */
+    @Override
+    protected C compact(int[] indices) {
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] != i) {
+                swap(i, indices[i]);
+            }
+        }
+        truncate(indices.length);
         return getThis();
     }
 
+    /**
+     * Removes all values at positions greater or equal to the new size.
+     * Object references are released by setting the values to <tt>NA</tt>.
+     *
+     * @param newSize new size
+     */
+    protected void truncate(int newSize) {
+        for (int i = newSize; i < size; i++) {
+            doSetNA(i);
+        }
+        setSize(newSize);
+    }
+
+    /**
+     * Removes all values from the value storage.
+     * Used by {@link #clear()}.
+     */
+    @SuppressWarnings("unchecked")
+    protected void clearValues() {
+        values = (T[]) Array.newInstance(getValueType().getType(), INIT_SIZE);
+    }
+
     @Override
     protected void doSort(Comparator<T> comparator) {
         Arrays.sort(values, 0, size(), comparator);
@@ -107,7 +244,7 @@ public abstract class BasicColumn<T, C extends BasicColumn<T, C>> extends DataFr
             if (isNA(i)) {
                 continue;
             }
-            values[i] = mapFunction.map(values[i]);
+            doSet(i, mapFunction.map(get(i)));
         }
     }
 
@@ -115,9 +252,7 @@ public abstract class BasicColumn<T, C extends BasicColumn<T, C>> extends DataFr
     @Override
     protected void doReverse() {
         for (int i = 0; i < size() / 2; i++) {
-            T temp = values[i];
-            values[i] = values[size() - i - 1];
-            values[size() - i - 1] = temp;
+            swap(i, size() - i - 1);
         }
     }
 
@@ -145,7 +280,7 @@ public abstract class BasicColumn<T, C extends BasicColumn<T, C>> extends DataFr
 
     @Override
     public boolean contains(T o) {
-        return Arrays.asList(values).contains(o);
+        return asList().contains(o);
     }
 
     /**
@@ -171,10 +306,10 @@ public abstract class BasicColumn<T, C extends BasicColumn<T, C>> extends DataFr
 
             @Override
             public T next() {
-                if (index >= values.length) {
-                    throw new NoSuchElementException(String.format("element not found: index out of bounds %s >= %s]", index, values.length));
+                if (index >= size()) {
+                    throw new NoSuchElementException(String.format("element not found: index out of bounds %s >= %s]", index, size()));
                 }
-                return values[index++];
+                return get(index++);
             }
         };
     }
@@ -185,7 +320,7 @@ public abstract class BasicColumn<T, C extends BasicColumn<T, C>> extends DataFr
      * @return set of values in this column
      */
     public Set<T> uniq() {
-        Set<T> u = new HashSet<>(Arrays.asList(values));
+        Set<T> u = new HashSet<>(asList());
         u.remove(null);
         return u;
     }
@@ -211,11 +346,8 @@ public abstract class BasicColumn<T, C extends BasicColumn<T, C>> extends DataFr
 
     @Override
     protected boolean doAppend(T t) {
-
-        if (size >= values.length - 1) {
-            values = Arrays.copyOf(values, (int) ((double) values.length * GROW_FACTOR));
-        }
-        values[size++] = t;
+        ensureCapacity(size + 1);
+        doSet(size++, t);
         return true;
     }
 
@@ -238,12 +370,13 @@ public abstract class BasicColumn<T, C extends BasicColumn<T, C>> extends DataFr
 
     @Override
     public boolean containsAll(Collection<?> c) {
-        return new HashSet<>(Arrays.asList(values)).containsAll(c);
+        return new HashSet<>(asList()).containsAll(c);
     }
 
 
     @Override
     protected boolean doAppendAll(Collection<? extends T> c) {
+        ensureCapacity(size + c.size());
         for (T o : c) {
             doAppend(o);
         }
@@ -252,7 +385,7 @@ public abstract class BasicColumn<T, C extends BasicColumn<T, C>> extends DataFr
 
     @Override
     public List<T> toList() {
-        return new ArrayList<>(Arrays.asList(Arrays.copyOf(values, size)));
+        return new ArrayList<>(asList());
     }
 
     @Override
@@ -262,10 +395,9 @@ public abstract class BasicColumn<T, C extends BasicColumn<T, C>> extends DataFr
         );
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public void clear() {
-        values = (T[]) Array.newInstance(getValueType().getType(), INIT_SIZE);
+        clearValues();
         size = 0;
     }
 
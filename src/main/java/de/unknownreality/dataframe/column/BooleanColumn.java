@@ -25,30 +25,60 @@
 package de.unknownreality.dataframe.column;
 
 
+import de.unknownreality.dataframe.DataFrameRuntimeException;
 import de.unknownreality.dataframe.common.Row;
+import de.unknownreality.dataframe.sort.IndexComparator;
+import de.unknownreality.dataframe.sort.IntegralSortKey;
 import de.unknownreality.dataframe.type.impl.BooleanType;
 
+import java.util.BitSet;
+import java.util.function.IntToLongFunction;
+
 /**
  * Created by Alex on 09.03.2016.
+ * <p>
+ * Values are stored bit-packed, <tt>NA</tt> values are tracked in a separate bitmap.
+ * Logical operations between boolean columns work on 64 values at once.
+ * </p>
  */
-public class BooleanColumn extends BasicColumn<Boolean, BooleanColumn> {
+public class BooleanColumn extends PrimitiveColumn<Boolean, BooleanColumn> implements IntegralSortKey {
 
     private final BooleanType valueType = new BooleanType();
 
+    private BitSet data;
+    private int capacity;
+
     public BooleanColumn() {
-        super(Boolean.class);
+        this(null);
     }
 
     public BooleanColumn(String name) {
-        super(name, Boolean.class);
+        super(name);
+        data = new BitSet(INIT_SIZE);
+        capacity = INIT_SIZE;
     }
 
     public BooleanColumn(String name, Boolean[] values) {
-        super(name, values);
+        this(name, values, values.length);
     }
 
     public BooleanColumn(String name, Boolean[] values, int size) {
-        super(name, values, size);
+        super(name, new BitSet(), size);
+        data = new BitSet(values.length);
+        capacity = values.length;
+        for (int i = 0; i < size; i++) {
+            if (values[i] == null) {
+                naValues.set(i);
+            } else if (values[i]) {
+                data.set(i);
+            }
+        }
+    }
+
+    private BooleanColumn(String name, BitSet values, BitSet naValues, int size, int capacity) {
+        super(name, naValues, size);
+        this.data = values;
+        this.capacity = capacity;
     }
 
 
@@ -57,41 +87,188 @@ public class BooleanColumn extends BasicColumn<Boolean, BooleanColumn> {
         return valueType;
     }
 
+    /**
+     * Returns the value at the specified index as primitive <tt>boolean</tt>.
+     * The result is <tt>false</tt> if the value is {@link de.unknownreality.dataframe.Values#NA NA},
+     * use {@link #isNA(int)} to test for <tt>NA</tt>.
+     *
+     * @param index index of the value
+     * @return primitive value
+     */
+    public boolean getBoolean(int index) {
+        return data.get(index);
+    }
+
+    @Override
+    public IndexComparator getIndexComparator() {
+        return (a, b) -> Boolean.compare(getBoolean(a), getBoolean(b));
+    }
+
+    @Override
+    public IntToLongFunction getSortKey() {
+        return index -> getBoolean(index) ? 1 : 0;
+    }
+
+    /**
+     * Returns the number of <tt>true</tt> values in this column.
+     *
+     * @return number of <tt>true</tt> values
+     */
+    public int count() {
+        return data.cardinality();
+    }
+
+    /**
+     * Combines this column with another column using a logical <tt>AND</tt>.
+     * Only the first <tt>min(size(), other.size())</tt> values are changed.
+     * If a value in one of the columns is <tt>NA</tt>, the result is <tt>NA</tt>.
+     * <p>Calls {@link #notifyDataFrameColumnChanged()} to ensure data frame index consistency</p>
+     *
+     * @param other other column
+     * @return <tt>self</tt> for method chaining
+     */
     public BooleanColumn and(BooleanColumn other) {
-        for (int i = 0; i < Math.min(size(), other.size()); i++) {
-            values[i] = values[i] && other.values[i];
-        }
+        validateModify();
+        int n = Math.min(size(), other.size());
+        BitSet otherValues = other.data.get(0, n);
+        otherValues.set(n, size());
+        data.and(otherValues);
+        mergeNA(other, n);
+        notifyDataFrameColumnChanged();
         return this;
     }
 
+    /**
+     * Clears all values of this column that are <tt>true</tt> in the other column.
+     * Only the first <tt>min(size(), other.size())</tt> values are changed.
+     * If a value in one of the columns is <tt>NA</tt>, the result is <tt>NA</tt>.
+     * <p>Calls {@link #notifyDataFrameColumnChanged()} to ensure data frame index consistency</p>
+     *
+     * @param other other column
+     * @return <tt>self</tt> for method chaining
+     */
     public BooleanColumn andNot(BooleanColumn other) {
-        for (int i = 0; i < Math.min(size(), other.size()); i++) {
-            values[i] = values[i] && !other.values[i];
-        }
+        validateModify();
+        int n = Math.min(size(), other.size());
+        data.andNot(other.data.get(0, n));
+        mergeNA(other, n);
+        notifyDataFrameColumnChanged();
         return this;
     }
 
+    /**
+     * Combines this column with another column using a logical <tt>OR</tt>.
+     * Only the first <tt>min(size(), other.size())</tt> values are changed.
+     * If a value in one of the columns is <tt>NA</tt>, the result is <tt>NA</tt>.
+     * <p>Calls {@link #notifyDataFrameColumnChanged()} to ensure data frame index consistency</p>
+     *
+     * @param other other column
+     * @return <tt>self</tt> for method chaining
+     */
     public BooleanColumn or(BooleanColumn other) {
-        for(int i  = 0; i < Math.min(size(),other.size());i++){
-            values[i] = values[i] || other.values[i];
-        }
+        validateModify();
+        int n = Math.min(size(), other.size());
+        data.or(other.data.get(0, n));
+        mergeNA(other, n);
+        notifyDataFrameColumnChanged();
         return this;
     }
 
+    /**
+     * Combines this column with another column using a logical <tt>XOR</tt>.
+     * Only the first <tt>min(size(), other.size())</tt> values are changed.
+     * If a value in one of the columns is <tt>NA</tt>, the result is <tt>NA</tt>.
+     * <p>Calls {@link #notifyDataFrameColumnChanged()} to ensure data frame index consistency</p>
+     *
+     * @param other other column
+     * @return <tt>self</tt> for method chaining
+     */
     public BooleanColumn xor(BooleanColumn other) {
-        for(int i  = 0; i < Math.min(size(),other.size());i++){
-            values[i] = values[i] != other.values[i];
-        }
+        validateModify();
+        int n = Math.min(size(), other.size());
+        data.xor(other.data.get(0, n));
+        mergeNA(other, n);
+        notifyDataFrameColumnChanged();
         return this;
     }
 
+    /**
+     * Negates all values in this column. <tt>NA</tt> values are not changed.
+     * <p>Calls {@link #notifyDataFrameColumnChanged()} to ensure data frame index consistency</p>
+     *
+     * @return <tt>self</tt> for method chaining
+     */
     public BooleanColumn flip() {
-        for(int i  = 0; i < size();i++){
-            values[i] = !values[i];
-        }
+        validateModify();
+        data.flip(0, size());
+        data.andNot(naValues);
+        notifyDataFrameColumnChanged();
         return this;
     }
 
+    private void mergeNA(BooleanColumn other, int n) {
+        if (other.hasNA()) {
+            naValues.or(other.naValues.get(0, n));
+        }
+        data.andNot(naValues);
+    }
+
+    @Override
+    protected Boolean getValue(int index) {
+        return data.get(index);
+    }
+
+    @Override
+    protected void setValue(int index, Boolean value) {
+        data.set(index, value);
+    }
+
+    @Override
+    protected void clearValue(int index) {
+        data.clear(index);
+    }
+
+    @Override
+    protected void swapValues(int a, int b) {
+        boolean temp = data.get(a);
+        data.set(a, data.get(b));
+        data.set(b, temp);
+    }
+
+    @Override
+    protected void reorderValues(int[] order) {
+        BitSet reordered = new BitSet(capacity);
+        for (int i = 0; i < order.length; i++) {
+            if (data.get(order[i])) {
+                reordered.set(i);
+            }
+        }
+        data = reordered;
+    }
+
+    @Override
+    protected int capacity() {
+        return capacity;
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        if (capacity < this.capacity) {
+            data.clear(capacity, this.capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    protected void doSort() {
+        if (hasNA()) {
+            super.doSort();
+            return;
+        }
+        int trueCount = data.cardinality();
+        data.clear();
+        data.set(size() - trueCount, size());
+    }
 
     @Override
     protected BooleanColumn getThis() {
@@ -101,9 +278,39 @@ public class BooleanColumn extends BasicColumn<Boolean, BooleanColumn> {
 
     @Override
     public BooleanColumn copy() {
-        Boolean[] copyValues = new Boolean[values.length];
-        toArray(copyValues);
-        return new BooleanColumn(getName(), copyValues, size());
+        return new BooleanColumn(getName(), (BitSet) data.clone(), (BitSet) naValues.clone(), size(), capacity);
+    }
+
+    @Override
+    public BooleanColumn slice(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new DataFrameRuntimeException(String.format("invalid slice [%d, %d) of column with size %d", from, to, size()));
+        }
+        return new BooleanColumn(getName(), data.get(from, to), naValues.get(from, to), to - from, to - from);
+    }
+
+    /**
+     * Gathers the selected values into a primitive array and appends them in bulk.
+     *
+     * @param indices indices of the selected values
+     * @return new column containing the selected values
+     */
+    @Override
+    public BooleanColumn slice(int[] indices) {
+        boolean[] values = new boolean[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            values[i] = getBoolean(indices[i]);
+        }
+        BooleanColumn slice = copyEmpty();
+        slice.appendAll(values);
+        if (hasNA()) {
+            for (int i = 0; i < indices.length; i++) {
+                if (naValues.get(indices[i])) {
+                    slice.doSetNA(i);
+                }
+            }
+        }
+        return slice;
     }
 
     @Override
@@ -111,6 +318,44 @@ public class BooleanColumn extends BasicColumn<Boolean, BooleanColumn> {
         return new BooleanColumn(getName());
     }
 
+    /**
+     * Appends a range of a primitive array to this column.
+     * The values are set in the bitmap without creating objects.
+     * <p>Calls {@link #validateAppend()} to ensure data frame index consistency</p>
+     *
+     * @param values primitive values
+     * @param off    first value in the array
+     * @param len    number of values
+     * @return <tt>true</tt> if the values are appended successfully
+     */
+    public boolean appendAll(boolean[] values, int off, int len) {
+        if (!validateAppendAll(values.length, off, len)) {
+            return false;
+        }
+        int size = size();
+        ensureCapacity(size + len);
+        data.clear(size, size + len);
+        for (int i = 0; i < len; i++) {
+            if (values[off + i]) {
+                data.set(size + i);
+            }
+        }
+        naValues.clear(size, size + len);
+        setSize(size + len);
+        return true;
+    }
+
+    /**
+     * Appends all values of a primitive array to this column.
+     *
+     * @param values primitive values
+     * @return <tt>true</tt> if the values are appended successfully
+     * @see #appendAll(boolean[], int, int)
+     */
+    public boolean appendAll(boolean[] values) {
+        return appendAll(values, 0, values.length);
+    }
+
     @Override
     public <H> Boolean getValueFromRow(Row<?, H> row, H headerName) {
         return row.getBoolean(headerName);
@@ -0,0 +1,261 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+import static de.unknownreality.dataframe.column.PrimitiveColumn.CHUNK_MASK;
+import static de.unknownreality.dataframe.column.PrimitiveColumn.CHUNK_SHIFT;
+import static de.unknownreality.dataframe.column.PrimitiveColumn.CHUNK_SIZE;
+
+/**
+ * Utility methods for chunked primitive value storage.
+ * <p>
+ * Values are stored in a list of chunks. The first chunk grows up to {@link PrimitiveColumn#CHUNK_SIZE} values,
+ * all further chunks have exactly {@link PrimitiveColumn#CHUNK_SIZE} values.
+ * Growing the storage beyond one chunk adds new chunks and never copies existing values.
+ * The value at index <tt>i</tt> is located at <tt>chunks[i &gt;&gt;&gt; CHUNK_SHIFT][i &amp; CHUNK_MASK]</tt>.
+ * </p>
+ * The chunk type <tt>A</tt> is a primitive array type, e.g. <tt>double[]</tt>.
+ */
+final class ChunkedArrays {
+
+    /**
+     * Copies a chunk into a new chunk of the specified length
+     *
+     * @param <A> chunk type
+     */
+    interface ChunkCopy<A> {
+        A copyOf(A chunk, int length);
+    }
+
+    /**
+     * Copies a range of an array into a new chunk
+     *
+     * @param <A> chunk type
+     */
+    interface ChunkRangeCopy<A> {
+        A copyOfRange(A values, int from, int to);
+    }
+
+    private ChunkedArrays() {
+    }
+
+    /**
+     * Returns the number of values that fit into the chunks
+     *
+     * @param chunks value chunks
+     * @return capacity of the chunks
+     */
+    static int capacity(Object[] chunks) {
+        if (chunks.length == 0) {
+            return 0;
+        }
+        if (chunks.length == 1) {
+            return Array.getLength(chunks[0]);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (long) chunks.length << CHUNK_SHIFT);
+    }
+
+    /**
+     * Returns the capacity used to grow chunked storage.
+     * The first chunk grows like a normal array, afterwards only the required chunks are added.
+     *
+     * @param grownCapacity capacity if the storage would grow like an array
+     * @param minCapacity   required capacity
+     * @return new capacity
+     */
+    static int newCapacity(int grownCapacity, int minCapacity) {
+        if (grownCapacity <= CHUNK_SIZE) {
+            return grownCapacity;
+        }
+        return Math.max(minCapacity, CHUNK_SIZE);
+    }
+
+    /**
+     * Allocates empty chunks for the specified capacity
+     *
+     * @param empty     empty chunk array of the right type
+     * @param capacity  required capacity
+     * @param allocator chunk allocator
+     * @param <A>       chunk type
+     * @return allocated chunks
+     */
+    static <A> A[] allocate(A[] empty, int capacity, IntFunction<A> allocator) {
+        if (capacity <= CHUNK_SIZE) {
+            A[] chunks = Arrays.copyOf(empty, 1);
+            chunks[0] = allocator.apply(capacity);
+            return chunks;
+        }
+        A[] chunks = Arrays.copyOf(empty, chunkCount(capacity));
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = allocator.apply(CHUNK_SIZE);
+        }
+        return chunks;
+    }
+
+    /**
+     * Resizes chunked storage.
+     * Only the first chunk is copied, as long as the capacity is not larger than one chunk.
+     *
+     * @param chunks    current chunks
+     * @param capacity  new capacity
+     * @param allocator chunk allocator
+     * @param copy      chunk copy function
+     * @param <A>       chunk type
+     * @return resized chunks
+     */
+    static <A> A[] resize(A[] chunks, int capacity, IntFunction<A> allocator, ChunkCopy<A> copy) {
+        if (capacity <= CHUNK_SIZE) {
+            A[] resized = Arrays.copyOf(chunks, 1);
+            resized[0] = chunks.length == 0 ? allocator.apply(capacity) : copy.copyOf(chunks[0], capacity);
+            return resized;
+        }
+        int chunkCount = chunkCount(capacity);
+        A[] resized = Arrays.copyOf(chunks, chunkCount);
+        if (chunks.length > 0 && Array.getLength(chunks[0]) < CHUNK_SIZE) {
+            resized[0] = copy.copyOf(chunks[0], CHUNK_SIZE);
+        }
+        for (int i = Math.min(chunks.length, chunkCount); i < chunkCount; i++) {
+            resized[i] = allocator.apply(CHUNK_SIZE);
+        }
+        return resized;
+    }
+
+    /**
+     * Allocates empty chunks with the same layout as the specified chunks
+     *
+     * @param chunks    chunks
+     * @param allocator chunk allocator
+     * @param <A>       chunk type
+     * @return empty chunks
+     */
+    static <A> A[] allocateLike(A[] chunks, IntFunction<A> allocator) {
+        A[] allocated = Arrays.copyOf(chunks, chunks.length);
+        for (int i = 0; i < chunks.length; i++) {
+            allocated[i] = allocator.apply(Array.getLength(chunks[i]));
+        }
+        return allocated;
+    }
+
+    /**
+     * Creates a deep copy of chunks
+     *
+     * @param chunks chunks
+     * @param copy   chunk copy function
+     * @param <A>    chunk type
+     * @return copied chunks
+     */
+    static <A> A[] copy(A[] chunks, ChunkCopy<A> copy) {
+        A[] copied = Arrays.copyOf(chunks, chunks.length);
+        for (int i = 0; i < chunks.length; i++) {
+            copied[i] = copy.copyOf(chunks[i], Array.getLength(chunks[i]));
+        }
+        return copied;
+    }
+
+    /**
+     * Splits an array into chunks. Arrays that fit into one chunk are used without copying.
+     *
+     * @param empty  empty chunk array of the right type
+     * @param values values
+     * @param length length of the values array
+     * @param copy   chunk copy function, used to copy a range of the values
+     * @param <A>    chunk type
+     * @return chunks containing the values
+     */
+    static <A> A[] split(A[] empty, A values, int length, ChunkRangeCopy<A> copy) {
+        if (length <= CHUNK_SIZE) {
+            A[] chunks = Arrays.copyOf(empty, 1);
+            chunks[0] = values;
+            return chunks;
+        }
+        A[] chunks = Arrays.copyOf(empty, chunkCount(length));
+        for (int i = 0; i < chunks.length; i++) {
+            int from = i << CHUNK_SHIFT;
+            chunks[i] = copy.copyOfRange(values, from, from + CHUNK_SIZE);
+        }
+        return chunks;
+    }
+
+    /**
+     * Copies the first <tt>size</tt> values from chunks into a flat array
+     *
+     * @param chunks chunks
+     * @param target target array
+     * @param size   number of values
+     */
+    static void copyToArray(Object[] chunks, Object target, int size) {
+        for (int i = 0, offset = 0; offset < size; i++, offset += CHUNK_SIZE) {
+            System.arraycopy(chunks[i], 0, target, offset, Math.min(CHUNK_SIZE, size - offset));
+        }
+    }
+
+    /**
+     * Copies the first <tt>size</tt> values from a flat array into chunks
+     *
+     * @param source source array
+     * @param chunks chunks
+     * @param size   number of values
+     */
+    static void copyFromArray(Object source, Object[] chunks, int size) {
+        for (int i = 0, offset = 0; offset < size; i++, offset += CHUNK_SIZE) {
+            System.arraycopy(source, offset, chunks[i], 0, Math.min(CHUNK_SIZE, size - offset));
+        }
+    }
+
+    /**
+     * Copies <tt>length</tt> values between chunks, starting at the specified positions
+     *
+     * @param source     source chunks
+     * @param sourcePos  first source position
+     * @param target     target chunks
+     * @param targetPos  first target position
+     * @param length     number of values
+     */
+    static void copyRange(Object[] source, int sourcePos, Object[] target, int targetPos, int length) {
+        while (length > 0) {
+            int sourceOffset = sourcePos & CHUNK_MASK;
+            int targetOffset = targetPos & CHUNK_MASK;
+            int n = Math.min(length, CHUNK_SIZE - Math.max(sourceOffset, targetOffset));
+            System.arraycopy(source[sourcePos >>> CHUNK_SHIFT], sourceOffset, target[targetPos >>> CHUNK_SHIFT], targetOffset, n);
+            sourcePos += n;
+            targetPos += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Returns the number of chunks required for the specified capacity
+     *
+     * @param capacity capacity
+     * @return number of chunks
+     */
+    static int chunkCount(int capacity) {
+        return (int) (((long) capacity + CHUNK_MASK) >>> CHUNK_SHIFT);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+import de.unknownreality.dataframe.DataFrame;
+
+/**
+ * Expression that computes the values of an {@link ExpressionColumn} from other columns of the same data frame.
+ * <p>
+ * Example: <code>(df, row) -&gt; df.getDoubleColumn("a").getDouble(row) * df.getDoubleColumn("b").getDouble(row)</code>
+ * </p>
+ *
+ * @param <T> type of the computed values
+ */
+@FunctionalInterface
+public interface ColumnExpression<T> {
+
+    /**
+     * Computes the value of a row.
+     *
+     * @param dataFrame data frame containing the source columns
+     * @param row       index of the row
+     * @return computed value, <tt>null</tt> for {@link de.unknownreality.dataframe.Values#NA NA}
+     */
+    T evaluate(DataFrame dataFrame, int row);
+
+    /**
+     * Computes the values of a range of rows.
+     * Expressions can override this method to look up their source columns once per range.
+     *
+     * @param dataFrame data frame containing the source columns
+     * @param from      first row (inclusive)
+     * @param to        last row (exclusive)
+     * @param target    target array, the value of row <tt>from</tt> is stored at index <tt>0</tt>
+     */
+    default void evaluate(DataFrame dataFrame, int from, int to, Object[] target) {
+        for (int i = from; i < to; i++) {
+            target[i - from] = evaluate(dataFrame, i);
+        }
+    }
+}
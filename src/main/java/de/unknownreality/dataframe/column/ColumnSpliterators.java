@@ -0,0 +1,259 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+import java.util.BitSet;
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongConsumer;
+
+/**
+ * Primitive spliterators over an index range of a column.
+ * <p>
+ * The spliterators split by halving the index range, without copying values.
+ * If the column contains no <tt>NA</tt> values, the spliterators are {@link Spliterator#SIZED SIZED} and
+ * {@link Spliterator#SUBSIZED SUBSIZED}. Otherwise <tt>NA</tt> values are skipped and the size is an estimate.
+ * </p>
+ */
+final class ColumnSpliterators {
+
+    private ColumnSpliterators() {
+    }
+
+    /**
+     * Index range shared by the primitive spliterators
+     */
+    private abstract static class IndexRange {
+        final BitSet naValues;
+        final int end;
+        int index;
+
+        IndexRange(BitSet naValues, int from, int to) {
+            this.naValues = naValues;
+            this.index = from;
+            this.end = to;
+        }
+
+        /**
+         * Returns the next index that is not <tt>NA</tt>, or the end of the range
+         *
+         * @return next index
+         */
+        int nextIndex() {
+            return naValues == null ? index : Math.min(naValues.nextClearBit(index), end);
+        }
+
+        /**
+         * Returns the index at which the range is split, or <tt>-1</tt> if the range is too small
+         *
+         * @return split index
+         */
+        int splitIndex() {
+            int mid = (index + end) >>> 1;
+            return mid <= index ? -1 : mid;
+        }
+
+        public long estimateSize() {
+            return end - index;
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.NONNULL
+                    | (naValues == null ? Spliterator.SIZED | Spliterator.SUBSIZED : 0);
+        }
+    }
+
+    /**
+     * {@link Spliterator.OfDouble} over an index range
+     */
+    static final class DoubleRange extends IndexRange implements Spliterator.OfDouble {
+        private final IntToDoubleFunction values;
+
+        /**
+         * @param values   value getter
+         * @param naValues <tt>NA</tt> bitmap, <tt>null</tt> if the column contains no <tt>NA</tt> values
+         * @param from     first index (inclusive)
+         * @param to       last index (exclusive)
+         */
+        DoubleRange(IntToDoubleFunction values, BitSet naValues, int from, int to) {
+            super(naValues, from, to);
+            this.values = values;
+        }
+
+        @Override
+        public DoubleRange trySplit() {
+            int mid = splitIndex();
+            if (mid == -1) {
+                return null;
+            }
+            DoubleRange prefix = new DoubleRange(values, naValues, index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            int i = nextIndex();
+            if (i >= end) {
+                index = end;
+                return false;
+            }
+            index = i + 1;
+            action.accept(values.applyAsDouble(i));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            int i = index;
+            index = end;
+            if (naValues == null) {
+                for (; i < end; i++) {
+                    action.accept(values.applyAsDouble(i));
+                }
+                return;
+            }
+            for (i = naValues.nextClearBit(i); i < end; i = naValues.nextClearBit(i + 1)) {
+                action.accept(values.applyAsDouble(i));
+            }
+        }
+    }
+
+    /**
+     * {@link Spliterator.OfLong} over an index range
+     */
+    static final class LongRange extends IndexRange implements Spliterator.OfLong {
+        private final IntToLongFunction values;
+
+        /**
+         * @param values   value getter
+         * @param naValues <tt>NA</tt> bitmap, <tt>null</tt> if the column contains no <tt>NA</tt> values
+         * @param from     first index (inclusive)
+         * @param to       last index (exclusive)
+         */
+        LongRange(IntToLongFunction values, BitSet naValues, int from, int to) {
+            super(naValues, from, to);
+            this.values = values;
+        }
+
+        @Override
+        public LongRange trySplit() {
+            int mid = splitIndex();
+            if (mid == -1) {
+                return null;
+            }
+            LongRange prefix = new LongRange(values, naValues, index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            int i = nextIndex();
+            if (i >= end) {
+                index = end;
+                return false;
+            }
+            index = i + 1;
+            action.accept(values.applyAsLong(i));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            int i = index;
+            index = end;
+            if (naValues == null) {
+                for (; i < end; i++) {
+                    action.accept(values.applyAsLong(i));
+                }
+                return;
+            }
+            for (i = naValues.nextClearBit(i); i < end; i = naValues.nextClearBit(i + 1)) {
+                action.accept(values.applyAsLong(i));
+            }
+        }
+    }
+
+    /**
+     * {@link Spliterator.OfInt} over an index range
+     */
+    static final class IntRange extends IndexRange implements Spliterator.OfInt {
+        private final IntUnaryOperator values;
+
+        /**
+         * @param values   value getter
+         * @param naValues <tt>NA</tt> bitmap, <tt>null</tt> if the column contains no <tt>NA</tt> values
+         * @param from     first index (inclusive)
+         * @param to       last index (exclusive)
+         */
+        IntRange(IntUnaryOperator values, BitSet naValues, int from, int to) {
+            super(naValues, from, to);
+            this.values = values;
+        }
+
+        @Override
+        public IntRange trySplit() {
+            int mid = splitIndex();
+            if (mid == -1) {
+                return null;
+            }
+            IntRange prefix = new IntRange(values, naValues, index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            int i = nextIndex();
+            if (i >= end) {
+                index = end;
+                return false;
+            }
+            index = i + 1;
+            action.accept(values.applyAsInt(i));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            int i = index;
+            index = end;
+            if (naValues == null) {
+                for (; i < end; i++) {
+                    action.accept(values.applyAsInt(i));
+                }
+                return;
+            }
+            for (i = naValues.nextClearBit(i); i < end; i = naValues.nextClearBit(i + 1)) {
+                action.accept(values.applyAsInt(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+/**
+ * Statistics of the values in a {@link NumberColumn}.
+ * The statistics are maintained by the column and updated incrementally when values are appended.
+ * Objects returned by {@link NumberColumn#getStatistics()} are snapshots and do not change.
+ */
+public class ColumnStatistics {
+    private int count;
+    private int naCount;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double sum;
+    private double sumOfSquares;
+
+    ColumnStatistics() {
+    }
+
+    private ColumnStatistics(ColumnStatistics statistics) {
+        this.count = statistics.count;
+        this.naCount = statistics.naCount;
+        this.min = statistics.min;
+        this.max = statistics.max;
+        this.sum = statistics.sum;
+        this.sumOfSquares = statistics.sumOfSquares;
+    }
+
+    /**
+     * Adds a value to the statistics
+     *
+     * @param value value
+     */
+    void accept(double value) {
+        count++;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+        sum += value;
+        sumOfSquares += value * value;
+    }
+
+    /**
+     * Adds a {@link de.unknownreality.dataframe.Values#NA NA} value to the statistics
+     */
+    void acceptNA() {
+        naCount++;
+    }
+
+    /**
+     * Returns the number of rows included in the statistics
+     *
+     * @return number of rows
+     */
+    int rows() {
+        return count + naCount;
+    }
+
+    ColumnStatistics copy() {
+        return new ColumnStatistics(this);
+    }
+
+    /**
+     * Returns the number of values that are not {@link de.unknownreality.dataframe.Values#NA NA}
+     *
+     * @return number of values
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of {@link de.unknownreality.dataframe.Values#NA NA} values
+     *
+     * @return number of <tt>NA</tt> values
+     */
+    public int getNACount() {
+        return naCount;
+    }
+
+    /**
+     * Returns the minimum value, {@link Double#POSITIVE_INFINITY} if there are no values
+     *
+     * @return minimum value
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the maximum value, {@link Double#NEGATIVE_INFINITY} if there are no values
+     *
+     * @return maximum value
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the sum of all values
+     *
+     * @return sum of all values
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Returns the sum of the squares of all values
+     *
+     * @return sum of squares
+     */
+    public double getSumOfSquares() {
+        return sumOfSquares;
+    }
+
+    /**
+     * Returns the mean of all values, <tt>NaN</tt> if there are no values
+     *
+     * @return mean of all values
+     */
+    public double getMean() {
+        return sum / count;
+    }
+
+    /**
+     * Returns the population variance of all values, <tt>NaN</tt> if there are no values
+     *
+     * @return variance of all values
+     */
+    public double getVariance() {
+        double mean = getMean();
+        return Math.max(0d, sumOfSquares / count - mean * mean);
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+import de.unknownreality.dataframe.sort.IndexComparator;
+import de.unknownreality.dataframe.sort.IntegralSortKey;
+
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Dictionary encoded string column.
+ * Each distinct value is stored once in a dictionary, rows only hold the <tt>int</tt> code of their value.
+ * Codes are assigned in order of first appearance and never change, the dictionary only grows.
+ * <tt>NA</tt> values have the code {@link #NA_CODE}.
+ * <p>
+ * Grouping, joins and equality filters compare codes instead of strings if a column is dictionary encoded.
+ * </p>
+ */
+public class DictionaryStringColumn extends StringColumn implements IntegralSortKey {
+
+    /**
+     * Code of <tt>NA</tt> values
+     */
+    public static final int NA_CODE = -1;
+
+    private int[] codes;
+    private final List<String> dictionary;
+    private final Map<String, Integer> dictionaryIndex;
+
+    public DictionaryStringColumn() {
+        this((String) null);
+    }
+
+    public DictionaryStringColumn(String name) {
+        super(name, 0);
+        codes = new int[INIT_SIZE];
+        dictionary = new ArrayList<>();
+        dictionaryIndex = new HashMap<>();
+    }
+
+    public DictionaryStringColumn(String name, String[] values) {
+        this(name, values, values.length);
+    }
+
+    public DictionaryStringColumn(String name, String[] values, int size) {
+        super(name, size);
+        codes = new int[values.length];
+        dictionary = new ArrayList<>();
+        dictionaryIndex = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            codes[i] = values[i] == null ? NA_CODE : encode(values[i]);
+        }
+    }
+
+    private DictionaryStringColumn(DictionaryStringColumn column) {
+        super(column.getName(), column.size());
+        codes = Arrays.copyOf(column.codes, column.codes.length);
+        dictionary = new ArrayList<>(column.dictionary);
+        dictionaryIndex = new HashMap<>(column.dictionaryIndex);
+    }
+
+    /**
+     * Returns the code of the value at the specified index or {@link #NA_CODE} if the value is <tt>NA</tt>.
+     *
+     * @param index index of the value
+     * @return code of the value
+     */
+    public int getCode(int index) {
+        return codes[index];
+    }
+
+    /**
+     * Returns the code of a value or {@link #NA_CODE} if the value is not contained in the dictionary.
+     *
+     * @param value value
+     * @return code of the value
+     */
+    public int findCode(String value) {
+        if (value == null) {
+            return NA_CODE;
+        }
+        Integer code = dictionaryIndex.get(value);
+        return code == null ? NA_CODE : code;
+    }
+
+    /**
+     * Returns the dictionary value for a code
+     *
+     * @param code code of the value
+     * @return dictionary value
+     */
+    public String getDictionaryValue(int code) {
+        return dictionary.get(code);
+    }
+
+    /**
+     * Returns the number of values in the dictionary.
+     * Valid codes are in the range <tt>[0, getDictionarySize())</tt>.
+     *
+     * @return size of the dictionary
+     */
+    public int getDictionarySize() {
+        return dictionary.size();
+    }
+
+    /**
+     * Returns an unmodifiable view of the dictionary.
+     * The dictionary can contain values that are no longer used by any row.
+     *
+     * @return dictionary values, indexed by code
+     */
+    public List<String> getDictionary() {
+        return Collections.unmodifiableList(dictionary);
+    }
+
+    private int encode(String value) {
+        Integer code = dictionaryIndex.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            dictionaryIndex.put(value, code);
+        }
+        return code;
+    }
+
+    @Override
+    public String get(int index) {
+        int code = codes[index];
+        return code == NA_CODE ? null : dictionary.get(code);
+    }
+
+    @Override
+    protected void setValue(int index, String value) {
+        codes[index] = encode(value);
+    }
+
+    @Override
+    protected void doSetNA(int index) {
+        codes[index] = NA_CODE;
+    }
+
+    @Override
+    public boolean isNA(int index) {
+        return index >= size() || codes[index] == NA_CODE;
+    }
+
+    @Override
+    protected int capacity() {
+        return codes.length;
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        codes = Arrays.copyOf(codes, capacity);
+    }
+
+    @Override
+    protected void swap(int a, int b) {
+        int temp = codes[a];
+        codes[a] = codes[b];
+        codes[b] = temp;
+    }
+
+    @Override
+    protected void reorder(int[] order) {
+        int[] reordered = new int[codes.length];
+        for (int i = 0; i < order.length; i++) {
+            reordered[i] = codes[order[i]];
+        }
+        codes = reordered;
+    }
+
+    /**
+     * Returns a comparator that compares the ranks of the dictionary codes.
+     * The dictionary is ranked once, each comparison only compares two integers.
+     *
+     * @return index comparator
+     */
+    @Override
+    public IndexComparator getIndexComparator() {
+        int[] ranks = rankDictionary(getValueType().getComparator());
+        return (a, b) -> Integer.compare(ranks[codes[a]], ranks[codes[b]]);
+    }
+
+    /**
+     * Returns the ranks of the dictionary codes as sort keys.
+     *
+     * @return sort key function
+     */
+    @Override
+    public IntToLongFunction getSortKey() {
+        int[] ranks = rankDictionary(getValueType().getComparator());
+        return index -> ranks[codes[index]];
+    }
+
+    @Override
+    protected void clearValues() {
+        codes = new int[INIT_SIZE];
+    }
+
+    /**
+     * Sorts the dictionary once and orders the rows by the rank of their code.
+     * Values that are equal according to the comparator get the same rank.
+     *
+     * @param comparator value comparator
+     */
+    @Override
+    protected void doSort(Comparator<String> comparator) {
+        int[] ranks = rankDictionary(comparator);
+        int size = size();
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int codeA = codes[a];
+            int codeB = codes[b];
+            if (codeA == NA_CODE || codeB == NA_CODE) {
+                return comparator.compare(get(a), get(b));
+            }
+            return Integer.compare(ranks[codeA], ranks[codeB]);
+        });
+        int[] sorted = new int[codes.length];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = codes[order[i]];
+        }
+        codes = sorted;
+    }
+
+    private int[] rankDictionary(Comparator<String> comparator) {
+        int dictionarySize = dictionary.size();
+        Integer[] dictionaryOrder = new Integer[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionaryOrder[i] = i;
+        }
+        Arrays.sort(dictionaryOrder, (a, b) -> comparator.compare(dictionary.get(a), dictionary.get(b)));
+        int[] ranks = new int[dictionarySize];
+        int rank = 0;
+        for (int i = 0; i < dictionarySize; i++) {
+            if (i > 0 && comparator.compare(
+                    dictionary.get(dictionaryOrder[i - 1]), dictionary.get(dictionaryOrder[i])) != 0) {
+                rank++;
+            }
+            ranks[dictionaryOrder[i]] = rank;
+        }
+        return ranks;
+    }
+
+    @Override
+    protected void doSort() {
+        doSort(getValueType().getComparator());
+    }
+
+    @Override
+    public String[] toArray() {
+        return toArray(new String[size()]);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public String[] toArray(String[] a) {
+        int size = size();
+        if (a.length < size) {
+            a = (String[]) Array.newInstance(a.getClass().getComponentType(), size);
+        }
+        for (int i = 0; i < size; i++) {
+            a[i] = get(i);
+        }
+        if (a.length > size) {
+            a[size] = null;
+        }
+        return a;
+    }
+
+    @Override
+    public List<String> asList() {
+        return Collections.unmodifiableList(new CodeValueList());
+    }
+
+    @Override
+    public Set<String> uniq() {
+        Set<String> u = new HashSet<>();
+        boolean[] used = new boolean[dictionary.size()];
+        for (int i = 0; i < size(); i++) {
+            int code = codes[i];
+            if (code != NA_CODE && !used[code]) {
+                used[code] = true;
+                u.add(dictionary.get(code));
+            }
+        }
+        return u;
+    }
+
+    /**
+     * Dictionary encoded columns are not sealed, the codes are kept for sorting, grouping and filtering.
+     *
+     * @return <tt>self</tt>
+     */
+    @Override
+    public DictionaryStringColumn seal() {
+        return this;
+    }
+
+    @Override
+    public DictionaryStringColumn copy() {
+        return new DictionaryStringColumn(this);
+    }
+
+    @Override
+    public DictionaryStringColumn copyEmpty() {
+        return new DictionaryStringColumn(getName());
+    }
+
+    private class CodeValueList extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            if (index >= size()) {
+                throw new IndexOutOfBoundsException(String.format("index out of bounds %s >= %s", index, size()));
+            }
+            return DictionaryStringColumn.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return DictionaryStringColumn.this.size();
+        }
+    }
+}
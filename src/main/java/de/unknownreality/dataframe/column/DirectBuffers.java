@@ -0,0 +1,187 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+import de.unknownreality.dataframe.DataFrameRuntimeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Allocation and deterministic release of direct byte buffers used by off-heap columns.
+ * <p>
+ * Direct buffers are normally freed after they are garbage collected.
+ * {@link #release(ByteBuffer)} frees the memory immediately using the buffer cleaner.
+ * A released buffer must not be accessed anymore.
+ * </p>
+ */
+final class DirectBuffers {
+    private static final Logger log = LoggerFactory.getLogger(DirectBuffers.class);
+
+    /**
+     * Empty buffer used by closed columns. It is never released.
+     */
+    static final ByteBuffer EMPTY = ByteBuffer.allocateDirect(0).order(ByteOrder.nativeOrder());
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+    private static final Method GET_CLEANER;
+    private static final Method CLEAN;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        Method getCleaner = null;
+        Method clean = null;
+        try {
+            // Java 9+
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+        } catch (Exception e) {
+            invokeCleaner = null;
+            try {
+                // Java 8
+                getCleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            } catch (Exception e2) {
+                log.warn("direct buffers can not be released explicitly, memory is freed by the garbage collector");
+            }
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+        GET_CLEANER = getCleaner;
+        CLEAN = clean;
+    }
+
+    private DirectBuffers() {
+    }
+
+    /**
+     * Allocates a direct buffer in native byte order
+     *
+     * @param bytes size of the buffer in bytes
+     * @return direct buffer
+     */
+    static ByteBuffer allocate(int bytes) {
+        if (bytes == 0) {
+            return EMPTY;
+        }
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Allocates a new buffer and copies the content of a buffer.
+     * If the new buffer is smaller, the content is truncated.
+     *
+     * @param buffer source buffer
+     * @param bytes  size of the new buffer in bytes
+     * @return new buffer
+     */
+    static ByteBuffer copy(ByteBuffer buffer, int bytes) {
+        ByteBuffer copy = allocate(bytes);
+        ByteBuffer source = buffer.duplicate();
+        source.position(0);
+        source.limit(Math.min(buffer.capacity(), bytes));
+        copy.duplicate().put(source);
+        return copy;
+    }
+
+    /**
+     * Allocates a new buffer and copies a byte range of a buffer into it.
+     *
+     * @param buffer source buffer
+     * @param from   first byte (inclusive)
+     * @param to     last byte (exclusive)
+     * @return new buffer
+     */
+    static ByteBuffer copyRange(ByteBuffer buffer, int from, int to) {
+        ByteBuffer copy = allocate(to - from);
+        ByteBuffer source = buffer.duplicate();
+        source.limit(to);
+        source.position(from);
+        copy.duplicate().put(source);
+        return copy;
+    }
+
+    /**
+     * Allocates a new buffer, copies the content of the old buffer and releases the old buffer.
+     * If the new buffer is smaller, the content is truncated.
+     *
+     * @param buffer old buffer
+     * @param bytes  size of the new buffer in bytes
+     * @return new buffer
+     */
+    static ByteBuffer resize(ByteBuffer buffer, int bytes) {
+        ByteBuffer resized = copy(buffer, bytes);
+        release(buffer);
+        return resized;
+    }
+
+    /**
+     * Returns the number of bytes required for the specified number of values.
+     *
+     * @param values    number of values
+     * @param valueSize size of a single value in bytes
+     * @return number of bytes
+     */
+    static int bytes(int values, int valueSize) {
+        long bytes = (long) values * valueSize;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new DataFrameRuntimeException(
+                    String.format("off-heap column capacity exceeded: %s values of %s bytes", values, valueSize));
+        }
+        return (int) bytes;
+    }
+
+    /**
+     * Frees the memory of a direct buffer
+     *
+     * @param buffer direct buffer
+     */
+    static void release(ByteBuffer buffer) {
+        if (buffer == null || buffer == EMPTY || !buffer.isDirect()) {
+            return;
+        }
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } else if (GET_CLEANER != null) {
+                Object cleaner = GET_CLEANER.invoke(buffer);
+                if (cleaner != null) {
+                    CLEAN.invoke(cleaner);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("error releasing direct buffer: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,444 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+import de.unknownreality.dataframe.DataFrame;
+import de.unknownreality.dataframe.DataFrameColumn;
+import de.unknownreality.dataframe.DataFrameRuntimeException;
+import de.unknownreality.dataframe.MapFunction;
+import de.unknownreality.dataframe.Values;
+import de.unknownreality.dataframe.type.DataFrameTypeManager;
+import de.unknownreality.dataframe.type.ValueType;
+import de.unknownreality.dataframe.type.ValueTypeNotFoundException;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Column with values that are computed by a {@link ColumnExpression} from other columns of its data frame.
+ * <p>
+ * The values are not stored. Each value is computed when it is read, whole columns are computed in chunks.
+ * A cached expression column stores all values after they were computed once.
+ * The cache is invalidated if the data frame or one of its columns changes.
+ * </p>
+ * <p>
+ * Expression columns are read-only. Appending rows to the data frame only increases their size,
+ * appended values are ignored. Sorting and filtering the data frame keeps the expression,
+ * the values are computed from the sorted or filtered source columns.
+ * Grouping and joining create regular columns with the computed values.
+ * </p>
+ *
+ * @param <T> type of the computed values
+ */
+public class ExpressionColumn<T> extends DataFrameColumn<T, ExpressionColumn<T>> {
+
+    /**
+     * Number of values computed at once when the whole column is computed
+     */
+    private static final int EVALUATION_CHUNK_SIZE = 4096;
+
+    private final ValueType<T> valueType;
+    private final ColumnExpression<T> expression;
+    private final boolean cached;
+    private int size;
+    private Object[] cache;
+    private int cacheVersion;
+
+    /**
+     * Creates an expression column that computes its values on every access.
+     *
+     * @param name       name of the column
+     * @param type       type of the computed values
+     * @param expression expression computing the values
+     */
+    public ExpressionColumn(String name, Class<T> type, ColumnExpression<T> expression) {
+        this(name, type, expression, false);
+    }
+
+    /**
+     * Creates an expression column.
+     *
+     * @param name       name of the column
+     * @param type       type of the computed values
+     * @param expression expression computing the values
+     * @param cached     <tt>true</tt> if all values are stored after they are computed once
+     */
+    public ExpressionColumn(String name, Class<T> type, ColumnExpression<T> expression, boolean cached) {
+        this(name, valueTypeOf(type), expression, cached);
+    }
+
+    /**
+     * Creates an expression column.
+     *
+     * @param name       name of the column
+     * @param valueType  value type of the computed values
+     * @param expression expression computing the values
+     * @param cached     <tt>true</tt> if all values are stored after they are computed once
+     */
+    public ExpressionColumn(String name, ValueType<T> valueType, ColumnExpression<T> expression, boolean cached) {
+        setName(name);
+        this.valueType = valueType;
+        this.expression = expression;
+        this.cached = cached;
+    }
+
+    private static <T> ValueType<T> valueTypeOf(Class<T> type) {
+        try {
+            return DataFrameTypeManager.get().getValueType(type);
+        } catch (ValueTypeNotFoundException e) {
+            throw new DataFrameRuntimeException(String.format("no value type found for '%s'", type.getCanonicalName()), e);
+        }
+    }
+
+    @Override
+    protected ExpressionColumn<T> getThis() {
+        return this;
+    }
+
+    @Override
+    public ValueType<T> getValueType() {
+        return valueType;
+    }
+
+    /**
+     * Returns the expression computing the values of this column
+     *
+     * @return expression
+     */
+    public ColumnExpression<T> getExpression() {
+        return expression;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the values are stored after they are computed once
+     *
+     * @return <tt>true</tt> if the values are cached
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new DataFrameRuntimeException(String.format("index %d out of bounds for column with size %d", index, size));
+        }
+        if (isCacheValid()) {
+            return (T) cache[index];
+        }
+        return expression.evaluate(requireDataFrame(), index);
+    }
+
+    @Override
+    public boolean isNA(int index) {
+        return get(index) == null;
+    }
+
+    /**
+     * Invalidates the cached values. Called by the data frame if a source column changes.
+     */
+    public void invalidateCache() {
+        cache = null;
+    }
+
+    private boolean isCacheValid() {
+        return cache != null && cache.length == size
+                && getDataFrame() != null && cacheVersion == getDataFrame().getVersion();
+    }
+
+    private DataFrame requireDataFrame() {
+        DataFrame dataFrame = getDataFrame();
+        if (dataFrame == null) {
+            throw new DataFrameRuntimeException(String.format("expression column '%s' is not part of a data frame", getName()));
+        }
+        return dataFrame;
+    }
+
+    /**
+     * Computes all values in chunks. The values are cached if this column is cached.
+     *
+     * @return computed values
+     */
+    private Object[] values() {
+        if (isCacheValid()) {
+            return cache;
+        }
+        DataFrame dataFrame = requireDataFrame();
+        Object[] values = new Object[size];
+        Object[] chunk = new Object[Math.min(size, EVALUATION_CHUNK_SIZE)];
+        for (int from = 0; from < size; from += EVALUATION_CHUNK_SIZE) {
+            int to = Math.min(size, from + EVALUATION_CHUNK_SIZE);
+            expression.evaluate(dataFrame, from, to, chunk);
+            System.arraycopy(chunk, 0, values, from, to - from);
+        }
+        if (cached) {
+            cache = values;
+            cacheVersion = dataFrame.getVersion();
+        }
+        return values;
+    }
+
+    /**
+     * Computes all values and stores them in a new regular column of the value type.
+     *
+     * @return column containing the computed values
+     */
+    @SuppressWarnings("unchecked")
+    public DataFrameColumn<T, ?> materialize() {
+        DataFrameColumn<T, ?> column = DataFrameTypeManager.get().createColumn(valueType);
+        column.setName(getName());
+        for (Object value : values()) {
+            if (value == null) {
+                column.appendNA();
+            } else {
+                column.append((T) value);
+            }
+        }
+        return column;
+    }
+
+    private static DataFrameRuntimeException readOnly() {
+        return new DataFrameRuntimeException("expression columns are read-only");
+    }
+
+    @Override
+    public ExpressionColumn<T> setCapacity(int capacity) {
+        return this;
+    }
+
+    @Override
+    protected void doSort(Comparator<T> comparator) {
+        throw readOnly();
+    }
+
+    @Override
+    protected void doSort() {
+        throw readOnly();
+    }
+
+    @Override
+    protected void doSet(int index, T value) {
+        throw readOnly();
+    }
+
+    @Override
+    protected void doSetNA(int index) {
+        throw readOnly();
+    }
+
+    @Override
+    protected void doMap(MapFunction<T> mapFunction) {
+        throw readOnly();
+    }
+
+    /**
+     * The values are computed from the reversed source columns, only the cache is invalidated.
+     */
+    @Override
+    protected void doReverse() {
+        invalidateCache();
+    }
+
+    /**
+     * The values are computed from the reordered source columns, only the cache is invalidated.
+     *
+     * @param order new order of the rows
+     */
+    @Override
+    protected void reorder(int[] order) {
+        invalidateCache();
+    }
+
+    /**
+     * Increases the size of this column, the value is ignored.
+     *
+     * @param value ignored value
+     * @return <tt>true</tt>
+     */
+    @Override
+    protected boolean doAppend(T value) {
+        size++;
+        return true;
+    }
+
+    @Override
+    protected boolean doAppendNA() {
+        size++;
+        return true;
+    }
+
+    @Override
+    protected boolean doAppendAll(Collection<? extends T> c) {
+        size += c.size();
+        return true;
+    }
+
+    @Override
+    public boolean isValueValid(Object value) {
+        return Values.NA.isNA(value) || valueType.getType().isAssignableFrom(value.getClass());
+    }
+
+    @Override
+    public ExpressionColumn<T> copy() {
+        ExpressionColumn<T> copy = copyEmpty();
+        copy.size = size;
+        return copy;
+    }
+
+    @Override
+    public ExpressionColumn<T> copyEmpty() {
+        return new ExpressionColumn<>(getName(), valueType, expression, cached);
+    }
+
+    /**
+     * Creates an expression column with the size of the range.
+     * The values are computed from the source columns of the data frame it is added to.
+     *
+     * @param from first index (inclusive)
+     * @param to   last index (exclusive)
+     * @return slice of this column
+     */
+    @Override
+    public ExpressionColumn<T> slice(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new DataFrameRuntimeException(String.format("invalid slice [%d, %d) of column with size %d", from, to, size()));
+        }
+        ExpressionColumn<T> slice = copyEmpty();
+        slice.size = to - from;
+        return slice;
+    }
+
+    /**
+     * Returns a new expression column with the number of selected rows.
+     * The values are computed from the selected rows of the source columns.
+     *
+     * @param indices indices of the selected rows
+     * @return slice of this column
+     */
+    @Override
+    public ExpressionColumn<T> slice(int[] indices) {
+        ExpressionColumn<T> slice = copyEmpty();
+        slice.size = indices.length;
+        return slice;
+    }
+
+    /**
+     * Only the size and the cache are updated, the values are computed from the compacted source columns.
+     *
+     * @param indices ascending indices of the kept rows
+     * @return <tt>self</tt>
+     */
+    @Override
+    protected ExpressionColumn<T> compact(int[] indices) {
+        size = indices.length;
+        invalidateCache();
+        return this;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        cache = null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T[] toArray(T[] a) {
+        Object[] values = values();
+        if (a.length < size) {
+            a = (T[]) Array.newInstance(a.getClass().getComponentType(), size);
+        }
+        System.arraycopy(values, 0, a, 0, size);
+        if (a.length > size) {
+            a[size] = null;
+        }
+        return a;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T[] toArray() {
+        return toArray((T[]) Array.newInstance(valueType.getType(), size));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> asList() {
+        return Collections.unmodifiableList((List<T>) Arrays.asList(values()));
+    }
+
+    @Override
+    public List<T> toList() {
+        return new ArrayList<>(asList());
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        return asList().containsAll(c);
+    }
+
+    @Override
+    public boolean contains(T o) {
+        return asList().contains(o);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public T next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(index++);
+            }
+        };
+    }
+}
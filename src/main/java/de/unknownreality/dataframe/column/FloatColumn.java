@@ -24,9 +24,14 @@
 
 package de.unknownreality.dataframe.column;
 
+import de.unknownreality.dataframe.DataFrameRuntimeException;
 import de.unknownreality.dataframe.common.Row;
+import de.unknownreality.dataframe.sort.IndexComparator;
 import de.unknownreality.dataframe.type.impl.FloatType;
 
+import java.util.Arrays;
+import java.util.BitSet;
+
 /**
  * Created by Alex on 09.03.2016.
  */
@@ -34,40 +39,400 @@ public class FloatColumn extends NumberColumn<Float, FloatColumn> {
 
     private final FloatType valueType = new FloatType();
 
-    @Override
-    public FloatType getValueType() {
-        return valueType;
-    }
+    private float[][] chunks;
+
+    /**
+     * Position of the first value within the chunks. Slices start within the chunks of their parent column.
+     */
+    private int offset;
+
+    /**
+     * Chunks that are shared with other columns, <tt>null</tt> if no chunk is shared.
+     * Shared chunks are copied before they are modified.
+     */
+    private BitSet sharedChunks;
 
     public FloatColumn() {
-        super(Float.class);
+        this(null);
     }
 
     public FloatColumn(String name) {
-        super(name, Float.class);
+        super(name);
+        chunks = new float[][]{new float[INIT_SIZE]};
     }
 
     public FloatColumn(String name, Float[] values) {
-        super(name, values);
+        this(name, values, values.length);
     }
 
     public FloatColumn(String name, Float[] values, int size) {
-        super(name, values, size);
+        super(name, new BitSet(), size);
+        chunks = ChunkedArrays.allocate(new float[0][], values.length, float[]::new);
+        for (int i = 0; i < size; i++) {
+            if (values[i] == null) {
+                naValues.set(i);
+            } else {
+                chunks[i >>> CHUNK_SHIFT][i & CHUNK_MASK] = values[i];
+            }
+        }
     }
 
+    /**
+     * Creates a column that uses a primitive array as value storage.
+     * Arrays with up to {@link #CHUNK_SIZE} values are not copied.
+     *
+     * @param name   name of the column
+     * @param values primitive values
+     */
+    public FloatColumn(String name, float[] values) {
+        this(name, ChunkedArrays.split(new float[0][], values, values.length, Arrays::copyOfRange), new BitSet(), values.length);
+    }
+
+    /**
+     * Creates a column from existing value storage.
+     * Used by {@link #copy()} and by subclasses that provide their own value storage.
+     *
+     * @param name     name of the column
+     * @param chunks   chunked primitive values
+     * @param naValues <tt>NA</tt> bitmap
+     * @param size     size of the column
+     */
+    protected FloatColumn(String name, float[][] chunks, BitSet naValues, int size) {
+        super(name, naValues, size);
+        this.chunks = chunks;
+    }
+
+    private FloatColumn(String name, float[][] chunks, int offset, BitSet sharedChunks, BitSet naValues, int size) {
+        this(name, chunks, naValues, size);
+        this.offset = offset;
+        this.sharedChunks = sharedChunks;
+    }
+
+    @Override
+    public FloatType getValueType() {
+        return valueType;
+    }
 
     @Override
     protected FloatColumn getThis() {
         return this;
     }
 
+    /**
+     * Returns the value at the specified index as primitive <tt>float</tt>.
+     * No object is created. The result is <tt>0</tt> if the value is {@link de.unknownreality.dataframe.Values#NA NA},
+     * use {@link #isNA(int)} to test for <tt>NA</tt>.
+     *
+     * @param index index of the value
+     * @return primitive value
+     */
+    public float getFloat(int index) {
+        int i = index + offset;
+        return chunks[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+    }
+
+    @Override
+    public IndexComparator getIndexComparator() {
+        return (a, b) -> Float.compare(getFloat(a), getFloat(b));
+    }
+
+    @Override
+    public double getDouble(int index) {
+        int i = index + offset;
+        return chunks[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+    }
+
+    @Override
+    public long getLong(int index) {
+        int i = index + offset;
+        return (long) chunks[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+    }
+
+    @Override
+    protected Float getValue(int index) {
+        int i = index + offset;
+        return chunks[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+    }
+
+    @Override
+    protected void setNumber(int index, Number value) {
+        int i = index + offset;
+        writableChunk(i)[i & CHUNK_MASK] = value.floatValue();
+    }
+
+    @Override
+    protected void getDoubles(int from, int to, double[] target) {
+        for (int i = from; i < to; ) {
+            int position = i + offset;
+            float[] chunk = chunks[position >>> CHUNK_SHIFT];
+            int start = position & CHUNK_MASK;
+            int n = Math.min(to - i, CHUNK_SIZE - start);
+            int t = i - from;
+            for (int j = 0; j < n; j++) {
+                target[t + j] = chunk[start + j];
+            }
+            i += n;
+        }
+    }
+
+    @Override
+    protected void setDoubles(int from, int to, double[] source, int off) {
+        for (int i = from; i < to; ) {
+            int position = i + offset;
+            float[] chunk = writableChunk(position);
+            int start = position & CHUNK_MASK;
+            int n = Math.min(to - i, CHUNK_SIZE - start);
+            int o = off + i - from;
+            for (int j = 0; j < n; j++) {
+                chunk[start + j] = (float) source[o + j];
+            }
+            i += n;
+        }
+    }
+
+    @Override
+    protected void prepareWrite(int from, int to) {
+        if (sharedChunks == null || from >= to) {
+            return;
+        }
+        for (int chunk = (from + offset) >>> CHUNK_SHIFT; chunk <= (to - 1 + offset) >>> CHUNK_SHIFT; chunk++) {
+            writableChunk(chunk << CHUNK_SHIFT);
+        }
+    }
+
+    @Override
+    protected void clearValue(int index) {
+        int i = index + offset;
+        writableChunk(i)[i & CHUNK_MASK] = 0f;
+    }
 
+    @Override
+    protected void swapValues(int a, int b) {
+        a += offset;
+        b += offset;
+        float[] chunkA = writableChunk(a);
+        float[] chunkB = writableChunk(b);
+        float temp = chunkA[a & CHUNK_MASK];
+        chunkA[a & CHUNK_MASK] = chunkB[b & CHUNK_MASK];
+        chunkB[b & CHUNK_MASK] = temp;
+    }
+
+    @Override
+    protected void reorderValues(int[] order) {
+        float[][] reordered = ChunkedArrays.allocate(new float[0][], capacity(), float[]::new);
+        for (int i = 0; i < order.length; i++) {
+            int o = order[i] + offset;
+            reordered[i >>> CHUNK_SHIFT][i & CHUNK_MASK] = chunks[o >>> CHUNK_SHIFT][o & CHUNK_MASK];
+        }
+        chunks = reordered;
+        offset = 0;
+        sharedChunks = null;
+    }
+
+    @Override
+    protected int capacity() {
+        return ChunkedArrays.capacity(chunks) - offset;
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        if (offset != 0) {
+            unshare(capacity);
+            return;
+        }
+        float[][] resized = ChunkedArrays.resize(chunks, capacity, float[]::new, Arrays::copyOf);
+        if (sharedChunks != null) {
+            if (resized[0] != chunks[0]) {
+                sharedChunks.clear(0);
+            }
+            sharedChunks.clear(resized.length, Math.max(resized.length, chunks.length));
+        }
+        chunks = resized;
+    }
+
+    /**
+     * Returns the chunk containing the value at the specified position within the chunks.
+     * A shared chunk is copied first, so that the returned chunk can be modified.
+     *
+     * @param position position within the chunks (index + offset)
+     * @return modifiable chunk
+     */
+    private float[] writableChunk(int position) {
+        int chunk = position >>> CHUNK_SHIFT;
+        if (sharedChunks != null && sharedChunks.get(chunk)) {
+            chunks[chunk] = chunks[chunk].clone();
+            sharedChunks.clear(chunk);
+        }
+        return chunks[chunk];
+    }
+
+    /**
+     * Copies the values into new chunks that are not shared with other columns and start at offset <tt>0</tt>.
+     * Values that do not fit into the new capacity are dropped.
+     *
+     * @param capacity capacity of the new chunks
+     */
+    private void unshare(int capacity) {
+        float[][] copied = ChunkedArrays.allocate(new float[0][], capacity, float[]::new);
+        ChunkedArrays.copyRange(chunks, offset, copied, 0, Math.min(size(), capacity));
+        chunks = copied;
+        offset = 0;
+        sharedChunks = null;
+    }
+
+    /**
+     * Marks the chunks in the specified range as shared
+     *
+     * @param from first chunk (inclusive)
+     * @param to   last chunk (exclusive)
+     */
+    private void share(int from, int to) {
+        if (sharedChunks == null) {
+            sharedChunks = new BitSet();
+        }
+        sharedChunks.set(from, to);
+    }
+
+    @Override
+    protected int newCapacity(int capacity, int minCapacity) {
+        return ChunkedArrays.newCapacity(super.newCapacity(capacity, minCapacity), minCapacity);
+    }
+
+    @Override
+    protected void doSort() {
+        if (hasNA()) {
+            super.doSort();
+            return;
+        }
+        if (offset != 0 || sharedChunks != null) {
+            unshare(capacity());
+        }
+        int size = size();
+        if (chunks.length == 1) {
+            Arrays.sort(chunks[0], 0, size);
+            return;
+        }
+        float[] values = new float[size];
+        ChunkedArrays.copyToArray(chunks, values, size);
+        Arrays.sort(values);
+        ChunkedArrays.copyFromArray(values, chunks, size);
+    }
+
+    /**
+     * Creates a copy of this column.
+     * The copy shares the value storage with this column, each chunk is copied when it is first modified by either column.
+     *
+     * @return copy of this column
+     */
     @Override
     public FloatColumn copy() {
-        Float[] copyValues = new Float[values.length];
-        toArray(copyValues);
-        return new FloatColumn(getName(), copyValues, size());
+        share(0, chunks.length);
+        BitSet shared = new BitSet();
+        shared.set(0, chunks.length);
+        return new FloatColumn(getName(), Arrays.copyOf(chunks, chunks.length), offset, shared, (BitSet) naValues.clone(), size());
+    }
+
+    /**
+     * Creates a slice of this column.
+     * The slice is a view with an offset into the value storage of this column,
+     * each chunk is copied when it is first modified by either column.
+     *
+     * @param from first index (inclusive)
+     * @param to   last index (exclusive)
+     * @return slice of this column
+     */
+    @Override
+    public FloatColumn slice(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new DataFrameRuntimeException(String.format("invalid slice [%d, %d) of column with size %d", from, to, size()));
+        }
+        if (from == to) {
+            return copyEmpty();
+        }
+        int first = (from + offset) >>> CHUNK_SHIFT;
+        int last = ((to - 1 + offset) >>> CHUNK_SHIFT) + 1;
+        share(first, last);
+        BitSet shared = new BitSet();
+        shared.set(0, last - first);
+        return new FloatColumn(getName(), Arrays.copyOfRange(chunks, first, last), (from + offset) - (first << CHUNK_SHIFT),
+                shared, naValues.get(from, to), to - from);
     }
+
+    /**
+     * Gathers the selected values into a primitive array and appends them in bulk.
+     *
+     * @param indices indices of the selected values
+     * @return new column containing the selected values
+     */
+    @Override
+    public FloatColumn slice(int[] indices) {
+        float[] values = new float[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            values[i] = getFloat(indices[i]);
+        }
+        FloatColumn slice = copyEmpty();
+        slice.appendAll(values);
+        if (hasNA()) {
+            for (int i = 0; i < indices.length; i++) {
+                if (naValues.get(indices[i])) {
+                    slice.doSetNA(i);
+                }
+            }
+        }
+        return slice;
+    }
+
+    /**
+     * Appends a range of a primitive array to this column.
+     * The values are copied into the value storage without creating objects.
+     * <p>Calls {@link #validateAppend()} to ensure data frame index consistency</p>
+     *
+     * @param values primitive values
+     * @param off    first value in the array
+     * @param len    number of values
+     * @return <tt>true</tt> if the values are appended successfully
+     */
+    public final boolean appendAll(float[] values, int off, int len) {
+        if (!validateAppendAll(values.length, off, len)) {
+            return false;
+        }
+        int size = size();
+        ensureCapacity(size + len);
+        setValues(size, values, off, len);
+        naValues.clear(size, size + len);
+        setSize(size + len);
+        return true;
+    }
+
+    /**
+     * Appends all values of a primitive array to this column.
+     *
+     * @param values primitive values
+     * @return <tt>true</tt> if the values are appended successfully
+     * @see #appendAll(float[], int, int)
+     */
+    public final boolean appendAll(float[] values) {
+        return appendAll(values, 0, values.length);
+    }
+
+    /**
+     * Copies a range of a primitive array into the value storage, starting at the specified index.
+     * The capacity of the value storage must be sufficient.
+     *
+     * @param index  first index in this column
+     * @param values primitive values
+     * @param off    first value in the array
+     * @param len    number of values
+     */
+    protected void setValues(int index, float[] values, int off, int len) {
+        for (int i = 0; i < len; ) {
+            int position = index + offset + i;
+            int n = Math.min(len - i, CHUNK_SIZE - (position & CHUNK_MASK));
+            System.arraycopy(values, off + i, writableChunk(position), position & CHUNK_MASK, n);
+            i += n;
+        }
+    }
+
     @Override
     public <H> Float getValueFromRow(Row<?, H> row, H headerName) {
         return row.getFloat(headerName);
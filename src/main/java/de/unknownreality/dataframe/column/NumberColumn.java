@@ -24,39 +24,254 @@
 
 package de.unknownreality.dataframe.column;
 
+import de.unknownreality.dataframe.DataFrame;
+import de.unknownreality.dataframe.Parallelism;
 import de.unknownreality.dataframe.common.NumberUtil;
 import de.unknownreality.dataframe.common.math.Quantiles;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * Created by Alex on 11.03.2016.
  */
-public abstract class NumberColumn<T extends Number, C extends NumberColumn<T, C>> extends BasicColumn<T, C> {
+public abstract class NumberColumn<T extends Number, C extends NumberColumn<T, C>> extends PrimitiveColumn<T, C> {
     private static final Logger log = LoggerFactory.getLogger(NumberColumn.class);
 
-    public NumberColumn(String name, Class<T> cl) {
-        super(name, cl);
+    /**
+     * Statistics of the first rows of this column, <tt>null</tt> if the statistics are invalid.
+     */
+    private ColumnStatistics statistics;
+
+    /**
+     * Sorted values used for quantile calculations, <tt>null</tt> if invalid.
+     */
+    private Quantiles<T> quantiles;
+    private int quantilesSize;
+
+    /**
+     * Number of values processed at once by the arithmetic operations
+     */
+    private static final int ARITHMETIC_BLOCK_SIZE = 4096;
+
+    public NumberColumn(String name) {
+        super(name);
     }
 
-    public NumberColumn(Class<T> cl) {
-        super(null, cl);
+    protected NumberColumn(String name, BitSet naValues, int size) {
+        super(name, naValues, size);
     }
 
-    public NumberColumn(String name, T[] values) {
-        super(name, values);
+    /**
+     * Returns the value at the specified index as primitive <tt>double</tt>.
+     * No object is created. The result is <tt>0</tt> if the value is {@link de.unknownreality.dataframe.Values#NA NA},
+     * use {@link #isNA(int)} to test for <tt>NA</tt>.
+     *
+     * @param index index of the value
+     * @return value as <tt>double</tt>
+     */
+    public abstract double getDouble(int index);
+
+    /**
+     * Returns the value at the specified index as primitive <tt>long</tt>.
+     * No object is created. The result is <tt>0</tt> if the value is {@link de.unknownreality.dataframe.Values#NA NA},
+     * use {@link #isNA(int)} to test for <tt>NA</tt>.
+     *
+     * @param index index of the value
+     * @return value as <tt>long</tt>
+     */
+    public abstract long getLong(int index);
+
+    /**
+     * Stores a number at the specified index.
+     * The number is converted to the primitive type of this column.
+     *
+     * @param index index of the value
+     * @param value number to store
+     */
+    protected abstract void setNumber(int index, Number value);
+
+    @Override
+    protected final void setValue(int index, T value) {
+        setNumber(index, value);
+        updateStatistics(index, false);
     }
 
-    public NumberColumn(String name, T[] values, int size) {
-        super(name, values, size);
+    @Override
+    protected void doSetNA(int index) {
+        super.doSetNA(index);
+        updateStatistics(index, true);
+    }
+
+    @Override
+    protected void clearValues() {
+        invalidateStatistics();
+        super.clearValues();
     }
 
+    @Override
+    protected void setSize(int size) {
+        if (size < size()) {
+            invalidateStatistics();
+        }
+        super.setSize(size);
+    }
 
+    /**
+     * Invalidates the statistics if values were reordered before all rows were included in the statistics.
+     * Reordering all values does not change the statistics.
+     */
     @Override
-    public T get(int index) {
-        return super.values[index];
+    public void notifyDataFrameColumnChanged() {
+        if (statistics != null && statistics.rows() != size()) {
+            invalidateStatistics();
+        }
+        super.notifyDataFrameColumnChanged();
+    }
+
+    /**
+     * Updates the statistics after the value at the specified index has been set.
+     * Appended values are added to the statistics, changing a value that is already included invalidates the statistics.
+     *
+     * @param index index of the value
+     * @param na    <tt>true</tt> if the value was set to <tt>NA</tt>
+     */
+    private void updateStatistics(int index, boolean na) {
+        if (index < quantilesSize) {
+            quantiles = null;
+        }
+        if (statistics == null) {
+            return;
+        }
+        int rows = statistics.rows();
+        if (index < rows) {
+            invalidateStatistics();
+        } else if (index == rows) {
+            if (na) {
+                statistics.acceptNA();
+            } else {
+                statistics.accept(getDouble(index));
+            }
+        }
+    }
+
+    /**
+     * Invalidates the cached statistics and sorted values.
+     * Must be called if values are changed without using {@link #setValue(int, Number)} or {@link #doSetNA(int)}.
+     */
+    protected void invalidateStatistics() {
+        statistics = null;
+        quantiles = null;
+    }
+
+    /**
+     * Returns the statistics of all rows. Rows that are not included yet are added to the statistics.
+     *
+     * @return statistics of all rows
+     */
+    private ColumnStatistics statistics() {
+        int size = size();
+        if (statistics == null || statistics.rows() > size) {
+            statistics = new ColumnStatistics();
+        }
+        for (int i = statistics.rows(); i < size; i++) {
+            if (naValues.get(i)) {
+                statistics.acceptNA();
+            } else {
+                statistics.accept(getDouble(i));
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the statistics (count, <tt>NA</tt> count, min, max, sum and sum of squares) of this column.
+     * The statistics are cached and updated incrementally when values are appended,
+     * changing values invalidates them.
+     *
+     * @return snapshot of the current statistics
+     */
+    public ColumnStatistics getStatistics() {
+        return statistics().copy();
+    }
+
+    /**
+     * Returns a spliterator over all values as primitive <tt>double</tt>, <tt>NA</tt> values are skipped.
+     * The spliterator splits by index range. It is {@link Spliterator#SIZED SIZED} and
+     * {@link Spliterator#SUBSIZED SUBSIZED} if this column contains no <tt>NA</tt> values.
+     *
+     * @return spliterator over all values
+     */
+    public Spliterator.OfDouble doubleSpliterator() {
+        return new ColumnSpliterators.DoubleRange(this::getDouble, naBitmap(), 0, size());
+    }
+
+    /**
+     * Returns a stream of all values as primitive <tt>double</tt>, <tt>NA</tt> values are skipped.
+     * No objects are created for the values, {@link DoubleStream#parallel()} splits the column by index range.
+     * The column must not be modified while the stream is used.
+     *
+     * @return stream of all values
+     */
+    public DoubleStream doubleStream() {
+        return StreamSupport.doubleStream(doubleSpliterator(), false);
+    }
+
+    /**
+     * Returns an iterator over all values as primitive <tt>double</tt>, <tt>NA</tt> values are skipped.
+     *
+     * @return iterator over all values
+     */
+    public PrimitiveIterator.OfDouble doubleIterator() {
+        return Spliterators.iterator(doubleSpliterator());
+    }
+
+    /**
+     * Returns a spliterator over all values as primitive <tt>long</tt>, <tt>NA</tt> values are skipped.
+     *
+     * @return spliterator over all values
+     * @see #doubleSpliterator()
+     */
+    public Spliterator.OfLong longSpliterator() {
+        return new ColumnSpliterators.LongRange(this::getLong, naBitmap(), 0, size());
+    }
+
+    /**
+     * Returns a stream of all values as primitive <tt>long</tt>, <tt>NA</tt> values are skipped.
+     * Floating point values are truncated.
+     *
+     * @return stream of all values
+     * @see #doubleStream()
+     */
+    public LongStream longStream() {
+        return StreamSupport.longStream(longSpliterator(), false);
+    }
+
+    /**
+     * Returns an iterator over all values as primitive <tt>long</tt>, <tt>NA</tt> values are skipped.
+     *
+     * @return iterator over all values
+     */
+    public PrimitiveIterator.OfLong longIterator() {
+        return Spliterators.iterator(longSpliterator());
+    }
+
+    /**
+     * Returns the <tt>NA</tt> bitmap for primitive spliterators, <tt>null</tt> if this column contains no <tt>NA</tt> values
+     *
+     * @return <tt>NA</tt> bitmap or <tt>null</tt>
+     */
+    protected BitSet naBitmap() {
+        return hasNA() ? naValues : null;
     }
 
 
@@ -66,37 +281,34 @@ public abstract class NumberColumn<T extends Number, C extends NumberColumn<T, C
      * @return median of all values
      */
     public T median() {
-        return new Quantiles<>(
-                getSortedValues(),
-                getValueType().getType(), true).median();
+        return getQuantiles().median();
     }
 
 
     /**
      * returns the specified quantile.
-     * This calculation requires sorting of the values each time.
-     * If more than one quantile should be calculated, use {@link #getQuantiles()}.
+     * The sorted values are cached until the values of this column change.
      *
      * @param percent quantile percent
      * @return quantile
      */
     public T getQuantile(double percent) {
-        return new Quantiles<>(
-                getSortedValues(),
-                getValueType().getType(), true)
-                .getQuantile(percent);
-
+        return getQuantiles().getQuantile(percent);
     }
 
     /**
      * Returns a {@link Quantiles} object that can be used to calculate <tt>max</tt>, <tt>min</tt>, , <tt>median</tt> and quantiles.
      * The values are sorted only once. When the values in the column have changed. A new {@link Quantiles} object should be created.
+     * The returned object is cached until the values of this column change.
      *
      * @return quantiles object
      */
-
     public Quantiles<T> getQuantiles() {
-        return new Quantiles<>(getSortedValues(), getValueType().getType(), true);
+        if (quantiles == null || quantilesSize != size()) {
+            quantiles = new Quantiles<>(getSortedValues(), getValueType().getType(), true);
+            quantilesSize = size();
+        }
+        return quantiles;
     }
 
 
@@ -106,22 +318,11 @@ public abstract class NumberColumn<T extends Number, C extends NumberColumn<T, C
      * @return mean of all values
      */
     public Double mean() {
-        int naCount = 0;
-        double sum = 0d;
-        int count = 0;
-        int size = size();
-        for (int i = 0; i < size; i++) {
-            if (isNA(i)) {
-                naCount++;
-                continue;
-            }
-            count++;
-            sum += get(i).doubleValue();
+        ColumnStatistics statistics = statistics();
+        if (statistics.getNACount() > 0) {
+            log.warn("mean() ignored {} NA", statistics.getNACount());
         }
-        if (naCount > 0) {
-            log.warn("mean() ignored {} NA", naCount);
-        }
-        return sum / count;
+        return statistics.getMean();
     }
 
     /**
@@ -130,19 +331,11 @@ public abstract class NumberColumn<T extends Number, C extends NumberColumn<T, C
      * @return minimum of all values
      */
     public T min() {
-        double min = Double.MAX_VALUE;
-        int naCount = 0;
-        int size = size();
-        for (int i = 0; i < size; i++) {
-            if (isNA(i)) {
-                naCount++;
-                continue;
-            }
-            min = Math.min(min, get(i).doubleValue());
-        }
-        if (naCount > 0) {
-            log.warn("min() ignored {} NA", naCount);
+        ColumnStatistics statistics = statistics();
+        if (statistics.getNACount() > 0) {
+            log.warn("min() ignored {} NA", statistics.getNACount());
         }
+        double min = statistics.getCount() == 0 ? Double.MAX_VALUE : statistics.getMin();
         return NumberUtil.convert(min, getValueType().getType());
     }
 
@@ -152,20 +345,11 @@ public abstract class NumberColumn<T extends Number, C extends NumberColumn<T, C
      * @return maximum of all values
      */
     public T max() {
-        double max = Double.NEGATIVE_INFINITY;
-        int naCount = 0;
-        int size = size();
-        for (int i = 0; i < size; i++) {
-            if (isNA(i)) {
-                naCount++;
-                continue;
-            }
-            max = Math.max(max, get(i).doubleValue());
+        ColumnStatistics statistics = statistics();
+        if (statistics.getNACount() > 0) {
+            log.warn("max() ignored {} NA", statistics.getNACount());
         }
-        if (naCount > 0) {
-            log.warn("max() ignored {} NA", naCount);
-        }
-        return NumberUtil.convert(max, getValueType().getType());
+        return NumberUtil.convert(statistics.getMax(), getValueType().getType());
     }
 
     /**
@@ -174,20 +358,11 @@ public abstract class NumberColumn<T extends Number, C extends NumberColumn<T, C
      * @return sum of all values
      */
     public T sum() {
-        int naCount = 0;
-        double sum = 0;
-        int size = size();
-        for (int i = 0; i < size; i++) {
-            if (isNA(i)) {
-                naCount++;
-                continue;
-            }
-            sum += get(i).doubleValue();
+        ColumnStatistics statistics = statistics();
+        if (statistics.getNACount() > 0) {
+            log.warn("sum() ignored {} NA", statistics.getNACount());
         }
-        if (naCount > 0) {
-            log.warn("sum() ignored {} NA", naCount);
-        }
-        return NumberUtil.convert(sum, getValueType().getType());
+        return NumberUtil.convert(statistics.getSum(), getValueType().getType());
     }
 
 
@@ -200,22 +375,214 @@ public abstract class NumberColumn<T extends Number, C extends NumberColumn<T, C
      * @return <tt>self</tt> for method chaining
      */
     public C add(NumberColumn<?, ?> column) {
-        int naCount = 0;
+        if (column.size() != size()) {
+            throw new IllegalArgumentException("'add' requires column of same size");
+        }
+        return apply(ArithmeticKernel.ADD, column, null);
+    }
+
+    /**
+     * Applies an arithmetic kernel to all values of this column.
+     * The values are processed in blocks of primitive values.
+     * Integer and long columns with an integral second operand use <tt>long</tt> blocks,
+     * all other columns use <tt>double</tt> blocks.
+     * Rows that are <tt>NA</tt> in this column or in the other column are not changed.
+     * The blocks are processed in parallel if the {@link Parallelism parallelism setting} of the parent data frame
+     * allows it, columns without a data frame use {@link Parallelism#getDefault()}.
+     *
+     * @param kernel arithmetic kernel
+     * @param column column containing the second operands, <tt>null</tt> if a scalar is used
+     * @param value  scalar second operand, <tt>null</tt> if a column is used
+     * @return <tt>self</tt> for method chaining
+     */
+    private C apply(ArithmeticKernel kernel, NumberColumn<?, ?> column, Number value) {
         int size = size();
-        for (int i = 0; i < size; i++) {
-            if (!isNA(i) && !column.isNA(i)) {
-                doSet(i, NumberUtil.add(get(i), column.get(i), getValueType().getType()));
-            } else {
-                naCount++;
+        BitSet skip = null;
+        if (hasNA() || (column != null && column.hasNA())) {
+            skip = naValues.get(0, size);
+            if (column != null) {
+                skip.or(column.naValues.get(0, size));
+            }
+        }
+        int naCount = skip == null ? 0 : skip.cardinality();
+        boolean integral = (this instanceof IntegerColumn || this instanceof LongColumn)
+                && (column == null ? isIntegral(value) : isIntegral(column));
+        invalidateStatistics();
+        int blocks = (size + ARITHMETIC_BLOCK_SIZE - 1) / ARITHMETIC_BLOCK_SIZE;
+        DataFrame dataFrame = getDataFrame();
+        Parallelism parallelism = dataFrame == null ? Parallelism.getDefault() : dataFrame.getParallelism();
+        if (parallelism.isParallel(size) && blocks > 1) {
+            prepareWrite(0, size);
+            BitSet parallelSkip = skip;
+            parallelism.execute(() -> IntStream.range(0, blocks).parallel().forEach(block -> {
+                int from = block * ARITHMETIC_BLOCK_SIZE;
+                int to = Math.min(size, from + ARITHMETIC_BLOCK_SIZE);
+                if (integral) {
+                    applyLongBlock(kernel, column, value, parallelSkip, from, to,
+                            new long[to - from], column == null ? null : new long[to - from]);
+                } else {
+                    applyBlock(kernel, column, value, parallelSkip, from, to,
+                            new double[to - from], column == null ? null : new double[to - from]);
+                }
+            }));
+        } else if (integral) {
+            int length = Math.min(size, ARITHMETIC_BLOCK_SIZE);
+            long[] values = new long[length];
+            long[] other = column == null ? null : new long[length];
+            for (int from = 0; from < size; from += ARITHMETIC_BLOCK_SIZE) {
+                applyLongBlock(kernel, column, value, skip, from, Math.min(size, from + ARITHMETIC_BLOCK_SIZE), values, other);
+            }
+        } else {
+            int length = Math.min(size, ARITHMETIC_BLOCK_SIZE);
+            double[] values = new double[length];
+            double[] other = column == null ? null : new double[length];
+            for (int from = 0; from < size; from += ARITHMETIC_BLOCK_SIZE) {
+                applyBlock(kernel, column, value, skip, from, Math.min(size, from + ARITHMETIC_BLOCK_SIZE), values, other);
             }
         }
         if (naCount > 0) {
-            log.warn("add() ignored {} NA", naCount);
+            log.warn("{}() ignored {} NA", kernel.getOperation(), naCount);
         }
         notifyDataFrameColumnChanged();
         return getThis();
     }
 
+    /**
+     * Returns <tt>true</tt> if the values of a column are integral numbers.
+     * The values of integral columns can be read without loss of precision using {@link #getLong(int)}.
+     *
+     * @param column number column
+     * @return <tt>true</tt> if the column contains integral numbers
+     */
+    public static boolean isIntegral(NumberColumn<?, ?> column) {
+        return column instanceof IntegerColumn || column instanceof LongColumn
+                || column instanceof ShortColumn || column instanceof ByteColumn;
+    }
+
+    private static boolean isIntegral(Number value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    private void applyBlock(ArithmeticKernel kernel, NumberColumn<?, ?> column, Number value, BitSet skip,
+                            int from, int to, double[] values, double[] other) {
+        int length = to - from;
+        getDoubles(from, to, values);
+        if (column == null) {
+            kernel.apply(values, value.doubleValue(), length);
+        } else {
+            column.getDoubles(from, to, other);
+            kernel.apply(values, other, length);
+        }
+        if (skip == null) {
+            setDoubles(from, to, values, 0);
+            return;
+        }
+        for (int start = skip.nextClearBit(from); start < to; ) {
+            int end = skip.nextSetBit(start);
+            end = end == -1 ? to : Math.min(end, to);
+            setDoubles(start, end, values, start - from);
+            start = skip.nextClearBit(end);
+        }
+    }
+
+    private void applyLongBlock(ArithmeticKernel kernel, NumberColumn<?, ?> column, Number value, BitSet skip,
+                                int from, int to, long[] values, long[] other) {
+        int length = to - from;
+        getLongs(from, to, values);
+        if (column == null) {
+            kernel.apply(values, value.longValue(), length);
+        } else {
+            column.getLongs(from, to, other);
+            kernel.apply(values, other, length);
+        }
+        if (skip == null) {
+            setLongs(from, to, values, 0);
+            return;
+        }
+        for (int start = skip.nextClearBit(from); start < to; ) {
+            int end = skip.nextSetBit(start);
+            end = end == -1 ? to : Math.min(end, to);
+            setLongs(start, end, values, start - from);
+            start = skip.nextClearBit(end);
+        }
+    }
+
+    /**
+     * Copies the values in the range <tt>[from, to)</tt> into an array of primitive <tt>double</tt> values.
+     * <tt>NA</tt> values are copied as <tt>0</tt>.
+     * Column implementations override this method with a loop over their value storage.
+     *
+     * @param from   first index (inclusive)
+     * @param to     last index (exclusive)
+     * @param target target array, the first value is stored at index <tt>0</tt>
+     */
+    protected void getDoubles(int from, int to, double[] target) {
+        for (int i = from; i < to; i++) {
+            target[i - from] = getDouble(i);
+        }
+    }
+
+    /**
+     * Stores primitive <tt>double</tt> values in the range <tt>[from, to)</tt>.
+     * The values are converted to the column type like {@link NumberUtil#convert(Number, Class)}.
+     * The statistics are not updated, the <tt>NA</tt> bitmap is not changed.
+     * Column implementations override this method with a loop over their value storage.
+     *
+     * @param from   first index (inclusive)
+     * @param to     last index (exclusive)
+     * @param source source array
+     * @param off    position of the first value in the source array
+     */
+    protected void setDoubles(int from, int to, double[] source, int off) {
+        for (int i = from; i < to; i++) {
+            setNumber(i, source[off + i - from]);
+        }
+    }
+
+    /**
+     * Copies the values in the range <tt>[from, to)</tt> into an array of primitive <tt>long</tt> values.
+     * <tt>NA</tt> values are copied as <tt>0</tt>.
+     * Integral column implementations override this method with a loop over their value storage.
+     *
+     * @param from   first index (inclusive)
+     * @param to     last index (exclusive)
+     * @param target target array, the first value is stored at index <tt>0</tt>
+     */
+    protected void getLongs(int from, int to, long[] target) {
+        for (int i = from; i < to; i++) {
+            target[i - from] = getLong(i);
+        }
+    }
+
+    /**
+     * Stores primitive <tt>long</tt> values in the range <tt>[from, to)</tt>.
+     * Values outside of the range of the column type are saturated, like the <tt>double</tt> conversion
+     * in {@link #setDoubles(int, int, double[], int)}.
+     * The statistics are not updated, the <tt>NA</tt> bitmap is not changed.
+     * Integral column implementations override this method with a loop over their value storage.
+     *
+     * @param from   first index (inclusive)
+     * @param to     last index (exclusive)
+     * @param source source array
+     * @param off    position of the first value in the source array
+     */
+    protected void setLongs(int from, int to, long[] source, int off) {
+        for (int i = from; i < to; i++) {
+            setNumber(i, source[off + i - from]);
+        }
+    }
+
+    /**
+     * Prepares the value storage in the range <tt>[from, to)</tt> for concurrent writes to disjoint ranges.
+     * Used before {@link #setDoubles(int, int, double[], int)} or {@link #setLongs(int, int, long[], int)}
+     * is called from multiple threads.
+     *
+     * @param from first index (inclusive)
+     * @param to   last index (exclusive)
+     */
+    protected void prepareWrite(int from, int to) {
+    }
+
     protected T[] getSortedValues() {
         T[] sortedValues = toArray();
         Arrays.sort(sortedValues, getValueType().getComparator());
@@ -235,20 +602,7 @@ public abstract class NumberColumn<T extends Number, C extends NumberColumn<T, C
         if (column.size() != size()) {
             throw new IllegalArgumentException("'subtract' requires column of same size");
         }
-        int naCount = 0;
-        int size = size();
-        for (int i = 0; i < size; i++) {
-            if (!isNA(i) && !column.isNA(i)) {
-                doSet(i, NumberUtil.subtract(get(i), column.get(i), getValueType().getType()));
-            } else {
-                naCount++;
-            }
-        }
-        if (naCount > 0) {
-            log.warn("subtract() ignored {} NA", naCount);
-        }
-        notifyDataFrameColumnChanged();
-        return getThis();
+        return apply(ArithmeticKernel.SUBTRACT, column, null);
     }
 
     /**
@@ -263,20 +617,7 @@ public abstract class NumberColumn<T extends Number, C extends NumberColumn<T, C
         if (column.size() != size()) {
             throw new IllegalArgumentException("'multiply' requires column of same size");
         }
-        int naCount = 0;
-        int size = size();
-        for (int i = 0; i < size; i++) {
-            if (!isNA(i) && !column.isNA(i)) {
-                doSet(i, NumberUtil.multiply(get(i), column.get(i), getValueType().getType()));
-            } else {
-                naCount++;
-            }
-        }
-        if (naCount > 0) {
-            log.warn("multiply() ignored {} NA", naCount);
-        }
-        notifyDataFrameColumnChanged();
-        return getThis();
+        return apply(ArithmeticKernel.MULTIPLY, column, null);
     }
 
     /**
@@ -291,20 +632,7 @@ public abstract class NumberColumn<T extends Number, C extends NumberColumn<T, C
         if (column.size() != size()) {
             throw new IllegalArgumentException("'divide' requires column of same size");
         }
-        int naCount = 0;
-        int size = size();
-        for (int i = 0; i < size; i++) {
-            if (!isNA(i) && !column.isNA(i)) {
-                doSet(i, NumberUtil.divide(get(i), column.get(i), getValueType().getType()));
-            } else {
-                naCount++;
-            }
-        }
-        if (naCount > 0) {
-            log.warn("divide() ignored {} NA", naCount);
-        }
-        notifyDataFrameColumnChanged();
-        return getThis();
+        return apply(ArithmeticKernel.DIVIDE, column, null);
     }
 
 
@@ -317,20 +645,12 @@ public abstract class NumberColumn<T extends Number, C extends NumberColumn<T, C
      * @return <tt>self</tt> for method chaining
      */
     public C add(Number value) {
-        int naCount = 0;
-        int size = size();
-        for (int i = 0; i < size; i++) {
-            if (!isNA(i) && value != null) {
-                doSet(i, NumberUtil.add(get(i), value, getValueType().getType()));
-            } else {
-                naCount++;
-            }
+        if (value == null) {
+            log.warn("add() ignored {} NA", size());
+            notifyDataFrameColumnChanged();
+            return getThis();
         }
-        if (naCount > 0) {
-            log.warn("add() ignored {} NA", naCount);
-        }
-        notifyDataFrameColumnChanged();
-        return getThis();
+        return apply(ArithmeticKernel.ADD, null, value);
     }
 
     /**
@@ -342,20 +662,12 @@ public abstract class NumberColumn<T extends Number, C extends NumberColumn<T, C
      * @return <tt>self</tt> for method chaining
      */
     public C subtract(Number value) {
-        int naCount = 0;
-        int size = size();
-        for (int i = 0; i < size; i++) {
-            if (!isNA(i) && value != null) {
-                doSet(i, NumberUtil.subtract(get(i), value, getValueType().getType()));
-            } else {
-                naCount++;
-            }
+        if (value == null) {
+            log.warn("subtract() ignored {} NA", size());
+            notifyDataFrameColumnChanged();
+            return getThis();
         }
-        if (naCount > 0) {
-            log.warn("subtract() ignored {} NA", naCount);
-        }
-        notifyDataFrameColumnChanged();
-        return getThis();
+        return apply(ArithmeticKernel.SUBTRACT, null, value);
     }
 
 
@@ -368,20 +680,12 @@ public abstract class NumberColumn<T extends Number, C extends NumberColumn<T, C
      * @return <tt>self</tt> for method chaining
      */
     public C multiply(Number value) {
-        int naCount = 0;
-        int size = size();
-        for (int i = 0; i < size; i++) {
-            if (!isNA(i) && value != null) {
-                doSet(i, NumberUtil.multiply(get(i), value, getValueType().getType()));
-            } else {
-                naCount++;
-            }
+        if (value == null) {
+            log.warn("multiply() ignored {} NA", size());
+            notifyDataFrameColumnChanged();
+            return getThis();
         }
-        if (naCount > 0) {
-            log.warn("multiply() ignored {} NA", naCount);
-        }
-        notifyDataFrameColumnChanged();
-        return getThis();
+        return apply(ArithmeticKernel.MULTIPLY, null, value);
     }
 
     /**
@@ -393,38 +697,16 @@ public abstract class NumberColumn<T extends Number, C extends NumberColumn<T, C
      * @return <tt>self</tt> for method chaining
      */
     public C divide(Number value) {
-        int naCount = 0;
-        int size = size();
-        for (int i = 0; i < size; i++) {
-            if (!isNA(i) && value != null) {
-                doSet(i, NumberUtil.divide(get(i), value, getValueType().getType()));
-            } else {
-                naCount++;
-            }
-        }
-        if (naCount > 0) {
-            log.warn("divide() ignored {} NA", naCount);
-        }
-        notifyDataFrameColumnChanged();
-        return getThis();
-    }
-
-    @Override
-    protected boolean doAppend(T t) {
-        if (t != null
-                && t.getClass() != getValueType().getType()) {
-            t = NumberUtil.convert(t, getValueType().getType());
+        if (value == null) {
+            log.warn("divide() ignored {} NA", size());
+            notifyDataFrameColumnChanged();
+            return getThis();
         }
-        return super.doAppend(t);
+        return apply(ArithmeticKernel.DIVIDE, null, value);
     }
 
     @Override
     public boolean isValueValid(Object value) {
         return super.isValueValid(value) || (value != null && Number.class.isAssignableFrom(value.getClass()));
     }
-
-    @Override
-    protected void setValue(int index, T value) {
-        values[index] = NumberUtil.convert(value, getValueType().getType());
-    }
 }
@@ -0,0 +1,203 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+import de.unknownreality.dataframe.DataFrameRuntimeException;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * {@link ByteColumn} that stores its values off-heap in a direct buffer.
+ * The values are not scanned by the garbage collector.
+ * The memory is released by {@link #close()}, a closed column is empty.
+ */
+public class OffHeapByteColumn extends ByteColumn {
+
+    private static final int BYTES = 1;
+
+    private ByteBuffer buffer;
+
+    public OffHeapByteColumn() {
+        this((String) null);
+    }
+
+    public OffHeapByteColumn(String name) {
+        super(name, new byte[0][], new BitSet(), 0);
+        buffer = DirectBuffers.allocate(DirectBuffers.bytes(INIT_SIZE, BYTES));
+    }
+
+    public OffHeapByteColumn(String name, Byte[] values) {
+        this(name, values, values.length);
+    }
+
+    public OffHeapByteColumn(String name, Byte[] values, int size) {
+        super(name, new byte[0][], new BitSet(), size);
+        buffer = DirectBuffers.allocate(DirectBuffers.bytes(values.length, BYTES));
+        for (int i = 0; i < size; i++) {
+            if (values[i] == null) {
+                naValues.set(i);
+            } else {
+                buffer.put(i, values[i]);
+            }
+        }
+    }
+
+    private OffHeapByteColumn(String name, ByteBuffer buffer, BitSet naValues, int size) {
+        super(name, new byte[0][], naValues, size);
+        this.buffer = buffer;
+    }
+
+    @Override
+    public byte getByte(int index) {
+        return buffer.get(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        return getByte(index);
+    }
+
+    @Override
+    public long getLong(int index) {
+        return getByte(index);
+    }
+
+    @Override
+    protected Byte getValue(int index) {
+        return getByte(index);
+    }
+
+    @Override
+    protected void setNumber(int index, Number value) {
+        buffer.put(index, value.byteValue());
+    }
+
+    @Override
+    protected void getDoubles(int from, int to, double[] target) {
+        for (int i = from; i < to; i++) {
+            target[i - from] = buffer.get(i * BYTES);
+        }
+    }
+
+    @Override
+    protected void setDoubles(int from, int to, double[] source, int off) {
+        for (int i = from; i < to; i++) {
+            buffer.put(i * BYTES, (byte) source[off + i - from]);
+        }
+    }
+
+    @Override
+    protected void clearValue(int index) {
+        buffer.put(index, (byte) 0);
+    }
+
+    @Override
+    protected void swapValues(int a, int b) {
+        byte temp = buffer.get(a);
+        buffer.put(a, buffer.get(b));
+        buffer.put(b, temp);
+    }
+
+    @Override
+    protected void reorderValues(int[] order) {
+        ByteBuffer reordered = DirectBuffers.allocate(buffer.capacity());
+        for (int i = 0; i < order.length; i++) {
+            reordered.put(i, buffer.get(order[i]));
+        }
+        DirectBuffers.release(buffer);
+        buffer = reordered;
+    }
+
+    @Override
+    protected void setValues(int index, byte[] values, int off, int len) {
+        ByteBuffer target = buffer.duplicate();
+        target.position(index);
+        target.put(values, off, len);
+    }
+
+    @Override
+    protected int capacity() {
+        return buffer.capacity() / BYTES;
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        buffer = DirectBuffers.resize(buffer, DirectBuffers.bytes(capacity, BYTES));
+    }
+
+    @Override
+    protected int newCapacity(int capacity, int minCapacity) {
+        return grow(capacity, minCapacity);
+    }
+
+    @Override
+    protected void doSort() {
+        doSort(getValueType().getComparator());
+    }
+
+    @Override
+    public void close() {
+        DirectBuffers.release(buffer);
+        buffer = DirectBuffers.EMPTY;
+        naValues.clear();
+        setSize(0);
+    }
+
+    @Override
+    public OffHeapByteColumn copy() {
+        return new OffHeapByteColumn(getName(), DirectBuffers.copy(buffer, buffer.capacity()), (BitSet) naValues.clone(), size());
+    }
+
+    /**
+     * Creates a slice of this column. The values of the slice are copied into a new buffer.
+     *
+     * @param from first index (inclusive)
+     * @param to   last index (exclusive)
+     * @return slice of this column
+     */
+    @Override
+    public OffHeapByteColumn slice(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new DataFrameRuntimeException(String.format("invalid slice [%d, %d) of column with size %d", from, to, size()));
+        }
+        return new OffHeapByteColumn(getName(), DirectBuffers.copyRange(buffer, from * BYTES, to * BYTES), naValues.get(from, to), to - from);
+    }
+
+    /**
+     * Off-heap columns are not sealed, their values stay off-heap.
+     *
+     * @return <tt>self</tt>
+     */
+    @Override
+    public OffHeapByteColumn seal() {
+        return this;
+    }
+
+    @Override
+    public OffHeapByteColumn copyEmpty() {
+        return new OffHeapByteColumn(getName());
+    }
+}
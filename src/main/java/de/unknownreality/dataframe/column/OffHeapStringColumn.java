@@ -0,0 +1,291 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+import de.unknownreality.dataframe.DataFrameRuntimeException;
+import de.unknownreality.dataframe.sort.IndexComparator;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * {@link StringColumn} that stores its values off-heap in direct buffers.
+ * Values are UTF-8 encoded and appended to a byte buffer, each row stores the offset and length of its value.
+ * Overwritten values remain in the byte buffer until the column is copied.
+ * The values are not scanned by the garbage collector.
+ * The memory is released by {@link #close()}, a closed column is empty.
+ */
+public class OffHeapStringColumn extends StringColumn {
+
+    private static final int ENTRY_BYTES = 8;
+    private static final int NA_LENGTH = -1;
+
+    private ByteBuffer entries;
+    private ByteBuffer bytes;
+    private int usedBytes;
+
+    public OffHeapStringColumn() {
+        this((String) null);
+    }
+
+    public OffHeapStringColumn(String name) {
+        super(name, 0);
+        entries = DirectBuffers.allocate(DirectBuffers.bytes(INIT_SIZE, ENTRY_BYTES));
+        bytes = DirectBuffers.allocate(INIT_SIZE * 16);
+    }
+
+    public OffHeapStringColumn(String name, String[] values) {
+        this(name, values, values.length);
+    }
+
+    public OffHeapStringColumn(String name, String[] values, int size) {
+        super(name, size);
+        entries = DirectBuffers.allocate(DirectBuffers.bytes(values.length, ENTRY_BYTES));
+        bytes = DirectBuffers.allocate(INIT_SIZE * 16);
+        for (int i = 0; i < size; i++) {
+            doSet(i, values[i]);
+        }
+    }
+
+    private int getLength(int index) {
+        return entries.getInt(index * ENTRY_BYTES + 4);
+    }
+
+    private int getOffset(int index) {
+        return entries.getInt(index * ENTRY_BYTES);
+    }
+
+    private void setEntry(int index, int offset, int length) {
+        entries.putInt(index * ENTRY_BYTES, offset);
+        entries.putInt(index * ENTRY_BYTES + 4, length);
+    }
+
+    private long getEntry(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    private void setEntry(int index, long entry) {
+        entries.putLong(index * ENTRY_BYTES, entry);
+    }
+
+    @Override
+    public String get(int index) {
+        int length = getLength(index);
+        if (length == NA_LENGTH) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        ByteBuffer source = bytes.duplicate();
+        source.position(getOffset(index));
+        source.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void setValue(int index, String value) {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.capacity() - usedBytes < encoded.length) {
+            long required = (long) usedBytes + encoded.length;
+            bytes = DirectBuffers.resize(bytes,
+                    (int) Math.min(Integer.MAX_VALUE, Math.max(required, (long) (bytes.capacity() * GROW_FACTOR))));
+            if (bytes.capacity() < required) {
+                throw new DataFrameRuntimeException("off-heap string column capacity exceeded");
+            }
+        }
+        ByteBuffer target = bytes.duplicate();
+        target.position(usedBytes);
+        target.put(encoded);
+        setEntry(index, usedBytes, encoded.length);
+        usedBytes += encoded.length;
+    }
+
+    @Override
+    protected void doSetNA(int index) {
+        setEntry(index, 0, NA_LENGTH);
+    }
+
+    @Override
+    public boolean isNA(int index) {
+        return index >= size() || getLength(index) == NA_LENGTH;
+    }
+
+    @Override
+    protected int capacity() {
+        return entries.capacity() / ENTRY_BYTES;
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        entries = DirectBuffers.resize(entries, DirectBuffers.bytes(capacity, ENTRY_BYTES));
+    }
+
+    @Override
+    protected void swap(int a, int b) {
+        long temp = getEntry(a);
+        setEntry(a, getEntry(b));
+        setEntry(b, temp);
+    }
+
+    @Override
+    protected void clearValues() {
+        DirectBuffers.release(entries);
+        entries = DirectBuffers.allocate(DirectBuffers.bytes(INIT_SIZE, ENTRY_BYTES));
+        usedBytes = 0;
+    }
+
+    @Override
+    protected void reorder(int[] order) {
+        ByteBuffer reordered = DirectBuffers.allocate(entries.capacity());
+        for (int i = 0; i < order.length; i++) {
+            reordered.putLong(i * ENTRY_BYTES, getEntry(order[i]));
+        }
+        DirectBuffers.release(entries);
+        entries = reordered;
+    }
+
+    /**
+     * Returns a comparator for decoded values. Each value is decoded once.
+     *
+     * @return index comparator
+     */
+    @Override
+    public IndexComparator getIndexComparator() {
+        String[] values = toArray();
+        Comparator<String> comparator = getValueType().getComparator();
+        return (a, b) -> comparator.compare(values[a], values[b]);
+    }
+
+    /**
+     * Sorts the row entries. Each value is decoded once.
+     *
+     * @param comparator value comparator
+     */
+    @Override
+    protected void doSort(Comparator<String> comparator) {
+        int size = size();
+        String[] values = toArray();
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> comparator.compare(values[a], values[b]));
+        ByteBuffer sorted = DirectBuffers.allocate(entries.capacity());
+        for (int i = 0; i < size; i++) {
+            sorted.putLong(i * ENTRY_BYTES, getEntry(order[i]));
+        }
+        DirectBuffers.release(entries);
+        entries = sorted;
+    }
+
+    @Override
+    protected void doSort() {
+        doSort(getValueType().getComparator());
+    }
+
+    @Override
+    public String[] toArray() {
+        return toArray(new String[size()]);
+    }
+
+    @Override
+    public String[] toArray(String[] a) {
+        int size = size();
+        if (a.length < size) {
+            a = (String[]) Array.newInstance(a.getClass().getComponentType(), size);
+        }
+        for (int i = 0; i < size; i++) {
+            a[i] = get(i);
+        }
+        if (a.length > size) {
+            a[size] = null;
+        }
+        return a;
+    }
+
+    @Override
+    public List<String> asList() {
+        return Collections.unmodifiableList(new OffHeapValueList());
+    }
+
+    @Override
+    public void close() {
+        DirectBuffers.release(entries);
+        DirectBuffers.release(bytes);
+        entries = DirectBuffers.EMPTY;
+        bytes = DirectBuffers.EMPTY;
+        usedBytes = 0;
+        setSize(0);
+    }
+
+    /**
+     * Returns a copy of this column.
+     * Values that were overwritten are not copied.
+     *
+     * @return copy of this column
+     */
+    @Override
+    public OffHeapStringColumn copy() {
+        int size = size();
+        OffHeapStringColumn copy = new OffHeapStringColumn(getName());
+        copy.ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            copy.doSet(i, get(i));
+        }
+        copy.setSize(size);
+        return copy;
+    }
+
+    /**
+     * Off-heap columns are not sealed, their values stay off-heap.
+     *
+     * @return <tt>self</tt>
+     */
+    @Override
+    public OffHeapStringColumn seal() {
+        return this;
+    }
+
+    @Override
+    public OffHeapStringColumn copyEmpty() {
+        return new OffHeapStringColumn(getName());
+    }
+
+    private class OffHeapValueList extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            if (index >= size()) {
+                throw new IndexOutOfBoundsException(String.format("index out of bounds %s >= %s", index, size()));
+            }
+            return OffHeapStringColumn.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return OffHeapStringColumn.this.size();
+        }
+    }
+}
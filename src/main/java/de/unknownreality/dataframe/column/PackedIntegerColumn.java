@@ -0,0 +1,250 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+import de.unknownreality.dataframe.DataFrameRuntimeException;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+
+/**
+ * Immutable {@link IntegerColumn} that stores its values frame-of-reference encoded and bit-packed.
+ * Created by {@link IntegerColumn#seal()}, for example after loading a data frame.
+ * <p>
+ * The values are stored in blocks of {@value PackedLongs#BLOCK_SIZE} values, each block only uses the bits
+ * required for the difference between its minimum and maximum value.
+ * Random access decodes a single value, {@link #toPrimitiveArray()} decodes whole blocks sequentially.
+ * </p>
+ * All modifications throw a {@link DataFrameRuntimeException}.
+ * {@link #copyEmpty()} returns a modifiable {@link IntegerColumn}.
+ */
+public class PackedIntegerColumn extends IntegerColumn {
+
+    private PackedLongs packed;
+
+    public PackedIntegerColumn() {
+        this(null, PackedLongs.EMPTY, new BitSet(), 0);
+    }
+
+    /**
+     * Creates a packed column containing the values of another column
+     *
+     * @param column column containing the values
+     */
+    public PackedIntegerColumn(IntegerColumn column) {
+        this(column.getName(), PackedLongs.pack(column, column.naValues, column.size()), (BitSet) column.naValues.clone(), column.size());
+    }
+
+    private PackedIntegerColumn(String name, PackedLongs packed, BitSet naValues, int size) {
+        super(name, new int[0][], naValues, size);
+        this.packed = packed;
+    }
+
+    @Override
+    public int getInt(int index) {
+        return (int) packed.get(index);
+    }
+
+    @Override
+    protected Integer getValue(int index) {
+        return (int) packed.get(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        return packed.get(index);
+    }
+
+    @Override
+    public long getLong(int index) {
+        return packed.get(index);
+    }
+
+    /**
+     * Returns the approximate number of bytes used by the packed values
+     *
+     * @return number of bytes
+     */
+    public long getMemorySize() {
+        return packed.getMemorySize();
+    }
+
+    /**
+     * Decodes all values into a primitive array. <tt>NA</tt> values are decoded as <tt>0</tt>.
+     *
+     * @return decoded values
+     */
+    public int[] toPrimitiveArray() {
+        return decode(0, size());
+    }
+
+    private int[] decode(int from, int to) {
+        long[] values = new long[to - from];
+        packed.decode(from, to, values);
+        int[] decoded = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            decoded[i] = (int) values[i];
+        }
+        return decoded;
+    }
+
+    @Override
+    protected void setNumber(int index, Number value) {
+        throw immutable();
+    }
+
+    @Override
+    protected void doSetNA(int index) {
+        throw immutable();
+    }
+
+    @Override
+    protected void getDoubles(int from, int to, double[] target) {
+        for (int i = from; i < to; i++) {
+            target[i - from] = getDouble(i);
+        }
+    }
+
+    @Override
+    protected void setDoubles(int from, int to, double[] source, int off) {
+        throw immutable();
+    }
+
+    @Override
+    protected void getLongs(int from, int to, long[] target) {
+        for (int i = from; i < to; i++) {
+            target[i - from] = getLong(i);
+        }
+    }
+
+    @Override
+    protected void setLongs(int from, int to, long[] source, int off) {
+        throw immutable();
+    }
+
+    @Override
+    protected void clearValue(int index) {
+        throw immutable();
+    }
+
+    @Override
+    protected void clearValues() {
+        throw immutable();
+    }
+
+    @Override
+    protected void swapValues(int a, int b) {
+        throw immutable();
+    }
+
+    @Override
+    protected void reorderValues(int[] order) {
+        throw immutable();
+    }
+
+    @Override
+    protected IntegerColumn permute(int[] order) {
+        IntegerColumn column = slice(0, size());
+        column.reorder(order);
+        return column;
+    }
+
+    @Override
+    protected IntegerColumn compact(int[] indices) {
+        return slice(indices);
+    }
+
+    @Override
+    protected void doSort() {
+        throw immutable();
+    }
+
+    @Override
+    protected void doSort(Comparator<Integer> comparator) {
+        throw immutable();
+    }
+
+    @Override
+    protected int capacity() {
+        return size();
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        throw immutable();
+    }
+
+    private static DataFrameRuntimeException immutable() {
+        return new DataFrameRuntimeException("packed columns are immutable");
+    }
+
+    @Override
+    public PackedIntegerColumn seal() {
+        return this;
+    }
+
+    @Override
+    public boolean isSealed() {
+        return true;
+    }
+
+    /**
+     * Releases the encoded values, a closed column is empty and remains immutable.
+     */
+    @Override
+    public void close() {
+        packed = PackedLongs.EMPTY;
+        naValues.clear();
+        setSize(0);
+    }
+
+    @Override
+    public PackedIntegerColumn copy() {
+        return new PackedIntegerColumn(getName(), packed, (BitSet) naValues.clone(), size());
+    }
+
+    /**
+     * Creates a modifiable {@link IntegerColumn} containing the decoded values of a range
+     *
+     * @param from first index (inclusive)
+     * @param to   last index (exclusive)
+     * @return new column containing the selected values
+     */
+    @Override
+    public IntegerColumn slice(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new DataFrameRuntimeException(String.format("invalid slice [%d, %d) of column with size %d", from, to, size()));
+        }
+        int[] values = decode(from, to);
+        return new IntegerColumn(getName(), ChunkedArrays.split(new int[0][], values, values.length, Arrays::copyOfRange),
+                naValues.get(from, to), to - from);
+    }
+
+    @Override
+    public IntegerColumn copyEmpty() {
+        return new IntegerColumn(getName());
+    }
+}
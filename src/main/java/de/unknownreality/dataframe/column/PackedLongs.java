@@ -0,0 +1,196 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+import java.util.BitSet;
+
+/**
+ * Immutable frame-of-reference encoded and bit-packed <tt>long</tt> values.
+ * <p>
+ * The values are split into blocks of {@link #BLOCK_SIZE} values.
+ * Each block stores its minimum value as reference and the differences to the reference
+ * with the number of bits required for the largest difference in the block.
+ * Slowly changing values, like timestamps, increasing ids or small counters, only need a few bits per value.
+ * </p>
+ * Random access to a value requires one block lookup and reading at most two words.
+ */
+final class PackedLongs {
+    static final int BLOCK_SHIFT = 7;
+    static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    static final PackedLongs EMPTY = new PackedLongs(new long[0], new byte[0], new int[0], new long[0]);
+
+    private final long[] references;
+    private final byte[] bitWidths;
+    private final int[] wordOffsets;
+    private final long[] words;
+
+    private PackedLongs(long[] references, byte[] bitWidths, int[] wordOffsets, long[] words) {
+        this.references = references;
+        this.bitWidths = bitWidths;
+        this.wordOffsets = wordOffsets;
+        this.words = words;
+    }
+
+    /**
+     * Packs the values of a column.
+     * <tt>NA</tt> values are not stored, their position is packed as the block reference.
+     *
+     * @param column   column containing the values
+     * @param naValues <tt>NA</tt> bitmap of the column
+     * @param size     number of values
+     * @return packed values
+     */
+    static PackedLongs pack(NumberColumn<?, ?> column, BitSet naValues, int size) {
+        int blockCount = (size + BLOCK_MASK) >>> BLOCK_SHIFT;
+        long[] references = new long[blockCount];
+        byte[] bitWidths = new byte[blockCount];
+        int[] wordOffsets = new int[blockCount];
+        long[] block = new long[BLOCK_SIZE];
+        long[] words = new long[Math.max(16, blockCount * 2)];
+        int wordCount = 0;
+        for (int b = 0; b < blockCount; b++) {
+            int from = b << BLOCK_SHIFT;
+            int length = Math.min(BLOCK_SIZE, size - from);
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int j = 0; j < length; j++) {
+                if (naValues.get(from + j)) {
+                    continue;
+                }
+                long value = column.getLong(from + j);
+                block[j] = value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (min > max) {
+                min = max = 0;
+            }
+            for (int j = 0; j < length; j++) {
+                if (naValues.get(from + j)) {
+                    block[j] = min;
+                }
+            }
+            int bits = 64 - Long.numberOfLeadingZeros(max - min);
+            references[b] = min;
+            bitWidths[b] = (byte) bits;
+            wordOffsets[b] = wordCount;
+            int blockWords = (int) (((long) length * bits + 63) >>> 6);
+            if (wordCount + blockWords > words.length) {
+                long[] grown = new long[Math.max(wordCount + blockWords, words.length * 2)];
+                System.arraycopy(words, 0, grown, 0, wordCount);
+                words = grown;
+            }
+            if (bits > 0) {
+                for (int j = 0; j < length; j++) {
+                    write(words, wordCount, j, bits, block[j] - min);
+                }
+            }
+            wordCount += blockWords;
+        }
+        long[] packed = new long[wordCount];
+        System.arraycopy(words, 0, packed, 0, wordCount);
+        return new PackedLongs(references, bitWidths, wordOffsets, packed);
+    }
+
+    private static void write(long[] words, int wordOffset, int position, int bits, long delta) {
+        long bitPosition = (long) position * bits;
+        int word = wordOffset + (int) (bitPosition >>> 6);
+        int shift = (int) (bitPosition & 63);
+        words[word] |= delta << shift;
+        if (shift + bits > 64) {
+            words[word + 1] |= delta >>> (64 - shift);
+        }
+    }
+
+    /**
+     * Returns the value at the specified index
+     *
+     * @param index index of the value
+     * @return value
+     */
+    long get(int index) {
+        int block = index >>> BLOCK_SHIFT;
+        int bits = bitWidths[block];
+        if (bits == 0) {
+            return references[block];
+        }
+        long bitPosition = (long) (index & BLOCK_MASK) * bits;
+        int word = wordOffsets[block] + (int) (bitPosition >>> 6);
+        int shift = (int) (bitPosition & 63);
+        long delta = words[word] >>> shift;
+        if (shift + bits > 64) {
+            delta |= words[word + 1] << (64 - shift);
+        }
+        if (bits < 64) {
+            delta &= (1L << bits) - 1;
+        }
+        return references[block] + delta;
+    }
+
+    /**
+     * Decodes a range of values sequentially into an array
+     *
+     * @param from   first index (inclusive)
+     * @param to     last index (exclusive)
+     * @param target target array
+     */
+    void decode(int from, int to, long[] target) {
+        for (int i = from; i < to; ) {
+            int block = i >>> BLOCK_SHIFT;
+            int end = Math.min(to, (block + 1) << BLOCK_SHIFT);
+            int bits = bitWidths[block];
+            long reference = references[block];
+            if (bits == 0) {
+                for (; i < end; i++) {
+                    target[i - from] = reference;
+                }
+                continue;
+            }
+            long mask = bits < 64 ? (1L << bits) - 1 : -1L;
+            int wordOffset = wordOffsets[block];
+            long bitPosition = (long) (i & BLOCK_MASK) * bits;
+            for (; i < end; i++, bitPosition += bits) {
+                int word = wordOffset + (int) (bitPosition >>> 6);
+                int shift = (int) (bitPosition & 63);
+                long delta = words[word] >>> shift;
+                if (shift + bits > 64) {
+                    delta |= words[word + 1] << (64 - shift);
+                }
+                target[i - from] = reference + (delta & mask);
+            }
+        }
+    }
+
+    /**
+     * Returns the approximate number of bytes used by the packed values
+     *
+     * @return number of bytes
+     */
+    long getMemorySize() {
+        return words.length * 8L + references.length * 8L + wordOffsets.length * 4L + bitWidths.length;
+    }
+}
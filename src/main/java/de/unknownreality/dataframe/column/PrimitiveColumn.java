@@ -0,0 +1,265 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+import de.unknownreality.dataframe.Values;
+
+import java.lang.reflect.Array;
+import java.util.*;
+
+/**
+ * Base class for columns that store their values in primitive arrays.
+ * <tt>NA</tt> values are not stored as <tt>null</tt> but tracked in a separate bitmap.
+ * The value slot of a <tt>NA</tt> entry is always reset to the default value of the primitive type.
+ */
+public abstract class PrimitiveColumn<T, C extends PrimitiveColumn<T, C>> extends BasicColumn<T, C> {
+
+    /**
+     * Number of bits used to address a value inside a chunk of chunked value storage
+     */
+    public static final int CHUNK_SHIFT = 16;
+
+    /**
+     * Number of values in a chunk of chunked value storage
+     */
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    /**
+     * Mask used to get the index of a value inside a chunk of chunked value storage
+     */
+    public static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    protected BitSet naValues;
+
+    public PrimitiveColumn(String name) {
+        this(name, new BitSet(), 0);
+    }
+
+    protected PrimitiveColumn(String name, BitSet naValues, int size) {
+        super(name, size);
+        this.naValues = naValues;
+    }
+
+    /**
+     * Returns the boxed value at the specified index.
+     * The <tt>NA</tt> bitmap is not checked.
+     *
+     * @param index index of the value
+     * @return boxed value
+     */
+    protected abstract T getValue(int index);
+
+    @Override
+    protected abstract void setValue(int index, T value);
+
+    /**
+     * Resets the value at the specified index to the default value of the primitive type
+     *
+     * @param index index of the value
+     */
+    protected abstract void clearValue(int index);
+
+    /**
+     * Swaps two values in the primitive array.
+     * The <tt>NA</tt> bitmap is swapped by {@link #swap(int, int)}.
+     *
+     * @param a index of the first value
+     * @param b index of the second value
+     */
+    protected abstract void swapValues(int a, int b);
+
+    /**
+     * Reorders the values in the primitive array.
+     * The value at position <tt>i</tt> is the previous value at position <tt>order[i]</tt>.
+     *
+     * @param order new order of the values
+     */
+    protected abstract void reorderValues(int[] order);
+
+    @Override
+    protected abstract int capacity();
+
+    @Override
+    protected abstract void resize(int capacity);
+
+    @Override
+    public T get(int index) {
+        if (isNA(index)) {
+            return null;
+        }
+        return getValue(index);
+    }
+
+    @Override
+    public boolean isNA(int index) {
+        return index >= size() || naValues.get(index);
+    }
+
+    /**
+     * Returns <tt>true</tt> if at least one value in this column is {@link Values#NA NA}
+     *
+     * @return <tt>true</tt> if this column contains <tt>NA</tt>
+     */
+    public boolean hasNA() {
+        return !naValues.isEmpty();
+    }
+
+    /**
+     * Returns the number of {@link Values#NA NA} values in this column
+     *
+     * @return number of <tt>NA</tt> values
+     */
+    public int countNA() {
+        return naValues.cardinality();
+    }
+
+    @Override
+    protected void doSetNA(int index) {
+        naValues.set(index);
+        clearValue(index);
+    }
+
+    @Override
+    protected void doSet(int index, T value) {
+        if (value == null || value == Values.NA) {
+            doSetNA(index);
+            return;
+        }
+        setValue(index, value);
+        naValues.clear(index);
+    }
+
+    @Override
+    protected void swap(int a, int b) {
+        swapValues(a, b);
+        boolean na = naValues.get(a);
+        naValues.set(a, naValues.get(b));
+        naValues.set(b, na);
+    }
+
+    /**
+     * Reorders all values and the <tt>NA</tt> bitmap.
+     * The value at position <tt>i</tt> is the previous value at position <tt>order[i]</tt>.
+     *
+     * @param order new order of the values
+     */
+    @Override
+    protected void reorder(int[] order) {
+        reorderValues(order);
+        if (naValues.isEmpty()) {
+            return;
+        }
+        BitSet reordered = new BitSet(order.length);
+        for (int i = 0; i < order.length; i++) {
+            if (naValues.get(order[i])) {
+                reordered.set(i);
+            }
+        }
+        naValues = reordered;
+    }
+
+    /**
+     * Removes all values at positions greater or equal to the new size.
+     * Primitive values do not need to be released, only the <tt>NA</tt> bitmap is cleared.
+     *
+     * @param newSize new size
+     */
+    @Override
+    protected void truncate(int newSize) {
+        naValues.clear(newSize, Math.max(newSize, size()));
+        setSize(newSize);
+    }
+
+    @Override
+    protected void doSort(Comparator<T> comparator) {
+        int size = size();
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> comparator.compare(get(a), get(b)));
+        int[] sortedOrder = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedOrder[i] = order[i];
+        }
+        reorder(sortedOrder);
+    }
+
+    @Override
+    protected void doSort() {
+        doSort(getValueType().getComparator());
+    }
+
+    @Override
+    protected void clearValues() {
+        naValues.clear();
+        resize(INIT_SIZE);
+    }
+
+    @Override
+    public T[] toArray() {
+        return toArray(createArray(size()));
+    }
+
+    @Override
+    public T[] toArray(T[] a) {
+        int size = size();
+        if (a.length < size) {
+            a = createArray(size);
+        }
+        for (int i = 0; i < size; i++) {
+            a[i] = get(i);
+        }
+        if (a.length > size) {
+            a[size] = null;
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T[] createArray(int size) {
+        return (T[]) Array.newInstance(getValueType().getType(), size);
+    }
+
+    @Override
+    public List<T> asList() {
+        return Collections.unmodifiableList(new PrimitiveValueList());
+    }
+
+    private class PrimitiveValueList extends AbstractList<T> implements RandomAccess {
+        @Override
+        public T get(int index) {
+            if (index >= size()) {
+                throw new IndexOutOfBoundsException(String.format("index out of bounds %s >= %s", index, size()));
+            }
+            return PrimitiveColumn.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return PrimitiveColumn.this.size();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+/**
+ * Column that stores its values run-length encoded.
+ * A run is a range of consecutive rows with the same value.
+ * Consumers can process the values per run instead of per row.
+ *
+ * @param <T> value type of the column
+ */
+public interface RunLengthColumn<T> {
+
+    /**
+     * Minimum average run length required by {@link de.unknownreality.dataframe.DataFrameColumn#seal()}
+     * to create a run-length encoded column.
+     */
+    int MIN_AVERAGE_RUN_LENGTH = 4;
+
+    /**
+     * Returns the number of runs
+     *
+     * @return number of runs
+     */
+    int getRunCount();
+
+    /**
+     * Returns the first row index of a run
+     *
+     * @param run run index
+     * @return first row of the run (inclusive)
+     */
+    int getRunStart(int run);
+
+    /**
+     * Returns the end of a run
+     *
+     * @param run run index
+     * @return last row of the run (exclusive)
+     */
+    int getRunEnd(int run);
+
+    /**
+     * Returns the run containing a row
+     *
+     * @param index row index
+     * @return run index
+     */
+    int getRun(int index);
+
+    /**
+     * Returns the value of a run, <tt>null</tt> if the value is {@link de.unknownreality.dataframe.Values#NA NA}
+     *
+     * @param run run index
+     * @return value of the run
+     */
+    T getRunValue(int run);
+}
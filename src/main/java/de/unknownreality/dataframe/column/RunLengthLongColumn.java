@@ -0,0 +1,283 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+import de.unknownreality.dataframe.DataFrameRuntimeException;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+
+/**
+ * Immutable {@link LongColumn} that stores its values run-length encoded.
+ * Created by {@link LongColumn#seal()} if the column consists of long runs of equal values,
+ * for example after sorting or for clustered data.
+ * <p>
+ * Each run stores its value once, the run containing a row is found using a binary search.
+ * </p>
+ * All modifications throw a {@link DataFrameRuntimeException}.
+ * {@link #copyEmpty()} returns a modifiable {@link LongColumn}.
+ */
+public class RunLengthLongColumn extends LongColumn implements RunLengthColumn<Long> {
+
+    private RunLengths runs;
+    private long[] runValues;
+
+    public RunLengthLongColumn() {
+        this(null, RunLengths.EMPTY, new long[0], new BitSet(), 0);
+    }
+
+    /**
+     * Creates a run-length encoded column containing the values of another column
+     *
+     * @param column column containing the values
+     */
+    public RunLengthLongColumn(LongColumn column) {
+        this(column.getName(), RunLengths.of(column.size(), equality(column)), column);
+    }
+
+    private RunLengthLongColumn(String name, RunLengths runs, LongColumn column) {
+        this(name, runs, new long[runs.getRunCount()], (BitSet) column.naValues.clone(), column.size());
+        for (int run = 0; run < runValues.length; run++) {
+            runValues[run] = column.getLong(runs.getStart(run));
+        }
+    }
+
+    private RunLengthLongColumn(String name, RunLengths runs, long[] runValues, BitSet naValues, int size) {
+        super(name, new long[0][], naValues, size);
+        this.runs = runs;
+        this.runValues = runValues;
+    }
+
+    /**
+     * Returns the row equality used to find the runs of a column
+     *
+     * @param column column
+     * @return row equality
+     */
+    static RunLengths.RowEquality equality(LongColumn column) {
+        return (a, b) -> column.isNA(a) ? column.isNA(b) : !column.isNA(b) && column.getLong(a) == column.getLong(b);
+    }
+
+    @Override
+    public int getRunCount() {
+        return runs.getRunCount();
+    }
+
+    @Override
+    public int getRunStart(int run) {
+        return runs.getStart(run);
+    }
+
+    @Override
+    public int getRunEnd(int run) {
+        return runs.getEnd(run);
+    }
+
+    @Override
+    public int getRun(int index) {
+        return runs.getRun(index);
+    }
+
+    @Override
+    public Long getRunValue(int run) {
+        return isNA(runs.getStart(run)) ? null : runValues[run];
+    }
+
+    @Override
+    protected Long getValue(int index) {
+        return runValues[runs.getRun(index)];
+    }
+
+    @Override
+    public double getDouble(int index) {
+        return runValues[runs.getRun(index)];
+    }
+
+    @Override
+    public long getLong(int index) {
+        return runValues[runs.getRun(index)];
+    }
+
+    /**
+     * Decodes all values into a primitive array. <tt>NA</tt> values are decoded as <tt>0</tt>.
+     *
+     * @return decoded values
+     */
+    public long[] toPrimitiveArray() {
+        return decode(0, size());
+    }
+
+    private long[] decode(int from, int to) {
+        long[] values = new long[to - from];
+        if (from == to) {
+            return values;
+        }
+        for (int run = runs.getRun(from); run < runs.getRunCount() && runs.getStart(run) < to; run++) {
+            int start = Math.max(from, runs.getStart(run));
+            int end = Math.min(to, runs.getEnd(run));
+            Arrays.fill(values, start - from, end - from, runValues[run]);
+        }
+        return values;
+    }
+
+    @Override
+    protected void setNumber(int index, Number value) {
+        throw immutable();
+    }
+
+    @Override
+    protected void doSetNA(int index) {
+        throw immutable();
+    }
+
+    @Override
+    protected void getDoubles(int from, int to, double[] target) {
+        for (int i = from; i < to; i++) {
+            target[i - from] = getDouble(i);
+        }
+    }
+
+    @Override
+    protected void setDoubles(int from, int to, double[] source, int off) {
+        throw immutable();
+    }
+
+    @Override
+    protected void getLongs(int from, int to, long[] target) {
+        for (int i = from; i < to; i++) {
+            target[i - from] = getLong(i);
+        }
+    }
+
+    @Override
+    protected void setLongs(int from, int to, long[] source, int off) {
+        throw immutable();
+    }
+
+    @Override
+    protected void clearValue(int index) {
+        throw immutable();
+    }
+
+    @Override
+    protected void clearValues() {
+        throw immutable();
+    }
+
+    @Override
+    protected void swapValues(int a, int b) {
+        throw immutable();
+    }
+
+    @Override
+    protected void reorderValues(int[] order) {
+        throw immutable();
+    }
+
+    @Override
+    protected LongColumn permute(int[] order) {
+        LongColumn column = slice(0, size());
+        column.reorder(order);
+        return column;
+    }
+
+    @Override
+    protected LongColumn compact(int[] indices) {
+        return slice(indices);
+    }
+
+    @Override
+    protected void doSort() {
+        throw immutable();
+    }
+
+    @Override
+    protected void doSort(Comparator<Long> comparator) {
+        throw immutable();
+    }
+
+    @Override
+    protected int capacity() {
+        return size();
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        throw immutable();
+    }
+
+    private static DataFrameRuntimeException immutable() {
+        return new DataFrameRuntimeException("run-length encoded columns are immutable");
+    }
+
+    @Override
+    public RunLengthLongColumn seal() {
+        return this;
+    }
+
+    @Override
+    public boolean isSealed() {
+        return true;
+    }
+
+    /**
+     * Releases the encoded values, a closed column is empty and remains immutable.
+     */
+    @Override
+    public void close() {
+        runs = RunLengths.EMPTY;
+        runValues = new long[0];
+        naValues.clear();
+        setSize(0);
+    }
+
+    @Override
+    public RunLengthLongColumn copy() {
+        return new RunLengthLongColumn(getName(), runs, runValues, (BitSet) naValues.clone(), size());
+    }
+
+    /**
+     * Creates a modifiable {@link LongColumn} containing the decoded values of a range
+     *
+     * @param from first index (inclusive)
+     * @param to   last index (exclusive)
+     * @return new column containing the selected values
+     */
+    @Override
+    public LongColumn slice(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new DataFrameRuntimeException(String.format("invalid slice [%d, %d) of column with size %d", from, to, size()));
+        }
+        long[] values = decode(from, to);
+        return new LongColumn(getName(), ChunkedArrays.split(new long[0][], values, values.length, Arrays::copyOfRange),
+                naValues.get(from, to), to - from);
+    }
+
+    @Override
+    public LongColumn copyEmpty() {
+        return new LongColumn(getName());
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+import de.unknownreality.dataframe.DataFrameRuntimeException;
+
+import java.lang.reflect.Array;
+import java.util.*;
+
+/**
+ * Immutable {@link StringColumn} that stores its values run-length encoded.
+ * Created by {@link StringColumn#seal()} if the column consists of long runs of equal values,
+ * for example after sorting or for clustered data.
+ * <p>
+ * Each run stores its value once, the run containing a row is found using a binary search.
+ * </p>
+ * All modifications throw a {@link DataFrameRuntimeException}.
+ * {@link #copyEmpty()} returns a modifiable {@link StringColumn}.
+ */
+public class RunLengthStringColumn extends StringColumn implements RunLengthColumn<String> {
+
+    private RunLengths runs;
+    private String[] runValues;
+
+    public RunLengthStringColumn() {
+        this(null, RunLengths.EMPTY, new String[0], 0);
+    }
+
+    /**
+     * Creates a run-length encoded column containing the values of another column
+     *
+     * @param column column containing the values
+     */
+    public RunLengthStringColumn(StringColumn column) {
+        this(column.getName(), RunLengths.of(column.size(), equality(column)), column);
+    }
+
+    private RunLengthStringColumn(String name, RunLengths runs, StringColumn column) {
+        this(name, runs, new String[runs.getRunCount()], column.size());
+        for (int run = 0; run < runValues.length; run++) {
+            runValues[run] = column.get(runs.getStart(run));
+        }
+    }
+
+    private RunLengthStringColumn(String name, RunLengths runs, String[] runValues, int size) {
+        super(name, size);
+        this.runs = runs;
+        this.runValues = runValues;
+    }
+
+    /**
+     * Returns the row equality used to find the runs of a column
+     *
+     * @param column column
+     * @return row equality
+     */
+    static RunLengths.RowEquality equality(StringColumn column) {
+        return (a, b) -> Objects.equals(column.get(a), column.get(b));
+    }
+
+    @Override
+    public int getRunCount() {
+        return runs.getRunCount();
+    }
+
+    @Override
+    public int getRunStart(int run) {
+        return runs.getStart(run);
+    }
+
+    @Override
+    public int getRunEnd(int run) {
+        return runs.getEnd(run);
+    }
+
+    @Override
+    public int getRun(int index) {
+        return runs.getRun(index);
+    }
+
+    @Override
+    public String getRunValue(int run) {
+        return runValues[run];
+    }
+
+    @Override
+    public String get(int index) {
+        return runValues[runs.getRun(index)];
+    }
+
+    @Override
+    public boolean isNA(int index) {
+        return index >= size() || get(index) == null;
+    }
+
+    @Override
+    protected void setValue(int index, String value) {
+        throw immutable();
+    }
+
+    @Override
+    protected void doSetNA(int index) {
+        throw immutable();
+    }
+
+    @Override
+    protected int capacity() {
+        return size();
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        throw immutable();
+    }
+
+    @Override
+    protected void swap(int a, int b) {
+        throw immutable();
+    }
+
+    @Override
+    protected void reorder(int[] order) {
+        throw immutable();
+    }
+
+    @Override
+    protected StringColumn permute(int[] order) {
+        StringColumn column = slice(0, size());
+        column.reorder(order);
+        return column;
+    }
+
+    @Override
+    protected StringColumn compact(int[] indices) {
+        return slice(indices);
+    }
+
+    @Override
+    protected void clearValues() {
+        throw immutable();
+    }
+
+    @Override
+    protected void doSort(Comparator<String> comparator) {
+        throw immutable();
+    }
+
+    @Override
+    protected void doSort() {
+        throw immutable();
+    }
+
+    private static DataFrameRuntimeException immutable() {
+        return new DataFrameRuntimeException("run-length encoded columns are immutable");
+    }
+
+    @Override
+    public String[] toArray() {
+        return toArray(new String[size()]);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public String[] toArray(String[] a) {
+        int size = size();
+        if (a.length < size) {
+            a = (String[]) Array.newInstance(a.getClass().getComponentType(), size);
+        }
+        for (int run = 0; run < runValues.length; run++) {
+            Arrays.fill(a, runs.getStart(run), runs.getEnd(run), runValues[run]);
+        }
+        if (a.length > size) {
+            a[size] = null;
+        }
+        return a;
+    }
+
+    @Override
+    public List<String> asList() {
+        return Collections.unmodifiableList(Arrays.asList(toArray()));
+    }
+
+    @Override
+    public Set<String> uniq() {
+        Set<String> u = new HashSet<>(Arrays.asList(runValues));
+        u.remove(null);
+        return u;
+    }
+
+    @Override
+    public RunLengthStringColumn seal() {
+        return this;
+    }
+
+    @Override
+    public boolean isSealed() {
+        return true;
+    }
+
+    /**
+     * Releases the encoded values, a closed column is empty and remains immutable.
+     */
+    @Override
+    public void close() {
+        runs = RunLengths.EMPTY;
+        runValues = new String[0];
+        setSize(0);
+    }
+
+    @Override
+    public RunLengthStringColumn copy() {
+        return new RunLengthStringColumn(getName(), runs, runValues, size());
+    }
+
+    @Override
+    public StringColumn copyEmpty() {
+        return new StringColumn(getName());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+
+package de.unknownreality.dataframe.column;
+
+import java.util.Arrays;
+
+/**
+ * Immutable run boundaries of a run-length encoded column.
+ * The run containing a row is found using a binary search over the run ends.
+ */
+final class RunLengths {
+
+    /**
+     * Tests if two rows have the same value
+     */
+    interface RowEquality {
+        boolean equal(int a, int b);
+    }
+
+    static final RunLengths EMPTY = new RunLengths(new int[0]);
+
+    private final int[] ends;
+
+    private RunLengths(int[] ends) {
+        this.ends = ends;
+    }
+
+    /**
+     * Returns the number of runs of consecutive equal values
+     *
+     * @param size     number of rows
+     * @param equality row equality
+     * @return number of runs
+     */
+    static int countRuns(int size, RowEquality equality) {
+        int runs = size == 0 ? 0 : 1;
+        for (int i = 1; i < size; i++) {
+            if (!equality.equal(i - 1, i)) {
+                runs++;
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Returns <tt>true</tt> if run-length encoding is worthwhile for the specified number of rows and runs
+     *
+     * @param size number of rows
+     * @param runs number of runs
+     * @return <tt>true</tt> if the average run length is at least {@link RunLengthColumn#MIN_AVERAGE_RUN_LENGTH}
+     */
+    static boolean isEfficient(int size, int runs) {
+        return size > 0 && (long) runs * RunLengthColumn.MIN_AVERAGE_RUN_LENGTH <= size;
+    }
+
+    /**
+     * Finds the runs of consecutive equal values
+     *
+     * @param size     number of rows
+     * @param equality row equality
+     * @return run boundaries
+     */
+    static RunLengths of(int size, RowEquality equality) {
+        int[] ends = new int[countRuns(size, equality)];
+        int run = 0;
+        for (int i = 1; i < size; i++) {
+            if (!equality.equal(i - 1, i)) {
+                ends[run++] = i;
+            }
+        }
+        if (size > 0) {
+            ends[run] = size;
+        }
+        return new RunLengths(ends);
+    }
+
+    int getRunCount() {
+        return ends.length;
+    }
+
+    int getStart(int run) {
+        return run == 0 ? 0 : ends[run - 1];
+    }
+
+    int getEnd(int run) {
+        return ends[run];
+    }
+
+    int getRun(int index) {
+        int position = Arrays.binarySearch(ends, index);
+        return position >= 0 ? position + 1 : -(position + 1);
+    }
+}
@@ -51,6 +51,17 @@ public class StringColumn extends BasicColumn<String, StringColumn> {
         super(name, values, size);
     }
 
+    /**
+     * Creates a string column without an object value array.
+     * Used by subclasses that provide their own value storage.
+     *
+     * @param name name of the column
+     * @param size initial size of the column
+     */
+    protected StringColumn(String name, int size) {
+        super(name, size);
+    }
+
 
     @Override
     public StringType getValueType() {
@@ -80,6 +91,22 @@ public class StringColumn extends BasicColumn<String, StringColumn> {
         return row.getString(headerIndex);
     }
 
+    /**
+     * Creates an immutable {@link RunLengthStringColumn} containing the values of this column,
+     * if the average run length of equal values is at least {@link RunLengthColumn#MIN_AVERAGE_RUN_LENGTH}.
+     * Otherwise this column is returned.
+     *
+     * @return sealed column or <tt>self</tt>
+     */
+    @Override
+    public StringColumn seal() {
+        int runs = RunLengths.countRuns(size(), RunLengthStringColumn.equality(this));
+        if (RunLengths.isEfficient(size(), runs)) {
+            return new RunLengthStringColumn(this);
+        }
+        return this;
+    }
+
     @Override
     public StringColumn copyEmpty() {
         return new StringColumn(getName());
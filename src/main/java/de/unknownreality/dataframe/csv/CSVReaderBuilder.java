@@ -120,6 +120,15 @@ public class CSVReaderBuilder implements ReaderBuilder<CSVRow, CSVReader> {
         return this;
     }
 
+    /**
+     * Sets the type of a column.
+     * The type is either a value type (<tt>Integer.class</tt>) or a column class.
+     * Use {@link de.unknownreality.dataframe.column.DictionaryStringColumn} for dictionary encoded string columns.
+     *
+     * @param col  column name
+     * @param type value type or column class
+     * @return <tt>self</tt> for method chaining
+     */
     public CSVReaderBuilder setColumnType(String col, Class<?> type) {
         columnTypeMap.put(col, type);
         return this;
@@ -26,6 +26,7 @@ package de.unknownreality.dataframe.csv;
 
 import de.unknownreality.dataframe.DataFrame;
 import de.unknownreality.dataframe.DataFrameColumn;
+import de.unknownreality.dataframe.RowCursor;
 import de.unknownreality.dataframe.Values;
 import de.unknownreality.dataframe.common.DataContainer;
 import de.unknownreality.dataframe.common.Row;
@@ -77,6 +78,14 @@ public class CSVWriter extends DataWriter {
     public void write(BufferedWriter bufferedWriter, DataContainer<?, ?> dataContainer) {
         try {
             writeHeader(bufferedWriter, dataContainer.getHeader());
+            if (dataContainer instanceof DataFrame) {
+                // data frames are written using a single cursor instead of one row object per row
+                RowCursor cursor = ((DataFrame) dataContainer).cursor();
+                while (cursor.next()) {
+                    writeRow(bufferedWriter, cursor);
+                }
+                return;
+            }
             for (Row<?, ?> row : dataContainer) {
                 writeRow(bufferedWriter, row);
             }
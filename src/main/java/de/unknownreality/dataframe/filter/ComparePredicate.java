@@ -24,8 +24,13 @@
 
 package de.unknownreality.dataframe.filter;
 
+import de.unknownreality.dataframe.DataFrameColumn;
 import de.unknownreality.dataframe.DataFrameRuntimeException;
+import de.unknownreality.dataframe.DataRow;
+import de.unknownreality.dataframe.RowCursor;
 import de.unknownreality.dataframe.Values;
+import de.unknownreality.dataframe.column.DictionaryStringColumn;
+import de.unknownreality.dataframe.column.RunLengthColumn;
 import de.unknownreality.dataframe.common.NumberUtil;
 import de.unknownreality.dataframe.common.Row;
 import de.unknownreality.dataframe.type.ValueType;
@@ -120,7 +125,11 @@ public class ComparePredicate extends FilterPredicate {
     }
 
     /**
-     * Returns <tt>true</tt> if the row is valid for this predicate
+     * Returns <tt>true</tt> if the row is valid for this predicate.
+     * Equality of dictionary encoded columns is tested using the value codes.
+     * Run-length encoded columns are compared once per run.
+     * If the row is a {@link RowCursor}, the run and the code of the predicate value are cached in the cursor,
+     * so the predicate can be shared between threads.
      *
      * @param row tested row
      * @return <tt>true</tt> if the row is valid
@@ -136,6 +145,26 @@ public class ComparePredicate extends FilterPredicate {
                     String.format("error converting filter value '%s' to '%s' in column '%s'",
                             value, type.getType().getCanonicalName(), headerName));
         }
+        DataFrameColumn<?, ?> column = null;
+        int rowIndex = -1;
+        EvaluationState state = null;
+        if (row instanceof RowCursor) {
+            RowCursor cursor = (RowCursor) row;
+            column = cursor.getColumn(headerName);
+            rowIndex = cursor.getIndex();
+            state = cursor.getState(this, EvaluationState::new);
+        } else if (row instanceof DataRow) {
+            DataRow dataRow = (DataRow) row;
+            column = dataRow.getDataFrame().getColumn(headerName);
+            rowIndex = dataRow.getIndex();
+        }
+        if (column instanceof RunLengthColumn) {
+            return compareRun(state, type, (RunLengthColumn<?>) column, rowIndex, v);
+        }
+        if (column instanceof DictionaryStringColumn
+                && (operation == Operation.EQ || operation == Operation.NE) && !Values.NA.isNA(v)) {
+            return compareCode(state, (DictionaryStringColumn) column, rowIndex, (String) v);
+        }
         return compare(type, row.get(headerName), v);
 
     }
@@ -167,6 +196,63 @@ public class ComparePredicate extends FilterPredicate {
         return (T) parsedValue;
     }
 
+    /**
+     * Compares the value of the run containing a row.
+     * With an evaluation state, the result is reused for all rows of the same run.
+     */
+    private boolean compareRun(EvaluationState state, ValueType<?> type, RunLengthColumn<?> column,
+                               int rowIndex, Object predicateValue) {
+        if (state == null) {
+            return compare(type, column.getRunValue(column.getRun(rowIndex)), predicateValue);
+        }
+        if (column != state.runColumn || rowIndex < state.runStart || rowIndex >= state.runEnd) {
+            int run = column.getRun(rowIndex);
+            state.runColumn = column;
+            state.runStart = column.getRunStart(run);
+            state.runEnd = column.getRunEnd(run);
+            state.runValid = compare(type, column.getRunValue(run), predicateValue);
+        }
+        return state.runValid;
+    }
+
+    private boolean compareCode(EvaluationState state, DictionaryStringColumn column, int rowIndex, String predicateValue) {
+        int code = column.getCode(rowIndex);
+        if (code == DictionaryStringColumn.NA_CODE) {
+            return operation == Operation.NE;
+        }
+        int predicateCode = state == null ? column.findCode(predicateValue) : findPredicateCode(state, column, predicateValue);
+        boolean equal = code == predicateCode;
+        return operation == Operation.EQ ? equal : !equal;
+    }
+
+    /**
+     * Returns the code of the predicate value in a dictionary encoded column.
+     * Codes never change, a missing value is looked up again if the dictionary has grown.
+     */
+    private static int findPredicateCode(EvaluationState state, DictionaryStringColumn column, String predicateValue) {
+        if (column != state.codeColumn
+                || (state.predicateCode == DictionaryStringColumn.NA_CODE
+                && state.codeDictionarySize != column.getDictionarySize())) {
+            state.codeColumn = column;
+            state.codeDictionarySize = column.getDictionarySize();
+            state.predicateCode = column.findCode(predicateValue);
+        }
+        return state.predicateCode;
+    }
+
+    /**
+     * Cached run and dictionary code of one scan, stored in the {@link RowCursor} of the scan
+     */
+    private static final class EvaluationState {
+        private DictionaryStringColumn codeColumn;
+        private int codeDictionarySize;
+        private int predicateCode = DictionaryStringColumn.NA_CODE;
+        private RunLengthColumn<?> runColumn;
+        private int runStart;
+        private int runEnd;
+        private boolean runValid;
+    }
+
     protected <T> boolean compare(ValueType<?> type, Object rowValue, Object predicateValue) {
 
         boolean isValueRowValueNA = Values.NA.isNA(rowValue);
@@ -24,9 +24,12 @@
 
 package de.unknownreality.dataframe.group;
 
+import de.unknownreality.dataframe.DataFrameColumn;
 import de.unknownreality.dataframe.DefaultDataFrame;
 import de.unknownreality.dataframe.type.ValueType;
 
+import java.util.Collection;
+
 /**
  * Created by Alex on 10.03.2016.
  */
@@ -51,6 +54,15 @@ public class DataGroup extends DefaultDataFrame {
         this.groupValues = new GroupValues(groupValueArray, groupHeader);
     }
 
+    /**
+     * Sets the columns containing the rows of this group
+     *
+     * @param columns group columns
+     */
+    void setColumns(Collection<DataFrameColumn<?, ?>> columns) {
+        set(columns, null);
+    }
+
     /**
      * Returns the {@link GroupHeader}
      *
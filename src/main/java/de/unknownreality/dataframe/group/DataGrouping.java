@@ -24,22 +24,42 @@
 
 package de.unknownreality.dataframe.group;
 
+import de.unknownreality.dataframe.DataFrame;
 import de.unknownreality.dataframe.DataFrameColumn;
+import de.unknownreality.dataframe.DataFrameRuntimeException;
 import de.unknownreality.dataframe.DataRow;
 import de.unknownreality.dataframe.DefaultDataFrame;
+import de.unknownreality.dataframe.RowCursor;
 import de.unknownreality.dataframe.Values;
+import de.unknownreality.dataframe.column.ExpressionColumn;
 import de.unknownreality.dataframe.group.aggr.AggregateFunction;
+import de.unknownreality.dataframe.group.aggr.MergeableAggregateFunction;
 import de.unknownreality.dataframe.type.DataFrameTypeManager;
+import de.unknownreality.dataframe.type.ValueType;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Created by Alex on 10.03.2016.
+ * <p>
+ * Groupings created from the row indices of a source data frame create their {@link DataGroup data groups} lazily.
+ * The groups and mergeable aggregates are read from the source data frame, so it must not be changed
+ * as long as the grouping is used.
+ * If the source changes after grouping (e.g. by sorting, filtering, removing columns or setting values),
+ * {@link #getGroup(int)} and {@link #agg(String, AggregateFunction)} throw a {@link DataFrameRuntimeException}.
+ * Groups that were created before the change are not affected.
+ * </p>
  */
 public class DataGrouping extends DefaultDataFrame {
     public final static String GROUP_INDEX = "%group_index%";
     private final DataGroup[] groups;
+    private final DataFrame source;
+    private final int sourceVersion;
+    private final int sourceValueVersion;
+    private final GroupRowIndices groupRows;
+    private final DataFrameColumn<?, ?>[] keyColumns;
+    private DataFrameColumn<?, ?>[] sourceColumns;
 
     /**
      * Creates a data grouping based on a collections of {@link DataGroup data groups} and the corresponding group columns
@@ -48,6 +68,11 @@ public class DataGrouping extends DefaultDataFrame {
      * @param groupColumns group columns
      */
     public DataGrouping(List<DataGroup> groups, DataFrameColumn<?, ?>... groupColumns) {
+        this.source = null;
+        this.sourceVersion = 0;
+        this.sourceValueVersion = 0;
+        this.groupRows = null;
+        this.keyColumns = null;
         this.addIndex(GROUP_INDEX, groupColumns);
         this.groups = new DataGroup[groups.size()];
         groups.toArray(this.groups);
@@ -60,16 +85,50 @@ public class DataGrouping extends DefaultDataFrame {
         }
     }
 
+    /**
+     * Creates a data grouping based on the row indices of each group.
+     * The {@link DataGroup data groups} are only created if they are requested using {@link #getGroup(int)}.
+     * The key columns must be regular columns of the source data frame, expression columns have to be materialized.
+     *
+     * @param source     source data frame
+     * @param groupRows  row indices of each group
+     * @param keyColumns columns used for the grouping
+     */
+    public DataGrouping(DataFrame source, GroupRowIndices groupRows, DataFrameColumn<?, ?>... keyColumns) {
+        this.source = source;
+        this.sourceVersion = source.getVersion();
+        this.sourceValueVersion = getValueVersion(source);
+        this.groupRows = groupRows;
+        this.keyColumns = keyColumns;
+        this.groups = new DataGroup[groupRows.getGroupCount()];
+        int[] firstRows = new int[groups.length];
+        for (int g = 0; g < firstRows.length; g++) {
+            firstRows[g] = groupRows.getFirstRow(g);
+        }
+        DataFrameColumn<?, ?>[] groupColumns = new DataFrameColumn[keyColumns.length];
+        for (int i = 0; i < keyColumns.length; i++) {
+            groupColumns[i] = keyColumns[i].slice(firstRows);
+            groupColumns[i].setName(keyColumns[i].getName());
+            addColumn(groupColumns[i]);
+        }
+        this.addIndex(GROUP_INDEX, groupColumns);
+    }
+
     public <T> DataGrouping aggregate(String columnName, AggregateFunction<T> fun) {
         return agg(columnName, fun);
     }
 
     @SuppressWarnings("unchecked")
     public <T> DataGrouping agg(String columnName, AggregateFunction<T> fun) {
-        List<T> values = new ArrayList<>();
-        for (int i = 0; i < size(); i++) {
-            T v = fun.aggregate(getRow(i).getGroup());
-            values.add(v);
+        List<T> values;
+        if (groupRows != null && fun instanceof MergeableAggregateFunction) {
+            values = aggregateRows((MergeableAggregateFunction<?, T>) fun);
+        } else {
+            values = new ArrayList<>();
+            for (int i = 0; i < size(); i++) {
+                T v = fun.aggregate(getRow(i).getGroup());
+                values.add(v);
+            }
         }
         Class<T> vType = null;
         for (T v : values) {
@@ -91,10 +150,104 @@ public class DataGrouping extends DefaultDataFrame {
         return this;
     }
 
+    /**
+     * Computes a mergeable aggregate function for all groups using the rows of the source data frame.
+     * No {@link DataGroup} is created.
+     *
+     * @param fun aggregate function
+     * @param <S> state type
+     * @param <T> result type
+     * @return aggregated value of each group
+     */
+    private <S, T> List<T> aggregateRows(MergeableAggregateFunction<S, T> fun) {
+        checkSourceVersion();
+        RowCursor cursor = source.cursor();
+        List<T> values = new ArrayList<>(groups.length);
+        for (int g = 0; g < groups.length; g++) {
+            S state = fun.init();
+            for (int i = groupRows.getStart(g), end = groupRows.getEnd(g); i < end; i++) {
+                fun.accumulate(state, cursor.seek(groupRows.getRow(i)));
+            }
+            values.add(fun.finish(state));
+        }
+        return values;
+    }
+
+    private void checkSourceVersion() {
+        if (source.getVersion() != sourceVersion || getValueVersion(source) != sourceValueVersion) {
+            throw new DataFrameRuntimeException("error reading groups, the source data frame changed since it was grouped");
+        }
+    }
+
+    private static int getValueVersion(DataFrame dataFrame) {
+        return dataFrame instanceof DefaultDataFrame ? ((DefaultDataFrame) dataFrame).getValueVersion() : 0;
+    }
+
     public DataGroup getGroup(int index) {
+        if (groups[index] == null) {
+            groups[index] = createGroup(index);
+        }
         return groups[index];
     }
 
+    /**
+     * Returns the number of rows in a group without creating the {@link DataGroup}
+     *
+     * @param index group index
+     * @return number of rows in the group
+     */
+    public int getGroupSize(int index) {
+        if (groupRows != null) {
+            return groupRows.getGroupSize(index);
+        }
+        return groups[index].size();
+    }
+
+    /**
+     * Returns the row indices of all groups in the source data frame.
+     * For groupings that were created from {@link DataGroup data groups}, <tt>null</tt> is returned.
+     *
+     * @return group row indices
+     */
+    public GroupRowIndices getGroupRowIndices() {
+        return groupRows;
+    }
+
+    private DataGroup createGroup(int index) {
+        checkSourceVersion();
+        if (sourceColumns == null) {
+            sourceColumns = new DataFrameColumn[source.getHeader().size()];
+            int i = 0;
+            for (DataFrameColumn<?, ?> column : source.getColumns()) {
+                sourceColumns[i++] = column instanceof ExpressionColumn
+                        ? ((ExpressionColumn<?>) column).materialize() : column;
+            }
+        }
+        int firstRow = groupRows.getFirstRow(index);
+        String[] names = new String[keyColumns.length];
+        Object[] values = new Object[keyColumns.length];
+        ValueType<?>[] types = new ValueType[keyColumns.length];
+        for (int i = 0; i < keyColumns.length; i++) {
+            names[i] = keyColumns[i].getName();
+            values[i] = keyColumns[i].get(firstRow);
+            types[i] = keyColumns[i].getValueType();
+        }
+        DataGroup group = new DataGroup(names, values, types);
+        List<DataFrameColumn<?, ?>> slices = new ArrayList<>(sourceColumns.length);
+        if (groupRows.isContiguous()) {
+            for (DataFrameColumn<?, ?> column : sourceColumns) {
+                slices.add(column.slice(groupRows.getStart(index), groupRows.getEnd(index)));
+            }
+        } else {
+            int[] rows = groupRows.getRows(index);
+            for (DataFrameColumn<?, ?> column : sourceColumns) {
+                slices.add(column.slice(rows));
+            }
+        }
+        group.setColumns(slices);
+        return group;
+    }
+
     public DataGroup getGroup(DataRow row) {
         return getGroup(row.getIndex());
     }
@@ -113,7 +266,7 @@ public class DataGrouping extends DefaultDataFrame {
 
     @Override
     public GroupRow getRow(int i) {
-        return new GroupRow(getGroup(i), this, i);
+        return new GroupRow(this, i);
     }
 
 }
@@ -30,13 +30,28 @@ import de.unknownreality.dataframe.DataRow;
  * Created by algru on 11.06.2017.
  */
 public class GroupRow extends DataRow {
-    private final DataGroup group;
+    private final DataGrouping grouping;
+    private DataGroup group;
     public GroupRow(DataGroup group, DataGrouping grouping,int index) {
         super(grouping, index);
+        this.grouping = grouping;
         this.group = group;
     }
 
+    /**
+     * Creates a group row. The {@link DataGroup} is requested from the grouping when it is first used.
+     *
+     * @param grouping data grouping
+     * @param index    row index
+     */
+    public GroupRow(DataGrouping grouping, int index) {
+        this(null, grouping, index);
+    }
+
     public DataGroup getGroup() {
+        if (group == null) {
+            group = grouping.getGroup(getIndex());
+        }
         return group;
     }
 
@@ -0,0 +1,182 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+package de.unknownreality.dataframe.group;
+
+import java.util.Arrays;
+
+/**
+ * Row indices of all groups of a grouping.
+ * <p>
+ * The row indices are stored in a single array ordered by group.
+ * The rows of group <tt>g</tt> are located between <tt>offsets[g]</tt> (inclusive) and <tt>offsets[g + 1]</tt> (exclusive).
+ * Within a group, the row indices are in ascending order.
+ * </p>
+ * <p>
+ * If all groups are contiguous row ranges, no rows array is stored (see {@link #fromRanges(int[])}).
+ * The row at position <tt>i</tt> is then row <tt>i</tt> of the source data frame.
+ * </p>
+ */
+public class GroupRowIndices {
+    private final int[] offsets;
+    private final int[] rows;
+
+    /**
+     * Creates the group row indices from offsets and rows
+     *
+     * @param offsets start of each group in the rows array, the last value is the number of rows
+     * @param rows    row indices ordered by group, <tt>null</tt> if the groups are contiguous row ranges
+     */
+    public GroupRowIndices(int[] offsets, int[] rows) {
+        this.offsets = offsets;
+        this.rows = rows;
+    }
+
+    /**
+     * Creates the group row indices for groups that are contiguous row ranges.
+     * Group <tt>g</tt> contains the rows between <tt>offsets[g]</tt> (inclusive) and <tt>offsets[g + 1]</tt> (exclusive).
+     *
+     * @param offsets first row of each group, the last value is the number of rows
+     * @return group row indices
+     */
+    public static GroupRowIndices fromRanges(int[] offsets) {
+        return new GroupRowIndices(offsets, null);
+    }
+
+    /**
+     * Creates the group row indices from the group id of each row.
+     * Group ids must be between <tt>0</tt> (inclusive) and <tt>groupCount</tt> (exclusive).
+     *
+     * @param groupIds   group id of each row
+     * @param groupCount number of groups
+     * @return group row indices
+     */
+    public static GroupRowIndices fromGroupIds(int[] groupIds, int groupCount) {
+        int[] offsets = new int[groupCount + 1];
+        for (int groupId : groupIds) {
+            offsets[groupId + 1]++;
+        }
+        for (int g = 0; g < groupCount; g++) {
+            offsets[g + 1] += offsets[g];
+        }
+        int[] positions = Arrays.copyOf(offsets, groupCount);
+        int[] rows = new int[groupIds.length];
+        for (int i = 0; i < groupIds.length; i++) {
+            rows[positions[groupIds[i]]++] = i;
+        }
+        return new GroupRowIndices(offsets, rows);
+    }
+
+    /**
+     * Returns the number of groups
+     *
+     * @return number of groups
+     */
+    public int getGroupCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Returns the number of rows in a group
+     *
+     * @param group group index
+     * @return number of rows
+     */
+    public int getGroupSize(int group) {
+        return offsets[group + 1] - offsets[group];
+    }
+
+    /**
+     * Returns the first row of a group
+     *
+     * @param group group index
+     * @return index of the first row
+     */
+    public int getFirstRow(int group) {
+        return getRow(offsets[group]);
+    }
+
+    /**
+     * Returns the row index at a position between {@link #getStart(int)} and {@link #getEnd(int)}
+     *
+     * @param position position
+     * @return row index
+     */
+    public int getRow(int position) {
+        return rows == null ? position : rows[position];
+    }
+
+    /**
+     * Returns <tt>true</tt> if all groups are contiguous row ranges and no rows array is stored
+     *
+     * @return <tt>true</tt> if the groups are contiguous
+     */
+    public boolean isContiguous() {
+        return rows == null;
+    }
+
+    /**
+     * Returns the row indices of a group
+     *
+     * @param group group index
+     * @return ascending row indices
+     */
+    public int[] getRows(int group) {
+        if (rows == null) {
+            int[] range = new int[getGroupSize(group)];
+            Arrays.setAll(range, i -> offsets[group] + i);
+            return range;
+        }
+        return Arrays.copyOfRange(rows, offsets[group], offsets[group + 1]);
+    }
+
+    /**
+     * Returns the position of the first row of a group, see {@link #getRow(int)}
+     *
+     * @param group group index
+     * @return start of the group (inclusive)
+     */
+    public int getStart(int group) {
+        return offsets[group];
+    }
+
+    /**
+     * Returns the position after the last row of a group, see {@link #getRow(int)}
+     *
+     * @param group group index
+     * @return end of the group (exclusive)
+     */
+    public int getEnd(int group) {
+        return offsets[group + 1];
+    }
+
+    /**
+     * Returns the array containing the row indices of all groups.
+     * The array must not be modified.
+     *
+     * @return row indices ordered by group, <tt>null</tt> if the groups are contiguous row ranges
+     */
+    public int[] getRowArray() {
+        return rows;
+    }
+}
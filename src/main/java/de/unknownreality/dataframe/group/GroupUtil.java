@@ -25,10 +25,28 @@
 package de.unknownreality.dataframe.group;
 
 import de.unknownreality.dataframe.DataFrame;
+import de.unknownreality.dataframe.group.aggr.AggregateSpec;
 
 /**
  * Created by Alex on 12.06.2017.
  */
 public interface GroupUtil {
     DataGrouping groupBy(DataFrame df, String... columns);
+
+    /**
+     * Groups a data frame and computes aggregates for all groups.
+     * The default implementation adds each aggregate using {@link DataGrouping#agg(String, de.unknownreality.dataframe.group.aggr.AggregateFunction)}.
+     *
+     * @param df         input data frame
+     * @param columns    grouping columns
+     * @param aggregates aggregates
+     * @return data grouping with one column per aggregate
+     */
+    default DataGrouping groupBy(DataFrame df, String[] columns, AggregateSpec... aggregates) {
+        DataGrouping grouping = groupBy(df, columns);
+        for (AggregateSpec aggregate : aggregates) {
+            grouping.agg(aggregate.getName(), aggregate.getFunction());
+        }
+        return grouping;
+    }
 }
@@ -24,83 +24,266 @@
 
 package de.unknownreality.dataframe.group.aggr;
 
-import de.unknownreality.dataframe.DefaultDataFrame;
+import de.unknownreality.dataframe.DataFrameRuntimeException;
+import de.unknownreality.dataframe.RowCursor;
+import de.unknownreality.dataframe.Values;
+import de.unknownreality.dataframe.common.NumberUtil;
 import de.unknownreality.dataframe.filter.FilterPredicate;
 
+import java.util.Arrays;
+
 /**
  * Created by Alex on 13.06.2017.
+ * <p>
+ * All functions are {@link MergeableAggregateFunction mergeable}, they can be computed incrementally
+ * without creating a {@link de.unknownreality.dataframe.group.DataGroup}.
+ * {@link Values#NA NA} values are ignored by the number aggregates.
+ * </p>
  */
 public class Aggregate {
-    public static final AggregateFunction<Integer> count = (DefaultDataFrame::size);
+    public static final MergeableAggregateFunction<?, Integer> count = MergeableAggregateFunction.of(
+            Count::new,
+            (state, row) -> state.count++,
+            Count::merge,
+            state -> state.count);
 
-    public static AggregateFunction<Integer> count() {
+    public static MergeableAggregateFunction<?, Integer> count() {
         return count;
     }
 
-    public static AggregateFunction<Double> mean(final String colName) {
-        return group -> group.getNumberColumn(colName).mean();
+    public static MergeableAggregateFunction<?, Double> mean(final String colName) {
+        return MergeableAggregateFunction.of(
+                NumberState::new,
+                (state, row) -> state.accept(row, colName),
+                NumberState::merge,
+                state -> state.sum / state.count);
+    }
+
+    public static MergeableAggregateFunction<?, Number> median(final String colName) {
+        return MergeableAggregateFunction.of(
+                ValuesState::new,
+                (state, row) -> state.accept(row, colName),
+                ValuesState::merge,
+                ValuesState::median);
+    }
+
+    public static MergeableAggregateFunction<?, Number> min(final String colName) {
+        return MergeableAggregateFunction.of(
+                NumberState::new,
+                (state, row) -> state.accept(row, colName),
+                NumberState::merge,
+                state -> state.convert(state.count == 0 ? Double.MAX_VALUE : state.min));
+    }
+
+
+    public static MergeableAggregateFunction<?, Number> max(final String colName) {
+        return MergeableAggregateFunction.of(
+                NumberState::new,
+                (state, row) -> state.accept(row, colName),
+                NumberState::merge,
+                state -> state.convert(state.max));
+    }
+
+    public static MergeableAggregateFunction<?, Integer> filterCount(FilterPredicate filterPredicate) {
+        return MergeableAggregateFunction.of(
+                Count::new,
+                (state, row) -> {
+                    if (filterPredicate.valid(row)) {
+                        state.count++;
+                    }
+                },
+                Count::merge,
+                state -> state.count);
+    }
+
+    public static MergeableAggregateFunction<?, Integer> filterCount(String predicateString) {
+        return filterCount(FilterPredicate.compile(predicateString));
     }
 
-    public static AggregateFunction<Number> median(final String colName) {
-        return group -> group.getNumberColumn(colName).median();
+    public static MergeableAggregateFunction<?, Object> first(final String colName) {
+        return MergeableAggregateFunction.of(
+                ValueState::new,
+                (state, row) -> {
+                    if (!state.set) {
+                        state.set(row.get(colName));
+                    }
+                },
+                (state, other) -> state.set ? state : other,
+                state -> state.value);
     }
 
-    public static AggregateFunction<Number> min(final String colName) {
-        return group -> group.getNumberColumn(colName).min();
+    public static MergeableAggregateFunction<?, Object> last(final String colName) {
+        return MergeableAggregateFunction.of(
+                ValueState::new,
+                (state, row) -> state.set(row.get(colName)),
+                (state, other) -> other.set ? other : state,
+                state -> state.value);
     }
 
 
-    public static AggregateFunction<Number> max(final String colName) {
-        return group -> group.getNumberColumn(colName).max();
+    public static MergeableAggregateFunction<?, Number> quantile(final String colName, double quantile) {
+        return MergeableAggregateFunction.of(
+                ValuesState::new,
+                (state, row) -> state.accept(row, colName),
+                ValuesState::merge,
+                state -> state.quantile(quantile));
     }
 
-    public static AggregateFunction<Integer> filterCount(FilterPredicate filterPredicate) {
-        return group -> group.selectRows(filterPredicate).size();
+
+    public static MergeableAggregateFunction<?, Integer> naCount(String column) {
+        return MergeableAggregateFunction.of(
+                Count::new,
+                (state, row) -> {
+                    if (row.isNA(column)) {
+                        state.count++;
+                    }
+                },
+                Count::merge,
+                state -> state.count);
     }
 
-    public static AggregateFunction<Integer> filterCount(String predicateString) {
-        return group -> group.selectRows(predicateString).size();
+    public static MergeableAggregateFunction<?, String> join(String delimiter, String column) {
+        return MergeableAggregateFunction.of(
+                JoinState::new,
+                (state, row) -> {
+                    if (state.rows++ > 0) {
+                        state.sb.append(delimiter);
+                    }
+                    if (!row.isNA(column)) {
+                        state.sb.append(row.toString(column));
+                    }
+                },
+                (state, other) -> {
+                    if (state.rows > 0 && other.rows > 0) {
+                        state.sb.append(delimiter);
+                    }
+                    state.sb.append(other.sb);
+                    state.rows += other.rows;
+                    return state;
+                },
+                state -> state.sb.toString());
     }
 
-    public static AggregateFunction<Object> first(final String colName) {
-        return group -> group.getRow(0).get(colName);
+    private static class Count {
+        private int count;
+
+        private Count merge(Count other) {
+            count += other.count;
+            return this;
+        }
     }
 
-    public static AggregateFunction<Object> last(final String colName) {
-        return group -> group.getRow(group.size() - 1).get(colName);
+    private static class ValueState {
+        private Object value;
+        private boolean set;
+
+        private void set(Object value) {
+            this.value = value;
+            this.set = true;
+        }
     }
 
+    private static class JoinState {
+        private final StringBuilder sb = new StringBuilder();
+        private int rows;
+    }
 
-    public static AggregateFunction<Number> quantile(final String colName, double quantile) {
-        return group -> group.getNumberColumn(colName).getQuantile(quantile);
+    /**
+     * Returns the value type of a number column, used to convert the aggregated values
+     */
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Number> getNumberType(RowCursor row, String colName) {
+        Class<?> type = row.getType(colName).getType();
+        if (!Number.class.isAssignableFrom(type)) {
+            throw new DataFrameRuntimeException(String.format("column '%s' is not a number column", colName));
+        }
+        return (Class<? extends Number>) type;
     }
 
+    private static class NumberState {
+        private Class<? extends Number> type;
+        private int count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
 
-    public static AggregateFunction<Integer> naCount(String column) {
-        return group -> {
-            int c = 0;
-            for (int i = 0; i < group.size(); i++) {
-                if (group.getRow(i).isNA(column)) {
-                    c++;
-                }
+        private void accept(RowCursor row, String colName) {
+            if (type == null) {
+                type = getNumberType(row, colName);
             }
-            return c;
-        };
-    }
-
-    public static AggregateFunction<String> join(String delimiter, String column) {
-        return group -> {
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < group.size(); i++) {
-                if (i > 0) {
-                    sb.append(delimiter);
-                }
-                if (!group.getRow(i).isNA(column)) {
-                    sb.append(group.getRow(i).toString(column));
-                }
+            if (row.isNA(colName)) {
+                return;
             }
-            return sb.toString();
-        };
+            double value = row.getDoubleValue(colName);
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        private NumberState merge(NumberState other) {
+            if (type == null) {
+                type = other.type;
+            }
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            return this;
+        }
+
+        private Number convert(double value) {
+            return type == null ? value : NumberUtil.convert(value, type);
+        }
     }
 
+    private static class ValuesState {
+        private Class<? extends Number> type;
+        private double[] values = new double[16];
+        private int size;
+
+        private void accept(RowCursor row, String colName) {
+            if (type == null) {
+                type = getNumberType(row, colName);
+            }
+            if (row.isNA(colName)) {
+                return;
+            }
+            add(row.getDoubleValue(colName));
+        }
+
+        private void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        private ValuesState merge(ValuesState other) {
+            if (type == null) {
+                type = other.type;
+            }
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+            return this;
+        }
+
+        private Number median() {
+            if (size == 0) {
+                return null;
+            }
+            Arrays.sort(values, 0, size);
+            return NumberUtil.convert(values[size / 2], type);
+        }
+
+        private Number quantile(double quantile) {
+            if (size == 0) {
+                return null;
+            }
+            Arrays.sort(values, 0, size);
+            int index = Math.max((int) Math.ceil(quantile * size) - 1, 0);
+            return NumberUtil.convert(values[index], type);
+        }
+    }
 }
@@ -0,0 +1,225 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+package de.unknownreality.dataframe.group.aggr;
+
+import de.unknownreality.dataframe.DataFrame;
+import de.unknownreality.dataframe.DataFrameColumn;
+import de.unknownreality.dataframe.DataFrameRuntimeException;
+import de.unknownreality.dataframe.Values;
+import de.unknownreality.dataframe.column.ExpressionColumn;
+import de.unknownreality.dataframe.column.NumberColumn;
+
+/**
+ * Describes an aggregate that is computed for all groups in a single pass over the grouped rows.
+ * <p>
+ * Aggregate specs are passed to {@link DataFrame#groupBy(String[], AggregateSpec...)}.
+ * The values are accumulated in primitive arrays, no {@link de.unknownreality.dataframe.group.DataGroup} is created.
+ * </p>
+ * <p>
+ * <code>df.groupBy(new String[]{"a", "b"}, AggregateSpec.count("n"), AggregateSpec.mean("m", "x"))</code>
+ * </p>
+ * <p>
+ * {@link Values#NA NA} values are ignored by all aggregates except {@link #count(String)} and {@link #naCount(String, String)}.
+ * The mean, minimum and maximum of a group without values is {@link Values#NA NA}, the sum is <tt>0</tt>.
+ * </p>
+ */
+public final class AggregateSpec {
+
+    /**
+     * Available aggregates
+     */
+    public enum Type {
+        COUNT,
+        NA_COUNT,
+        SUM,
+        MIN,
+        MAX,
+        MEAN
+    }
+
+    private final String name;
+    private final String columnName;
+    private final Type type;
+
+    private AggregateSpec(String name, String columnName, Type type) {
+        this.name = name;
+        this.columnName = columnName;
+        this.type = type;
+    }
+
+    /**
+     * Number of rows in each group
+     *
+     * @param name name of the result column
+     * @return aggregate spec
+     */
+    public static AggregateSpec count(String name) {
+        return new AggregateSpec(name, null, Type.COUNT);
+    }
+
+    /**
+     * Number of {@link Values#NA NA} values of a column in each group
+     *
+     * @param name       name of the result column
+     * @param columnName aggregated column
+     * @return aggregate spec
+     */
+    public static AggregateSpec naCount(String name, String columnName) {
+        return new AggregateSpec(name, columnName, Type.NA_COUNT);
+    }
+
+    /**
+     * Sum of a number column in each group.
+     * Sums of integral columns are computed exactly,
+     * a {@link DataFrameRuntimeException} is thrown if a sum does not fit into the type of the column.
+     *
+     * @param name       name of the result column
+     * @param columnName aggregated number column
+     * @return aggregate spec
+     */
+    public static AggregateSpec sum(String name, String columnName) {
+        return new AggregateSpec(name, columnName, Type.SUM);
+    }
+
+    /**
+     * Minimum of a number column in each group
+     *
+     * @param name       name of the result column
+     * @param columnName aggregated number column
+     * @return aggregate spec
+     */
+    public static AggregateSpec min(String name, String columnName) {
+        return new AggregateSpec(name, columnName, Type.MIN);
+    }
+
+    /**
+     * Maximum of a number column in each group
+     *
+     * @param name       name of the result column
+     * @param columnName aggregated number column
+     * @return aggregate spec
+     */
+    public static AggregateSpec max(String name, String columnName) {
+        return new AggregateSpec(name, columnName, Type.MAX);
+    }
+
+    /**
+     * Mean of a number column in each group
+     *
+     * @param name       name of the result column
+     * @param columnName aggregated number column
+     * @return aggregate spec
+     */
+    public static AggregateSpec mean(String name, String columnName) {
+        return new AggregateSpec(name, columnName, Type.MEAN);
+    }
+
+    /**
+     * Returns the name of the result column
+     *
+     * @return result column name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the name of the aggregated column, <tt>null</tt> for {@link Type#COUNT}
+     *
+     * @return aggregated column name
+     */
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns an {@link AggregateFunction} that computes this aggregate for a single group.
+     * Used by group utils that do not support single pass aggregation.
+     *
+     * @return aggregate function
+     */
+    public AggregateFunction<Object> getFunction() {
+        return group -> {
+            GroupAggregator.Accumulator accumulator = createAccumulator(resolveColumn(group), 1);
+            for (int i = 0; i < group.size(); i++) {
+                accumulator.accept(0, i);
+            }
+            DataFrameColumn<?, ?> column = accumulator.createColumn();
+            return column.isNA(0) ? null : column.get(0);
+        };
+    }
+
+    /**
+     * Returns the aggregated column of a data frame.
+     * Expression columns are materialized, so each value is only computed once.
+     *
+     * @param df aggregated data frame
+     * @return aggregated column, <tt>null</tt> for {@link Type#COUNT}
+     */
+    DataFrameColumn<?, ?> resolveColumn(DataFrame df) {
+        if (type == Type.COUNT) {
+            return null;
+        }
+        DataFrameColumn<?, ?> column = df.getColumn(columnName);
+        if (column == null) {
+            throw new DataFrameRuntimeException(
+                    String.format("error aggregating data frame: column not found '%s'", columnName));
+        }
+        if (column instanceof ExpressionColumn) {
+            column = ((ExpressionColumn<?>) column).materialize();
+        }
+        if (type != Type.NA_COUNT && !(column instanceof NumberColumn)) {
+            throw new DataFrameRuntimeException(
+                    String.format("error aggregating data frame: '%s' is not a number column", columnName));
+        }
+        return column;
+    }
+
+    /**
+     * Creates an accumulator for this aggregate
+     *
+     * @param column     aggregated column returned by {@link #resolveColumn(DataFrame)}
+     * @param groupCount number of groups
+     * @return accumulator
+     */
+    GroupAggregator.Accumulator createAccumulator(DataFrameColumn<?, ?> column, int groupCount) {
+        switch (type) {
+            case COUNT:
+                return new GroupAggregator.CountAccumulator(name, groupCount);
+            case NA_COUNT:
+                return new GroupAggregator.NACountAccumulator(name, column, groupCount);
+            default:
+                return new GroupAggregator.NumberAccumulator(name, (NumberColumn<?, ?>) column, type, groupCount);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return columnName == null ? name + "=" + type : name + "=" + type + "(" + columnName + ")";
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+package de.unknownreality.dataframe.group.aggr;
+
+import de.unknownreality.dataframe.DataFrame;
+import de.unknownreality.dataframe.DataFrameColumn;
+import de.unknownreality.dataframe.DataFrameRuntimeException;
+import de.unknownreality.dataframe.column.DoubleColumn;
+import de.unknownreality.dataframe.column.IntegerColumn;
+import de.unknownreality.dataframe.column.NumberColumn;
+import de.unknownreality.dataframe.common.NumberUtil;
+import de.unknownreality.dataframe.type.DataFrameTypeManager;
+
+import java.util.Arrays;
+
+/**
+ * Computes {@link AggregateSpec aggregates} for all groups in a single pass over the rows of a data frame.
+ * <p>
+ * Rows are added using the group id of each row.
+ * Partial aggregates of different row ranges can be computed independently and merged afterwards,
+ * see {@link #createPartial(int)} and {@link #merge(GroupAggregator, int[])}.
+ * </p>
+ */
+public class GroupAggregator {
+    private final AggregateSpec[] aggregates;
+    private final DataFrameColumn<?, ?>[] columns;
+    private final Accumulator[] accumulators;
+    private final int groupCount;
+
+    /**
+     * Creates an aggregator for the specified number of groups
+     *
+     * @param df         grouped data frame
+     * @param groupCount number of groups
+     * @param aggregates aggregates
+     */
+    public GroupAggregator(DataFrame df, int groupCount, AggregateSpec... aggregates) {
+        this(aggregates, resolveColumns(df, aggregates), groupCount);
+    }
+
+    private GroupAggregator(AggregateSpec[] aggregates, DataFrameColumn<?, ?>[] columns, int groupCount) {
+        this.aggregates = aggregates;
+        this.columns = columns;
+        this.groupCount = groupCount;
+        this.accumulators = new Accumulator[aggregates.length];
+        for (int i = 0; i < aggregates.length; i++) {
+            accumulators[i] = aggregates[i].createAccumulator(columns[i], groupCount);
+        }
+    }
+
+    private static DataFrameColumn<?, ?>[] resolveColumns(DataFrame df, AggregateSpec[] aggregates) {
+        DataFrameColumn<?, ?>[] columns = new DataFrameColumn[aggregates.length];
+        for (int i = 0; i < aggregates.length; i++) {
+            columns[i] = aggregates[i].resolveColumn(df);
+        }
+        return columns;
+    }
+
+    /**
+     * Computes aggregates for all groups.
+     * The rows are visited once, the values are accumulated per group in primitive arrays.
+     *
+     * @param df         grouped data frame
+     * @param groupIds   group id of each row
+     * @param groupCount number of groups
+     * @param aggregates aggregates
+     * @return one result column per aggregate, containing one value per group
+     */
+    public static DataFrameColumn<?, ?>[] aggregate(DataFrame df, int[] groupIds, int groupCount,
+                                                    AggregateSpec... aggregates) {
+        GroupAggregator aggregator = new GroupAggregator(df, groupCount, aggregates);
+        aggregator.accumulate(groupIds, 0, groupIds.length);
+        return aggregator.createColumns();
+    }
+
+    /**
+     * Creates an empty aggregator for the same aggregates and columns with a different number of groups.
+     * The aggregated columns are not resolved again.
+     *
+     * @param groupCount number of groups
+     * @return empty aggregator
+     */
+    public GroupAggregator createPartial(int groupCount) {
+        return new GroupAggregator(aggregates, columns, groupCount);
+    }
+
+    /**
+     * Returns the number of groups
+     *
+     * @return number of groups
+     */
+    public int getGroupCount() {
+        return groupCount;
+    }
+
+    /**
+     * Adds a range of rows
+     *
+     * @param groupIds group id of each row
+     * @param from     first row (inclusive)
+     * @param to       last row (exclusive)
+     */
+    public void accumulate(int[] groupIds, int from, int to) {
+        for (int row = from; row < to; row++) {
+            int group = groupIds[row];
+            for (Accumulator accumulator : accumulators) {
+                accumulator.accept(group, row);
+            }
+        }
+    }
+
+    /**
+     * Adds a contiguous range of rows that belong to the same group
+     *
+     * @param group group id
+     * @param from  first row (inclusive)
+     * @param to    last row (exclusive)
+     */
+    public void accumulateRange(int group, int from, int to) {
+        for (Accumulator accumulator : accumulators) {
+            for (int row = from; row < to; row++) {
+                accumulator.accept(group, row);
+            }
+        }
+    }
+
+    /**
+     * Adds the values of a partial aggregator created by {@link #createPartial(int)}
+     *
+     * @param partial      partial aggregator
+     * @param groupMapping group id in this aggregator for each group of the partial aggregator
+     */
+    public void merge(GroupAggregator partial, int[] groupMapping) {
+        for (int i = 0; i < accumulators.length; i++) {
+            accumulators[i].merge(partial.accumulators[i], groupMapping);
+        }
+    }
+
+    /**
+     * Creates the result columns
+     *
+     * @return one result column per aggregate, containing one value per group
+     */
+    public DataFrameColumn<?, ?>[] createColumns() {
+        DataFrameColumn<?, ?>[] result = new DataFrameColumn[accumulators.length];
+        for (int i = 0; i < accumulators.length; i++) {
+            result[i] = accumulators[i].createColumn();
+        }
+        return result;
+    }
+
+    /**
+     * Accumulates the values of one aggregate for all groups
+     */
+    abstract static class Accumulator {
+        protected final String name;
+
+        Accumulator(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Adds a row to a group
+         *
+         * @param group group id
+         * @param row   row index
+         */
+        abstract void accept(int group, int row);
+
+        /**
+         * Adds the values of another accumulator of the same aggregate
+         *
+         * @param other        other accumulator
+         * @param groupMapping group id in this accumulator for each group of the other accumulator
+         */
+        abstract void merge(Accumulator other, int[] groupMapping);
+
+        /**
+         * Creates the result column with one value per group
+         *
+         * @return result column
+         */
+        abstract DataFrameColumn<?, ?> createColumn();
+    }
+
+    static class CountAccumulator extends Accumulator {
+        private final int[] counts;
+
+        CountAccumulator(String name, int groupCount) {
+            super(name);
+            this.counts = new int[groupCount];
+        }
+
+        @Override
+        void accept(int group, int row) {
+            counts[group]++;
+        }
+
+        @Override
+        void merge(Accumulator other, int[] groupMapping) {
+            int[] otherCounts = ((CountAccumulator) other).counts;
+            for (int g = 0; g < otherCounts.length; g++) {
+                counts[groupMapping[g]] += otherCounts[g];
+            }
+        }
+
+        @Override
+        DataFrameColumn<?, ?> createColumn() {
+            return new IntegerColumn(name, counts);
+        }
+    }
+
+    static class NACountAccumulator extends Accumulator {
+        private final DataFrameColumn<?, ?> column;
+        private final int[] counts;
+
+        NACountAccumulator(String name, DataFrameColumn<?, ?> column, int groupCount) {
+            super(name);
+            this.column = column;
+            this.counts = new int[groupCount];
+        }
+
+        @Override
+        void accept(int group, int row) {
+            if (column.isNA(row)) {
+                counts[group]++;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other, int[] groupMapping) {
+            int[] otherCounts = ((NACountAccumulator) other).counts;
+            for (int g = 0; g < otherCounts.length; g++) {
+                counts[groupMapping[g]] += otherCounts[g];
+            }
+        }
+
+        @Override
+        DataFrameColumn<?, ?> createColumn() {
+            return new IntegerColumn(name, counts);
+        }
+    }
+
+    static class NumberAccumulator extends Accumulator {
+        private final NumberColumn<?, ?> column;
+        private final AggregateSpec.Type type;
+        private final double[] values;
+        private final long[] longValues;
+        private final int[] counts;
+
+        NumberAccumulator(String name, NumberColumn<?, ?> column, AggregateSpec.Type type, int groupCount) {
+            super(name);
+            this.column = column;
+            this.type = type;
+            this.counts = new int[groupCount];
+            // integral columns are accumulated exactly, the mean is always computed in double precision
+            if (type != AggregateSpec.Type.MEAN && NumberColumn.isIntegral(column)) {
+                this.values = null;
+                this.longValues = new long[groupCount];
+                if (type == AggregateSpec.Type.MIN) {
+                    Arrays.fill(longValues, Long.MAX_VALUE);
+                } else if (type == AggregateSpec.Type.MAX) {
+                    Arrays.fill(longValues, Long.MIN_VALUE);
+                }
+            } else {
+                this.values = new double[groupCount];
+                this.longValues = null;
+                if (type == AggregateSpec.Type.MIN) {
+                    Arrays.fill(values, Double.POSITIVE_INFINITY);
+                } else if (type == AggregateSpec.Type.MAX) {
+                    Arrays.fill(values, Double.NEGATIVE_INFINITY);
+                }
+            }
+        }
+
+        @Override
+        void accept(int group, int row) {
+            if (column.isNA(row)) {
+                return;
+            }
+            counts[group]++;
+            if (longValues != null) {
+                add(group, column.getLong(row));
+            } else {
+                add(group, column.getDouble(row));
+            }
+        }
+
+        private void add(int group, long value) {
+            switch (type) {
+                case MIN:
+                    if (value < longValues[group]) {
+                        longValues[group] = value;
+                    }
+                    break;
+                case MAX:
+                    if (value > longValues[group]) {
+                        longValues[group] = value;
+                    }
+                    break;
+                default:
+                    long sum = longValues[group] + value;
+                    // overflow if both operands have a different sign than the result
+                    if (((longValues[group] ^ sum) & (value ^ sum)) < 0) {
+                        throw overflow();
+                    }
+                    longValues[group] = sum;
+            }
+        }
+
+        private void add(int group, double value) {
+            switch (type) {
+                case MIN:
+                    if (value < values[group]) {
+                        values[group] = value;
+                    }
+                    break;
+                case MAX:
+                    if (value > values[group]) {
+                        values[group] = value;
+                    }
+                    break;
+                default:
+                    values[group] += value;
+            }
+        }
+
+        private DataFrameRuntimeException overflow() {
+            return new DataFrameRuntimeException(
+                    String.format("sum of column '%s' does not fit into %s", column.getName(),
+                            column.getValueType().getType().getSimpleName()));
+        }
+
+        @Override
+        void merge(Accumulator other, int[] groupMapping) {
+            NumberAccumulator partial = (NumberAccumulator) other;
+            for (int g = 0; g < partial.counts.length; g++) {
+                if (partial.counts[g] == 0) {
+                    continue;
+                }
+                int group = groupMapping[g];
+                counts[group] += partial.counts[g];
+                if (longValues != null) {
+                    add(group, partial.longValues[g]);
+                } else {
+                    add(group, partial.values[g]);
+                }
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        DataFrameColumn<?, ?> createColumn() {
+            if (type == AggregateSpec.Type.MEAN) {
+                double[] means = new double[values.length];
+                for (int g = 0; g < means.length; g++) {
+                    means[g] = values[g] / counts[g];
+                }
+                DoubleColumn result = new DoubleColumn(name, means);
+                for (int g = 0; g < means.length; g++) {
+                    if (counts[g] == 0) {
+                        result.setNA(g);
+                    }
+                }
+                return result;
+            }
+            // sum, min and max keep the type of the aggregated column
+            DataFrameColumn<?, ?> result = DataFrameTypeManager.get().createColumn(column.getValueType());
+            result.setName(name);
+            Class<? extends Number> numberType = (Class<? extends Number>) column.getValueType().getType();
+            for (int g = 0; g < counts.length; g++) {
+                if (counts[g] == 0 && type != AggregateSpec.Type.SUM) {
+                    result.appendNA();
+                } else if (longValues != null) {
+                    Number value = NumberUtil.convert(longValues[g], numberType);
+                    if (value.longValue() != longValues[g]) {
+                        throw overflow();
+                    }
+                    result.appendRaw(value);
+                } else {
+                    result.appendRaw(NumberUtil.convert(values[g], numberType));
+                }
+            }
+            return result;
+        }
+    }
+}
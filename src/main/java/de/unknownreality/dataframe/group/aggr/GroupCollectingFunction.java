@@ -0,0 +1,110 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+package de.unknownreality.dataframe.group.aggr;
+
+import de.unknownreality.dataframe.DataFrame;
+import de.unknownreality.dataframe.DataFrameRuntimeException;
+import de.unknownreality.dataframe.RowCursor;
+import de.unknownreality.dataframe.group.DataGroup;
+import de.unknownreality.dataframe.type.ValueType;
+
+import java.util.Arrays;
+
+/**
+ * Adapter for {@link AggregateFunction aggregate functions} that require a complete {@link DataGroup}.
+ * The state collects the row indices, the data group is created when the state is finished.
+ * The created data group has no group values.
+ *
+ * @param <T> result type
+ */
+class GroupCollectingFunction<T> implements MergeableAggregateFunction<GroupCollectingFunction.Rows, T> {
+    private final AggregateFunction<T> function;
+
+    GroupCollectingFunction(AggregateFunction<T> function) {
+        this.function = function;
+    }
+
+    @Override
+    public Rows init() {
+        return new Rows();
+    }
+
+    @Override
+    public void accumulate(Rows state, RowCursor row) {
+        if (state.source == null) {
+            state.source = row.getDataFrame();
+        } else if (state.source != row.getDataFrame()) {
+            throw new DataFrameRuntimeException("rows of different data frames can not be aggregated");
+        }
+        state.add(row.getIndex());
+    }
+
+    @Override
+    public Rows merge(Rows state, Rows other) {
+        if (other.source == null) {
+            return state;
+        }
+        if (state.source != null && state.source != other.source) {
+            throw new DataFrameRuntimeException("rows of different data frames can not be aggregated");
+        }
+        for (int i = 0; i < other.size; i++) {
+            state.add(other.rows[i]);
+        }
+        state.source = other.source;
+        return state;
+    }
+
+    @Override
+    public T finish(Rows state) {
+        DataGroup group = new DataGroup(new String[0], new Object[0], new ValueType[0]);
+        if (state.source != null) {
+            group.set(state.source.getHeader().copy());
+            for (int i = 0; i < state.size; i++) {
+                group.append(state.source, state.rows[i]);
+            }
+        }
+        return function.aggregate(group);
+    }
+
+    @Override
+    public T aggregate(DataGroup group) {
+        return function.aggregate(group);
+    }
+
+    /**
+     * Collected row indices
+     */
+    static class Rows {
+        private DataFrame source;
+        private int[] rows = new int[16];
+        private int size;
+
+        private void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size << 1);
+            }
+            rows[size++] = row;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+package de.unknownreality.dataframe.group.aggr;
+
+import de.unknownreality.dataframe.RowCursor;
+import de.unknownreality.dataframe.group.DataGroup;
+
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Aggregate function that is computed incrementally.
+ * <p>
+ * A mutable state is created using {@link #init()}, the rows of a group are added using {@link #accumulate(Object, RowCursor)}
+ * and the result is created by {@link #finish(Object)}.
+ * Partial states of different row ranges can be combined using {@link #merge(Object, Object)},
+ * the state passed as first argument contains the rows that come first.
+ * </p>
+ * <p>
+ * Mergeable aggregate functions can be used wherever an {@link AggregateFunction} is expected.
+ * {@link #aggregate(DataGroup)} accumulates all rows of the group.
+ * </p>
+ *
+ * @param <S> state type
+ * @param <T> result type
+ */
+public interface MergeableAggregateFunction<S, T> extends AggregateFunction<T> {
+
+    /**
+     * Creates a new empty state
+     *
+     * @return empty state
+     */
+    S init();
+
+    /**
+     * Adds the current row of a cursor to a state
+     *
+     * @param state state
+     * @param row   cursor positioned at the added row
+     */
+    void accumulate(S state, RowCursor row);
+
+    /**
+     * Combines two states. The rows of the second state follow the rows of the first state.
+     *
+     * @param state first state
+     * @param other second state
+     * @return combined state, may be the first state
+     */
+    S merge(S state, S other);
+
+    /**
+     * Returns the result of a state
+     *
+     * @param state state
+     * @return aggregated value
+     */
+    T finish(S state);
+
+    @Override
+    default T aggregate(DataGroup group) {
+        S state = init();
+        RowCursor cursor = group.cursor();
+        while (cursor.next()) {
+            accumulate(state, cursor);
+        }
+        return finish(state);
+    }
+
+    /**
+     * Creates a mergeable aggregate function from its steps
+     *
+     * @param init       creates an empty state
+     * @param accumulate adds a row to a state
+     * @param merge      combines two states
+     * @param finish     returns the result of a state
+     * @param <S>        state type
+     * @param <T>        result type
+     * @return mergeable aggregate function
+     */
+    static <S, T> MergeableAggregateFunction<S, T> of(Supplier<S> init, BiConsumer<S, RowCursor> accumulate,
+                                                      BinaryOperator<S> merge, Function<S, T> finish) {
+        return new MergeableAggregateFunction<S, T>() {
+            @Override
+            public S init() {
+                return init.get();
+            }
+
+            @Override
+            public void accumulate(S state, RowCursor row) {
+                accumulate.accept(state, row);
+            }
+
+            @Override
+            public S merge(S state, S other) {
+                return merge.apply(state, other);
+            }
+
+            @Override
+            public T finish(S state) {
+                return finish.apply(state);
+            }
+        };
+    }
+
+    /**
+     * Adapts an {@link AggregateFunction} to this interface.
+     * The state collects the rows of the group, the function is applied to a data group created by {@link #finish(Object)}.
+     * Mergeable functions are returned unchanged.
+     *
+     * @param function aggregate function
+     * @param <T>      result type
+     * @return mergeable aggregate function
+     */
+    @SuppressWarnings("unchecked")
+    static <T> MergeableAggregateFunction<?, T> adapt(AggregateFunction<T> function) {
+        if (function instanceof MergeableAggregateFunction) {
+            return (MergeableAggregateFunction<?, T>) function;
+        }
+        return new GroupCollectingFunction<>(function);
+    }
+}
@@ -0,0 +1,393 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+package de.unknownreality.dataframe.group.impl;
+
+import de.unknownreality.dataframe.DataFrame;
+import de.unknownreality.dataframe.DataFrameColumn;
+import de.unknownreality.dataframe.DataFrameRuntimeException;
+import de.unknownreality.dataframe.Parallelism;
+import de.unknownreality.dataframe.column.DictionaryStringColumn;
+import de.unknownreality.dataframe.column.ExpressionColumn;
+import de.unknownreality.dataframe.group.DataGrouping;
+import de.unknownreality.dataframe.group.GroupRowIndices;
+import de.unknownreality.dataframe.group.GroupUtil;
+import de.unknownreality.dataframe.group.aggr.AggregateSpec;
+import de.unknownreality.dataframe.group.aggr.GroupAggregator;
+import de.unknownreality.dataframe.sort.IntegralSortKey;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Groups a data frame using a single open addressing hash table over the composite group keys.
+ * <p>
+ * Each row is assigned a group id, afterwards the row indices of all groups are stored in one array ({@link GroupRowIndices}).
+ * The rows are not copied, the {@link de.unknownreality.dataframe.group.DataGroup data groups} are created
+ * when they are requested from the {@link DataGrouping}.
+ * </p>
+ * <p>
+ * Integral and boolean columns are hashed using their primitive values, dictionary encoded columns using their codes.
+ * All other columns are hashed using {@link Object#hashCode()} and compared using {@link Object#equals(Object)}.
+ * </p>
+ * <p>
+ * If the {@link DataFrame#getParallelism() parallelism setting} of the data frame allows it,
+ * the rows are grouped in the {@link java.util.concurrent.ForkJoinPool} of the setting.
+ * The rows are split into ranges, each range is grouped and aggregated using its own hash table.
+ * The partial results are merged in the order of the ranges,
+ * so the groups are in the order of their first row, as in a sequential grouping.
+ * </p>
+ */
+public class HashGroupUtil implements GroupUtil {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NA_HASH = 0x5bd1e995;
+    private static final int MIN_PARALLEL_GRAIN = 1 << 14;
+
+    /**
+     * Groups a {@link DataFrame} using one or more columns.
+     *
+     * @param df      input data frame
+     * @param columns grouping columns
+     * @return data grouping
+     */
+    @Override
+    public DataGrouping groupBy(DataFrame df, String... columns) {
+        return groupBy(df, columns, new AggregateSpec[0]);
+    }
+
+    /**
+     * Groups a {@link DataFrame} and computes the aggregates in a single pass over the group ids,
+     * no {@link de.unknownreality.dataframe.group.DataGroup} is created.
+     *
+     * @param df         input data frame
+     * @param columns    grouping columns
+     * @param aggregates aggregates
+     * @return data grouping with one column per aggregate
+     */
+    @Override
+    public DataGrouping groupBy(DataFrame df, String[] columns, AggregateSpec... aggregates) {
+        DataFrameColumn<?, ?>[] keyColumns = getKeyColumns(df, columns);
+        GroupKey[] keys = createKeys(keyColumns);
+        int size = df.size();
+        int[] groupIds = new int[size];
+        int groupCount;
+        DataFrameColumn<?, ?>[] aggregateColumns;
+        Parallelism parallelism = df.getParallelism();
+        if (parallelism.isParallel(size)) {
+            GroupAggregator aggregator = new GroupAggregator(df, 0, aggregates);
+            GroupAggregator merged = groupParallel(keys, size, groupIds, aggregator, parallelism);
+            groupCount = merged.getGroupCount();
+            aggregateColumns = merged.createColumns();
+        } else {
+            GroupTable table = new GroupTable(keys);
+            for (int row = 0; row < size; row++) {
+                groupIds[row] = table.add(row);
+            }
+            groupCount = table.size();
+            aggregateColumns = aggregates.length == 0 ? new DataFrameColumn[0]
+                    : GroupAggregator.aggregate(df, groupIds, groupCount, aggregates);
+        }
+        DataGrouping grouping = new DataGrouping(df, GroupRowIndices.fromGroupIds(groupIds, groupCount), keyColumns);
+        for (DataFrameColumn<?, ?> column : aggregateColumns) {
+            grouping.addColumn(column);
+        }
+        return grouping;
+    }
+
+    /**
+     * Groups and aggregates ranges of rows in parallel and merges the partial results.
+     *
+     * @param keys       group keys
+     * @param size       number of rows
+     * @param groupIds   array that is filled with the group id of each row
+     * @param aggregator  empty aggregator used to create the partial aggregators
+     * @param parallelism parallel execution setting
+     * @return merged aggregator containing all groups
+     */
+    private static GroupAggregator groupParallel(GroupKey[] keys, int size, int[] groupIds, GroupAggregator aggregator,
+                                                 Parallelism parallelism) {
+        int grain = Math.max(MIN_PARALLEL_GRAIN, size / (parallelism.getThreads() << 2));
+        int chunks = (size + grain - 1) / grain;
+        GroupTable[] tables = new GroupTable[chunks];
+        GroupAggregator[] partials = new GroupAggregator[chunks];
+        parallelism.execute(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+            int from = c * grain;
+            int to = Math.min(size, from + grain);
+            GroupTable table = new GroupTable(keys);
+            for (int row = from; row < to; row++) {
+                groupIds[row] = table.add(row);
+            }
+            GroupAggregator partial = aggregator.createPartial(table.size());
+            partial.accumulate(groupIds, from, to);
+            tables[c] = table;
+            partials[c] = partial;
+        }));
+        // merging the ranges in order keeps the groups in the order of their first row
+        GroupTable merged = new GroupTable(keys);
+        int[][] mappings = new int[chunks][];
+        for (int c = 0; c < chunks; c++) {
+            GroupTable table = tables[c];
+            int[] mapping = new int[table.size()];
+            for (int g = 0; g < mapping.length; g++) {
+                mapping[g] = merged.add(table.hashes[g], table.firstRows[g]);
+            }
+            mappings[c] = mapping;
+        }
+        parallelism.execute(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] mapping = mappings[c];
+            for (int row = c * grain, to = Math.min(size, row + grain); row < to; row++) {
+                groupIds[row] = mapping[groupIds[row]];
+            }
+        }));
+        GroupAggregator result = aggregator.createPartial(merged.size());
+        for (int c = 0; c < chunks; c++) {
+            result.merge(partials[c], mappings[c]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the grouping columns. Expression columns are materialized, so each value is only computed once.
+     *
+     * @param df      input data frame
+     * @param columns grouping column names
+     * @return grouping columns
+     */
+    static DataFrameColumn<?, ?>[] getKeyColumns(DataFrame df, String... columns) {
+        DataFrameColumn<?, ?>[] keyColumns = new DataFrameColumn[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            DataFrameColumn<?, ?> column = df.getColumn(columns[i]);
+            if (column == null) {
+                throw new DataFrameRuntimeException(
+                        String.format("error grouping data frame: column not found '%s'", columns[i]));
+            }
+            if (column instanceof ExpressionColumn) {
+                column = ((ExpressionColumn<?>) column).materialize();
+            }
+            keyColumns[i] = column;
+        }
+        return keyColumns;
+    }
+
+    private static int hash(GroupKey[] keys, int row) {
+        int h = 1;
+        for (GroupKey key : keys) {
+            h = 31 * h + key.hash(row);
+        }
+        // spread the bits, the table uses the lowest bits of the hash
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns <tt>true</tt> if two rows have the same group key
+     *
+     * @param keys group keys
+     * @param a    first row index
+     * @param b    second row index
+     * @return <tt>true</tt> if the keys are equal
+     */
+    static boolean equals(GroupKey[] keys, int a, int b) {
+        for (GroupKey key : keys) {
+            if (!key.equals(a, b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Open addressing hash table assigning group ids to rows.
+     * A group is represented by its first row, group ids are assigned in the order the groups are added.
+     */
+    static final class GroupTable {
+        private final GroupKey[] keys;
+        private int[] table = new int[INITIAL_CAPACITY];
+        private int[] hashes = new int[INITIAL_CAPACITY];
+        private int[] firstRows = new int[INITIAL_CAPACITY];
+        private int groupCount;
+
+        GroupTable(GroupKey[] keys) {
+            this.keys = keys;
+        }
+
+        /**
+         * Returns the group id of a row. A new group is added if no group with the same key exists.
+         *
+         * @param row row index
+         * @return group id
+         */
+        int add(int row) {
+            return add(hash(keys, row), row);
+        }
+
+        /**
+         * Returns the group id of a row with a precomputed hash.
+         *
+         * @param hash hash of the row key
+         * @param row  row index
+         * @return group id
+         */
+        int add(int hash, int row) {
+            int mask = table.length - 1;
+            int slot = hash & mask;
+            int entry;
+            while ((entry = table[slot]) != 0) {
+                int candidate = entry - 1;
+                if (hashes[candidate] == hash && HashGroupUtil.equals(keys, row, firstRows[candidate])) {
+                    return candidate;
+                }
+                slot = (slot + 1) & mask;
+            }
+            int groupId = groupCount++;
+            if (groupId == hashes.length) {
+                hashes = Arrays.copyOf(hashes, hashes.length << 1);
+                firstRows = Arrays.copyOf(firstRows, firstRows.length << 1);
+            }
+            hashes[groupId] = hash;
+            firstRows[groupId] = row;
+            table[slot] = groupId + 1;
+            if (groupCount << 1 > table.length) {
+                rehash(table.length << 1);
+            }
+            return groupId;
+        }
+
+        private void rehash(int capacity) {
+            table = new int[capacity];
+            int mask = capacity - 1;
+            for (int g = 0; g < groupCount; g++) {
+                int slot = hashes[g] & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = g + 1;
+            }
+        }
+
+        /**
+         * Returns the number of groups
+         *
+         * @return number of groups
+         */
+        int size() {
+            return groupCount;
+        }
+    }
+
+    /**
+     * Creates the group keys for the grouping columns
+     *
+     * @param keyColumns grouping columns
+     * @return group keys
+     */
+    static GroupKey[] createKeys(DataFrameColumn<?, ?>[] keyColumns) {
+        GroupKey[] keys = new GroupKey[keyColumns.length];
+        for (int i = 0; i < keyColumns.length; i++) {
+            DataFrameColumn<?, ?> column = keyColumns[i];
+            if (column instanceof DictionaryStringColumn) {
+                keys[i] = new CodeKey((DictionaryStringColumn) column);
+            } else if (column instanceof IntegralSortKey) {
+                keys[i] = new IntegralKey(column, ((IntegralSortKey) column).getSortKey());
+            } else {
+                keys[i] = new ObjectKey(column);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Hashes and compares the values of one grouping column by row index
+     */
+    interface GroupKey {
+        int hash(int row);
+
+        boolean equals(int a, int b);
+    }
+
+    private static class CodeKey implements GroupKey {
+        private final DictionaryStringColumn column;
+
+        CodeKey(DictionaryStringColumn column) {
+            this.column = column;
+        }
+
+        @Override
+        public int hash(int row) {
+            return column.getCode(row);
+        }
+
+        @Override
+        public boolean equals(int a, int b) {
+            return column.getCode(a) == column.getCode(b);
+        }
+    }
+
+    private static class IntegralKey implements GroupKey {
+        private final DataFrameColumn<?, ?> column;
+        private final IntToLongFunction sortKey;
+
+        IntegralKey(DataFrameColumn<?, ?> column, IntToLongFunction sortKey) {
+            this.column = column;
+            this.sortKey = sortKey;
+        }
+
+        @Override
+        public int hash(int row) {
+            return column.isNA(row) ? NA_HASH : Long.hashCode(sortKey.applyAsLong(row));
+        }
+
+        @Override
+        public boolean equals(int a, int b) {
+            boolean naA = column.isNA(a);
+            if (naA != column.isNA(b)) {
+                return false;
+            }
+            return naA || sortKey.applyAsLong(a) == sortKey.applyAsLong(b);
+        }
+    }
+
+    private static class ObjectKey implements GroupKey {
+        private final DataFrameColumn<?, ?> column;
+
+        ObjectKey(DataFrameColumn<?, ?> column) {
+            this.column = column;
+        }
+
+        @Override
+        public int hash(int row) {
+            return column.isNA(row) ? NA_HASH : Objects.hashCode(column.get(row));
+        }
+
+        @Override
+        public boolean equals(int a, int b) {
+            boolean naA = column.isNA(a);
+            if (naA != column.isNA(b)) {
+                return false;
+            }
+            return naA || Objects.equals(column.get(a), column.get(b));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+package de.unknownreality.dataframe.group.impl;
+
+import de.unknownreality.dataframe.DataFrame;
+import de.unknownreality.dataframe.DataFrameColumn;
+import de.unknownreality.dataframe.group.DataGrouping;
+import de.unknownreality.dataframe.group.GroupRowIndices;
+import de.unknownreality.dataframe.group.GroupUtil;
+import de.unknownreality.dataframe.group.aggr.AggregateSpec;
+import de.unknownreality.dataframe.group.aggr.GroupAggregator;
+
+import java.util.Arrays;
+
+/**
+ * Groups a data frame that is sorted by the grouping columns.
+ * <p>
+ * Each row is only compared to the previous row, a new group starts whenever the key changes.
+ * The groups are contiguous row ranges, no hash table and no per-row group ids or row indices are stored.
+ * Aggregates are accumulated range by range.
+ * </p>
+ * <p>
+ * The data frame must be sorted by the grouping columns (in any direction and column order).
+ * Otherwise rows with equal keys that are not adjacent end up in separate groups.
+ * {@link de.unknownreality.dataframe.DefaultDataFrame} uses this strategy automatically if it is known to be sorted by the grouping columns.
+ * </p>
+ */
+public class SortedGroupUtil implements GroupUtil {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Groups a sorted {@link DataFrame} using one or more columns.
+     *
+     * @param df      input data frame
+     * @param columns grouping columns
+     * @return data grouping
+     */
+    @Override
+    public DataGrouping groupBy(DataFrame df, String... columns) {
+        return groupBy(df, columns, new AggregateSpec[0]);
+    }
+
+    /**
+     * Groups a sorted {@link DataFrame} and computes the aggregates for each row range,
+     * no {@link de.unknownreality.dataframe.group.DataGroup} is created.
+     *
+     * @param df         input data frame
+     * @param columns    grouping columns
+     * @param aggregates aggregates
+     * @return data grouping with one column per aggregate
+     */
+    @Override
+    public DataGrouping groupBy(DataFrame df, String[] columns, AggregateSpec... aggregates) {
+        DataFrameColumn<?, ?>[] keyColumns = HashGroupUtil.getKeyColumns(df, columns);
+        HashGroupUtil.GroupKey[] keys = HashGroupUtil.createKeys(keyColumns);
+        int size = df.size();
+        int[] offsets = new int[INITIAL_CAPACITY];
+        int groupCount = 0;
+        for (int row = 0; row < size; row++) {
+            if (row == 0 || !HashGroupUtil.equals(keys, row, row - 1)) {
+                if (groupCount == offsets.length - 1) {
+                    offsets = Arrays.copyOf(offsets, offsets.length << 1);
+                }
+                offsets[groupCount++] = row;
+            }
+        }
+        offsets[groupCount] = size;
+        GroupRowIndices groupRows = GroupRowIndices.fromRanges(Arrays.copyOf(offsets, groupCount + 1));
+        DataGrouping grouping = new DataGrouping(df, groupRows, keyColumns);
+        if (aggregates.length > 0) {
+            GroupAggregator aggregator = new GroupAggregator(df, groupCount, aggregates);
+            for (int g = 0; g < groupCount; g++) {
+                aggregator.accumulateRange(g, groupRows.getStart(g), groupRows.getEnd(g));
+            }
+            for (DataFrameColumn<?, ?> column : aggregator.createColumns()) {
+                grouping.addColumn(column);
+            }
+        }
+        return grouping;
+    }
+}
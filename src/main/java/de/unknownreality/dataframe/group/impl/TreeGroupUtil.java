@@ -28,9 +28,13 @@ import de.unknownreality.dataframe.DataFrame;
 import de.unknownreality.dataframe.DataFrameColumn;
 import de.unknownreality.dataframe.DataFrameHeader;
 import de.unknownreality.dataframe.DefaultDataFrame;
+import de.unknownreality.dataframe.column.DictionaryStringColumn;
+import de.unknownreality.dataframe.column.ExpressionColumn;
+import de.unknownreality.dataframe.column.RunLengthColumn;
 import de.unknownreality.dataframe.group.DataGroup;
 import de.unknownreality.dataframe.group.DataGrouping;
 import de.unknownreality.dataframe.group.GroupUtil;
+import de.unknownreality.dataframe.type.DataFrameTypeManager;
 import de.unknownreality.dataframe.type.ValueType;
 
 import java.util.ArrayList;
@@ -43,6 +47,8 @@ import java.util.List;
 public class TreeGroupUtil implements GroupUtil {
     /**
      * Groups a {@link DefaultDataFrame} using one or more columns.
+     * Dictionary encoded columns are grouped by their codes.
+     * If all grouping columns are run-length encoded, the group of each run is only looked up once.
      *
      * @param df      input data frame
      * @param columns grouping columns
@@ -56,25 +62,66 @@ public class TreeGroupUtil implements GroupUtil {
         df.getColumns().toArray(dfColumns);
         int[] groupColumnIndices = new int[columns.length];
         ValueType<?>[] groupColumnTypes = new ValueType[columns.length];
+        DictionaryStringColumn[] dictionaryColumns = new DictionaryStringColumn[columns.length];
         for (int i = 0; i < columns.length; i++) {
             groupColumnIndices[i] = header.getIndex(columns[i]);
             groupColumnTypes[i] = header.getValueType(i);
+            if (dfColumns[groupColumnIndices[i]] instanceof DictionaryStringColumn) {
+                dictionaryColumns[i] = (DictionaryStringColumn) dfColumns[groupColumnIndices[i]];
+            }
         }
         Object[] groupValues = new Object[columns.length];
-        for (int i = 0; i < df.size(); i++) {
-            addRec(groupList, root, 0,
-                    columns, groupColumnTypes,
-                    groupColumnIndices, groupValues, header, df, i);
+        RunLengthColumn<?>[] runLengthColumns = getRunLengthColumns(dfColumns, groupColumnIndices);
+        if (runLengthColumns != null) {
+            int end;
+            for (int i = 0; i < df.size(); i = end) {
+                end = nextRunEnd(runLengthColumns, i);
+                addRec(groupList, root, 0,
+                        columns, groupColumnTypes,
+                        groupColumnIndices, dictionaryColumns, groupValues, header, df, i, end);
+            }
+        } else {
+            for (int i = 0; i < df.size(); i++) {
+                addRec(groupList, root, 0,
+                        columns, groupColumnTypes,
+                        groupColumnIndices, dictionaryColumns, groupValues, header, df, i, i + 1);
+            }
         }
         root.clear();
         return new DataGrouping(groupList, createGroupColumns(df, columns));
     }
 
+    /**
+     * Returns the grouping columns if all of them are run-length encoded, <tt>null</tt> otherwise.
+     */
+    private static RunLengthColumn<?>[] getRunLengthColumns(DataFrameColumn<?, ?>[] dfColumns, int[] groupColumnIndices) {
+        RunLengthColumn<?>[] runLengthColumns = new RunLengthColumn[groupColumnIndices.length];
+        for (int i = 0; i < groupColumnIndices.length; i++) {
+            DataFrameColumn<?, ?> column = dfColumns[groupColumnIndices[i]];
+            if (!(column instanceof RunLengthColumn)) {
+                return null;
+            }
+            runLengthColumns[i] = (RunLengthColumn<?>) column;
+        }
+        return runLengthColumns;
+    }
+
+    /**
+     * Returns the end of the row range starting at a row, in which no grouping column changes its value.
+     */
+    private static int nextRunEnd(RunLengthColumn<?>[] runLengthColumns, int rowIndex) {
+        int end = Integer.MAX_VALUE;
+        for (RunLengthColumn<?> column : runLengthColumns) {
+            end = Math.min(end, column.getRunEnd(column.getRun(rowIndex)));
+        }
+        return end;
+    }
+
     private void addRec(List<DataGroup> groups, GroupNode node, int index,
                         String[] groupColumns, ValueType<?>[] valueTypes,
-                        int[] groupColumnIndices,
+                        int[] groupColumnIndices, DictionaryStringColumn[] dictionaryColumns,
                         Object[] groupValues, DataFrameHeader header,
-                        DataFrame df, int rowIndex) {
+                        DataFrame df, int rowIndex, int rowEnd) {
         if (index == groupColumns.length) {
             if (!node.hasGroup()) {
                 DataGroup group = new DataGroup(
@@ -86,26 +133,35 @@ public class TreeGroupUtil implements GroupUtil {
                 groups.add(group);
                 node.setGroup(group);
             }
-            node.addRow(df, rowIndex);
+            for (int i = rowIndex; i < rowEnd; i++) {
+                node.addRow(df, i);
+            }
             return;
         }
         Object value = df.getValue(groupColumnIndices[index], rowIndex);
         groupValues[index] = value;
+        Object key = dictionaryColumns[index] == null ? value : dictionaryColumns[index].getCode(rowIndex);
         GroupNode child;
-        if ((child = node.getChild(value)) == null) {
-            child = new GroupNode(value);
+        if ((child = node.getChild(key)) == null) {
+            child = new GroupNode(key);
             node.addChild(child);
         }
         addRec(groups, child, index + 1,
                 groupColumns, valueTypes,
-                groupColumnIndices, groupValues, header, df, rowIndex);
+                groupColumnIndices, dictionaryColumns, groupValues, header, df, rowIndex, rowEnd);
     }
 
     private static DataFrameColumn<?, ?>[] createGroupColumns(DataFrame df, String... columns) {
         DataFrameColumn<?, ?>[] groupColumns = new DataFrameColumn[columns.length];
         for (int i = 0; i < columns.length; i++) {
             DataFrameColumn<?, ?> orgCol = df.getColumn(columns[i]);
-            groupColumns[i] = orgCol.copyEmpty();
+            if (orgCol instanceof ExpressionColumn) {
+                // group values of expression columns are stored in regular columns
+                groupColumns[i] = DataFrameTypeManager.get().createColumn(orgCol.getValueType());
+                groupColumns[i].setName(orgCol.getName());
+            } else {
+                groupColumns[i] = orgCol.copyEmpty();
+            }
         }
         return groupColumns;
     }
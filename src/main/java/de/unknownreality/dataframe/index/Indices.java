@@ -67,6 +67,19 @@ public class Indices {
      * @param replacement replacement column
      */
     public void replace(DataFrameColumn<?, ?> existing, DataFrameColumn<?, ?> replacement) {
+        replace(existing, replacement, true);
+    }
+
+    /**
+     * Replaces an existing column with a replacement column.
+     * The values of the affected indices are cleared, they are only rebuilt if <tt>updateValues</tt> is set.
+     * Used if several columns are replaced and all index values are rebuilt afterwards.
+     *
+     * @param existing     existing column
+     * @param replacement  replacement column
+     * @param updateValues <tt>true</tt> if the index values are rebuilt
+     */
+    public void replace(DataFrameColumn<?, ?> existing, DataFrameColumn<?, ?> replacement, boolean updateValues) {
         if (!isIndexColumn(existing)) {
             return;
         }
@@ -77,6 +90,9 @@ public class Indices {
         }
         columnIndexMap.remove(existing);
         columnIndexMap.put(replacement, existingIndices);
+        if (!updateValues) {
+            return;
+        }
         for (DataRow row : dataFrame) {
             for (Index idx : existingIndices) {
                 idx.update(row);
@@ -134,6 +150,21 @@ public class Indices {
         }
     }
 
+    /**
+     * Updates a range of rows in all available indices
+     *
+     * @param from first row (inclusive)
+     * @param to   last row (exclusive)
+     */
+    public void updateRows(int from, int to) {
+        if (indicesCount() == 0) {
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            update(dataFrame.getRow(i));
+        }
+    }
+
     /**
      * Returns the row numbers for a index and a set of values for the index
      *
@@ -25,7 +25,7 @@
 package de.unknownreality.dataframe.join.impl;
 
 import de.unknownreality.dataframe.DataFrame;
-import de.unknownreality.dataframe.DataRow;
+import de.unknownreality.dataframe.RowCursor;
 import de.unknownreality.dataframe.join.JoinColumn;
 import de.unknownreality.dataframe.join.JoinInfo;
 import de.unknownreality.dataframe.join.JoinedDataFrame;
@@ -54,9 +54,11 @@ public class DirectionJoinUtil{
         JoinedDataFrame joinedDataFrame = new JoinedDataFrame(joinInfo);
         joinedDataFrame.set(joinInfo.getHeader());
         JoinTree joinTree = new JoinTree(JoinTree.LeafMode.FirstOnly,dfA,dfB, joinColumns);
+        RowCursor cursorA = dfA.cursor();
+        RowCursor cursorB = dfB.cursor();
         for(JoinTree.JoinNode node : joinTree.getSavedLeafs()){
             for(Integer rowA : node.getIndicesA()){
-                DataRow dataRowA = dfA.getRow(rowA);
+                RowCursor dataRowA = cursorA.seek(rowA);
                 if(node.getIndicesB() == null){
                     Object[] joinedRowValues = new Object[joinSize];
                     fillValues(joinIndicesA, dataRowA, joinedRowValues);
@@ -64,7 +66,7 @@ public class DirectionJoinUtil{
                     joinedDataFrame.append(joinedRowValues);
                     continue;
                 }
-                appendGroupJoinedRows(node.getIndicesB(),dfB,dataRowA,joinIndicesA,joinIndicesB,joinSize,joinedDataFrame);
+                appendGroupJoinedRows(node.getIndicesB(),cursorB,dataRowA,joinIndicesA,joinIndicesB,joinSize,joinedDataFrame);
 
             }
         }
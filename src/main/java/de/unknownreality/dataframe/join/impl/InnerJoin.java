@@ -25,7 +25,7 @@
 package de.unknownreality.dataframe.join.impl;
 
 import de.unknownreality.dataframe.DataFrame;
-import de.unknownreality.dataframe.DataRow;
+import de.unknownreality.dataframe.RowCursor;
 import de.unknownreality.dataframe.join.JoinColumn;
 import de.unknownreality.dataframe.join.JoinInfo;
 import de.unknownreality.dataframe.join.JoinOperation;
@@ -62,14 +62,15 @@ public class InnerJoin implements JoinOperation {
         JoinedDataFrame joinedDataFrame = new JoinedDataFrame(joinInfo);
         joinedDataFrame.set(joinInfo.getHeader());
         JoinTree joinTree = new JoinTree(JoinTree.LeafMode.All,dfA, dfB, joinColumns);
+        RowCursor cursorA = dfA.cursor();
+        RowCursor cursorB = dfB.cursor();
         for (JoinTree.JoinNode node : joinTree.getSavedLeafs()) {
             if (node.getIndicesA() == null) {
                 continue;
             }
             for (Integer rowA : node.getIndicesA()) {
-                DataRow dataRowA = dfA.getRow(rowA);
                 if (node.getIndicesB() != null && !node.getIndicesB().isEmpty()) {
-                    appendGroupJoinedRows(node.getIndicesB(), dfB, dataRowA, joinIndicesA, joinIndicesB, joinSize, joinedDataFrame);
+                    appendGroupJoinedRows(node.getIndicesB(), cursorB, cursorA.seek(rowA), joinIndicesA, joinIndicesB, joinSize, joinedDataFrame);
                 }
             }
         }
@@ -26,8 +26,9 @@ package de.unknownreality.dataframe.join.impl;
 
 import de.unknownreality.dataframe.DataFrame;
 import de.unknownreality.dataframe.DataFrameHeader;
-import de.unknownreality.dataframe.DataRow;
+import de.unknownreality.dataframe.RowCursor;
 import de.unknownreality.dataframe.Values;
+import de.unknownreality.dataframe.common.Row;
 import de.unknownreality.dataframe.join.JoinColumn;
 import de.unknownreality.dataframe.join.JoinInfo;
 
@@ -47,7 +48,7 @@ public class JoinOperationUtil {
      * @param joinedRowValues array that is filled with the row values
      */
 
-    public static void fillValues(int[] joinIndices, DataRow row, Object[] joinedRowValues) {
+    public static void fillValues(int[] joinIndices, Row<?, ?> row, Object[] joinedRowValues) {
         for (int i = 0; i < joinIndices.length; i++) {
             joinedRowValues[joinIndices[i]] = row.get(i);
 
@@ -145,11 +146,28 @@ public class JoinOperationUtil {
      */
 
     public static void appendGroupJoinedRows(Collection<Integer> rowIndices, DataFrame dfB,
-                                             DataRow rowA, int[] joinIndicesA, int[] joinIndicesB, int joinedSize, DataFrame joinedDataFrame) {
+                                             Row<?, ?> rowA, int[] joinIndicesA, int[] joinIndicesB, int joinedSize, DataFrame joinedDataFrame) {
+        appendGroupJoinedRows(rowIndices, dfB.cursor(), rowA, joinIndicesA, joinIndicesB, joinedSize, joinedDataFrame);
+    }
+
+    /**
+     * Appends the joined rows resulting from a row from one data frame and a data group from the other data frame.
+     * The rows of the data group are read by moving a cursor of the second data frame.
+     *
+     * @param rowIndices      row indices
+     * @param cursorB         cursor of the second data frame
+     * @param rowA            row from the other data frame  (not the same as the data group)
+     * @param joinIndicesA    indices of column from first dataframe in joined dataframe
+     * @param joinIndicesB    indices of column from second dataframe in joined dataframe
+     * @param joinedSize      size of joined rows
+     * @param joinedDataFrame resulting joined data frame
+     */
+    public static void appendGroupJoinedRows(Collection<Integer> rowIndices, RowCursor cursorB,
+                                             Row<?, ?> rowA, int[] joinIndicesA, int[] joinIndicesB, int joinedSize, DataFrame joinedDataFrame) {
         for (Integer rowB : rowIndices) {
             Object[] joinedRowValues = new Object[joinedSize];
             fillValues(joinIndicesA, rowA, joinedRowValues);
-            fillValues(joinIndicesB, dfB.getRow(rowB), joinedRowValues);
+            fillValues(joinIndicesB, cursorB.seek(rowB), joinedRowValues);
             fillNA(joinedRowValues);
             joinedDataFrame.append(joinedRowValues);
         }
@@ -1,7 +1,9 @@
 package de.unknownreality.dataframe.join.impl;
 
 import de.unknownreality.dataframe.DataFrame;
-import de.unknownreality.dataframe.DataRow;
+import de.unknownreality.dataframe.DataFrameColumn;
+import de.unknownreality.dataframe.RowCursor;
+import de.unknownreality.dataframe.column.DictionaryStringColumn;
 import de.unknownreality.dataframe.join.JoinColumn;
 
 import java.util.*;
@@ -19,15 +21,28 @@ public class JoinTree {
     private final boolean saveLeafsB;
     private final int[] colIndicesA;
     private final int[] colIndicesB;
+    private final DictionaryStringColumn[] dictionaryColumnsA;
+    private final DictionaryStringColumn[] dictionaryColumnsB;
+    private final int[][] codeMappingsB;
 
     public JoinTree(LeafMode mode, DataFrame dfA, DataFrame dfB, JoinColumn... columns) {
         int i = 0;
         colIndicesA = new int[columns.length];
         colIndicesB = new int[columns.length];
+        dictionaryColumnsA = new DictionaryStringColumn[columns.length];
+        dictionaryColumnsB = new DictionaryStringColumn[columns.length];
+        codeMappingsB = new int[columns.length][];
         for (JoinColumn column : columns) {
             int idx = i++;
             colIndicesA[idx] = dfA.getHeader().getIndex(column.getColumnA());
             colIndicesB[idx] = dfB.getHeader().getIndex(column.getColumnB());
+            DataFrameColumn<?, ?> colA = dfA.getColumn(column.getColumnA());
+            DataFrameColumn<?, ?> colB = dfB.getColumn(column.getColumnB());
+            if (colA instanceof DictionaryStringColumn && colB instanceof DictionaryStringColumn) {
+                dictionaryColumnsA[idx] = (DictionaryStringColumn) colA;
+                dictionaryColumnsB[idx] = (DictionaryStringColumn) colB;
+                codeMappingsB[idx] = mapCodes(dictionaryColumnsB[idx], dictionaryColumnsA[idx]);
+            }
         }
         this.saveLeafsA = true;
         this.saveLeafsB = mode == LeafMode.All;
@@ -35,17 +50,33 @@ public class JoinTree {
         setB(dfB);
     }
 
+    /**
+     * Maps the codes of a dictionary encoded column to the codes of another dictionary encoded column.
+     * Values that are not contained in the target dictionary are mapped to codes above the target dictionary size.
+     */
+    private static int[] mapCodes(DictionaryStringColumn from, DictionaryStringColumn to) {
+        int[] mapping = new int[from.getDictionarySize()];
+        for (int code = 0; code < mapping.length; code++) {
+            int targetCode = to.findCode(from.getDictionaryValue(code));
+            mapping[code] = targetCode == DictionaryStringColumn.NA_CODE
+                    ? to.getDictionarySize() + code : targetCode;
+        }
+        return mapping;
+    }
+
     private void setA(DataFrame df) {
-        set(df, colIndicesA,true, saveLeafsA);
+        set(df, colIndicesA, dictionaryColumnsA, null, true, saveLeafsA);
     }
 
     private void setB(DataFrame df) {
-        set(df, colIndicesB,false,saveLeafsB);
+        set(df, colIndicesB, dictionaryColumnsB, codeMappingsB, false, saveLeafsB);
     }
 
-    private void set(DataFrame df,int[] colIndices, boolean isA, boolean safeLeafs) {
-        for (DataRow row : df) {
-            Object[] values = createValues(row, colIndices);
+    private void set(DataFrame df, int[] colIndices, DictionaryStringColumn[] dictionaryColumns, int[][] codeMappings,
+                     boolean isA, boolean safeLeafs) {
+        RowCursor row = df.cursor();
+        while (row.next()) {
+            Object[] values = createValues(row, colIndices, dictionaryColumns, codeMappings);
             addRec(root, 0, values, row.getIndex(),isA,safeLeafs);
         }
     }
@@ -72,10 +103,19 @@ public class JoinTree {
         addRec(child, index + 1, values, rowIndex, isA, saveLeaf);
     }
 
-    private Object[] createValues(DataRow dataRow, int[] colIndices) {
+    private Object[] createValues(RowCursor dataRow, int[] colIndices,
+                                  DictionaryStringColumn[] dictionaryColumns, int[][] codeMappings) {
         Object[] values = new Object[colIndices.length];
         for (int i = 0; i < colIndices.length; i++) {
-            values[i] = dataRow.get(colIndices[i]);
+            if (dictionaryColumns[i] == null) {
+                values[i] = dataRow.get(colIndices[i]);
+                continue;
+            }
+            int code = dictionaryColumns[i].getCode(dataRow.getIndex());
+            if (codeMappings != null && code != DictionaryStringColumn.NA_CODE) {
+                code = codeMappings[i][code];
+            }
+            values[i] = code;
         }
         return values;
     }
@@ -25,7 +25,7 @@
 package de.unknownreality.dataframe.join.impl;
 
 import de.unknownreality.dataframe.DataFrame;
-import de.unknownreality.dataframe.DataRow;
+import de.unknownreality.dataframe.RowCursor;
 import de.unknownreality.dataframe.join.JoinColumn;
 import de.unknownreality.dataframe.join.JoinInfo;
 import de.unknownreality.dataframe.join.JoinOperation;
@@ -61,11 +61,13 @@ public class OuterJoin implements JoinOperation {
         JoinedDataFrame joinedDataFrame = new JoinedDataFrame(joinInfo);
         joinedDataFrame.set(joinInfo.getHeader());
         JoinTree joinTree = new JoinTree(JoinTree.LeafMode.All,dfA,dfB,joinColumns);
+        RowCursor cursorA = dfA.cursor();
+        RowCursor cursorB = dfB.cursor();
         for(JoinTree.JoinNode node : joinTree.getSavedLeafs()){
             if(node.getIndicesB() == null || node.getIndicesB().isEmpty()){
                 for(Integer rowA : node.getIndicesA()){
                     Object[] joinedRowValues = new Object[joinSize];
-                    fillValues(joinIndicesA, dfA.getRow(rowA), joinedRowValues);
+                    fillValues(joinIndicesA, cursorA.seek(rowA), joinedRowValues);
                     fillNA(joinedRowValues);
                     joinedDataFrame.append(joinedRowValues);
                 }
@@ -73,15 +75,14 @@ public class OuterJoin implements JoinOperation {
             else if(node.getIndicesA() == null || node.getIndicesA().isEmpty()){
                 for(Integer rowB : node.getIndicesB()){
                     Object[] joinedRowValues = new Object[joinSize];
-                    fillValues(joinIndicesB, dfB.getRow(rowB), joinedRowValues);
+                    fillValues(joinIndicesB, cursorB.seek(rowB), joinedRowValues);
                     fillNA(joinedRowValues);
                     joinedDataFrame.append(joinedRowValues);
                 }
             }
             else{
                 for(Integer rowA : node.getIndicesA()){
-                    DataRow dataRowA = dfA.getRow(rowA);
-                    appendGroupJoinedRows(node.getIndicesB(),dfB,dataRowA,joinIndicesA,joinIndicesB,joinSize,joinedDataFrame);
+                    appendGroupJoinedRows(node.getIndicesB(),cursorB,cursorA.seek(rowA),joinIndicesA,joinIndicesB,joinSize,joinedDataFrame);
                 }
             }
         }
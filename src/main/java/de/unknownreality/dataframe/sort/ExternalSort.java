@@ -0,0 +1,512 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+package de.unknownreality.dataframe.sort;
+
+import de.unknownreality.dataframe.DataFrame;
+import de.unknownreality.dataframe.DataFrameHeader;
+import de.unknownreality.dataframe.DataFrameRuntimeException;
+import de.unknownreality.dataframe.DefaultDataFrame;
+import de.unknownreality.dataframe.Values;
+import de.unknownreality.dataframe.column.IntegerColumn;
+import de.unknownreality.dataframe.common.Row;
+import de.unknownreality.dataframe.type.ValueType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * External merge sort for rows that do not fit into memory.
+ * <p>
+ * Rows are collected in runs. Each row is encoded once into the run buffer using
+ * {@link ValueType#write(DataOutputStream, Object)}, each value is preceded by a <tt>NA</tt> flag.
+ * Only the sort columns are kept decoded. If the encoded size of a run exceeds the {@link #setMemoryBudget(long) memory budget},
+ * the run is sorted in memory using {@link DataFrame#sort(SortColumn...)} and the encoded rows are written to a temporary file
+ * in sorted order. The run buffer is reused for the next run.
+ * If all rows fit into one run, no temporary files are created.
+ * </p>
+ * <p>
+ * The runs are merged using a priority queue. At most {@link #setMergeFanIn(int) merge fan-in} run files are open at once.
+ * If there are more runs, consecutive runs are merged into larger runs in multiple passes.
+ * </p>
+ * <p>
+ * The sort is stable and uses the same order as {@link DataFrame#sort(SortColumn...)},
+ * <tt>NA</tt> values are sorted last, regardless of the sort direction.
+ * Temporary files are deleted after the rows are merged.
+ * </p>
+ * <pre>
+ * DataFrame sorted = new ExternalSort(df.getHeader(), new SortColumn("id"))
+ *     .setMemoryBudget(256L &lt;&lt; 20)
+ *     .setTempDirectory(new File("/tmp/sort"))
+ *     .sort(df);
+ * </pre>
+ */
+public class ExternalSort {
+    private static final Logger log = LoggerFactory.getLogger(ExternalSort.class);
+
+    /**
+     * Default memory budget of a run in bytes (64 MB)
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+    /**
+     * Default maximum number of runs merged at once
+     */
+    public static final int DEFAULT_MERGE_FAN_IN = 64;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_RUN_BYTES = 1 << 30;
+    private static final String ROW_COLUMN = "%external_sort_row%";
+
+    private final DataFrameHeader header;
+    private final DataFrameHeader keyHeader;
+    private final SortColumn[] sortColumns;
+    private final int[] sortIndices;
+    private final int[] keyIndices;
+    private final ValueType<?>[] types;
+    private long memoryBudget = DEFAULT_MEMORY_BUDGET;
+    private int mergeFanIn = DEFAULT_MERGE_FAN_IN;
+    private File tempDirectory;
+
+    /**
+     * Creates an external sort for rows with the specified header
+     *
+     * @param header      header of the sorted rows
+     * @param sortColumns sort columns
+     */
+    public ExternalSort(DataFrameHeader header, SortColumn... sortColumns) {
+        this.header = header.copy();
+        this.sortColumns = sortColumns;
+        this.sortIndices = new int[sortColumns.length];
+        this.types = new ValueType<?>[header.size()];
+        Set<Integer> keys = new LinkedHashSet<>();
+        for (int i = 0; i < sortColumns.length; i++) {
+            sortIndices[i] = header.getIndex(sortColumns[i].getName());
+            keys.add(sortIndices[i]);
+        }
+        for (int i = 0; i < types.length; i++) {
+            types[i] = header.getValueType(i);
+        }
+        this.keyIndices = new int[keys.size()];
+        this.keyHeader = new DataFrameHeader();
+        int k = 0;
+        for (int index : keys) {
+            keyIndices[k++] = index;
+            keyHeader.add(header.get(index), header.getColumnType(index), header.getValueType(index));
+        }
+        keyHeader.add(ROW_COLUMN, new IntegerColumn());
+    }
+
+    /**
+     * Sets the memory budget of a run.
+     * The budget is measured as the size of the binary encoding of the rows in a run.
+     * Runs are limited to 1 GB, regardless of the budget.
+     *
+     * @param memoryBudget memory budget in bytes
+     * @return <tt>self</tt> for method chaining
+     */
+    public ExternalSort setMemoryBudget(long memoryBudget) {
+        if (memoryBudget <= 0) {
+            throw new DataFrameRuntimeException(String.format("invalid memory budget: %d", memoryBudget));
+        }
+        this.memoryBudget = memoryBudget;
+        return this;
+    }
+
+    /**
+     * Returns the memory budget of a run in bytes
+     *
+     * @return memory budget
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Sets the maximum number of run files that are merged at once.
+     * This limits the number of open files and merge buffers.
+     *
+     * @param mergeFanIn maximum number of merged runs, at least <tt>2</tt>
+     * @return <tt>self</tt> for method chaining
+     */
+    public ExternalSort setMergeFanIn(int mergeFanIn) {
+        if (mergeFanIn < 2) {
+            throw new DataFrameRuntimeException(String.format("invalid merge fan-in: %d", mergeFanIn));
+        }
+        this.mergeFanIn = mergeFanIn;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of run files that are merged at once
+     *
+     * @return merge fan-in
+     */
+    public int getMergeFanIn() {
+        return mergeFanIn;
+    }
+
+    /**
+     * Sets the directory for temporary run files.
+     * <tt>null</tt> uses the default temporary-file directory.
+     *
+     * @param tempDirectory directory for temporary files
+     * @return <tt>self</tt> for method chaining
+     */
+    public ExternalSort setTempDirectory(File tempDirectory) {
+        this.tempDirectory = tempDirectory;
+        return this;
+    }
+
+    /**
+     * Returns the directory for temporary run files
+     *
+     * @return directory for temporary files, <tt>null</tt> for the default temporary-file directory
+     */
+    public File getTempDirectory() {
+        return tempDirectory;
+    }
+
+    /**
+     * Sorts rows and returns a new data frame containing the sorted rows.
+     * The values of each row are read by column index, in the order of the header.
+     *
+     * @param rows rows to sort, for example a data frame
+     * @return data frame containing the sorted rows
+     */
+    public DataFrame sort(Iterable<? extends Row<?, ?>> rows) {
+        DefaultDataFrame result = new DefaultDataFrame();
+        result.set(header);
+        sort(rows, result::append);
+        return result;
+    }
+
+    /**
+     * Sorts rows and passes the sorted rows to a consumer, one row at a time.
+     * The values of each row are read by column index, in the order of the header.
+     * The consumer receives a new array for each row, <tt>NA</tt> values are <tt>null</tt>.
+     *
+     * @param rows     rows to sort, for example a data frame
+     * @param consumer consumer of the sorted rows
+     */
+    public void sort(Iterable<? extends Row<?, ?>> rows, Consumer<Object[]> consumer) {
+        List<File> tempFiles = new ArrayList<>();
+        try {
+            long runBytes = Math.min(memoryBudget, MAX_RUN_BYTES);
+            RunBuffer buffer = new RunBuffer();
+            DataOutputStream encoder = new DataOutputStream(buffer);
+            int[] rowOffsets = new int[1024];
+            List<File> runFiles = new ArrayList<>();
+            DataFrame run = createRun();
+            Object[] keyValues = new Object[keyIndices.length + 1];
+            for (Row<?, ?> row : rows) {
+                int runRow = run.size();
+                if (runRow + 1 == rowOffsets.length) {
+                    rowOffsets = Arrays.copyOf(rowOffsets, rowOffsets.length << 1);
+                }
+                rowOffsets[runRow] = buffer.size();
+                for (int i = 0; i < types.length; i++) {
+                    Object value = row.get(i);
+                    if (value == null || value == Values.NA) {
+                        encoder.writeBoolean(true);
+                    } else {
+                        encoder.writeBoolean(false);
+                        types[i].writeRaw(encoder, value);
+                    }
+                }
+                for (int k = 0; k < keyIndices.length; k++) {
+                    Object value = row.get(keyIndices[k]);
+                    keyValues[k] = value == Values.NA ? null : value;
+                }
+                keyValues[keyIndices.length] = runRow;
+                run.append(keyValues);
+                if (buffer.size() >= runBytes) {
+                    rowOffsets[runRow + 1] = buffer.size();
+                    spill(getSortedRows(run), buffer, rowOffsets, runFiles, tempFiles);
+                    run = createRun();
+                    buffer.reset();
+                }
+            }
+            rowOffsets[run.size()] = buffer.size();
+            int[] sortedRows = getSortedRows(run);
+            if (runFiles.isEmpty()) {
+                RowInput input = new RowInput(buffer.getBuffer());
+                for (int row : sortedRows) {
+                    input.seek(rowOffsets[row]);
+                    consumer.accept(input.readRow());
+                }
+                return;
+            }
+            if (sortedRows.length > 0) {
+                spill(sortedRows, buffer, rowOffsets, runFiles, tempFiles);
+            }
+            merge(runFiles, consumer, tempFiles);
+        } catch (IOException e) {
+            throw new DataFrameRuntimeException("error sorting rows", e);
+        } finally {
+            for (File file : tempFiles) {
+                delete(file);
+            }
+        }
+    }
+
+    private DataFrame createRun() {
+        DefaultDataFrame run = new DefaultDataFrame();
+        run.set(keyHeader);
+        return run;
+    }
+
+    /**
+     * Sorts a run by the sort columns and returns the original positions of the sorted rows
+     */
+    private int[] getSortedRows(DataFrame run) {
+        run.sort(sortColumns);
+        IntegerColumn rowColumn = run.getIntegerColumn(ROW_COLUMN);
+        int[] sortedRows = new int[run.size()];
+        for (int i = 0; i < sortedRows.length; i++) {
+            sortedRows[i] = rowColumn.getInt(i);
+        }
+        return sortedRows;
+    }
+
+    /**
+     * Writes the encoded rows of a run to a temporary file in sorted order.
+     * The rows are copied from the run buffer, they are not encoded again.
+     */
+    private void spill(int[] sortedRows, RunBuffer buffer, int[] rowOffsets,
+                       List<File> runFiles, List<File> tempFiles) throws IOException {
+        File file = createRunFile(tempFiles);
+        runFiles.add(file);
+        byte[] bytes = buffer.getBuffer();
+        try (DataOutputStream dos = openRunFile(file)) {
+            dos.writeInt(sortedRows.length);
+            for (int row : sortedRows) {
+                dos.write(bytes, rowOffsets[row], rowOffsets[row + 1] - rowOffsets[row]);
+            }
+        }
+    }
+
+    /**
+     * Merges the run files. If there are more runs than the merge fan-in, consecutive runs are merged
+     * into temporary files first, until the remaining runs can be merged at once.
+     */
+    private void merge(List<File> runFiles, Consumer<Object[]> consumer, List<File> tempFiles) throws IOException {
+        while (runFiles.size() > mergeFanIn) {
+            List<File> merged = new ArrayList<>();
+            for (int from = 0; from < runFiles.size(); from += mergeFanIn) {
+                List<File> group = runFiles.subList(from, Math.min(runFiles.size(), from + mergeFanIn));
+                if (group.size() == 1) {
+                    merged.add(group.get(0));
+                    continue;
+                }
+                File file = createRunFile(tempFiles);
+                try (DataOutputStream dos = openRunFile(file)) {
+                    mergeRuns(group, values -> writeRow(dos, values), dos::writeInt);
+                }
+                for (File run : group) {
+                    delete(run);
+                    tempFiles.remove(run);
+                }
+                merged.add(file);
+            }
+            runFiles = merged;
+        }
+        mergeRuns(runFiles, consumer::accept, null);
+    }
+
+    /**
+     * Merges runs and passes the merged rows to a sink
+     *
+     * @param runFiles  run files
+     * @param sink      sink of the merged rows
+     * @param sizeSink  receives the total number of rows before the first row, may be <tt>null</tt>
+     */
+    private void mergeRuns(List<File> runFiles, RowSink sink, IntSink sizeSink) throws IOException {
+        List<RunReader> readers = new ArrayList<>(runFiles.size());
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(runFiles.size(), this::compare);
+        try {
+            int size = 0;
+            for (int i = 0; i < runFiles.size(); i++) {
+                RunReader reader = new RunReader(runFiles.get(i), i);
+                readers.add(reader);
+                size += reader.remaining;
+            }
+            if (sizeSink != null) {
+                sizeSink.accept(size);
+            }
+            for (RunReader reader : readers) {
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                sink.accept(reader.values);
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private File createRunFile(List<File> tempFiles) throws IOException {
+        File file = File.createTempFile("dataframe-sort-", ".run", tempDirectory);
+        tempFiles.add(file);
+        return file;
+    }
+
+    private static DataOutputStream openRunFile(File file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+    }
+
+    private static void delete(File file) {
+        if (file.exists() && !file.delete()) {
+            log.warn("error deleting temporary file {}", file.getAbsolutePath());
+        }
+    }
+
+    private void writeRow(DataOutputStream dos, Object[] values) throws IOException {
+        for (int i = 0; i < types.length; i++) {
+            if (values[i] == null) {
+                dos.writeBoolean(true);
+            } else {
+                dos.writeBoolean(false);
+                types[i].writeRaw(dos, values[i]);
+            }
+        }
+    }
+
+    private Object[] readRow(DataInputStream dis) throws IOException {
+        Object[] values = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if (!dis.readBoolean()) {
+                values[i] = types[i].read(dis);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Compares the current rows of two runs.
+     * Equal rows are ordered by run, runs contain consecutive input rows, so the merge is stable.
+     */
+    private int compare(RunReader a, RunReader b) {
+        for (int k = 0; k < sortIndices.length; k++) {
+            Object valueA = a.values[sortIndices[k]];
+            Object valueB = b.values[sortIndices[k]];
+            if (valueA == null || valueB == null) {
+                if (valueA == null && valueB == null) {
+                    continue;
+                }
+                return valueA == null ? 1 : -1;
+            }
+            int c = types[sortIndices[k]].compareRaw(valueA, valueB);
+            if (c != 0) {
+                return sortColumns[k].getDirection() == SortColumn.Direction.Descending ? -c : c;
+            }
+        }
+        return Integer.compare(a.run, b.run);
+    }
+
+    private interface RowSink {
+        void accept(Object[] values) throws IOException;
+    }
+
+    private interface IntSink {
+        void accept(int value) throws IOException;
+    }
+
+    /**
+     * Reads the rows of a run file
+     */
+    private final class RunReader implements Closeable {
+        private final DataInputStream dis;
+        private final int run;
+        private int remaining;
+        private Object[] values;
+
+        private RunReader(File file, int run) throws IOException {
+            this.dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+            this.run = run;
+            this.remaining = dis.readInt();
+        }
+
+        private boolean next() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            values = readRow(dis);
+            remaining--;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            dis.close();
+        }
+    }
+
+    /**
+     * Reads encoded rows at arbitrary positions of a run buffer
+     */
+    private final class RowInput extends ByteArrayInputStream {
+        private final DataInputStream dis = new DataInputStream(this);
+
+        private RowInput(byte[] bytes) {
+            super(bytes);
+        }
+
+        private void seek(int position) {
+            pos = position;
+        }
+
+        private Object[] readRow() throws IOException {
+            return ExternalSort.this.readRow(dis);
+        }
+    }
+
+    /**
+     * Growable buffer of the encoded rows of a run. The buffer is reused for all runs.
+     */
+    private static final class RunBuffer extends ByteArrayOutputStream {
+        private RunBuffer() {
+            super(BUFFER_SIZE);
+        }
+
+        private byte[] getBuffer() {
+            return buf;
+        }
+    }
+}
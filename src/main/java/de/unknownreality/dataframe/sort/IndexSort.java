@@ -0,0 +1,359 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+package de.unknownreality.dataframe.sort;
+
+import de.unknownreality.dataframe.Parallelism;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Stable sort of row index permutations.
+ * <p>
+ * The sort is a merge sort on a primitive <tt>int[]</tt>.
+ * Short runs are sorted using insertion sort, already ordered runs are copied without merging.
+ * If a {@link Parallelism} setting is passed, permutations with at least {@link Parallelism#getThreshold()} rows
+ * are sorted in the {@link ForkJoinPool} of the setting.
+ * The halves are sorted concurrently and merged by splitting the merge into independent parts.
+ * The parallel result is identical to the sequential result.
+ * </p>
+ */
+public final class IndexSort {
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /**
+     * Minimum number of rows sorted or merged by one parallel task
+     */
+    private static final int MIN_PARALLEL_GRAIN = 1 << 13;
+
+    private IndexSort() {
+    }
+
+    /**
+     * Returns the sorted order of the rows <tt>[0, size)</tt>.
+     * The row at position <tt>i</tt> of the sorted data is the row at index <tt>order[i]</tt>.
+     * Rows that compare as equal keep their original order.
+     *
+     * @param size       number of rows
+     * @param comparator row comparator
+     * @return sorted order of the rows
+     */
+    public static int[] argsort(int size, IndexComparator comparator) {
+        return argsort(size, comparator, Parallelism.SEQUENTIAL);
+    }
+
+    /**
+     * Returns the sorted order of the rows <tt>[0, size)</tt>, in parallel if the setting allows it.
+     * The result is identical to {@link #argsort(int, IndexComparator)}.
+     *
+     * @param size        number of rows
+     * @param comparator  row comparator
+     * @param parallelism parallel execution setting
+     * @return sorted order of the rows
+     */
+    public static int[] argsort(int size, IndexComparator comparator, Parallelism parallelism) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        sort(order, 0, size, comparator, parallelism);
+        return order;
+    }
+
+    /**
+     * Sorts a range of row indices. The sort is stable.
+     *
+     * @param indices    row indices
+     * @param from       first position (inclusive)
+     * @param to         last position (exclusive)
+     * @param comparator row comparator
+     */
+    public static void sort(int[] indices, int from, int to, IndexComparator comparator) {
+        sort(indices, from, to, comparator, Parallelism.SEQUENTIAL);
+    }
+
+    /**
+     * Sorts a range of row indices, in parallel if the setting allows it. The sort is stable.
+     *
+     * @param indices     row indices
+     * @param from        first position (inclusive)
+     * @param to          last position (exclusive)
+     * @param comparator  row comparator
+     * @param parallelism parallel execution setting
+     */
+    public static void sort(int[] indices, int from, int to, IndexComparator comparator, Parallelism parallelism) {
+        if (to - from < 2) {
+            return;
+        }
+        int[] buffer = indices.clone();
+        int length = to - from;
+        if (parallelism.isParallel(length)) {
+            int grain = getParallelGrain(length, parallelism);
+            parallelism.invoke(new Sorter(buffer, indices, from, to, comparator, grain));
+        } else {
+            mergeSort(buffer, indices, from, to, comparator);
+        }
+    }
+
+    /**
+     * Returns the first <tt>n</tt> rows of the sorted order of the rows <tt>[0, size)</tt>, in sorted order.
+     * The result is identical to the first <tt>n</tt> positions of {@link #argsort(int, IndexComparator)}.
+     * The rows are selected using a bounded heap in <tt>O(size log n)</tt>, the rows are not sorted completely.
+     *
+     * @param size       number of rows
+     * @param n          number of selected rows
+     * @param comparator row comparator
+     * @return first <tt>n</tt> rows of the sorted order
+     */
+    public static int[] select(int size, int n, IndexComparator comparator) {
+        n = Math.max(0, Math.min(n, size));
+        // ties are resolved by the row index, like the stable sort
+        IndexComparator order = (a, b) -> {
+            int c = comparator.compare(a, b);
+            return c != 0 ? c : Integer.compare(a, b);
+        };
+        int[] heap = new int[n];
+        if (n == 0) {
+            return heap;
+        }
+        // max-heap of the n smallest rows
+        for (int i = 0; i < n; i++) {
+            heap[i] = i;
+            siftUp(heap, i, order);
+        }
+        for (int i = n; i < size; i++) {
+            if (order.compare(i, heap[0]) < 0) {
+                heap[0] = i;
+                siftDown(heap, n, order);
+            }
+        }
+        sort(heap, 0, n, order);
+        return heap;
+    }
+
+    private static void siftUp(int[] heap, int position, IndexComparator comparator) {
+        int index = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (comparator.compare(heap[parent], index) >= 0) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = index;
+    }
+
+    private static void siftDown(int[] heap, int n, IndexComparator comparator) {
+        int index = heap[0];
+        int position = 0;
+        int child;
+        while ((child = 2 * position + 1) < n) {
+            if (child + 1 < n && comparator.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (comparator.compare(heap[child], index) <= 0) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = index;
+    }
+
+    /**
+     * Returns the number of rows processed by one parallel task
+     *
+     * @param size        number of rows
+     * @param parallelism parallel execution setting
+     * @return rows per task
+     */
+    static int getParallelGrain(int size, Parallelism parallelism) {
+        return Math.max(MIN_PARALLEL_GRAIN, size / (parallelism.getThreads() << 2));
+    }
+
+    private static void mergeSort(int[] src, int[] dest, int from, int to, IndexComparator comparator) {
+        int length = to - from;
+        if (length <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(dest, from, to, comparator);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(dest, src, from, mid, comparator);
+        mergeSort(dest, src, mid, to, comparator);
+        if (comparator.compare(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, from, dest, from, length);
+            return;
+        }
+        for (int i = from, p = from, q = mid; i < to; i++) {
+            if (q >= to || p < mid && comparator.compare(src[p], src[q]) <= 0) {
+                dest[i] = src[p++];
+            } else {
+                dest[i] = src[q++];
+            }
+        }
+    }
+
+    private static void insertionSort(int[] indices, int from, int to, IndexComparator comparator) {
+        for (int i = from + 1; i < to; i++) {
+            int index = indices[i];
+            int j = i - 1;
+            while (j >= from && comparator.compare(indices[j], index) > 0) {
+                indices[j + 1] = indices[j];
+                j--;
+            }
+            indices[j + 1] = index;
+        }
+    }
+
+    /**
+     * Sorts the range <tt>[from, to)</tt> into <tt>dest</tt>. <tt>src</tt> and <tt>dest</tt> contain the same indices.
+     */
+    private static final class Sorter extends RecursiveAction {
+        private final int[] src;
+        private final int[] dest;
+        private final int from;
+        private final int to;
+        private final IndexComparator comparator;
+        private final int grain;
+
+        private Sorter(int[] src, int[] dest, int from, int to, IndexComparator comparator, int grain) {
+            this.src = src;
+            this.dest = dest;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                mergeSort(src, dest, from, to, comparator);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Sorter(dest, src, from, mid, comparator, grain),
+                    new Sorter(dest, src, mid, to, comparator, grain));
+            new Merger(src, dest, from, mid, mid, to, from, comparator, grain).compute();
+        }
+    }
+
+    /**
+     * Merges the sorted runs <tt>src[leftFrom, leftTo)</tt> and <tt>src[rightFrom, rightTo)</tt> into <tt>dest</tt>.
+     * Large merges are split at the middle of the longer run, the split position of the other run is found using
+     * binary search. Equal indices of the left run are merged before the right run, like the sequential merge.
+     */
+    private static final class Merger extends RecursiveAction {
+        private final int[] src;
+        private final int[] dest;
+        private final int leftFrom;
+        private final int leftTo;
+        private final int rightFrom;
+        private final int rightTo;
+        private final int destFrom;
+        private final IndexComparator comparator;
+        private final int grain;
+
+        private Merger(int[] src, int[] dest, int leftFrom, int leftTo, int rightFrom, int rightTo, int destFrom,
+                       IndexComparator comparator, int grain) {
+            this.src = src;
+            this.dest = dest;
+            this.leftFrom = leftFrom;
+            this.leftTo = leftTo;
+            this.rightFrom = rightFrom;
+            this.rightTo = rightTo;
+            this.destFrom = destFrom;
+            this.comparator = comparator;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            int leftLength = leftTo - leftFrom;
+            int rightLength = rightTo - rightFrom;
+            if (leftLength + rightLength <= grain || leftLength == 0 || rightLength == 0) {
+                merge();
+                return;
+            }
+            int leftSplit;
+            int rightSplit;
+            if (leftLength >= rightLength) {
+                leftSplit = (leftFrom + leftTo) >>> 1;
+                rightSplit = lowerBound(src[leftSplit], rightFrom, rightTo);
+            } else {
+                rightSplit = (rightFrom + rightTo) >>> 1;
+                leftSplit = upperBound(src[rightSplit], leftFrom, leftTo);
+            }
+            int destSplit = destFrom + (leftSplit - leftFrom) + (rightSplit - rightFrom);
+            invokeAll(new Merger(src, dest, leftFrom, leftSplit, rightFrom, rightSplit, destFrom, comparator, grain),
+                    new Merger(src, dest, leftSplit, leftTo, rightSplit, rightTo, destSplit, comparator, grain));
+        }
+
+        private void merge() {
+            int p = leftFrom;
+            int q = rightFrom;
+            int i = destFrom;
+            while (p < leftTo && q < rightTo) {
+                if (comparator.compare(src[p], src[q]) <= 0) {
+                    dest[i++] = src[p++];
+                } else {
+                    dest[i++] = src[q++];
+                }
+            }
+            System.arraycopy(src, p, dest, i, leftTo - p);
+            System.arraycopy(src, q, dest, i + leftTo - p, rightTo - q);
+        }
+
+        /**
+         * Returns the first position with an index that is not smaller than <tt>key</tt>
+         */
+        private int lowerBound(int key, int from, int to) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                if (comparator.compare(src[mid], key) < 0) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+
+        /**
+         * Returns the first position with an index that is greater than <tt>key</tt>
+         */
+        private int upperBound(int key, int from, int to) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                if (comparator.compare(src[mid], key) <= 0) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+    }
+}
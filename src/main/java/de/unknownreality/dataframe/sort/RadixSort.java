@@ -0,0 +1,250 @@
+/*
+ *
+ *  * Copyright (c) 2019 Alexander Grün
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+package de.unknownreality.dataframe.sort;
+
+import de.unknownreality.dataframe.DataFrameColumn;
+import de.unknownreality.dataframe.Parallelism;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Stable LSD radix sort of row index permutations for {@link IntegralSortKey integral sort keys}.
+ * <p>
+ * Each sort column is encoded as a field of <tt>log2(max - min)</tt> bits, followed by a one bit <tt>NA</tt> flag
+ * if the column contains <tt>NA</tt> values. Fields of multiple sort columns are packed into composite 64 bit keys,
+ * the first sort column is the most significant field.
+ * The keys are sorted in passes of 11 bit digits, passes where all rows have the same digit are skipped.
+ * Sorts with at least {@link Parallelism#getThreshold()} rows count and distribute the digits of row chunks
+ * concurrently. Each chunk writes to its own bucket positions, so the result is identical to the sequential sort.
+ * <tt>NA</tt> values are sorted last, regardless of the sort direction.
+ * </p>
+ */
+public final class RadixSort {
+    private static final int DIGIT_BITS = 11;
+    private static final int BUCKETS = 1 << DIGIT_BITS;
+    private static final int DIGIT_MASK = BUCKETS - 1;
+
+    private RadixSort() {
+    }
+
+    /**
+     * Returns <tt>true</tt> if all columns can be sorted using radix sort
+     *
+     * @param columns sort columns
+     * @return <tt>true</tt> if all columns implement {@link IntegralSortKey}
+     */
+    public static boolean isSortable(DataFrameColumn<?, ?>... columns) {
+        for (DataFrameColumn<?, ?> column : columns) {
+            if (!(column instanceof IntegralSortKey)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the sorted order of the rows <tt>[0, size)</tt>.
+     * The row at position <tt>i</tt> of the sorted data is the row at index <tt>order[i]</tt>.
+     * Rows with equal keys keep their original order.
+     *
+     * @param size       number of rows
+     * @param columns    sort columns, all columns must implement {@link IntegralSortKey}
+     * @param descending sort direction of each column
+     * @return sorted order of the rows
+     */
+    public static int[] argsort(int size, DataFrameColumn<?, ?>[] columns, boolean[] descending) {
+        return argsort(size, columns, descending, Parallelism.SEQUENTIAL);
+    }
+
+    /**
+     * Returns the sorted order of the rows <tt>[0, size)</tt>, in parallel if the setting allows it.
+     * The result is identical to {@link #argsort(int, DataFrameColumn[], boolean[])}.
+     *
+     * @param size        number of rows
+     * @param columns     sort columns, all columns must implement {@link IntegralSortKey}
+     * @param descending  sort direction of each column
+     * @param parallelism parallel execution setting
+     * @return sorted order of the rows
+     */
+    public static int[] argsort(int size, DataFrameColumn<?, ?>[] columns, boolean[] descending,
+                                Parallelism parallelism) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        if (size < 2) {
+            return order;
+        }
+        List<long[]> words = new ArrayList<>();
+        List<Integer> wordBits = new ArrayList<>();
+        long[] word = null;
+        int used = Long.SIZE;
+        for (int k = columns.length - 1; k >= 0; k--) {
+            DataFrameColumn<?, ?> column = columns[k];
+            IntToLongFunction keys = ((IntegralSortKey) column).getSortKey();
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            boolean hasNA = false;
+            for (int i = 0; i < size; i++) {
+                if (column.isNA(i)) {
+                    hasNA = true;
+                    continue;
+                }
+                long key = keys.applyAsLong(i);
+                min = Math.min(min, key);
+                max = Math.max(max, key);
+            }
+            // max - min is interpreted as unsigned value
+            int valueBits = min > max ? 0 : Long.SIZE - Long.numberOfLeadingZeros(max - min);
+            if (valueBits > 0) {
+                if (used + valueBits > Long.SIZE) {
+                    word = addWord(words, wordBits, used, size);
+                    used = 0;
+                }
+                for (int i = 0; i < size; i++) {
+                    if (!column.isNA(i)) {
+                        long key = keys.applyAsLong(i);
+                        word[i] |= (descending[k] ? max - key : key - min) << used;
+                    }
+                }
+                used += valueBits;
+            }
+            if (hasNA) {
+                if (used == Long.SIZE) {
+                    word = addWord(words, wordBits, used, size);
+                    used = 0;
+                }
+                for (int i = 0; i < size; i++) {
+                    if (column.isNA(i)) {
+                        word[i] |= 1L << used;
+                    }
+                }
+                used++;
+            }
+        }
+        if (word != null) {
+            wordBits.add(used);
+        }
+        boolean parallel = parallelism.isParallel(size);
+        int grain = parallel ? IndexSort.getParallelGrain(size, parallelism) : size;
+        int chunks = (size + grain - 1) / grain;
+        long[] sortKeys = new long[size];
+        long[] keyBuffer = new long[size];
+        int[] orderBuffer = new int[size];
+        int[][] counts = new int[chunks][BUCKETS];
+        for (int w = 0; w < words.size(); w++) {
+            long[] values = words.get(w);
+            int[] currentOrder = order;
+            long[] currentKeys = sortKeys;
+            forEachChunk(chunks, parallel, parallelism, c -> {
+                for (int i = c * grain, end = Math.min(size, i + grain); i < end; i++) {
+                    currentKeys[i] = values[currentOrder[i]];
+                }
+            });
+            int bits = wordBits.get(w);
+            for (int shift = 0; shift < bits; shift += DIGIT_BITS) {
+                if (!countDigits(sortKeys, shift, counts, grain, parallel, parallelism)) {
+                    continue;
+                }
+                for (int b = 0, sum = 0; b < BUCKETS; b++) {
+                    for (int c = 0; c < chunks; c++) {
+                        int count = counts[c][b];
+                        counts[c][b] = sum;
+                        sum += count;
+                    }
+                }
+                int[] sourceOrder = order;
+                int[] targetOrder = orderBuffer;
+                long[] sourceKeys = sortKeys;
+                long[] targetKeys = keyBuffer;
+                int digitShift = shift;
+                forEachChunk(chunks, parallel, parallelism, c -> {
+                    int[] positions = counts[c];
+                    for (int i = c * grain, end = Math.min(size, i + grain); i < end; i++) {
+                        int position = positions[(int) (sourceKeys[i] >>> digitShift) & DIGIT_MASK]++;
+                        targetOrder[position] = sourceOrder[i];
+                        targetKeys[position] = sourceKeys[i];
+                    }
+                });
+                orderBuffer = order;
+                order = targetOrder;
+                keyBuffer = sortKeys;
+                sortKeys = targetKeys;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Counts the digits of each chunk of sort keys.
+     *
+     * @return <tt>false</tt> if all keys have the same digit and the pass can be skipped
+     */
+    private static boolean countDigits(long[] sortKeys, int shift, int[][] counts, int grain, boolean parallel,
+                                       Parallelism parallelism) {
+        int size = sortKeys.length;
+        forEachChunk(counts.length, parallel, parallelism, c -> {
+            int[] chunkCounts = counts[c];
+            Arrays.fill(chunkCounts, 0);
+            for (int i = c * grain, end = Math.min(size, i + grain); i < end; i++) {
+                chunkCounts[(int) (sortKeys[i] >>> shift) & DIGIT_MASK]++;
+            }
+        });
+        int digit = (int) (sortKeys[0] >>> shift) & DIGIT_MASK;
+        int count = 0;
+        for (int[] chunkCounts : counts) {
+            count += chunkCounts[digit];
+        }
+        return count != size;
+    }
+
+    /**
+     * Processes chunks of rows, in the pool of the parallelism setting if <tt>parallel</tt> is set.
+     * Each chunk has its own digit counts, so the stable order of the sequential sort is kept.
+     */
+    private static void forEachChunk(int chunks, boolean parallel, Parallelism parallelism, IntConsumer action) {
+        if (parallel) {
+            parallelism.execute(() -> IntStream.range(0, chunks).parallel().forEach(action));
+        } else {
+            IntStream.range(0, chunks).forEach(action);
+        }
+    }
+
+    /**
+     * Adds a new key word. The number of used bits of the previous word is recorded.
+     */
+    private static long[] addWord(List<long[]> words, List<Integer> wordBits, int used, int size) {
+        if (!words.isEmpty()) {
+            wordBits.add(used);
+        }
+        long[] word = new long[size];
+        words.add(word);
+        return word;
+    }
+}
@@ -28,6 +28,7 @@ import de.unknownreality.dataframe.DataFrame;
 import de.unknownreality.dataframe.DataFrameColumn;
 import de.unknownreality.dataframe.DefaultDataFrame;
 import de.unknownreality.dataframe.column.IntegerColumn;
+import de.unknownreality.dataframe.column.RunLengthColumn;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -48,12 +49,14 @@ public class CountTransformer<T> implements ColumnDataFrameTransform<DataFrameCo
     }
 
     /**
-     * Creates a new dataframe containing the values of the input column and a column with the corresponding counts
+     * Creates a new dataframe containing the values of the input column and a column with the corresponding counts.
+     * {@link RunLengthColumn Run-length encoded columns} are counted per run.
      *
      * @param source input column
      * @return count dataframe
      */
     @Override
+    @SuppressWarnings("unchecked")
     public DataFrame transform(DataFrameColumn<T, ?> source) {
         DataFrame countDataFrame = new DefaultDataFrame();
         DataFrameColumn<T, ?> valueColumn = source.copyEmpty();
@@ -61,15 +64,19 @@ public class CountTransformer<T> implements ColumnDataFrameTransform<DataFrameCo
         IntegerColumn countColumn = new IntegerColumn(COUNTS_COLUMN);
 
         Map<T, Integer> counts = new LinkedHashMap<>();
-        for (int i = 0; i < source.size(); i++) {
-            if (ignoreNA && source.isNA(i)) {
-                continue;
+        if (source instanceof RunLengthColumn) {
+            countRuns((RunLengthColumn<T>) source, counts);
+        } else {
+            for (int i = 0; i < source.size(); i++) {
+                if (ignoreNA && source.isNA(i)) {
+                    continue;
+                }
+                T v = source.get(i);
+                Integer count = counts.get(v);
+                count = count == null ? 0 : count;
+                count++;
+                counts.put(v, count);
             }
-            T v = source.get(i);
-            Integer count = counts.get(v);
-            count = count == null ? 0 : count;
-            count++;
-            counts.put(v, count);
         }
         for (Map.Entry<T, Integer> entry : counts.entrySet()) {
             valueColumn.append(entry.getKey());
@@ -79,4 +86,21 @@ public class CountTransformer<T> implements ColumnDataFrameTransform<DataFrameCo
         countDataFrame.addColumn(countColumn);
         return countDataFrame;
     }
+
+    /**
+     * Counts the values of a run-length encoded column once per run
+     *
+     * @param source run-length encoded column
+     * @param counts value counts
+     */
+    private void countRuns(RunLengthColumn<T> source, Map<T, Integer> counts) {
+        for (int run = 0; run < source.getRunCount(); run++) {
+            T v = source.getRunValue(run);
+            if (ignoreNA && v == null) {
+                continue;
+            }
+            int length = source.getRunEnd(run) - source.getRunStart(run);
+            counts.merge(v, length, Integer::sum);
+        }
+    }
 }
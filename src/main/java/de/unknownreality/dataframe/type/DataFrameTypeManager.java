@@ -49,10 +49,43 @@ public class DataFrameTypeManager {
             new ByteColumn()
     );
 
+    /**
+     * Columns that are not the default column of their value type.
+     * They are only used if the column type is selected explicitly.
+     */
+    private static final List<DataFrameColumn<?, ?>> ALTERNATIVE_COLUMN = Collections.singletonList(
+            new DictionaryStringColumn()
+    );
+
+    /**
+     * Columns that store their values off-heap.
+     */
+    private static final List<DataFrameColumn<?, ?>> OFF_HEAP_COLUMN = Arrays.asList(
+            new OffHeapStringColumn(),
+            new OffHeapDoubleColumn(),
+            new OffHeapIntegerColumn(),
+            new OffHeapFloatColumn(),
+            new OffHeapLongColumn(),
+            new OffHeapShortColumn(),
+            new OffHeapByteColumn()
+    );
+
+    /**
+     * Immutable columns created by {@link DataFrameColumn#seal()}.
+     */
+    private static final List<DataFrameColumn<?, ?>> SEALED_COLUMN = Arrays.asList(
+            new PackedIntegerColumn(),
+            new PackedLongColumn(),
+            new RunLengthIntegerColumn(),
+            new RunLengthLongColumn(),
+            new RunLengthStringColumn()
+    );
+
     private static final DataFrameTypeManager defaultInstance = createNew();
 
     private final Map<Class<?>, DataFrameColumn<?, ?>> columnValueTypeMap = new HashMap<>();
     private final Map<Class<? extends DataFrameColumn>, DataFrameColumn<?, ?>> columnTypesMap = new HashMap<>();
+    private final Map<Class<?>, DataFrameColumn<?, ?>> offHeapColumnValueTypeMap = new HashMap<>();
     private final List<Class<?>> customTypes = new ArrayList<>();
 
     /**
@@ -60,6 +93,12 @@ public class DataFrameTypeManager {
      */
     private DataFrameTypeManager() {
         DEFAULT_COLUMN.forEach(this::add);
+        ALTERNATIVE_COLUMN.forEach(col -> columnTypesMap.put(col.getClass(), col));
+        SEALED_COLUMN.forEach(col -> columnTypesMap.put(col.getClass(), col));
+        OFF_HEAP_COLUMN.forEach(col -> {
+            columnTypesMap.put(col.getClass(), col);
+            offHeapColumnValueTypeMap.put(col.getValueType().getType(), col);
+        });
     }
 
     private void add(DataFrameColumn<?, ?> col) {
@@ -69,16 +108,20 @@ public class DataFrameTypeManager {
 
 
     /**
-     * Returns a data frame column type for a provided column value type
+     * Returns a data frame column type for a provided column value type.
+     * If a registered column class is provided, the column class itself is returned.
      *
-     * @param type column value class
+     * @param type column value class or column class
      * @param <T>  column type
      * @param <C>  value type
      * @return column matching the value type
      */
     @SuppressWarnings("unchecked")
     public <T, C extends DataFrameColumn<T, ?>> Class<C> getColumnType(Class<T> type) {
-        DataFrameColumn<?, ?> column = columnValueTypeMap.get(type);
+        DataFrameColumn<?, ?> column = columnTypesMap.get(type);
+        if (column == null) {
+            column = columnValueTypeMap.get(type);
+        }
         if (column == null) {
             throw new DataFrameRuntimeException(String.format("no column type found for value type '%s'", type.getCanonicalName()));
         }
@@ -151,6 +194,27 @@ public class DataFrameTypeManager {
         return (DataFrameColumn<T, ?>) column.copyEmpty();
     }
 
+    /**
+     * Returns a data frame column that stores its values off-heap for a provided column value type.
+     * Off-heap columns release their memory when they or their data frame are closed.
+     *
+     * @param type column value class
+     * @param <T>  column type
+     * @return off-heap column matching the value type
+     */
+    @SuppressWarnings("unchecked")
+    public <T> DataFrameColumn<T, ?> createOffHeapColumnForType(Class<T> type) {
+        DataFrameColumn<?, ?> column = offHeapColumnValueTypeMap.get(type);
+        if (column == null) {
+            throw new DataFrameRuntimeException(String.format("no off-heap column type found for value type '%s'", type.getCanonicalName()));
+        }
+        return (DataFrameColumn<T, ?>) column.copyEmpty();
+    }
+
+    public <T> DataFrameColumn<T, ?> createOffHeapColumn(ValueType<T> valueType) {
+        return createOffHeapColumnForType(valueType.getType());
+    }
+
     public <T> DataFrameColumn<T, ?> createColumn(ValueType<T> valueType) {
         return createColumnForType(valueType.getType());
     }
@@ -15,7 +15,6 @@ public class ByteType extends NumberType<Byte> {
 
     @Override
     public Byte read(DataInputStream dis) throws IOException {
-        dis.readByte();
         return dis.readByte();
     }
 
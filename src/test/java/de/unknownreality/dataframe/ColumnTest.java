@@ -25,12 +25,14 @@
 package de.unknownreality.dataframe;
 
 import de.unknownreality.dataframe.column.*;
+import de.unknownreality.dataframe.type.DataFrameTypeManager;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.text.ParseException;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -134,6 +136,121 @@ public class ColumnTest {
         basicColumn.iterator().remove();
     }
 
+    @Test
+    public void testDictionaryStringColumn() {
+        DictionaryStringColumn column = new DictionaryStringColumn("test");
+        column.append("b");
+        column.append("a");
+        column.appendNA();
+        column.appendAll(Arrays.asList("b", "c", "a"));
+        Assert.assertEquals(6, column.size());
+        Assert.assertEquals(3, column.getDictionarySize());
+        Assert.assertEquals(column.getCode(0), column.getCode(3));
+        Assert.assertEquals(DictionaryStringColumn.NA_CODE, column.getCode(2));
+        Assert.assertTrue(column.isNA(2));
+        Assert.assertEquals(column.getCode(1), column.findCode("a"));
+        Assert.assertEquals(DictionaryStringColumn.NA_CODE, column.findCode("x"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), column.uniq());
+
+        DictionaryStringColumn copyColumn = column.copy();
+        copyColumn.set(0, "x");
+        Assert.assertEquals("b", column.get(0));
+        Assert.assertEquals("x", copyColumn.get(0));
+        Assert.assertEquals(3, column.getDictionarySize());
+
+        column.sort();
+        Assert.assertArrayEquals(new String[]{null, "a", "a", "b", "b", "c"}, column.toArray());
+
+        copyColumn = new DictionaryStringColumn("test", new String[]{"a", "b", null}, 2);
+        Assert.assertEquals(2, copyColumn.size());
+        Assert.assertEquals(StringColumn.class, DataFrameTypeManager.get().createColumnForType(String.class).getClass());
+        Assert.assertEquals(DictionaryStringColumn.class, DataFrameTypeManager.get().getColumnType(DictionaryStringColumn.class));
+    }
+
+    @Test
+    public void testOffHeapColumns() {
+        DataFrameTypeManager typeManager = DataFrameTypeManager.get();
+        Assert.assertEquals(OffHeapDoubleColumn.class, typeManager.createOffHeapColumnForType(Double.class).getClass());
+        Assert.assertEquals(OffHeapByteColumn.class, typeManager.createOffHeapColumnForType(Byte.class).getClass());
+
+        DataFrame dataFrame = new DefaultDataFrame();
+        for (Class<?> type : Arrays.asList(String.class, Integer.class, Double.class)) {
+            DataFrameColumn<?, ?> column = typeManager.createOffHeapColumnForType(type);
+            column.setName(type.getSimpleName().substring(0, 1).toLowerCase());
+            dataFrame.addColumn(column);
+        }
+        for (int i = 0; i < 1000; i++) {
+            dataFrame.append(i % 3 == 0 ? Values.NA : "v\u00e4" + i, 1000 - i, i * 0.5);
+        }
+        Assert.assertEquals(OffHeapStringColumn.class, dataFrame.getColumn("s").getClass());
+        Assert.assertEquals(1000, dataFrame.size());
+        Assert.assertTrue(dataFrame.getRow(0).isNA("s"));
+        Assert.assertEquals("v\u00e41", dataFrame.getRow(1).getString("s"));
+        Assert.assertEquals(999, dataFrame.getIntegerColumn("i").getInt(1));
+        Assert.assertEquals(0.5d, dataFrame.getDoubleColumn("d").getDouble(1), 0d);
+
+        dataFrame.getStringColumn("s").set(1, "x");
+        Assert.assertEquals("x", dataFrame.getRow(1).getString("s"));
+
+        DataFrame copy = dataFrame.copy();
+        Assert.assertEquals(OffHeapIntegerColumn.class, copy.getColumn("i").getClass());
+        copy.sort("i");
+        Assert.assertEquals(1, copy.getIntegerColumn("i").getInt(0));
+        Assert.assertEquals(499.5d, copy.getDoubleColumn("d").getDouble(0), 0d);
+        Assert.assertTrue(copy.getRow(0).isNA("s"));
+        Assert.assertEquals("v\u00e4998", copy.getRow(1).getString("s"));
+
+        DataFrame tail = dataFrame.tail(3);
+        Assert.assertEquals(OffHeapDoubleColumn.class, tail.getColumn("d").getClass());
+        Assert.assertEquals(3, tail.size());
+        Assert.assertEquals(498.5d, tail.getDoubleColumn("d").getDouble(0), 0d);
+        Assert.assertTrue(tail.getRow(2).isNA("s"));
+
+        RowCursor cursor = dataFrame.cursor();
+        dataFrame.close();
+        Assert.assertFalse(cursor.isVersionValid());
+        Assert.assertEquals(0, dataFrame.size());
+        Assert.assertEquals(0, dataFrame.getColumn("d").size());
+        Assert.assertEquals(1000, copy.size());
+        copy.close();
+
+        OffHeapLongColumn longColumn = new OffHeapLongColumn("l", new Long[]{3L, null, 1L});
+        longColumn.sort();
+        Assert.assertArrayEquals(new Long[]{null, 1L, 3L}, longColumn.toArray());
+        longColumn.close();
+        longColumn.append(5L);
+        Assert.assertEquals(5L, longColumn.getLong(0));
+
+        try (DataFrame empty = DataFrame.create()) {
+            Assert.assertEquals(0, empty.size());
+        }
+
+        DataFrame heap = DataFrame.create()
+                .addIntegerColumn("i")
+                .addStringColumn("s");
+        heap.append(1, "a");
+        heap.append(2, "b");
+        heap.close();
+        Assert.assertEquals(0, heap.getColumn("i").size());
+        Assert.assertEquals(0, heap.getColumn("s").size());
+        heap.append(3, "c");
+        Assert.assertEquals(1, heap.size());
+        Assert.assertEquals(3, heap.getRow(0).getInteger("i").intValue());
+        Assert.assertEquals("c", heap.getRow(0).getString("s"));
+
+        DataFrame sealed = DataFrame.create()
+                .addIntegerColumn("i")
+                .addStringColumn("s");
+        for (int i = 0; i < 100; i++) {
+            sealed.append(i / 10, "x");
+        }
+        sealed.seal();
+        sealed.close();
+        Assert.assertEquals(0, sealed.size());
+        Assert.assertEquals(0, sealed.getColumn("i").size());
+        Assert.assertEquals(0, sealed.getColumn("s").size());
+    }
+
     @Test
     public void testBooleanColumn() {
         BooleanColumn column = new BooleanColumn();
@@ -191,6 +308,50 @@ public class ColumnTest {
                 , a.copy().flip()
                         .toArray());
 
+        Assert.assertEquals(2, a.count());
+        Assert.assertTrue(a.getBoolean(0));
+        Assert.assertFalse(a.getBoolean(3));
+
+        BooleanColumn n = new BooleanColumn("n", new Boolean[]{true, null, true, false, true});
+        Assert.assertEquals(3, n.count());
+        Assert.assertArrayEquals(
+                new Boolean[]{true, null, false, false, true}
+                , n.copy().and(b)
+                        .toArray());
+        Assert.assertArrayEquals(
+                new Boolean[]{true, null, false, true}
+                , a.copy().or(n.copy().flip())
+                        .toArray());
+        Assert.assertArrayEquals(
+                new Boolean[]{null, false, true, true, true}
+                , n.copy().sort()
+                        .toArray());
+
+        DataFrame flags = DataFrame.create()
+                .addBooleanColumn("f")
+                .addIntegerColumn("i");
+        for (int i = 0; i < 8; i++) {
+            flags.append(i % 2 == 0, i);
+        }
+        flags.sort("f");
+        BooleanColumn mask = new BooleanColumn("m", new Boolean[]{true, false, true, false, true, false, true, false});
+        flags.getBooleanColumn("f").and(mask);
+        Assert.assertEquals(2, flags.groupBy("f").size());
+
+        DataFrame sealed = DataFrame.create()
+                .addBooleanColumn("f")
+                .addIntegerColumn("i");
+        for (int i = 0; i < 8; i++) {
+            sealed.append(true, i);
+        }
+        sealed.seal();
+        try {
+            sealed.getBooleanColumn("f").flip();
+            Assert.fail("modifying a sealed data frame must fail");
+        } catch (DataFrameRuntimeException e) {
+            Assert.assertEquals(8, sealed.getBooleanColumn("f").count());
+        }
+
         try {
             Assert.assertEquals(
                     (Boolean) true, column.getValueType().parse("true")
@@ -25,12 +25,20 @@
 package de.unknownreality.dataframe;
 
 import de.unknownreality.dataframe.column.BooleanColumn;
+import de.unknownreality.dataframe.column.DictionaryStringColumn;
 import de.unknownreality.dataframe.column.DoubleColumn;
+import de.unknownreality.dataframe.column.ExpressionColumn;
 import de.unknownreality.dataframe.column.IntegerColumn;
+import de.unknownreality.dataframe.column.OffHeapDoubleColumn;
+import de.unknownreality.dataframe.column.PackedIntegerColumn;
 import de.unknownreality.dataframe.column.StringColumn;
 import de.unknownreality.dataframe.csv.CSVReader;
 import de.unknownreality.dataframe.csv.CSVReaderBuilder;
 import de.unknownreality.dataframe.filter.FilterPredicate;
+import de.unknownreality.dataframe.group.DataGrouping;
+import de.unknownreality.dataframe.sort.ExternalSort;
+import de.unknownreality.dataframe.sort.RadixSort;
+import de.unknownreality.dataframe.sort.RowColumnComparator;
 import de.unknownreality.dataframe.sort.SortColumn;
 import de.unknownreality.dataframe.type.DataFrameTypeManager;
 import org.junit.Assert;
@@ -38,9 +46,15 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
@@ -206,6 +220,152 @@ public class DataFrameTest {
         Assert.assertEquals(0,df.getIntegerColumn("x").size());
     }
 
+    @Test
+    public void appendColumnsTest() {
+        DataFrame df = DataFrame.create()
+                .addStringColumn("name")
+                .addDoubleColumn("value")
+                .addIntegerColumn("count")
+                .addBooleanColumn("flag");
+        df.setPrimaryKey("name");
+        df.append("a", 1d, 1, true);
+        df.appendColumns(new String[]{"b", "c", null},
+                new double[]{2d, 3d, 4d},
+                new Integer[]{2, null, 4},
+                new boolean[]{false, true, false});
+        Assert.assertEquals(4, df.size());
+        Assert.assertEquals(3d, df.selectByPrimaryKey("c").getDouble("value"), 0d);
+        Assert.assertTrue(df.selectByPrimaryKey("c").isNA("count"));
+        Assert.assertTrue(df.selectByPrimaryKey("c").getBoolean("flag"));
+        Assert.assertTrue(df.getRow(3).isNA("name"));
+        Assert.assertEquals(4, (int) df.getRow(3).getInteger("count"));
+        Assert.assertEquals(10d, df.getDoubleColumn("value").sum(), 0d);
+        Assert.assertEquals(2, df.getBooleanColumn("flag").count());
+
+        try {
+            df.appendColumns(new String[]{"d"}, new double[]{5d, 6d}, new int[]{5}, new boolean[]{true});
+            Assert.fail("different lengths");
+        } catch (DataFrameRuntimeException e) {
+            // expected
+        }
+        try {
+            df.appendColumns(new String[]{"d"}, new String[]{"5"}, new int[]{5}, new boolean[]{true});
+            Assert.fail("wrong type");
+        } catch (DataFrameRuntimeException e) {
+            // expected
+        }
+        Assert.assertEquals(4, df.size());
+        Assert.assertEquals(4, df.getStringColumn("name").size());
+    }
+
+    @Test
+    public void expressionColumnTest() {
+        DataFrame df = DataFrame.create()
+                .addStringColumn("name")
+                .addDoubleColumn("a")
+                .addIntegerColumn("b");
+        df.append("x", 1.5, 2);
+        df.append("y", 2.5, null);
+        df.append("x", 3.5, 4);
+        df.append("z", 0.5, 10);
+        AtomicInteger evaluations = new AtomicInteger();
+        df.addExpressionColumn("ab", Double.class, (d, row) -> {
+            evaluations.incrementAndGet();
+            if (d.getColumn("b").isNA(row)) {
+                return null;
+            }
+            return d.getDoubleColumn("a").getDouble(row) * d.getIntegerColumn("b").getInt(row);
+        });
+        df.addColumn(new ExpressionColumn<>("label", String.class,
+                (d, row) -> d.getStringColumn("name").get(row) + d.getIntegerColumn("b").get(row), true));
+        Assert.assertEquals(0, evaluations.get());
+        Assert.assertEquals(ExpressionColumn.class, df.getColumn("ab").getClass());
+        Assert.assertEquals(3d, (Double) df.getColumn("ab").get(0), 0d);
+        Assert.assertTrue(df.getRow(1).isNA("ab"));
+        Assert.assertEquals(2, evaluations.get());
+
+        // appended rows are computed from the source columns
+        df.append("y", 2d, 3, null, null);
+        Assert.assertEquals(5, df.getColumn("ab").size());
+        Assert.assertEquals(6d, df.getRow(4).getDouble("ab"), 0d);
+
+        // cached values are invalidated if a source column changes
+        Assert.assertEquals("x2", df.getColumn("label").get(0));
+        df.getStringColumn("name").set(0, "w");
+        Assert.assertEquals("w2", df.getColumn("label").get(0));
+
+        DataFrame selected = df.select("ab > 5");
+        Assert.assertEquals(2, selected.size());
+        Assert.assertEquals(ExpressionColumn.class, selected.getColumn("ab").getClass());
+        Assert.assertEquals(14d, selected.getRow(0).getDouble("ab"), 0d);
+
+        df.sort("ab", SortColumn.Direction.Descending);
+        Assert.assertEquals(ExpressionColumn.class, df.getColumn("ab").getClass());
+        Assert.assertEquals(14d, df.getRow(0).getDouble("ab"), 0d);
+        Assert.assertEquals("x4", df.getRow(0).getString("label"));
+
+        DataFrame head = df.head(2);
+        Assert.assertEquals(2, head.getColumn("ab").size());
+        Assert.assertEquals(6d, head.getRow(1).getDouble("ab"), 0d);
+
+        DataGrouping grouping = df.groupBy("label");
+        Assert.assertEquals(5, grouping.size());
+        Assert.assertEquals(StringColumn.class, grouping.getColumn("label").getClass());
+        Assert.assertEquals(1, grouping.findByGroupValues("z10").getGroup().size());
+
+        df.filter("ab < 10");
+        Assert.assertEquals(3, df.size());
+        Assert.assertArrayEquals(new Double[]{6d, 5d, 3d}, df.getColumn("ab").toArray());
+
+        try {
+            ((ExpressionColumn<?>) df.getColumn("ab")).sort();
+            Assert.fail("expression columns are read-only");
+        } catch (DataFrameRuntimeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void copyAndSliceTest() {
+        DataFrame df = DataFrame.create()
+                .addIntegerColumn("x")
+                .addStringColumn("s")
+                .addBooleanColumn("b");
+        for (int i = 0; i < 20; i++) {
+            df.append(i, "v" + i, i % 2 == 0);
+        }
+        df.addIndex("idx", "x");
+
+        DataFrame copy = df.copy();
+        copy.getIntegerColumn("x").set(0, 100);
+        copy.getStringColumn("s").set(1, "changed");
+        Assert.assertEquals(0, (int) df.getIntegerColumn("x").get(0));
+        Assert.assertEquals("v1", df.getStringColumn("s").get(1));
+        Assert.assertEquals(20, copy.size());
+        Assert.assertEquals(10, copy.selectFirstRowByIndex("idx", 10).getInteger("x").intValue());
+
+        DataFrame head = df.head(5);
+        Assert.assertEquals(5, head.size());
+        Assert.assertEquals(4, (int) head.getIntegerColumn("x").get(4));
+        Assert.assertEquals(true, head.getBooleanColumn("b").get(4));
+        Assert.assertEquals(3, head.selectFirstRowByIndex("idx", 3).getInteger("x").intValue());
+
+        DataFrame tail = df.tail(5);
+        Assert.assertEquals(5, tail.size());
+        Assert.assertEquals(15, (int) tail.getIntegerColumn("x").get(0));
+        Assert.assertEquals("v19", tail.getStringColumn("s").get(4));
+        tail.getIntegerColumn("x").set(0, -1);
+        Assert.assertEquals(15, (int) df.getIntegerColumn("x").get(15));
+        tail.append(20, "v20", true);
+        Assert.assertEquals(6, tail.size());
+        Assert.assertEquals(20, df.size());
+
+        DataFrame subset = df.selectSubset(8, 12);
+        Assert.assertEquals(4, subset.size());
+        Assert.assertEquals("v8", subset.getStringColumn("s").get(0));
+        Assert.assertEquals(0, df.selectSubset(3, 3).size());
+    }
+
     @Test
     public void rowAccessTest() throws IOException {
         String[] header = new String[]{"A", "B", "C", "D", "E","F","G","H","I"};
@@ -478,6 +638,350 @@ public class DataFrameTest {
         Assert.assertEquals("D",test.getRow(3).get("name"));
     }
 
+    @Test
+    public void argsortTest() {
+        DataFrame df = DataFrame.create();
+        df.addColumn(new IntegerColumn("id"));
+        df.addColumn(new DictionaryStringColumn("cat"));
+        df.addColumn(new OffHeapDoubleColumn("x"));
+        df.addColumn(new BooleanColumn("flag"));
+        int size = 1000;
+        for (int i = 0; i < size; i++) {
+            df.append(i, "c" + (2 - i % 3), i % 7 == 0 ? null : (double) (i % 10), i % 2 == 0);
+        }
+        df.setPrimaryKey("id");
+        df.seal();
+        Assert.assertEquals(PackedIntegerColumn.class, df.getColumn("id").getClass());
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            expected.add(i);
+        }
+        // stable, NA last regardless of the direction
+        expected.sort((a, b) -> {
+            int c = Integer.compare(2 - a % 3, 2 - b % 3);
+            if (c != 0) {
+                return c;
+            }
+            if (a % 7 == 0 || b % 7 == 0) {
+                return Boolean.compare(a % 7 == 0, b % 7 == 0);
+            }
+            return Integer.compare(b % 10, a % 10);
+        });
+        df.sort(new SortColumn("cat", SortColumn.Direction.Ascending),
+                new SortColumn("x", SortColumn.Direction.Descending));
+        for (int i = 0; i < size; i++) {
+            int id = expected.get(i);
+            DataRow row = df.getRow(i);
+            Assert.assertEquals(id, (int) row.getInteger("id"));
+            Assert.assertEquals("c" + (2 - id % 3), row.getString("cat"));
+            Assert.assertEquals(id % 7 == 0, row.isNA("x"));
+            Assert.assertEquals(id % 2 == 0, row.getBoolean("flag"));
+        }
+        Assert.assertEquals(IntegerColumn.class, df.getColumn("id").getClass());
+        Assert.assertEquals(DictionaryStringColumn.class, df.getColumn("cat").getClass());
+        Assert.assertEquals(OffHeapDoubleColumn.class, df.getColumn("x").getClass());
+        Assert.assertEquals(expected.indexOf(500), df.selectByPrimaryKey(500).getIndex());
+
+        // immutable columns are replaced by modifiable columns
+        df.getIntegerColumn("id").set(0, -1);
+        Assert.assertEquals(-1, (int) df.getRow(0).getInteger("id"));
+
+        df.sort("id");
+        Assert.assertEquals(-1, (int) df.getRow(0).getInteger("id"));
+        Assert.assertEquals(0, df.selectByPrimaryKey(-1).getIndex());
+        for (int i = 1; i < size; i++) {
+            int id = df.getRow(i).getInteger("id");
+            Assert.assertTrue(id > df.getRow(i - 1).getInteger("id"));
+            Assert.assertEquals(i, df.selectByPrimaryKey(id).getIndex());
+        }
+    }
+
+    @Test
+    public void radixSortTest() {
+        DataFrame df = DataFrame.create()
+                .addIntegerColumn("id")
+                .addLongColumn("time")
+                .addByteColumn("level")
+                .addBooleanColumn("flag");
+        df.addColumn(new DictionaryStringColumn("cat"));
+        int size = 5000;
+        Random random = new Random(7);
+        long[] extremes = {Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L};
+        for (int i = 0; i < size; i++) {
+            Long time = i % 11 == 0 ? null : i % 13 == 0 ? extremes[i % 4] : random.nextLong();
+            Byte level = i % 17 == 0 ? null : (byte) random.nextInt(5);
+            df.append(i, time, level, random.nextBoolean(), "c" + random.nextInt(4));
+        }
+        Assert.assertTrue(RadixSort.isSortable(df.getColumn("time"), df.getColumn("level"),
+                df.getColumn("flag"), df.getColumn("cat")));
+        List<DataRow> rows = new ArrayList<>(df.copy().getRows());
+
+        SortColumn[] sortColumns = {
+                new SortColumn("level", SortColumn.Direction.Descending),
+                new SortColumn("flag", SortColumn.Direction.Ascending),
+                new SortColumn("cat", SortColumn.Direction.Descending),
+                new SortColumn("time", SortColumn.Direction.Ascending)};
+        rows.sort(new RowColumnComparator(sortColumns));
+        df.sort(sortColumns);
+        for (int i = 0; i < size; i++) {
+            Assert.assertEquals(rows.get(i).getInteger("id"), df.getRow(i).getInteger("id"));
+        }
+
+        // single key using all 64 bits and NA
+        rows.sort(new RowColumnComparator(new SortColumn[]{new SortColumn("time", SortColumn.Direction.Descending)}));
+        df.sort("time", SortColumn.Direction.Descending);
+        Assert.assertEquals(Long.MAX_VALUE, (long) df.getRow(0).getLong("time"));
+        Assert.assertTrue(df.getRow(size - 1).isNA("time"));
+        for (int i = 0; i < size; i++) {
+            Assert.assertEquals(rows.get(i).getInteger("id"), df.getRow(i).getInteger("id"));
+        }
+    }
+
+    @Test
+    public void parallelSortTest() {
+        DataFrame df = DataFrame.create()
+                .addIntegerColumn("id")
+                .addDoubleColumn("x")
+                .addStringColumn("name")
+                .addLongColumn("time");
+        int size = 60000;
+        Random random = new Random(3);
+        for (int i = 0; i < size; i++) {
+            df.append(i, i % 19 == 0 ? null : (double) random.nextInt(100),
+                    i % 23 == 0 ? null : "n" + random.nextInt(50), random.nextInt(1000) - 500L);
+        }
+        SortColumn[] comparatorSort = {
+                new SortColumn("name", SortColumn.Direction.Descending),
+                new SortColumn("x", SortColumn.Direction.Ascending)};
+        SortColumn[] radixSort = {new SortColumn("time", SortColumn.Direction.Descending)};
+        DataFrame sequential = df.copy().sort(comparatorSort);
+        DataFrame sequentialRadix = df.copy().sort(radixSort);
+        DataFrame parallel = df.copy().sort(Parallelism.threshold(1000), comparatorSort);
+        DataFrame parallelRadix = df.copy();
+        parallelRadix.setParallelism(Parallelism.threshold(1000));
+        parallelRadix.sort(radixSort);
+        Assert.assertEquals(1000, parallelRadix.copy().getParallelism().getThreshold());
+        Assert.assertSame(Parallelism.getDefault(), df.getParallelism());
+        ForkJoinPool pool = new ForkJoinPool(3);
+        DataFrame pooled;
+        try {
+            pooled = df.copy().sort(Parallelism.of(pool, 1000), comparatorSort);
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < size; i++) {
+            Assert.assertEquals(sequential.getRow(i).getInteger("id"), parallel.getRow(i).getInteger("id"));
+            Assert.assertEquals(sequential.getRow(i).getInteger("id"), pooled.getRow(i).getInteger("id"));
+            Assert.assertEquals(sequentialRadix.getRow(i).getInteger("id"),
+                    parallelRadix.getRow(i).getInteger("id"));
+        }
+        Assert.assertTrue(parallel.getRow(size - 1).isNA("name"));
+        Assert.assertEquals(499L, (long) parallelRadix.getRow(0).getLong("time"));
+    }
+
+    @Test
+    public void topNTest() {
+        DataFrame df = DataFrame.create()
+                .addIntegerColumn("id")
+                .addDoubleColumn("score")
+                .addStringColumn("name");
+        int size = 2000;
+        Random random = new Random(11);
+        for (int i = 0; i < size; i++) {
+            df.append(i, i % 9 == 0 ? null : (double) random.nextInt(50), "n" + random.nextInt(5));
+        }
+        df.setPrimaryKey("id");
+        SortColumn[] sortColumns = {
+                new SortColumn("score", SortColumn.Direction.Descending),
+                new SortColumn("name", SortColumn.Direction.Ascending)};
+        DataFrame sorted = df.copy().sort(sortColumns);
+        for (int n : new int[]{0, 1, 100, size, size + 10}) {
+            DataFrame top = df.topN(n, sortColumns);
+            DataFrame bottom = df.bottomN(n, sortColumns);
+            int expected = Math.min(n, size);
+            Assert.assertEquals(expected, top.size());
+            Assert.assertEquals(expected, bottom.size());
+            for (int i = 0; i < expected; i++) {
+                Assert.assertEquals(sorted.getRow(i).getInteger("id"), top.getRow(i).getInteger("id"));
+                Assert.assertEquals(sorted.getRow(size - expected + i).getInteger("id"),
+                        bottom.getRow(i).getInteger("id"));
+            }
+        }
+        DataFrame top = df.topN(10, new SortColumn("score", SortColumn.Direction.Descending));
+        Assert.assertEquals(49d, top.getRow(0).getDouble("score"), 0d);
+        Assert.assertEquals(0, top.selectByPrimaryKey(top.getRow(0).getInteger("id")).getIndex());
+        // the source data frame is not changed
+        Assert.assertEquals(0, (int) df.getRow(0).getInteger("id"));
+        Assert.assertTrue(df.bottomN(10, new SortColumn("score", SortColumn.Direction.Descending))
+                .getRow(9).isNA("score"));
+    }
+
+    @Test
+    public void externalSortTest() throws IOException {
+        DataFrame df = DataFrame.create()
+                .addIntegerColumn("id")
+                .addStringColumn("name")
+                .addByteColumn("level")
+                .addDoubleColumn("x");
+        int size = 3000;
+        Random random = new Random(5);
+        for (int i = 0; i < size; i++) {
+            df.append(i, i % 13 == 0 ? null : "name" + random.nextInt(40), (byte) random.nextInt(3),
+                    i % 7 == 0 ? null : random.nextDouble());
+        }
+        SortColumn[] sortColumns = {
+                new SortColumn("level", SortColumn.Direction.Descending),
+                new SortColumn("name", SortColumn.Direction.Ascending)};
+        DataFrame expected = df.copy().sort(sortColumns);
+        File tempDirectory = Files.createTempDirectory("external-sort").toFile();
+        try {
+            ExternalSort externalSort = new ExternalSort(df.getHeader(), sortColumns)
+                    .setMemoryBudget(4096)
+                    .setTempDirectory(tempDirectory);
+            DataFrame sorted = externalSort.sort(df);
+            Assert.assertEquals(size, sorted.size());
+            for (int i = 0; i < size; i++) {
+                DataRow expectedRow = expected.getRow(i);
+                DataRow row = sorted.getRow(i);
+                Assert.assertEquals(expectedRow.getInteger("id"), row.getInteger("id"));
+                Assert.assertEquals(expectedRow.get("name"), row.get("name"));
+                Assert.assertEquals(expectedRow.get("level"), row.get("level"));
+                Assert.assertEquals(expectedRow.get("x"), row.get("x"));
+            }
+            // temporary run files are deleted
+            Assert.assertEquals(0, tempDirectory.listFiles().length);
+
+            // more runs than the merge fan-in are merged in multiple passes
+            DataFrame multiPass = externalSort.setMergeFanIn(2).sort(df);
+            Assert.assertEquals(size, multiPass.size());
+            for (int i = 0; i < size; i++) {
+                Assert.assertEquals(expected.getRow(i).getInteger("id"), multiPass.getRow(i).getInteger("id"));
+                Assert.assertEquals(expected.getRow(i).get("x"), multiPass.getRow(i).get("x"));
+            }
+            Assert.assertEquals(0, tempDirectory.listFiles().length);
+
+            // streaming output, all rows fit into one run
+            List<Object[]> rows = new ArrayList<>();
+            externalSort.setMemoryBudget(Long.MAX_VALUE).sort(df, rows::add);
+            Assert.assertEquals(size, rows.size());
+            Assert.assertEquals(expected.getRow(0).getInteger("id"), rows.get(0)[0]);
+            Assert.assertNull(rows.get(size - 1)[1]);
+        } finally {
+            tempDirectory.delete();
+        }
+    }
+
+    @Test
+    public void selectionVectorFilterTest() {
+        DataFrame df = DataFrame.create();
+        df.addColumn(new IntegerColumn("id"));
+        df.addColumn(new DictionaryStringColumn("cat"));
+        df.addColumn(new OffHeapDoubleColumn("x"));
+        df.addColumn(new StringColumn("name"));
+        df.addColumn(new BooleanColumn("flag"));
+        int size = 500;
+        for (int i = 0; i < size; i++) {
+            df.append(i, "c" + i % 4, i % 5 == 0 ? null : (double) i, i % 3 == 0 ? null : "n" + i, i % 2 == 0);
+        }
+        df.addExpressionColumn("x2", Double.class,
+                (d, row) -> d.getColumn("x").isNA(row) ? null : d.getDoubleColumn("x").getDouble(row) * 2);
+        df.setPrimaryKey("id");
+        df.seal();
+        FilterPredicate predicate = FilterPredicate.eq("cat", "c1");
+
+        DataFrame selected = df.select(predicate);
+        Assert.assertEquals(size, df.size());
+        Assert.assertEquals(size / 4, selected.size());
+        Assert.assertEquals(DictionaryStringColumn.class, selected.getColumn("cat").getClass());
+        Assert.assertEquals(OffHeapDoubleColumn.class, selected.getColumn("x").getClass());
+
+        DataFrameColumn<?, ?> cat = df.getColumn("cat");
+        df.filter(predicate);
+        Assert.assertEquals(size / 4, df.size());
+        // modifiable columns are compacted in place
+        Assert.assertSame(cat, df.getColumn("cat"));
+        Assert.assertEquals(IntegerColumn.class, df.getColumn("id").getClass());
+        for (DataFrame frame : new DataFrame[]{df, selected}) {
+            for (int i = 0; i < frame.size(); i++) {
+                int id = 4 * i + 1;
+                DataRow row = frame.getRow(i);
+                Assert.assertEquals(id, (int) row.getInteger("id"));
+                Assert.assertEquals("c1", row.getString("cat"));
+                Assert.assertEquals(id % 5 == 0, row.isNA("x"));
+                Assert.assertEquals(id % 5 == 0, row.isNA("x2"));
+                if (id % 5 != 0) {
+                    Assert.assertEquals(2d * id, row.getDouble("x2"), 0d);
+                }
+                Assert.assertEquals(id % 3 == 0, row.isNA("name"));
+                if (id % 3 != 0) {
+                    Assert.assertEquals("n" + id, row.getString("name"));
+                }
+                Assert.assertFalse(row.getBoolean("flag"));
+                Assert.assertEquals(i, frame.selectByPrimaryKey(id).getIndex());
+            }
+            Assert.assertEquals(size / 4, frame.getColumn("x").size());
+        }
+        df.append(1000, "c1", 1d, "n", true, null);
+        Assert.assertEquals(size / 4 + 1, df.size());
+        Assert.assertFalse(df.getRow(size / 4).isNA("name"));
+        Assert.assertEquals(size / 4, df.selectByPrimaryKey(1000).getIndex());
+    }
+
+    @Test
+    public void rowCursorTest() {
+        DataFrame df = DataFrame.create();
+        df.addColumn(new IntegerColumn("id"));
+        df.addColumn(new DictionaryStringColumn("cat"));
+        df.addColumn(new OffHeapDoubleColumn("x"));
+        df.addColumn(new BooleanColumn("flag"));
+        int size = 100;
+        for (int i = 0; i < size; i++) {
+            df.append(i, "c" + i % 3, i % 7 == 0 ? null : i / 2d, i % 2 == 0);
+        }
+        RowCursor cursor = df.cursor();
+        Assert.assertEquals(-1, cursor.getIndex());
+        int count = 0;
+        while (cursor.next()) {
+            int i = cursor.getIndex();
+            Assert.assertEquals(count++, i);
+            Assert.assertEquals(i, cursor.getIntValue("id"));
+            Assert.assertEquals(i, cursor.getLongValue(0));
+            Assert.assertEquals("c" + i % 3, cursor.getString("cat"));
+            Assert.assertEquals(i % 7 == 0, cursor.isNA("x"));
+            if (i % 7 != 0) {
+                Assert.assertEquals(i / 2d, cursor.getDoubleValue("x"), 0d);
+                Assert.assertEquals(i / 2d, cursor.getDouble(2), 0d);
+            } else {
+                Assert.assertEquals(Values.NA, cursor.get("x"));
+            }
+            Assert.assertEquals(i % 2 == 0, cursor.getBooleanValue("flag"));
+            Assert.assertEquals(df.getRow(i), cursor);
+        }
+        Assert.assertEquals(size, count);
+        Assert.assertFalse(cursor.hasNext());
+        Assert.assertFalse(cursor.next());
+
+        Assert.assertEquals(42, cursor.seek(42).getIntValue("id"));
+        DataRow row = cursor.toDataRow();
+        cursor.seek(7);
+        Assert.assertEquals(42, (int) row.getInteger("id"));
+        Assert.assertTrue(cursor.hasNext());
+
+        // predicates are evaluated on the cursor
+        Assert.assertEquals(34, df.select(FilterPredicate.eq("cat", "c0")).size());
+        Assert.assertEquals(42, df.select(FilterPredicate.gt("x", 25)).size());
+
+        df.sort("id", SortColumn.Direction.Descending);
+        try {
+            cursor.seek(0);
+            Assert.fail("cursor must be invalid after the data frame changed");
+        } catch (DataFrameRuntimeException e) {
+            // expected
+        }
+        Assert.assertEquals(99, df.cursor().seek(0).getIntValue("id"));
+    }
+
     @Test
     public void checkRowValidity(){
         DataFrame dataFrame = DataFrame.create()
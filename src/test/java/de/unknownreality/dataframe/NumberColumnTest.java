@@ -24,9 +24,17 @@
 
 package de.unknownreality.dataframe;
 
+import de.unknownreality.dataframe.column.ColumnStatistics;
 import de.unknownreality.dataframe.column.DoubleColumn;
 import de.unknownreality.dataframe.column.FloatColumn;
 import de.unknownreality.dataframe.column.IntegerColumn;
+import de.unknownreality.dataframe.column.LongColumn;
+import de.unknownreality.dataframe.column.NumberColumn;
+import de.unknownreality.dataframe.column.OffHeapDoubleColumn;
+import de.unknownreality.dataframe.column.OffHeapIntegerColumn;
+import de.unknownreality.dataframe.column.PackedIntegerColumn;
+import de.unknownreality.dataframe.column.PackedLongColumn;
+import de.unknownreality.dataframe.column.PrimitiveColumn;
 import de.unknownreality.dataframe.common.math.Quantiles;
 import org.junit.Assert;
 import org.junit.Test;
@@ -34,6 +42,9 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Spliterator;
 
 /**
  * Created by Alex on 17.07.2017.
@@ -123,4 +134,451 @@ public class NumberColumnTest {
         Assert.assertEquals((Double)2d,dc.getQuantile(0.25));
         Assert.assertEquals((Double)4d,dc.getQuantile(0.75));
     }
+
+    @Test
+    public void primitiveStorageTest() {
+        IntegerColumn ic = new IntegerColumn("A", new int[]{3, 1, 2});
+        ic.append(null);
+        ic.appendNA();
+        ic.append(0);
+        Assert.assertEquals(6, ic.size());
+        Assert.assertEquals(3, ic.getInt(0));
+        Assert.assertEquals(3L, ic.getLong(0));
+        Assert.assertEquals(3d, ic.getDouble(0), 0d);
+        Assert.assertTrue(ic.isNA(3));
+        Assert.assertTrue(ic.isNA(4));
+        Assert.assertNull(ic.get(4));
+        Assert.assertEquals(0, ic.getInt(4));
+        Assert.assertEquals(2, ic.countNA());
+
+        ic.set(3, 5);
+        Assert.assertFalse(ic.isNA(3));
+        Assert.assertEquals(5, ic.getInt(3));
+        ic.setNA(0);
+        Assert.assertTrue(ic.isNA(0));
+        Assert.assertEquals(0, ic.getInt(0));
+
+        IntegerColumn copy = ic.copy();
+        copy.set(4, 7);
+        Assert.assertTrue(ic.isNA(4));
+        Assert.assertEquals(7, copy.getInt(4));
+
+        ic.sort();
+        Assert.assertTrue(ic.isNA(0));
+        Assert.assertTrue(ic.isNA(1));
+        Assert.assertEquals(0, ic.getInt(2));
+        Assert.assertEquals(1, ic.getInt(3));
+        Assert.assertEquals(2, ic.getInt(4));
+        Assert.assertEquals(5, ic.getInt(5));
+
+        DoubleColumn dc = new DoubleColumn("B", new Double[]{2d, null, 1d});
+        Assert.assertTrue(dc.isNA(1));
+        Assert.assertEquals(3d, dc.sum(), 0d);
+        Assert.assertEquals(1d, dc.getDouble(2), 0d);
+    }
+
+    @Test
+    public void chunkedStorageTest() {
+        int size = 3 * IntegerColumn.CHUNK_SIZE + 17;
+        IntegerColumn ic = new IntegerColumn("A");
+        for (int i = 0; i < size; i++) {
+            ic.append(size - i);
+        }
+        ic.setNA(IntegerColumn.CHUNK_SIZE);
+        Assert.assertEquals(size, ic.size());
+        Assert.assertEquals(size, ic.getInt(0));
+        Assert.assertEquals(1, ic.getInt(size - 1));
+        Assert.assertTrue(ic.isNA(IntegerColumn.CHUNK_SIZE));
+
+        IntegerColumn copy = ic.copy();
+        copy.set(IntegerColumn.CHUNK_SIZE, 0);
+        Assert.assertTrue(ic.isNA(IntegerColumn.CHUNK_SIZE));
+
+        copy.sort();
+        for (int i = 1; i < size; i++) {
+            Assert.assertTrue(copy.getInt(i - 1) <= copy.getInt(i));
+        }
+        ic.reverse();
+        Assert.assertEquals(1, ic.getInt(0));
+        Assert.assertTrue(ic.isNA(size - 1 - IntegerColumn.CHUNK_SIZE));
+
+        double[] values = new double[IntegerColumn.CHUNK_SIZE + 1];
+        values[IntegerColumn.CHUNK_SIZE] = 3d;
+        DoubleColumn dc = new DoubleColumn("B", values);
+        Assert.assertEquals(values.length, dc.size());
+        Assert.assertEquals(3d, dc.getDouble(IntegerColumn.CHUNK_SIZE), 0d);
+        dc.append(4d);
+        Assert.assertEquals(4d, dc.getDouble(values.length), 0d);
+    }
+
+    @Test
+    public void copyOnWriteTest() {
+        int size = IntegerColumn.CHUNK_SIZE * 2 + 10;
+        IntegerColumn ic = new IntegerColumn("A");
+        for (int i = 0; i < size; i++) {
+            ic.append(i);
+        }
+        ic.setNA(5);
+
+        IntegerColumn copy = ic.copy();
+        copy.set(0, 100);
+        copy.setNA(1);
+        Assert.assertEquals(0, ic.getInt(0));
+        Assert.assertFalse(ic.isNA(1));
+        Assert.assertEquals(100, copy.getInt(0));
+        ic.set(IntegerColumn.CHUNK_SIZE, -1);
+        Assert.assertEquals(IntegerColumn.CHUNK_SIZE, (int) copy.get(IntegerColumn.CHUNK_SIZE));
+        copy.append(1);
+        ic.append(2);
+        Assert.assertEquals(1, copy.getInt(size));
+        Assert.assertEquals(2, ic.getInt(size));
+
+        int from = IntegerColumn.CHUNK_SIZE - 3;
+        IntegerColumn slice = ic.slice(from, from + 6);
+        Assert.assertEquals(6, slice.size());
+        Assert.assertEquals(from, slice.getInt(0));
+        Assert.assertEquals(-1, slice.getInt(3));
+        slice.set(0, 7);
+        Assert.assertEquals(from, ic.getInt(from));
+        ic.set(from + 1, 8);
+        Assert.assertEquals(from + 1, slice.getInt(1));
+        slice.append(9);
+        Assert.assertEquals(7, slice.size());
+        Assert.assertEquals(9, slice.getInt(6));
+        Assert.assertEquals(from + 2, slice.getInt(2));
+        Assert.assertEquals(from + 6, ic.getInt(from + 6));
+
+        IntegerColumn naSlice = ic.slice(4, 8);
+        Assert.assertTrue(naSlice.isNA(1));
+        naSlice.sort();
+        Assert.assertTrue(naSlice.isNA(0));
+        Assert.assertEquals(4, naSlice.getInt(1));
+        Assert.assertTrue(ic.isNA(5));
+        Assert.assertEquals(6, ic.getInt(6));
+        Assert.assertEquals(0, ic.slice(3, 3).size());
+
+        DoubleColumn dc = new DoubleColumn("d");
+        for (int i = 0; i < 1000; i++) {
+            dc.append((double) i);
+        }
+        DoubleColumn clearedSlice = dc.slice(10, 900);
+        clearedSlice.clear();
+        Assert.assertEquals(0, clearedSlice.size());
+        clearedSlice.append(1d);
+        Assert.assertEquals(1, clearedSlice.size());
+        Assert.assertEquals(1d, clearedSlice.getDouble(0), 0d);
+        Assert.assertEquals(10d, dc.getDouble(10), 0d);
+        Assert.assertEquals(1000, dc.size());
+    }
+
+    @Test
+    public void statisticsTest() {
+        DoubleColumn dc = new DoubleColumn("A");
+        dc.append(2d);
+        dc.append(4d);
+        dc.appendNA();
+        ColumnStatistics statistics = dc.getStatistics();
+        Assert.assertEquals(2, statistics.getCount());
+        Assert.assertEquals(1, statistics.getNACount());
+        Assert.assertEquals(2d, statistics.getMin(), 0d);
+        Assert.assertEquals(4d, statistics.getMax(), 0d);
+        Assert.assertEquals(6d, statistics.getSum(), 0d);
+        Assert.assertEquals(20d, statistics.getSumOfSquares(), 0d);
+        Assert.assertEquals(1d, statistics.getVariance(), 0d);
+
+        dc.append(-1d);
+        Assert.assertEquals(2, statistics.getCount());
+        Assert.assertEquals(-1d, dc.min(), 0d);
+        Assert.assertEquals(5d, dc.sum(), 0d);
+        Assert.assertEquals(5d / 3, dc.mean(), 0d);
+
+        dc.set(1, 10d);
+        Assert.assertEquals(10d, dc.max(), 0d);
+        Assert.assertEquals(11d, dc.sum(), 0d);
+        dc.setNA(0);
+        Assert.assertEquals(2, dc.getStatistics().getNACount());
+        Assert.assertEquals(-1d, dc.min(), 0d);
+
+        dc.map(value -> value * 2);
+        Assert.assertEquals(18d, dc.sum(), 0d);
+        dc.sort();
+        Assert.assertEquals(18d, dc.sum(), 0d);
+        dc.append(1d);
+        dc.reverse();
+        Assert.assertEquals(19d, dc.sum(), 0d);
+        Assert.assertEquals(-2d, dc.min(), 0d);
+
+        IntegerColumn ic = new IntegerColumn("B", new int[]{5, 1, 3});
+        Assert.assertEquals(3, (int) ic.median());
+        ic.set(0, 0);
+        Assert.assertEquals(1, (int) ic.median());
+        ic.append(7);
+        ic.append(8);
+        Assert.assertEquals(3, (int) ic.median());
+        ic.clear();
+        ic.append(4);
+        Assert.assertEquals(4, (int) ic.max());
+        Assert.assertEquals(4, (int) ic.median());
+    }
+
+    @Test
+    public void bulkAppendTest() {
+        int n = PrimitiveColumn.CHUNK_SIZE + 1000;
+        double[] doubles = new double[n];
+        int[] ints = new int[n];
+        for (int i = 0; i < n; i++) {
+            doubles[i] = i * 0.5;
+            ints[i] = i;
+        }
+        DoubleColumn doubleColumn = new DoubleColumn("d");
+        doubleColumn.append(-1d);
+        doubleColumn.appendNA();
+        Assert.assertEquals(-1d, doubleColumn.sum(), 0d);
+        Assert.assertTrue(doubleColumn.appendAll(doubles, 10, n - 10));
+        Assert.assertEquals(n - 8, doubleColumn.size());
+        Assert.assertTrue(doubleColumn.isNA(1));
+        Assert.assertFalse(doubleColumn.isNA(2));
+        Assert.assertEquals(5d, doubleColumn.getDouble(2), 0d);
+        Assert.assertEquals((n - 1) * 0.5, doubleColumn.getDouble(n - 9), 0d);
+        Assert.assertEquals((n - 1) * 0.5, doubleColumn.max(), 0d);
+        Assert.assertEquals(n - 9, doubleColumn.getStatistics().getCount());
+
+        // appending to a copy does not change the original
+        DoubleColumn copy = doubleColumn.copy();
+        copy.appendAll(new double[]{42d});
+        Assert.assertEquals(n - 8, doubleColumn.size());
+        Assert.assertEquals(42d, copy.getDouble(n - 8), 0d);
+
+        IntegerColumn slice = new IntegerColumn("i", ints).slice(PrimitiveColumn.CHUNK_SIZE - 5, PrimitiveColumn.CHUNK_SIZE + 5);
+        slice.appendAll(new int[]{-1, -2});
+        Assert.assertEquals(12, slice.size());
+        Assert.assertEquals(PrimitiveColumn.CHUNK_SIZE + 4, slice.getInt(9));
+        Assert.assertEquals(-2, slice.getInt(11));
+        Assert.assertEquals(PrimitiveColumn.CHUNK_SIZE - 5, ints[PrimitiveColumn.CHUNK_SIZE - 5]);
+
+        OffHeapDoubleColumn offHeapDoubles = new OffHeapDoubleColumn("d");
+        offHeapDoubles.append(1d);
+        offHeapDoubles.appendAll(doubles, 1, 500);
+        Assert.assertEquals(501, offHeapDoubles.size());
+        Assert.assertEquals(250d, offHeapDoubles.getDouble(500), 0d);
+        offHeapDoubles.close();
+        OffHeapIntegerColumn offHeapInts = new OffHeapIntegerColumn("i");
+        offHeapInts.appendAll(ints, n - 3, 3);
+        Assert.assertEquals(n - 1, offHeapInts.getInt(2));
+        offHeapInts.close();
+
+        try {
+            doubleColumn.appendAll(doubles, n - 1, 2);
+            Assert.fail("invalid range");
+        } catch (DataFrameRuntimeException e) {
+            // expected
+        }
+        try {
+            new IntegerColumn("i", ints).seal().appendAll(new int[]{1});
+            Assert.fail("sealed columns are immutable");
+        } catch (DataFrameRuntimeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void primitiveStreamTest() {
+        int n = 100000;
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        IntegerColumn column = new IntegerColumn("i", values);
+        long expected = (long) n * (n - 1) / 2;
+        Assert.assertEquals(expected, column.longStream().sum());
+        Assert.assertEquals(expected, column.intStream().parallel().asLongStream().sum());
+        Assert.assertEquals((double) expected, column.doubleStream().parallel().sum(), 0d);
+        Assert.assertEquals(n, column.intStream().parallel().count());
+        Assert.assertTrue(column.doubleSpliterator().hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        Spliterator.OfDouble spliterator = column.doubleSpliterator();
+        Spliterator.OfDouble prefix = spliterator.trySplit();
+        Assert.assertEquals(n / 2, prefix.getExactSizeIfKnown());
+        Assert.assertEquals(n / 2, spliterator.getExactSizeIfKnown());
+
+        DoubleColumn doubleColumn = new DoubleColumn("d");
+        doubleColumn.append(1.5);
+        doubleColumn.appendNA();
+        doubleColumn.append(2.5);
+        doubleColumn.appendNA();
+        Assert.assertFalse(doubleColumn.doubleSpliterator().hasCharacteristics(Spliterator.SIZED));
+        Assert.assertArrayEquals(new double[]{1.5, 2.5}, doubleColumn.doubleStream().toArray(), 0d);
+        Assert.assertArrayEquals(new long[]{1, 2}, doubleColumn.longStream().parallel().toArray());
+        PrimitiveIterator.OfDouble it = doubleColumn.doubleIterator();
+        Assert.assertEquals(1.5, it.nextDouble(), 0d);
+        Assert.assertEquals(2.5, it.nextDouble(), 0d);
+        Assert.assertFalse(it.hasNext());
+
+        IntegerColumn packed = (IntegerColumn) column.seal();
+        Assert.assertEquals(n - 1, packed.intStream().parallel().max().getAsInt());
+    }
+
+    @Test
+    public void arithmeticKernelTest() {
+        int n = PrimitiveColumn.CHUNK_SIZE + 5000;
+        DoubleColumn a = new DoubleColumn("a");
+        IntegerColumn b = new IntegerColumn("b");
+        for (int i = 0; i < n; i++) {
+            if (i % 1000 == 7) {
+                a.appendNA();
+            } else {
+                a.append(i * 0.5);
+            }
+            if (i % 999 == 3) {
+                b.appendNA();
+            } else {
+                b.append(i);
+            }
+        }
+        DoubleColumn original = a.copy();
+        DoubleColumn sum = a.copy().add(b);
+        for (int i = 0; i < n; i++) {
+            if (a.isNA(i)) {
+                Assert.assertTrue(sum.isNA(i));
+            } else if (b.isNA(i)) {
+                Assert.assertEquals(i * 0.5, sum.getDouble(i), 0d);
+            } else {
+                Assert.assertEquals(i * 1.5, sum.getDouble(i), 0d);
+            }
+        }
+        Assert.assertEquals(original.sum(), a.sum(), 0d);
+
+        IntegerColumn divided = b.copy().divide(2);
+        Assert.assertEquals(2, divided.getInt(5));
+        Assert.assertTrue(divided.isNA(3));
+        Assert.assertEquals(6, (int) b.copy().add(1.5).get(5));
+        IntegerColumn quotient = b.slice(10, 20).divide(b.slice(10, 20));
+        Assert.assertEquals(1, quotient.getInt(0));
+        Assert.assertEquals(11, b.getInt(11));
+
+        DataFrame frame = new DefaultDataFrame();
+        frame.addColumn(a.copy());
+        frame.addColumn(b.copy());
+        frame.setParallelism(Parallelism.threshold(1000));
+        DoubleColumn parallel = frame.getDoubleColumn("a").multiply(frame.getIntegerColumn("b")).subtract(1d);
+        for (int i = 0; i < n; i++) {
+            if (!a.isNA(i) && !b.isNA(i)) {
+                Assert.assertEquals(i * 0.5 * i - 1d, parallel.getDouble(i), 0d);
+            } else if (!a.isNA(i)) {
+                Assert.assertEquals(i * 0.5 - 1d, parallel.getDouble(i), 0d);
+            }
+        }
+        Assert.assertEquals(original.sum(), a.sum(), 0d);
+        Assert.assertEquals(parallel.getStatistics().getMax(), parallel.getDouble(n - 1), 0d);
+
+        OffHeapIntegerColumn offHeap = new OffHeapIntegerColumn("o");
+        offHeap.append(10);
+        offHeap.appendNA();
+        offHeap.append(30);
+        offHeap.multiply(3).subtract(new IntegerColumn("x", new int[]{1, 2, 3}));
+        Assert.assertEquals(29, offHeap.getInt(0));
+        Assert.assertTrue(offHeap.isNA(1));
+        Assert.assertEquals(87, offHeap.getInt(2));
+        offHeap.close();
+
+        long large = (1L << 53) + 1;
+        LongColumn longs = new LongColumn("l", new long[]{large, large, Long.MAX_VALUE - 1, 7});
+        longs.add(1).subtract(new LongColumn("s", new long[]{0, 2, 0, 0}));
+        Assert.assertEquals(large + 1, longs.getLong(0));
+        Assert.assertEquals(large - 1, longs.getLong(1));
+        Assert.assertEquals(Long.MAX_VALUE, longs.getLong(2));
+        longs.multiply(1.5);
+        Assert.assertEquals(12L, longs.getLong(3));
+        Assert.assertEquals(Long.MAX_VALUE, new LongColumn("d", new long[]{large}).divide(0).getLong(0));
+        Assert.assertEquals(large, new LongColumn("q", new long[]{large * 3}).divide(3L).getLong(0));
+
+        IntegerColumn ints = new IntegerColumn("i", new int[]{Integer.MAX_VALUE, -5, 6});
+        ints.add(1L).divide(new IntegerColumn("z", new int[]{1, 0, 2}));
+        Assert.assertEquals(Integer.MAX_VALUE, ints.getInt(0));
+        Assert.assertEquals(Integer.MIN_VALUE, ints.getInt(1));
+        Assert.assertEquals(3, ints.getInt(2));
+    }
+
+    @Test
+    public void packedColumnTest() {
+        LongColumn timestamps = new LongColumn("t");
+        IntegerColumn counters = new IntegerColumn("c");
+        Random random = new Random(1);
+        int size = 1000;
+        for (int i = 0; i < size; i++) {
+            timestamps.append(1500000000000L + i * 1000L + random.nextInt(100));
+            if (i % 7 == 0) {
+                counters.appendNA();
+            } else {
+                counters.append(i % 10 == 0 ? -random.nextInt() : random.nextInt(16));
+            }
+        }
+        timestamps.append(Long.MIN_VALUE);
+        timestamps.append(Long.MAX_VALUE);
+        counters.append(Integer.MAX_VALUE);
+        counters.append(Integer.MIN_VALUE);
+
+        PackedLongColumn packedTimestamps = (PackedLongColumn) timestamps.seal();
+        PackedIntegerColumn packedCounters = (PackedIntegerColumn) counters.seal();
+        Assert.assertEquals(timestamps.size(), packedTimestamps.size());
+        for (int i = 0; i < timestamps.size(); i++) {
+            Assert.assertEquals(timestamps.getLong(i), packedTimestamps.getLong(i));
+            Assert.assertEquals(counters.get(i), packedCounters.get(i));
+        }
+        Assert.assertTrue(packedTimestamps.getMemorySize() < size * 8L / 2);
+        Assert.assertArrayEquals(counters.slice(0, size).toArray(), packedCounters.slice(0, size).toArray());
+        long[] decoded = packedTimestamps.toPrimitiveArray();
+        Assert.assertEquals(Long.MAX_VALUE, decoded[size + 1]);
+        Assert.assertEquals(counters.sum(), packedCounters.sum());
+        Assert.assertEquals(counters.max(), packedCounters.max());
+
+        try {
+            packedCounters.set(1, 5);
+            Assert.fail("packed columns are immutable");
+        } catch (DataFrameRuntimeException e) {
+            Assert.assertFalse(packedCounters.isNA(1));
+        }
+        try {
+            packedCounters.append(1);
+            Assert.fail("packed columns are immutable");
+        } catch (DataFrameRuntimeException e) {
+            Assert.assertEquals(size + 2, packedCounters.size());
+        }
+
+        DataFrame df = DataFrame.create().addColumn(timestamps.copy()).addColumn(counters.copy());
+        df.seal();
+        Assert.assertEquals(PackedLongColumn.class, df.getColumn("t").getClass());
+        Assert.assertEquals(PackedIntegerColumn.class, df.getColumn("c").getClass());
+        df.sort("c");
+        Assert.assertEquals(IntegerColumn.class, df.getColumn("c").getClass());
+        Assert.assertEquals(Integer.MIN_VALUE, (int) df.getIntegerColumn("c").get(0));
+
+        DataFrame sealed = DataFrame.create().addColumn(new DoubleColumn("d")).addColumn(new IntegerColumn("i"));
+        for (int i = 0; i < 1000; i++) {
+            sealed.append((double) i, i);
+        }
+        sealed.seal();
+        Assert.assertTrue(sealed.getColumn("i").isSealed());
+        Assert.assertFalse(sealed.getColumn("d").isSealed());
+        try {
+            sealed.append(1d, 1);
+            Assert.fail("sealed data frames are immutable");
+        } catch (DataFrameRuntimeException e) {
+            // expected
+        }
+        try {
+            sealed.appendColumns(new double[]{1d, 2d, 3d}, new int[]{1, 2, 3});
+            Assert.fail("sealed data frames are immutable");
+        } catch (DataFrameRuntimeException e) {
+            // expected
+        }
+        try {
+            sealed.clear();
+            Assert.fail("sealed data frames are immutable");
+        } catch (DataFrameRuntimeException e) {
+            // expected
+        }
+        Assert.assertEquals(1000, sealed.size());
+        Assert.assertEquals(1000, sealed.getColumn("d").size());
+        Assert.assertEquals(1000, sealed.getColumn("i").size());
+    }
 }
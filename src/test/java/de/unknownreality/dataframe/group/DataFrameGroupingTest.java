@@ -25,18 +25,33 @@
 package de.unknownreality.dataframe.group;
 
 import de.unknownreality.dataframe.*;
+import de.unknownreality.dataframe.column.DictionaryStringColumn;
 import de.unknownreality.dataframe.column.DoubleColumn;
 import de.unknownreality.dataframe.column.IntegerColumn;
+import de.unknownreality.dataframe.column.LongColumn;
+import de.unknownreality.dataframe.column.PackedIntegerColumn;
+import de.unknownreality.dataframe.column.RunLengthIntegerColumn;
+import de.unknownreality.dataframe.column.RunLengthStringColumn;
 import de.unknownreality.dataframe.column.StringColumn;
 import de.unknownreality.dataframe.csv.CSVFormat;
 import de.unknownreality.dataframe.csv.CSVReader;
 import de.unknownreality.dataframe.csv.CSVReaderBuilder;
 import de.unknownreality.dataframe.filter.FilterPredicate;
 import de.unknownreality.dataframe.group.aggr.Aggregate;
+import de.unknownreality.dataframe.group.aggr.AggregateFunction;
+import de.unknownreality.dataframe.group.aggr.AggregateSpec;
+import de.unknownreality.dataframe.group.aggr.MergeableAggregateFunction;
+import de.unknownreality.dataframe.group.impl.HashGroupUtil;
+import de.unknownreality.dataframe.group.impl.SortedGroupUtil;
 import de.unknownreality.dataframe.group.impl.TreeGroupUtil;
+import de.unknownreality.dataframe.sort.SortColumn;
+import de.unknownreality.dataframe.transform.CountTransformer;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Random;
+import java.util.stream.IntStream;
+
 /**
  * Created by Alex on 12.03.2016.
  */
@@ -115,6 +130,103 @@ public class DataFrameGroupingTest {
 
     }
 
+    @Test
+    public void testDictionaryGroupUtil() {
+        CSVReader csvReader = CSVReaderBuilder.create()
+                .withHeader(true)
+                .withHeaderPrefix("")
+                .withSeparator(';')
+                .setColumnType("ID", Integer.class)
+                .setColumnType("NAME", DictionaryStringColumn.class)
+                .setColumnType("VALUE", Integer.class)
+                .build();
+
+        DataFrame dataFrame = DataFrameLoader.load("data_grouping.csv", DataFrameGroupingTest.class.getClassLoader(), csvReader);
+        Assert.assertEquals(DictionaryStringColumn.class, dataFrame.getColumn("NAME").getClass());
+        DictionaryStringColumn nameColumn = (DictionaryStringColumn) dataFrame.getColumn("NAME");
+        Assert.assertEquals(3, nameColumn.getDictionarySize());
+
+        DataGrouping dataGroups = dataFrame.groupBy("ID", "NAME");
+        Assert.assertEquals(6, dataGroups.size());
+        testGroup(dataGroups.findByGroupValues(1, "A"), 1, 6);
+        testGroup(dataGroups.findByGroupValues(3, "B"), 4, 8);
+        testGroup(dataGroups.findByGroupValues(2, "C"), 5);
+
+        Assert.assertEquals(3, dataFrame.groupBy("NAME").size());
+        Assert.assertEquals(4, dataFrame.select(FilterPredicate.eq("NAME", "B")).size());
+        Assert.assertEquals(5, dataFrame.select(FilterPredicate.ne("NAME", "A")).size());
+        Assert.assertEquals(0, dataFrame.select(FilterPredicate.eq("NAME", "X")).size());
+        Assert.assertEquals(1, dataFrame.select("NAME == 'C'").size());
+
+        DataFrame clustered = DataFrame.create().addColumn(new DictionaryStringColumn("DAY"));
+        for (int i = 0; i < 100; i++) {
+            clustered.append(i < 60 ? "2019-01-01" : "2019-01-02");
+        }
+        clustered.seal();
+        Assert.assertEquals(DictionaryStringColumn.class, clustered.getColumn("DAY").getClass());
+        Assert.assertEquals(DictionaryStringColumn.class, clustered.select(FilterPredicate.eq("DAY", "2019-01-02")).getColumn("DAY").getClass());
+    }
+
+    @Test
+    public void testRunLengthGroupUtil() {
+        DataFrame dataFrame = DataFrame.create()
+                .addStringColumn("DAY")
+                .addIntegerColumn("PART")
+                .addIntegerColumn("VALUE");
+        for (int i = 0; i < 100; i++) {
+            dataFrame.append(i < 60 ? "2019-01-01" : (i < 90 ? "2019-01-02" : null), i / 25, i);
+        }
+        dataFrame.seal();
+        Assert.assertEquals(RunLengthStringColumn.class, dataFrame.getColumn("DAY").getClass());
+        Assert.assertEquals(RunLengthIntegerColumn.class, dataFrame.getColumn("PART").getClass());
+        Assert.assertEquals(PackedIntegerColumn.class, dataFrame.getColumn("VALUE").getClass());
+        RunLengthStringColumn dayColumn = (RunLengthStringColumn) dataFrame.getColumn("DAY");
+        Assert.assertEquals(3, dayColumn.getRunCount());
+        Assert.assertEquals(90, dayColumn.getRunEnd(1));
+        Assert.assertTrue(dataFrame.getRow(95).isNA("DAY"));
+        Assert.assertEquals(3, dataFrame.getRow(99).getInteger("PART").intValue());
+
+        DataGrouping dataGroups = dataFrame.groupBy("DAY", "PART");
+        Assert.assertEquals(6, dataGroups.size());
+        DataGroup group = dataGroups.findByGroupValues("2019-01-02", 2).getGroup();
+        Assert.assertEquals(15, group.size());
+        Assert.assertEquals(60, group.getRow(0).getInteger("VALUE").intValue());
+        int groupedRows = 0;
+        for (int i = 0; i < dataGroups.size(); i++) {
+            groupedRows += dataGroups.getGroup(i).size();
+        }
+        Assert.assertEquals(100, groupedRows);
+        Assert.assertEquals(4, dataFrame.groupBy("PART").size());
+
+        DataFrame counts = dataFrame.getColumn("DAY").transform(new CountTransformer());
+        counts.setPrimaryKey("DAY");
+        Assert.assertEquals(2, counts.size());
+        Assert.assertEquals(30, (int) counts.selectByPrimaryKey("2019-01-02").getInteger(CountTransformer.COUNTS_COLUMN));
+
+        Assert.assertEquals(30, dataFrame.select(FilterPredicate.eq("DAY", "2019-01-02")).size());
+        Assert.assertEquals(40, dataFrame.select(FilterPredicate.ne("DAY", "2019-01-01")).size());
+        Assert.assertEquals(50, dataFrame.select(FilterPredicate.ge("PART", 2)).size());
+        Assert.assertEquals(5, dataFrame.select("PART == 2 && VALUE >= 70").size());
+
+        // compiled predicates keep their caches in the cursor and can be shared between threads
+        FilterPredicate shared = FilterPredicate.compile("DAY == '2019-01-02'");
+        long matches = IntStream.range(0, 16).parallel().mapToLong(t -> {
+            RowCursor cursor = dataFrame.cursor();
+            int count = 0;
+            while (cursor.next()) {
+                if (shared.valid(cursor)) {
+                    count++;
+                }
+            }
+            return count;
+        }).sum();
+        Assert.assertEquals(16 * 30, matches);
+
+        dataFrame.sort("VALUE", SortColumn.Direction.Descending);
+        Assert.assertEquals(StringColumn.class, dataFrame.getColumn("DAY").getClass());
+        Assert.assertEquals(99, dataFrame.getRow(0).getInteger("VALUE").intValue());
+    }
+
     @Test
     public void testNewGroupUtil() {
         /*
@@ -182,6 +294,295 @@ public class DataFrameGroupingTest {
 
     }
 
+    @Test
+    public void testHashGroupUtil() {
+        DataFrame dataFrame = new DefaultDataFrame();
+        dataFrame.addColumn(new IntegerColumn("id"));
+        dataFrame.addColumn(new DictionaryStringColumn("cat"));
+        dataFrame.addColumn(new StringColumn("name"));
+        dataFrame.addColumn(new DoubleColumn("value"));
+        int size = 2000;
+        for (int i = 0; i < size; i++) {
+            dataFrame.append(i % 13 == 0 ? null : i % 7, "c" + i % 3, i % 11 == 0 ? null : "n" + i % 5, (double) i);
+        }
+        dataFrame.addExpressionColumn("mod", Integer.class, (df, row) -> row % 4);
+        String[][] groupColumns = {{"id"}, {"cat", "name"}, {"id", "name", "mod"}};
+        for (String[] columns : groupColumns) {
+            ((DefaultDataFrame) dataFrame).setGroupUtil(new TreeGroupUtil());
+            DataGrouping expected = dataFrame.groupBy(columns);
+            ((DefaultDataFrame) dataFrame).setGroupUtil(new HashGroupUtil());
+            DataGrouping grouping = dataFrame.groupBy(columns);
+            Assert.assertEquals(expected.size(), grouping.size());
+            Assert.assertEquals(expected.size(), grouping.getGroupRowIndices().getGroupCount());
+            for (int g = 0; g < grouping.size(); g++) {
+                for (int c = 0; c < columns.length; c++) {
+                    Assert.assertEquals(expected.getValue(c, g), grouping.getValue(c, g));
+                }
+                DataGroup expectedGroup = expected.getGroup(g);
+                Assert.assertEquals(expectedGroup.size(), grouping.getGroupSize(g));
+                DataGroup group = grouping.getRow(g).getGroup();
+                Assert.assertSame(group, grouping.getGroup(g));
+                Assert.assertEquals(expectedGroup.getGroupDescription(), group.getGroupDescription());
+                Assert.assertEquals(expectedGroup.size(), group.size());
+                for (int i = 0; i < group.size(); i++) {
+                    Assert.assertEquals(expectedGroup.getRow(i), group.getRow(i));
+                }
+            }
+        }
+        DataGrouping changed = dataFrame.groupBy("cat");
+        DataGroup created = changed.getGroup(0);
+        dataFrame.getDoubleColumn("value").set(0, -1d);
+        Assert.assertSame(created, changed.getGroup(0));
+        try {
+            changed.getGroup(1);
+            Assert.fail("groups must not be created after values of the source data frame changed");
+        } catch (DataFrameRuntimeException e) {
+            // expected
+        }
+        DataGrouping grouping = dataFrame.groupBy("id");
+        Assert.assertNull(grouping.findByGroupValues((Object) null));
+        Assert.assertEquals(size / 13 + 1, grouping.getGroupSize(grouping.findByGroupValues(Values.NA).getIndex()));
+        dataFrame.sort("value", SortColumn.Direction.Descending);
+        try {
+            grouping.getGroup(0);
+            Assert.fail("groups must not be created after the source data frame changed");
+        } catch (DataFrameRuntimeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSortedGroupUtil() {
+        DefaultDataFrame dataFrame = new DefaultDataFrame();
+        dataFrame.addColumn(new DictionaryStringColumn("cat"));
+        dataFrame.addColumn(new IntegerColumn("id"));
+        dataFrame.addColumn(new DoubleColumn("value"));
+        int size = 3000;
+        for (int i = 0; i < size; i++) {
+            dataFrame.append("c" + i % 4, i % 17 == 0 ? null : i % 9, (double) i);
+        }
+        dataFrame.sort(new SortColumn("cat"), new SortColumn("id", SortColumn.Direction.Descending));
+        Assert.assertTrue(dataFrame.isSortedBy("cat"));
+        Assert.assertTrue(dataFrame.isSortedBy("id", "cat"));
+        Assert.assertFalse(dataFrame.isSortedBy("id"));
+        Assert.assertFalse(dataFrame.isSortedBy("cat", "value"));
+
+        String[] columns = {"id", "cat"};
+        DataGrouping grouping = dataFrame.groupBy(columns, AggregateSpec.sum("sum", "value"));
+        dataFrame.setGroupUtil(new HashGroupUtil() {
+        });
+        Assert.assertFalse(dataFrame.getGroupUtil().getClass() == HashGroupUtil.class);
+        DataGrouping expected = dataFrame.groupBy(columns, AggregateSpec.sum("sum", "value"));
+        Assert.assertEquals(4 * 10, grouping.size());
+        Assert.assertEquals(expected.size(), grouping.size());
+        GroupRowIndices groupRows = grouping.getGroupRowIndices();
+        Assert.assertTrue(groupRows.isContiguous());
+        Assert.assertNull(groupRows.getRowArray());
+        Assert.assertFalse(expected.getGroupRowIndices().isContiguous());
+        for (int g = 0; g < grouping.size(); g++) {
+            for (int c = 0; c < 3; c++) {
+                Assert.assertEquals(expected.getValue(c, g), grouping.getValue(c, g));
+            }
+            Assert.assertEquals(expected.getGroupSize(g), grouping.getGroupSize(g));
+            Assert.assertEquals(g == 0 ? 0 : groupRows.getEnd(g - 1), groupRows.getStart(g));
+            DataGroup group = grouping.getGroup(g);
+            for (int i = 0; i < group.size(); i++) {
+                Assert.assertEquals(dataFrame.getRow(groupRows.getStart(g) + i), group.getRow(i));
+            }
+        }
+
+        dataFrame.setGroupUtil(new SortedGroupUtil());
+        DataGrouping explicit = dataFrame.groupBy("cat");
+        Assert.assertEquals(4, explicit.size());
+        Assert.assertEquals(size / 4, explicit.getGroupSize(0));
+
+        dataFrame.append("c0", 1, 0d);
+        Assert.assertFalse(dataFrame.isSortedBy("cat"));
+        dataFrame.sort(new SortColumn("cat"));
+        Assert.assertTrue(dataFrame.isSortedBy("cat"));
+        dataFrame.getStringColumn("cat").set(0, "c3");
+        Assert.assertFalse(dataFrame.isSortedBy("cat"));
+
+        DefaultDataFrame renamed = new DefaultDataFrame();
+        renamed.addColumn(new IntegerColumn("a"));
+        renamed.addColumn(new IntegerColumn("b"));
+        renamed.append(1, 2).append(2, 1).append(3, 2);
+        renamed.sort(new SortColumn("a"));
+        renamed.renameColumn("a", "x");
+        renamed.renameColumn("b", "a");
+        Assert.assertTrue(renamed.isSortedBy("x"));
+        Assert.assertFalse(renamed.isSortedBy("a"));
+        Assert.assertEquals(2, renamed.groupBy("a").size());
+    }
+
+    @Test
+    public void testSinglePassAggregation() {
+        DataFrame dataFrame = new DefaultDataFrame();
+        dataFrame.addColumn(new DictionaryStringColumn("cat"));
+        dataFrame.addColumn(new IntegerColumn("x"));
+        dataFrame.addColumn(new DoubleColumn("y"));
+        int size = 1000;
+        for (int i = 0; i < size; i++) {
+            dataFrame.append("c" + i % 7, i % 5 == 0 ? null : i, i < 7 || i % 3 == 0 ? null : i / 4d);
+        }
+        AggregateSpec[] aggregates = {
+                AggregateSpec.count("n"),
+                AggregateSpec.naCount("na", "x"),
+                AggregateSpec.sum("sum", "x"),
+                AggregateSpec.min("min", "x"),
+                AggregateSpec.max("max", "y"),
+                AggregateSpec.mean("mean", "y")
+        };
+        DataGrouping grouping = dataFrame.groupBy(new String[]{"cat"}, aggregates);
+        Assert.assertEquals(7, grouping.size());
+        Assert.assertEquals(IntegerColumn.class, grouping.getColumn("n").getClass());
+        Assert.assertEquals(IntegerColumn.class, grouping.getColumn("sum").getClass());
+        Assert.assertEquals(DoubleColumn.class, grouping.getColumn("max").getClass());
+        Assert.assertEquals(DoubleColumn.class, grouping.getColumn("mean").getClass());
+
+        ((DefaultDataFrame) dataFrame).setGroupUtil(new TreeGroupUtil());
+        DataGrouping expected = dataFrame.groupBy(new String[]{"cat"}, aggregates);
+        for (int g = 0; g < grouping.size(); g++) {
+            GroupRow row = grouping.getRow(g);
+            GroupRow expectedRow = expected.findByGroupValues(row.getString("cat"));
+            DataGroup group = row.getGroup();
+            Assert.assertEquals(group.size(), (int) row.getInteger("n"));
+            Assert.assertEquals(group.getNumberColumn("x").getStatistics().getNACount(), (int) row.getInteger("na"));
+            Assert.assertEquals(group.getNumberColumn("x").getStatistics().getSum(), row.getInteger("sum"), 0d);
+            Assert.assertEquals(group.getNumberColumn("x").getStatistics().getMin(), row.getInteger("min"), 0d);
+            Assert.assertEquals(group.getNumberColumn("y").getStatistics().getMax(), row.getDouble("max"), 0d);
+            Assert.assertEquals(group.getNumberColumn("y").getStatistics().getMean(), row.getDouble("mean"), 1e-9);
+            for (AggregateSpec aggregate : aggregates) {
+                Assert.assertEquals(expectedRow.getNumber(aggregate.getName()).doubleValue(),
+                        row.getNumber(aggregate.getName()).doubleValue(), 1e-9);
+            }
+        }
+
+        // groups without values
+        dataFrame.append("empty", null, null);
+        ((DefaultDataFrame) dataFrame).setGroupUtil(new HashGroupUtil());
+        GroupRow empty = dataFrame.groupBy(new String[]{"cat"}, aggregates).findByGroupValues("empty");
+        Assert.assertEquals(1, (int) empty.getInteger("n"));
+        Assert.assertEquals(1, (int) empty.getInteger("na"));
+        Assert.assertEquals(0, (int) empty.getInteger("sum"));
+        Assert.assertTrue(empty.isNA("min"));
+        Assert.assertTrue(empty.isNA("max"));
+        Assert.assertTrue(empty.isNA("mean"));
+
+        // integral sums are exact beyond 2^53
+        DataFrame longs = new DefaultDataFrame();
+        longs.addColumn(new StringColumn("cat"));
+        longs.addColumn(new LongColumn("l"));
+        longs.append("a", (1L << 60) + 1);
+        longs.append("a", 1L);
+        longs.append("b", Long.MAX_VALUE - 1);
+        GroupRow sums = longs.groupBy(new String[]{"cat"}, AggregateSpec.sum("sum", "l"),
+                AggregateSpec.max("max", "l")).findByGroupValues("a");
+        Assert.assertEquals((1L << 60) + 2, (long) sums.getLong("sum"));
+        Assert.assertEquals((1L << 60) + 1, (long) sums.getLong("max"));
+        longs.append("b", 2L);
+        try {
+            longs.groupBy(new String[]{"cat"}, AggregateSpec.sum("sum", "l"));
+            Assert.fail("overflowing sum must fail");
+        } catch (DataFrameRuntimeException e) {
+            // expected
+        }
+        DataFrame ints = new DefaultDataFrame();
+        ints.addColumn(new StringColumn("cat"));
+        ints.addColumn(new IntegerColumn("i"));
+        ints.append("a", Integer.MAX_VALUE);
+        ints.append("a", 1);
+        try {
+            ints.groupBy(new String[]{"cat"}, AggregateSpec.sum("sum", "i"));
+            Assert.fail("overflowing sum must fail");
+        } catch (DataFrameRuntimeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testParallelHashGroupUtil() {
+        DataFrame dataFrame = new DefaultDataFrame();
+        dataFrame.addColumn(new IntegerColumn("id"));
+        dataFrame.addColumn(new StringColumn("name"));
+        dataFrame.addColumn(new DoubleColumn("value"));
+        int size = 70000;
+        Random random = new Random(7);
+        for (int i = 0; i < size; i++) {
+            // some groups only appear in later row ranges
+            int id = i < size / 2 ? random.nextInt(500) : random.nextInt(1000);
+            dataFrame.append(id % 97 == 0 ? null : id, "n" + id % 3, i % 10 == 0 ? null : random.nextDouble());
+        }
+        String[] columns = {"id", "name"};
+        AggregateSpec[] aggregates = {
+                AggregateSpec.count("n"),
+                AggregateSpec.naCount("na", "value"),
+                AggregateSpec.sum("sum", "value"),
+                AggregateSpec.min("min", "value"),
+                AggregateSpec.max("max", "value"),
+                AggregateSpec.mean("mean", "value")
+        };
+        DataGrouping expected = dataFrame.groupBy(columns, aggregates);
+        dataFrame.setParallelism(Parallelism.threshold(1000));
+        DataGrouping grouping = dataFrame.groupBy(columns, aggregates);
+        Assert.assertEquals(expected.size(), grouping.size());
+        for (int g = 0; g < grouping.size(); g++) {
+            for (int c = 0; c < expected.getHeader().size(); c++) {
+                Object expectedValue = expected.getValue(c, g);
+                Object value = grouping.getValue(c, g);
+                if (expectedValue instanceof Double) {
+                    Assert.assertEquals((Double) expectedValue, (Double) value, 1e-9);
+                } else {
+                    Assert.assertEquals(expectedValue, value);
+                }
+            }
+            Assert.assertArrayEquals(expected.getGroupRowIndices().getRows(g), grouping.getGroupRowIndices().getRows(g));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMergeableAggregates() {
+        DataFrame dataFrame = new DefaultDataFrame();
+        dataFrame.addColumn(new StringColumn("name"));
+        dataFrame.addColumn(new IntegerColumn("x"));
+        dataFrame.addColumn(new StringColumn("s"));
+        for (int i = 0; i < 200; i++) {
+            dataFrame.append("g" + i % 3, i % 7 == 0 ? null : (i * 37) % 101, i % 5 == 3 && i < 150 ? null : "s" + i);
+        }
+        AggregateFunction<?>[] functions = {
+                Aggregate.count(), Aggregate.mean("x"), Aggregate.median("x"),
+                Aggregate.min("x"), Aggregate.max("x"), Aggregate.quantile("x", 0.25),
+                Aggregate.first("s"), Aggregate.last("s"), Aggregate.naCount("s"),
+                Aggregate.join(",", "s"), Aggregate.filterCount("x > 50"),
+                MergeableAggregateFunction.adapt(DataGroup::size)
+        };
+        DataGrouping grouping = dataFrame.groupBy("name");
+        ((DefaultDataFrame) dataFrame).setGroupUtil(new TreeGroupUtil());
+        DataGrouping expected = dataFrame.groupBy("name");
+        for (int f = 0; f < functions.length; f++) {
+            grouping.agg("f" + f, functions[f]);
+            expected.agg("f" + f, functions[f]);
+        }
+        Assert.assertEquals(expected, grouping);
+
+        // partial states of two row ranges are merged
+        RowCursor cursor = dataFrame.cursor();
+        for (AggregateFunction<?> function : functions) {
+            MergeableAggregateFunction<Object, ?> mergeable = (MergeableAggregateFunction<Object, ?>) function;
+            for (int g = 0; g < grouping.size(); g++) {
+                int[] rows = grouping.getGroupRowIndices().getRows(g);
+                Object first = mergeable.init();
+                Object second = mergeable.init();
+                for (int i = 0; i < rows.length; i++) {
+                    mergeable.accumulate(i < rows.length / 3 ? first : second, cursor.seek(rows[i]));
+                }
+                Assert.assertEquals(function.aggregate(grouping.getGroup(g)),
+                        mergeable.finish(mergeable.merge(first, second)));
+            }
+        }
+    }
+
     @Test
     public void testAgg() {
         DataFrame dataFrame = DataFrame.fromCSV("data_group_agg_pre.csv", DataFrame.class.getClassLoader(), ';', true);
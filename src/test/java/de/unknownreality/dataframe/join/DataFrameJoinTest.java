@@ -28,6 +28,7 @@ import de.unknownreality.dataframe.DataFrame;
 import de.unknownreality.dataframe.DataFrameLoader;
 import de.unknownreality.dataframe.DataRow;
 import de.unknownreality.dataframe.Values;
+import de.unknownreality.dataframe.column.DictionaryStringColumn;
 import de.unknownreality.dataframe.csv.CSVReader;
 import de.unknownreality.dataframe.csv.CSVReaderBuilder;
 import de.unknownreality.dataframe.group.DataFrameGroupingTest;
@@ -165,6 +166,43 @@ public class DataFrameJoinTest {
     }
 
 
+    @Test
+    public void testDictionaryJoin() {
+        CSVReader csvReader = CSVReaderBuilder.create()
+                .withHeader(true)
+                .withHeaderPrefix("")
+                .withSeparator(';')
+                .setColumnType("GENE_ID", DictionaryStringColumn.class)
+                .setColumnType("FPKM", Double.class)
+                .setColumnType("CHR", String.class)
+                .build();
+        DataFrame geneDataFrame = DataFrameLoader.load("data_join_a.csv", DataFrameGroupingTest.class.getClassLoader(), csvReader);
+        Assert.assertEquals(DictionaryStringColumn.class, geneDataFrame.getColumn("GENE_ID").getClass());
+
+        csvReader = CSVReaderBuilder.create()
+                .withHeader(true)
+                .withHeaderPrefix("")
+                .withSeparator(';')
+                .setColumnType("TRANSCRIPT_ID", String.class)
+                .setColumnType("GENE_ID", DictionaryStringColumn.class)
+                .setColumnType("FPKM", Double.class)
+                .setColumnType("TRANSCRIPT_NUMBER", Integer.class)
+                .build();
+        DataFrame transcriptDataFrame = DataFrameLoader.load("data_join_b.csv", DataFrameGroupingTest.class.getClassLoader(), csvReader);
+
+        JoinedDataFrame innerJoin = geneDataFrame.joinInner(transcriptDataFrame, "GENE_ID");
+        Assert.assertEquals(3, innerJoin.size());
+        checkJoinedRow(innerJoin.getRow(0), "A", 5d, "1", "TA", 7d, 1);
+        checkJoinedRow(innerJoin.getRow(1), "A", 5d, "1", "TB", 3d, 2);
+        checkJoinedRow(innerJoin.getRow(2), "B", 4d, "2", "TC", 6d, 1);
+
+        JoinedDataFrame outerJoin = geneDataFrame.joinOuter(transcriptDataFrame, "GENE_ID");
+        Assert.assertEquals(6, outerJoin.size());
+        checkJoinedRow(outerJoin.getRow(3), "C", 6d, "3", Values.NA, Values.NA, Values.NA);
+        checkJoinedRow(outerJoin.getRow(4), "D", 6d, "1", Values.NA, Values.NA, Values.NA);
+        checkJoinedRow(outerJoin.getRow(5), "E", Values.NA, Values.NA, "TD", 4d, 1);
+    }
+
     private static void checkJoinedRow(DataRow row, Object geneId, Object gene_fpkm, Object chr, Object transcriptId, Object transcript_fpkm, Object transcriptNumber) {
         Assert.assertEquals(geneId, row.get("GENE_ID"));
         Assert.assertEquals(gene_fpkm, row.get("FPKM" + DefaultJoinUtil.JOIN_SUFFIX_A));